@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import com.lul.config.SendGridConfig;
 
@@ -13,6 +14,7 @@ import com.lul.config.SendGridConfig;
 @EnableJpaRepositories("com.lul.repository")
 @EnableConfigurationProperties(SendGridConfig.class)
 @EnableScheduling
+@EnableAsync
 public class LulBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(LulBackendApplication.class, args);
@@ -18,8 +18,8 @@ public class CacheConfig {
      */
     @Bean
     public CacheManager cacheManager() {
+        // Dashboard summaries use DashboardService's own coalescing cache
         return new ConcurrentMapCacheManager(
-            "dashboardSummary"
             // Add other cache names as needed
         );
     }
@@ -0,0 +1,86 @@
+package com.lul.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Guard for the virtual-thread execution mode.
+ * Streams jdk.VirtualThreadPinned JFR events in-process and reports every carrier thread
+ * that was pinned (blocking I/O inside a synchronized block or native frame) for longer
+ * than the configured threshold, so hot spots such as monitors held around JDBC calls
+ * show up in the logs and in the lulpay.virtual.pinned metric.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOGGED_FRAMES = 8;
+
+    private final Counter pinnedCounter;
+
+    @Value("${app.virtual-threads.pinned-threshold-ms:20}")
+    private long pinnedThresholdMs;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.pinnedCounter = Counter.builder("lulpay.virtual.pinned")
+            .description("Virtual threads that pinned their carrier longer than the threshold")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(pinnedThresholdMs))
+                .withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            log.info("Virtual thread mode active, monitoring carrier pinning above {} ms", pinnedThresholdMs);
+        } catch (Exception e) {
+            // JFR may be unavailable on some runtimes, the application works without the guard
+            log.warn("Unable to start virtual thread pinning monitor: {}", e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+
+        String frames = "unknown";
+        if (event.getStackTrace() != null) {
+            frames = event.getStackTrace().getFrames().stream()
+                .limit(MAX_LOGGED_FRAMES)
+                .map(this::formatFrame)
+                .collect(Collectors.joining(" <- "));
+        }
+
+        log.warn("Virtual thread pinned its carrier for {} ms: {}", event.getDuration().toMillis(), frames);
+    }
+
+    private String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
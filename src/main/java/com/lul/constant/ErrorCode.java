@@ -51,6 +51,7 @@ public enum ErrorCode {
     INVALID_PIN("ERR_651", HttpStatus.UNAUTHORIZED),
     PIN_ALREADY_SET("ERR_653", HttpStatus.CONFLICT),
     PIN_MISMATCH("ERR_654", HttpStatus.BAD_REQUEST),
+    CREDENTIAL_VERIFICATION_BUSY("ERR_656", HttpStatus.TOO_MANY_REQUESTS),
     
     // Profile Update errors (700 series)
     PROFILE_UPDATE_FAILED("ERR_700", HttpStatus.INTERNAL_SERVER_ERROR),
@@ -97,6 +98,8 @@ public enum ErrorCode {
     FEE_CONFIGURATION_NOT_FOUND("ERR_915", HttpStatus.NOT_FOUND),
     TRANSACTION_LIMITS_NOT_FOUND("ERR_916", HttpStatus.NOT_FOUND),
     TRANSACTION_NOT_FOUND("ERR_917", HttpStatus.NOT_FOUND),
+    EXCHANGE_RATE_NOT_FOUND("ERR_918", HttpStatus.BAD_REQUEST),
+    INVALID_HISTORY_CURSOR("ERR_919", HttpStatus.BAD_REQUEST),
     WALLET_ACCESS_DENIED("ERR_905", HttpStatus.FORBIDDEN),
     
     // Non-wallet transfer errors (920 series)
@@ -107,11 +110,35 @@ public enum ErrorCode {
     NON_WALLET_TRANSFER_FAILED("ERR_925", HttpStatus.INTERNAL_SERVER_ERROR),
     RECIPIENT_DETAILS_NOT_FOUND("ERR_926", HttpStatus.NOT_FOUND),
     INVALID_RELATIONSHIP("ERR_927", HttpStatus.BAD_REQUEST),
+    DISBURSEMENT_EVENTS_BUSY("ERR_928", HttpStatus.TOO_MANY_REQUESTS),
+    INVALID_DISBURSEMENT_STAGE_TRANSITION("ERR_929", HttpStatus.CONFLICT),
+    
+    // Transfer quote errors (930 series)
+    QUOTE_INVALID("ERR_931", HttpStatus.BAD_REQUEST),
+    QUOTE_EXPIRED("ERR_932", HttpStatus.BAD_REQUEST),
+    
+    // Dashboard errors (940 series)
+    INVALID_DATE_RANGE("ERR_941", HttpStatus.BAD_REQUEST),
+    LIVE_DASHBOARD_BUSY("ERR_942", HttpStatus.TOO_MANY_REQUESTS),
     
     // Notification related errors (950 series)
     NOTIFICATION_TYPE_NOT_FOUND("ERR_951", HttpStatus.NOT_FOUND),
     NOTIFICATION_CHANNEL_NOT_FOUND("ERR_952", HttpStatus.NOT_FOUND),
-    NOTIFICATION_FAILED("ERR_953", HttpStatus.INTERNAL_SERVER_ERROR);
+    NOTIFICATION_FAILED("ERR_953", HttpStatus.INTERNAL_SERVER_ERROR),
+    
+    // Reconciliation and export errors (960 series)
+    RECONCILIATION_IN_PROGRESS("ERR_961", HttpStatus.CONFLICT),
+    RECONCILIATION_RUN_NOT_FOUND("ERR_962", HttpStatus.NOT_FOUND),
+    EXPORT_IN_PROGRESS("ERR_963", HttpStatus.CONFLICT),
+    EXPORT_NOT_FOUND("ERR_964", HttpStatus.NOT_FOUND),
+    EXPORT_FAILED("ERR_965", HttpStatus.INTERNAL_SERVER_ERROR),
+    
+    // Wallet posting errors (970 series)
+    POSTING_QUEUE_FULL("ERR_971", HttpStatus.TOO_MANY_REQUESTS),
+    POSTING_ENGINE_STOPPED("ERR_972", HttpStatus.SERVICE_UNAVAILABLE),
+    
+    // Sync errors (980 series)
+    INVALID_SYNC_CURSOR("ERR_981", HttpStatus.BAD_REQUEST);
     
     final String code;
     final HttpStatus httpStatus;
@@ -2,6 +2,8 @@ package com.lul.controller;
 
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import com.lul.entity.User;
 import com.lul.service.AccessHistoryService;
+import com.lul.service.UserChangeService;
 
 @RestController
 @RequestMapping("/api/access")
@@ -22,8 +25,16 @@ public class AccessHistoryController {
     @Autowired
     private AccessHistoryService accessHistoryService;
 
+    @Autowired
+    private UserChangeService userChangeService;
+
+    /**
+     * Access history of the authenticated user. Responses carry an ETag derived from the user's change
+     * version; a refresh sending it back in If-None-Match gets 304 without the history being read.
+     */
     @GetMapping("/history")
-    public ResponseEntity<?> getAccessHistory() {
+    public ResponseEntity<?> getAccessHistory(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             Object principal = auth.getPrincipal();
@@ -48,12 +59,21 @@ public class AccessHistoryController {
                 ));
             }
             
+            // The version is read before the history, so a change committed in between yields a new tag next time
+            String eTag = ETags.of(userId, "access-history", userChangeService.version(userId));
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(ETags.revalidate()).build();
+            }
+            
             List<Map<String, Object>> history = accessHistoryService.getUserAccessHistory(userId);
             
-            return ResponseEntity.ok(Map.of(
-                "status", "success",
-                "data", history
-            ));
+            return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(ETags.revalidate())
+                .body(Map.of(
+                    "status", "success",
+                    "data", history
+                ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
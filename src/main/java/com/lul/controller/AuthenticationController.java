@@ -17,6 +17,7 @@ import com.lul.dto.LoginRequest;
 import com.lul.dto.LoginResponse;
 import com.lul.dto.UserRegistrationRequest;
 import com.lul.exception.RegistrationException;
+import com.lul.exception.TooManyRequestsException;
 import com.lul.constant.ErrorCode;
 
 @RestController
@@ -36,6 +37,12 @@ public class AuthenticationController {
         try {
             LoginResponse response = authenticationService.login(request, httpRequest);
             return ResponseEntity.ok(response);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of(
+                "status", "error",
+                "code", ErrorCode.CREDENTIAL_VERIFICATION_BUSY.getCode(),
+                "message", "Too many requests, please try again shortly"
+            ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "status", "error",
@@ -62,6 +69,11 @@ public class AuthenticationController {
                         // Return 409 Conflict for duplicate resources
                         return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
                     }
+                    
+                    if (errorCode.equals(ErrorCode.CREDENTIAL_VERIFICATION_BUSY.getCode())) {
+                        // Return 429 when the hashing pool is saturated
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+                    }
                 }
                 
                 // Default to BAD_REQUEST for other errors
@@ -0,0 +1,61 @@
+package com.lul.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Strong ETags and If-None-Match handling for conditional GETs
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Clients must revalidate every request, but may reuse the body they have while the ETag matches
+     */
+    static CacheControl revalidate() {
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    /**
+     * Strong ETag over the given values, so a change of any of them yields a new one
+     *
+     * @param values The values the response depends on
+     * @return The quoted ETag
+     */
+    static String of(Object... values) {
+        String fields = Arrays.stream(values)
+            .map(String::valueOf)
+            .collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(fields.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the ETag of the current representation
+     *
+     * @param ifNoneMatch The header value, or null
+     * @param eTag The current ETag
+     * @return true if the client's copy is current
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            // Proxies may weaken the tag; weak comparison is fine for a GET
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
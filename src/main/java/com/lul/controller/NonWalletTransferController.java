@@ -4,14 +4,20 @@ import com.lul.dto.ApiResponse;
 import com.lul.dto.NonWalletTransferRequest;
 import com.lul.dto.NonWalletTransferResponse;
 import com.lul.entity.User;
+import com.lul.service.DisbursementEventService;
 import com.lul.service.NonWalletTransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controller for handling non-wallet transfer operations.
@@ -24,6 +30,7 @@ import org.springframework.web.bind.annotation.*;
 public class NonWalletTransferController {
 
     private final NonWalletTransferService nonWalletTransferService;
+    private final DisbursementEventService disbursementEventService;
 
     /**
      * Endpoint to initiate a non-wallet transfer.
@@ -58,17 +65,21 @@ public class NonWalletTransferController {
     /**
      * Endpoint to get the status of a non-wallet transfer.
      * This endpoint allows a user to check the status of a previously initiated non-wallet transfer.
+     * Responses carry an ETag; a poll sending it back in If-None-Match gets 304 with no body while
+     * the status is unchanged.
      *
      * @param userDetails   The authenticated user details
      * @param transactionId The ID of the transaction to check
+     * @param ifNoneMatch   The ETag of the status the client already has, if any
      * @return ResponseEntity containing the transfer status
      */
     @GetMapping("/{transactionId}")
     public ResponseEntity<ApiResponse<NonWalletTransferResponse>> getNonWalletTransferStatus(
             @AuthenticationPrincipal UserDetails userDetails,
-            @PathVariable Long transactionId) {
+            @PathVariable Long transactionId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
-        log.info("Received request to check non-wallet transfer status for transaction ID: {}", transactionId);
+        log.debug("Received request to check non-wallet transfer status for transaction ID: {}", transactionId);
         
         // Extract user ID from authenticated user
         Long userId;
@@ -81,7 +92,58 @@ public class NonWalletTransferController {
         // Get the transfer status
         NonWalletTransferResponse response = nonWalletTransferService.getNonWalletTransferStatus(userId, transactionId);
         
+        // Clients must revalidate every poll, but may reuse the body they have while the ETag matches
+        String eTag = statusETag(response);
+        CacheControl cacheControl = ETags.revalidate();
+        if (ETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        
         // Return success response
-        return ResponseEntity.ok(new ApiResponse<>(true, "Non-wallet transfer status retrieved successfully", response));
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(cacheControl)
+            .body(new ApiResponse<>(true, "Non-wallet transfer status retrieved successfully", response));
+    }
+    
+    /**
+     * Endpoint streaming the disbursement stage transitions of the user's non-wallet transfers.
+     * Each transition is sent as a "disbursement-stage" event, so clients can stop polling the status.
+     *
+     * @param userDetails The authenticated user details
+     * @return The server-sent event stream
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDisbursementEvents(@AuthenticationPrincipal UserDetails userDetails) {
+        
+        // Extract user ID from authenticated user
+        Long userId;
+        if (userDetails instanceof User) {
+            userId = ((User) userDetails).getId();
+        } else {
+            throw new IllegalStateException("User details not of expected type");
+        }
+        
+        return disbursementEventService.subscribe(userId);
+    }
+    
+    /**
+     * Strong ETag over every field of the status, so any change (stage, status, balance) yields a new one
+     */
+    private static String statusETag(NonWalletTransferResponse response) {
+        return ETags.of(
+            response.getTransactionId(),
+            response.getStatus(),
+            response.getDisbursementStageId(),
+            response.getDisbursementStageName(),
+            response.getSenderWalletBalanceAfter() != null ? response.getSenderWalletBalanceAfter().toPlainString() : "",
+            response.getAmount(),
+            response.getFee(),
+            response.getTotalAmount(),
+            response.getCurrency(),
+            response.getDescription(),
+            response.getTimestamp(),
+            response.getRecipientName(),
+            response.getRecipientPhoneNumber());
     }
-} 
\ No newline at end of file
+}
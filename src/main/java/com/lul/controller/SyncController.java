@@ -0,0 +1,66 @@
+package com.lul.controller;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.SyncResponseDto;
+import com.lul.entity.User;
+import com.lul.exception.BadRequestException;
+import com.lul.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controller for the delta sync of the mobile app
+ */
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Slf4j
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * Endpoint returning the wallets, transactions and notifications of the authenticated user that changed
+     * since the cursor of the previous sync. Without a cursor, or with one too old to be served, the response
+     * asks the client to reload its listings and carries the cursor to continue from.
+     */
+    @GetMapping
+    public ResponseEntity<?> sync(@RequestParam(required = false) String since) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User user = (User) auth.getPrincipal();
+            
+            SyncResponseDto changes = syncService.sync(user.getId(), since);
+            
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", changes
+            ));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (Exception e) {
+            log.error("Error syncing user changes: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of(
+                    "status", "error",
+                    "code", ErrorCode.SERVER_ERROR.getCode(),
+                    "message", "An unexpected error occurred"
+                ));
+        }
+    }
+}
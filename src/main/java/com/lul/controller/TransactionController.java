@@ -1,25 +1,45 @@
 package com.lul.controller;
 
 import com.lul.constant.ErrorCode;
+import com.lul.dto.TransactionHistoryFilter;
+import com.lul.dto.TransactionHistoryPageDto;
+import com.lul.dto.TransferQuoteDto;
+import com.lul.dto.TransferQuoteRequest;
 import com.lul.dto.WalletTransferByWorkerIdRequest;
 import com.lul.dto.WalletTransferResponse;
 import com.lul.entity.User;
+import com.lul.entity.UserWallet;
+import com.lul.exception.BadRequestException;
 import com.lul.exception.InsufficientFundsException;
 import com.lul.exception.InvalidPinException;
+import com.lul.exception.LulPayException;
 import com.lul.exception.NotFoundException;
+import com.lul.exception.TooManyRequestsException;
+import com.lul.exception.TransactionException;
 import com.lul.exception.TransactionLimitExceededException;
+import com.lul.service.StatementExportService;
+import com.lul.service.TransactionHistoryService;
+import com.lul.service.TransferQuoteService;
+import com.lul.service.UserChangeService;
 import com.lul.service.WorkerIdTransferService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * Controller for handling transaction-related operations
@@ -34,6 +54,10 @@ import java.util.Map;
 public class TransactionController {
 
     private final WorkerIdTransferService transferService;
+    private final TransferQuoteService transferQuoteService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final StatementExportService statementExportService;
+    private final UserChangeService userChangeService;
 
     /**
      * Endpoint for wallet-to-wallet transfer using worker ID
@@ -50,11 +74,15 @@ public class TransactionController {
             WalletTransferResponse response = transferService.transferByWorkerId(
                 user.getId(), 
                 request.getSenderWalletTypeId(),
+                request.getReceiverWalletTypeId() != null
+                    ? request.getReceiverWalletTypeId()
+                    : request.getSenderWalletTypeId(),
                 request.getReceiverWorkerId(),
                 request.getAmount(),
                 request.getPin(),
                 request.getDescription(),
-                request.getIdempotencyKey()
+                request.getIdempotencyKey(),
+                request.getQuoteToken()
             );
             
             return ResponseEntity.ok(Map.of(
@@ -90,6 +118,27 @@ public class TransactionController {
                     "code", e.getErrorCode().getCode(),
                     "message", e.getMessage()
                 ));
+        } catch (LulPayException e) {
+            return ResponseEntity.status(e.getErrorCode().getHttpStatus())
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (TransactionException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(Map.of(
+                    "status", "error",
+                    "code", ErrorCode.CREDENTIAL_VERIFICATION_BUSY.getCode(),
+                    "message", "Too many requests, please try again shortly"
+                ));
         } catch (Exception e) {
             log.error("Error processing wallet transfer: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -101,6 +150,164 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Endpoint for quoting a transfer before executing it
+     * Returns the fee and exchange rate together with a signed quote token; passing the token to the
+     * transfer endpoint before it expires executes the transfer at exactly the quoted price
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<?> quoteTransfer(@Valid @RequestBody TransferQuoteRequest request) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User user = (User) auth.getPrincipal();
+            
+            TransferQuoteDto quote = transferQuoteService.createQuote(
+                user.getId(),
+                request.getTransferType(),
+                request.getSenderWalletTypeId(),
+                request.getReceiverWalletTypeId(),
+                request.getAmount()
+            );
+            
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", quote
+            ));
+        } catch (NotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (LulPayException e) {
+            return ResponseEntity.status(e.getErrorCode().getHttpStatus())
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (TransactionException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (Exception e) {
+            log.error("Error creating transfer quote: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of(
+                    "status", "error",
+                    "code", ErrorCode.TRANSACTION_FAILED.getCode(),
+                    "message", "An unexpected error occurred"
+                ));
+        }
+    }
+    
+    /**
+     * Endpoint for the authenticated user's transaction history, newest first
+     * Uses keyset pagination: pass the nextCursor of a page as cursor to fetch the next one
+     * Responses carry an ETag derived from the user's change version and the query; a refresh sending it back
+     * in If-None-Match gets 304 without the history being read
+     */
+    @GetMapping("/history")
+    public ResponseEntity<?> getTransactionHistory(
+            @RequestParam(required = false) Integer walletTypeId,
+            @RequestParam(required = false) Integer typeId,
+            @RequestParam(required = false) Integer statusId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "ALL") TransactionHistoryFilter.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User user = (User) auth.getPrincipal();
+            
+            // The version is read before the page, so a change committed in between yields a new tag next time
+            String eTag = ETags.of(user.getId(), "transactions", userChangeService.version(user.getId()),
+                walletTypeId, typeId, statusId, from, to, direction, cursor, limit);
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(ETags.revalidate()).build();
+            }
+            
+            TransactionHistoryFilter filter = TransactionHistoryFilter.builder()
+                .walletTypeId(walletTypeId)
+                .transactionTypeId(typeId)
+                .transactionStatusId(statusId)
+                .from(from)
+                .to(to)
+                .direction(direction)
+                .build();
+            
+            TransactionHistoryPageDto page = transactionHistoryService.getHistory(user.getId(), filter, cursor, limit);
+            
+            return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(ETags.revalidate())
+                .body(Map.of(
+                    "status", "success",
+                    "data", page
+                ));
+        } catch (NotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (Exception e) {
+            log.error("Error fetching transaction history: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of(
+                    "status", "error",
+                    "code", ErrorCode.SERVER_ERROR.getCode(),
+                    "message", "An unexpected error occurred"
+                ));
+        }
+    }
+    
+    /**
+     * Endpoint for exporting the statement of one of the user's wallets as CSV
+     * The statement is streamed row by row, optionally gzipped, so it can cover any date range.
+     * It is written on the export pool with the export timeout, not on the shared async executor.
+     */
+    @GetMapping("/statement")
+    public WebAsyncTask<Void> exportStatement(
+            @RequestParam Integer walletTypeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = (User) auth.getPrincipal();
+        
+        // Resolved before the response is committed, so an unknown wallet still gets an error response
+        UserWallet wallet = statementExportService.resolveWallet(user.getId(), walletTypeId);
+        
+        String fileName = String.format("statement-%d-%s-%s.csv%s", walletTypeId,
+            from.format(DateTimeFormatter.BASIC_ISO_DATE), to.format(DateTimeFormatter.BASIC_ISO_DATE),
+            gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : "text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        
+        Callable<Void> export = () -> {
+            statementExportService.exportCsv(wallet.getId(), from, to, response.getOutputStream(), gzip);
+            return null;
+        };
+        return new WebAsyncTask<>(statementExportService.getTimeoutMs(), statementExportService.getTaskExecutor(),
+            export);
+    }
+    
     /**
      * Legacy endpoint for backward compatibility
      * Redirects to the main wallet-to-wallet endpoint
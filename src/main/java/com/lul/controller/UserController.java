@@ -2,7 +2,6 @@ package com.lul.controller;
 
 import com.lul.entity.User;
 import com.lul.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import jakarta.validation.Valid;
 
@@ -12,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 
 import java.util.Map;
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.lul.service.PasswordHashingService;
 import com.lul.service.UserService;
 
 import com.lul.dto.PinVerificationRequest;
@@ -35,13 +36,16 @@ import com.lul.service.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataAccessException;
 
+import com.lul.service.UserChangeService;
 import com.lul.service.WalletService;
+import com.lul.service.RegistrationPipelineService;
 import com.lul.entity.UserWallet;
 import com.lul.dto.WalletInfoDto;
 
 import java.util.Optional;
 
 import com.lul.exception.NotFoundException;
+import com.lul.exception.TooManyRequestsException;
 import com.lul.constant.ErrorCode;
 
 @RestController
@@ -52,12 +56,14 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserService userService;
     private final UserProfileRepository userProfileRepository;
     private final UserTokenRepository userTokenRepository;
     private final UserProfileService userProfileService;
     private final WalletService walletService;
+    private final RegistrationPipelineService registrationPipelineService;
+    private final UserChangeService userChangeService;
 
     @PostMapping("/user/pin/create")
     public ResponseEntity<?> createPin(@Valid @RequestBody PinUpdateRequest request) {
@@ -65,19 +71,17 @@ public class UserController {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             User user = (User) auth.getPrincipal();
             
-            String hashedPin = passwordEncoder.encode(request.getPin());
+            String hashedPin = passwordHashingService.encode(request.getPin());
             user.setPinHash(hashedPin);
             user.setRegisterStatus(4);  // Changed from setRegistrationStageId
             userRepository.save(user);
             
-            // Create default wallets for the user
-            Map<String, Object> walletResult = walletService.createDefaultWallets(user);
+            // Default wallets are created by the registration pipeline; a repeated PIN creation does not add more
+            registrationPipelineService.scheduleDefaultWallets(user.getId());
             
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
-            if (walletResult.get("status").equals("success")) {
-                response.put("wallets", walletResult.get("walletIds"));
-            }
+            response.put("wallets", walletService.getDefaultWalletIds(user.getId()));
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -96,7 +100,7 @@ public class UserController {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             User user = (User) auth.getPrincipal();
             
-            String hashedPin = passwordEncoder.encode(request.getPin());
+            String hashedPin = passwordHashingService.encode(request.getPin());
             user.setPinHash(hashedPin);
             // Note: We don't update registration_stage_id here
             userRepository.save(user);
@@ -184,7 +188,7 @@ public class UserController {
             }
             
             logger.debug("Stored PIN hash: {}", user.getPinHash());
-            boolean isValid = passwordEncoder.matches(request.getPin(), user.getPinHash());
+            boolean isValid = passwordHashingService.matches(request.getPin(), user.getPinHash());
             logger.debug("PIN verification result: {}", isValid);
             
             if (!isValid) {
@@ -198,6 +202,12 @@ public class UserController {
                 "status", "success",
                 "data", Map.of("isValid", true)
             ));
+        } catch (TooManyRequestsException e) {
+            // Hashing pool saturated, ask the client to retry
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of(
+                "status", "error",
+                "code", ErrorCode.CREDENTIAL_VERIFICATION_BUSY.getCode()
+            ));
         } catch (DataAccessException e) {
             // Database connectivity issues
             logger.error("Database error during PIN verification: ", e);
@@ -247,19 +257,32 @@ public class UserController {
         }
     }
 
+    /**
+     * Wallet listing of the authenticated user. Responses carry an ETag; a refresh sending it back in
+     * If-None-Match gets 304 with no body while the wallets are unchanged.
+     */
     @GetMapping("/user/wallets")
-    public ResponseEntity<?> getUserWallets() {
+    public ResponseEntity<?> getUserWallets(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             User user = (User) auth.getPrincipal();
             
+            // The version is read before the wallets, so a change committed in between yields a new tag next time.
+            // Listings are served from the wallet view cache, which does not need the database; the served
+            // wallets are part of the tag because the cache can lag behind changes committed on other instances.
+            long version = userChangeService.version(user.getId());
             List<WalletInfoDto> wallets = walletService.getUserWalletsFormatted(user.getId());
+            String eTag = ETags.of(user.getId(), "wallets", version, wallets);
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(ETags.revalidate()).build();
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("data", wallets);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(ETags.revalidate()).body(response);
         } catch (Exception e) {
             logger.error("Failed to get user wallets: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -1,15 +1,30 @@
 package com.lul.controller.admin;
 
+import com.lul.constant.ErrorCode;
+import com.lul.dto.ActiveUsersDto;
 import com.lul.dto.DashboardSummaryDto;
+import com.lul.dto.DashboardTimeSeriesDto;
+import com.lul.enums.TimeSeriesDimension;
+import com.lul.enums.TimeSeriesInterval;
+import com.lul.exception.BadRequestException;
+import com.lul.service.ActiveUserService;
 import com.lul.service.DashboardService;
+import com.lul.service.DashboardTimeSeriesService;
+import com.lul.service.LiveDashboardService;
+import com.lul.service.TransactionRollupService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * Controller for admin dashboard data
@@ -20,10 +35,20 @@ import java.time.LocalDateTime;
 public class DashboardController {
     
     private final DashboardService dashboardService;
+    private final TransactionRollupService transactionRollupService;
+    private final DashboardTimeSeriesService dashboardTimeSeriesService;
+    private final ActiveUserService activeUserService;
+    private final LiveDashboardService liveDashboardService;
     
     @Autowired
-    public DashboardController(DashboardService dashboardService) {
+    public DashboardController(DashboardService dashboardService, TransactionRollupService transactionRollupService,
+                               DashboardTimeSeriesService dashboardTimeSeriesService, ActiveUserService activeUserService,
+                               LiveDashboardService liveDashboardService) {
         this.dashboardService = dashboardService;
+        this.transactionRollupService = transactionRollupService;
+        this.dashboardTimeSeriesService = dashboardTimeSeriesService;
+        this.activeUserService = activeUserService;
+        this.liveDashboardService = liveDashboardService;
     }
     
     /**
@@ -49,4 +74,116 @@ public class DashboardController {
         DashboardSummaryDto summary = dashboardService.getDashboardSummary(startDate, endDate);
         return ResponseEntity.ok(summary);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Stream today's transfer totals per currency and type as server-sent events: a "snapshot" event on
+     * connect, then a "delta" event each second with the changes. Clients add deltas to the snapshot and
+     * replace their totals whenever a new snapshot arrives (after reconnecting or falling behind).
+     * 
+     * @return The event stream
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamLiveTotals() {
+        return liveDashboardService.subscribe();
+    }
+    
+    /**
+     * Get transaction volume, value and fees over time, optionally broken down by currency, corridor or type.
+     * Long ranges are downsampled to a wider interval; the interval used is returned with the series.
+     * 
+     * @param from Start of the range
+     * @param to Optional end of the range, defaults to now
+     * @param interval Bucket width: HOUR, DAY or WEEK
+     * @param groupBy Breakdown: NONE, CURRENCY, CORRIDOR or TYPE
+     * @param currency Optional sender currency filter
+     * @param transactionTypeId Optional transaction type filter
+     * @return Time series data
+     */
+    @GetMapping("/timeseries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTimeSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "DAY") TimeSeriesInterval interval,
+            @RequestParam(required = false, defaultValue = "NONE") TimeSeriesDimension groupBy,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) Integer transactionTypeId) {
+        
+        log.info("Getting dashboard time series from {} to {} by {} grouped by {}", from, to, interval, groupBy);
+        
+        try {
+            DashboardTimeSeriesDto timeSeries = dashboardTimeSeriesService.getTimeSeries(
+                from, to != null ? to : LocalDateTime.now(), interval, groupBy, currency, transactionTypeId);
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", timeSeries
+            ));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        }
+    }
+    
+    /**
+     * Get estimated daily, weekly and monthly active users, and optionally the active users of a custom window
+     * 
+     * @param from Optional first day of the window
+     * @param to Optional last day of the window (inclusive), defaults to today
+     * @return Active user counts
+     */
+    @GetMapping("/active-users")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getActiveUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        ActiveUsersDto activeUsers = activeUserService.getActiveUsers();
+        if (from != null) {
+            LocalDate windowEnd = to != null ? to : LocalDate.now();
+            if (windowEnd.isBefore(from)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                        "status", "error",
+                        "code", ErrorCode.INVALID_DATE_RANGE.getCode(),
+                        "message", "from must not be after to"
+                    ));
+            }
+            activeUsers.setFrom(from);
+            activeUsers.setTo(windowEnd);
+            activeUsers.setWindowActiveUsers(activeUserService.countActiveUsers(from, windowEnd));
+        }
+        
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "data", activeUsers
+        ));
+    }
+    
+    /**
+     * Rebuild the hourly and daily transaction rollups from transaction history, e.g. after the
+     * rollup table is first deployed. Buckets that are still open are left to the incremental updates.
+     * 
+     * @param from Start of the range to rebuild
+     * @param to Optional end of the range, defaults to now
+     * @return Number of days processed
+     */
+    @PostMapping("/rollups/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> backfillRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        log.info("Backfilling transaction rollups from {} to {}", from, to);
+        
+        int days = transactionRollupService.rebuild(from, to != null ? to : LocalDateTime.now());
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "data", Map.of("daysProcessed", days)
+        ));
+    }
+}
@@ -0,0 +1,82 @@
+package com.lul.controller.admin;
+
+import com.lul.exception.LulPayException;
+import com.lul.exception.NotFoundException;
+import com.lul.service.DisbursementBatchService;
+import com.lul.service.NonWalletTransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller for operating non-wallet disbursements
+ */
+@RestController
+@RequestMapping("/api/admin/disbursements")
+@Slf4j
+public class DisbursementController {
+    
+    private final NonWalletTransferService nonWalletTransferService;
+    private final DisbursementBatchService disbursementBatchService;
+    
+    @Autowired
+    public DisbursementController(NonWalletTransferService nonWalletTransferService,
+                                  DisbursementBatchService disbursementBatchService) {
+        this.nonWalletTransferService = nonWalletTransferService;
+        this.disbursementBatchService = disbursementBatchService;
+    }
+    
+    /**
+     * List the most recent payout batches
+     * 
+     * @return The last 20 batches, newest first
+     */
+    @GetMapping("/batches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> listBatches() {
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "data", disbursementBatchService.getRecentBatches()
+        ));
+    }
+    
+    /**
+     * Move a non-wallet transfer to another disbursement stage
+     * 
+     * @param transactionId The transaction ID
+     * @param stageId The new disbursement stage ID
+     * @return Whether the stage changed, or 409 if the transfer cannot move to that stage
+     */
+    @PutMapping("/{transactionId}/stage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateStage(@PathVariable Long transactionId, @RequestParam Integer stageId) {
+        log.info("Moving non-wallet transfer {} to disbursement stage {}", transactionId, stageId);
+        
+        try {
+            boolean changed = nonWalletTransferService.updateDisbursementStage(transactionId, stageId);
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", Map.of("transactionId", transactionId, "stageId", stageId, "changed", changed)
+            ));
+        } catch (NotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        } catch (LulPayException e) {
+            return ResponseEntity.status(e.getErrorCode().getHttpStatus())
+                .body(Map.of(
+                    "status", "error",
+                    "code", e.getErrorCode().getCode(),
+                    "message", e.getMessage()
+                ));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.lul.controller.admin;
+
+import com.lul.entity.BalanceMismatch;
+import com.lul.entity.BalanceReconciliationRun;
+import com.lul.enums.ReconciliationMode;
+import com.lul.exception.NotFoundException;
+import com.lul.service.BalanceReconciliationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for wallet balance reconciliation runs and the mismatches they report
+ */
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+@Slf4j
+public class ReconciliationController {
+    
+    private final BalanceReconciliationService balanceReconciliationService;
+    
+    @Autowired
+    public ReconciliationController(BalanceReconciliationService balanceReconciliationService) {
+        this.balanceReconciliationService = balanceReconciliationService;
+    }
+    
+    /**
+     * Start a reconciliation run in the background, or resume the last one if it did not finish
+     * 
+     * @param mode FULL to check every wallet, INCREMENTAL for wallets updated since the last completed run
+     * @return The started run
+     */
+    @PostMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startRun(
+            @RequestParam(required = false, defaultValue = "INCREMENTAL") ReconciliationMode mode) {
+        
+        log.info("Starting {} balance reconciliation", mode);
+        
+        BalanceReconciliationRun run = balanceReconciliationService.startRun(mode);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+            "status", "success",
+            "data", run
+        ));
+    }
+    
+    /**
+     * Get the most recent reconciliation runs with their progress
+     * 
+     * @return Up to 20 runs, newest first
+     */
+    @GetMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getRuns() {
+        List<BalanceReconciliationRun> runs = balanceReconciliationService.getRecentRuns();
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "data", runs
+        ));
+    }
+    
+    /**
+     * Get a reconciliation run
+     * 
+     * @param runId The run ID
+     * @return The run
+     */
+    @GetMapping("/runs/{runId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getRun(@PathVariable Long runId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", balanceReconciliationService.getRun(runId)
+            ));
+        } catch (NotFoundException e) {
+            return notFound(e);
+        }
+    }
+    
+    /**
+     * Get the wallets whose balance did not match their transactions in a run, in wallet order
+     * 
+     * @param runId The run ID
+     * @param after Optional wallet ID to continue after (the last ID of the previous page)
+     * @param limit Maximum number of mismatches, at most 500
+     * @return The mismatches
+     */
+    @GetMapping("/runs/{runId}/mismatches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getMismatches(
+            @PathVariable Long runId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
+        try {
+            List<BalanceMismatch> mismatches = balanceReconciliationService.getMismatches(runId, after, limit);
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", mismatches
+            ));
+        } catch (NotFoundException e) {
+            return notFound(e);
+        }
+    }
+    
+    private ResponseEntity<?> notFound(NotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(Map.of(
+                "status", "error",
+                "code", e.getErrorCode().getCode(),
+                "message", e.getMessage()
+            ));
+    }
+}
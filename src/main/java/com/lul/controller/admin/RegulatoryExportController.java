@@ -0,0 +1,103 @@
+package com.lul.controller.admin;
+
+import com.lul.dto.RegulatoryExportDto;
+import com.lul.exception.NotFoundException;
+import com.lul.service.RegulatoryExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Controller for regulatory exports of the transaction history, written to the server's export directory
+ */
+@RestController
+@RequestMapping("/api/admin/exports/transactions")
+@Slf4j
+public class RegulatoryExportController {
+    
+    private final RegulatoryExportService regulatoryExportService;
+    
+    @Autowired
+    public RegulatoryExportController(RegulatoryExportService regulatoryExportService) {
+        this.regulatoryExportService = regulatoryExportService;
+    }
+    
+    /**
+     * Start exporting all transactions, or those created within a range, in the background
+     * 
+     * @param from Optional start of the range
+     * @param to Optional end of the range (exclusive)
+     * @return The export, with the ID to poll
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startExport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        log.info("Starting regulatory transaction export from {} to {}", from, to);
+        
+        RegulatoryExportDto export = regulatoryExportService.startExport(from, to);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+            "status", "success",
+            "data", export
+        ));
+    }
+    
+    /**
+     * Resume an interrupted export; partitions already written are kept
+     * 
+     * @param exportId The export ID
+     * @return The export
+     */
+    @PostMapping("/{exportId}/resume")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> resumeExport(@PathVariable String exportId) {
+        log.info("Resuming regulatory transaction export {}", exportId);
+        
+        try {
+            RegulatoryExportDto export = regulatoryExportService.resumeExport(exportId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "status", "success",
+                "data", export
+            ));
+        } catch (NotFoundException e) {
+            return notFound(e);
+        }
+    }
+    
+    /**
+     * Get the progress of an export, or its manifest (files, row counts and checksums) once complete
+     * 
+     * @param exportId The export ID
+     * @return The export
+     */
+    @GetMapping("/{exportId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getExport(@PathVariable String exportId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "data", regulatoryExportService.getExport(exportId)
+            ));
+        } catch (NotFoundException e) {
+            return notFound(e);
+        }
+    }
+    
+    private ResponseEntity<?> notFound(NotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(Map.of(
+                "status", "error",
+                "code", e.getErrorCode().getCode(),
+                "message", e.getMessage()
+            ));
+    }
+}
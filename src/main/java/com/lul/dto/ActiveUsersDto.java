@@ -0,0 +1,28 @@
+package com.lul.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Estimated distinct active users (users who logged in or sent a transfer).
+ * Daily, weekly and monthly counts are for the windows ending today; the window
+ * fields are only set when a custom window was requested.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ActiveUsersDto {
+    private long dailyActiveUsers;
+    private long weeklyActiveUsers;
+    private long monthlyActiveUsers;
+    private LocalDate from;
+    private LocalDate to;
+    private Long windowActiveUsers;
+}
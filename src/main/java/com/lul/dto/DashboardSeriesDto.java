@@ -0,0 +1,19 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One line of a dashboard chart, e.g. a currency, corridor ("UGX-USD") or transaction type.
+ * Has one point per bucket of the response, including empty buckets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSeriesDto {
+    private String key;
+    private List<DashboardSeriesPointDto> points;
+}
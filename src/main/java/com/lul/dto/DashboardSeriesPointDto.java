@@ -0,0 +1,21 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Volume, value and fees of one time series bucket
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSeriesPointDto {
+    private LocalDateTime bucketStart;
+    private long count;
+    private BigDecimal value;
+    private BigDecimal fees;
+}
@@ -13,12 +13,12 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class DashboardSummaryDto {
     /**
-     * Total number of transactions in the system
+     * Total number of completed transactions in the system
      */
     private long totalTransactions;
     
     /**
-     * Total monetary value of all transactions
+     * Total monetary value of all completed transactions
      */
     private BigDecimal totalTransactionValue;
     
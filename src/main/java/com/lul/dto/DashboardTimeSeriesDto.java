@@ -0,0 +1,28 @@
+package com.lul.dto;
+
+import com.lul.enums.TimeSeriesDimension;
+import com.lul.enums.TimeSeriesInterval;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dashboard time series. The range is aligned outwards to whole buckets, and interval may be wider
+ * than requestedInterval when the range would otherwise produce too many points.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardTimeSeriesDto {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private TimeSeriesInterval requestedInterval;
+    private TimeSeriesInterval interval;
+    private TimeSeriesDimension groupBy;
+    private List<DashboardSeriesDto> series;
+}
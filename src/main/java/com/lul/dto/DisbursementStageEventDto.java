@@ -0,0 +1,23 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Disbursement stage transition of a non-wallet transfer, pushed to its sender
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisbursementStageEventDto {
+    public static final String EVENT_NAME = "disbursement-stage";
+    
+    private Long transactionId;
+    private Integer previousStageId;
+    private Integer stageId;
+    private String stageName;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,39 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for an exchange rate resolved from the in-memory rate index
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRateDto {
+    /**
+     * ID of the exchange_rates row the rate was derived from
+     */
+    private Integer exchangeRateId;
+    
+    private Integer fromWalletId;
+    private Integer toWalletId;
+    
+    /**
+     * Units of the target currency per unit of the source currency
+     */
+    private BigDecimal rate;
+    
+    /**
+     * True when the rate was derived by inverting the opposite currency pair
+     */
+    private boolean inverted;
+    
+    private LocalDateTime effectiveDate;
+    private LocalDateTime expiryDate;
+}
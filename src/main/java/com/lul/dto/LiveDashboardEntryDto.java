@@ -0,0 +1,21 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Live transfer totals of one currency and transaction type; absolute in a snapshot, increments in a delta
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveDashboardEntryDto {
+    private String currency;
+    private Integer transactionTypeId;
+    private long count;
+    private BigDecimal value;
+    private BigDecimal fees;
+}
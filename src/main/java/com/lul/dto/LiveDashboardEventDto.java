@@ -0,0 +1,25 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Message pushed to live dashboards. A snapshot replaces the client's totals for the day,
+ * a delta is added to them; sequence increases by one per delta so clients can spot gaps.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveDashboardEventDto {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+    
+    private String type;
+    private LocalDate day;
+    private long sequence;
+    private List<LiveDashboardEntryDto> entries;
+}
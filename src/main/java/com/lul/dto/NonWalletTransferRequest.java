@@ -40,6 +40,8 @@ public class NonWalletTransferRequest {
     @Size(max = 50, message = "Idempotency key must be at most 50 characters")
     private String idempotencyKey;
     
+    private String quoteToken;  // Optional, locks the fee quoted by /api/transactions/quote
+    
     // Recipient details
     @NotBlank(message = "Recipient full name is required")
     @Size(max = 100, message = "Full name must be at most 100 characters")
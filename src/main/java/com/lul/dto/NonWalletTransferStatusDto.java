@@ -0,0 +1,33 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a non-wallet transfer with its sender wallet, recipient and disbursement stage,
+ * read by one joined query. senderWalletId and recipientName are null when the row is missing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NonWalletTransferStatusDto {
+    private Long transactionId;
+    private Integer senderId;
+    private Integer transactionStatusId;
+    private Integer senderWalletId;
+    private BigDecimal senderWalletBalance;
+    private BigDecimal amount;
+    private BigDecimal fee;
+    private BigDecimal totalAmount;
+    private String currency;
+    private String description;
+    private LocalDateTime createdAt;
+    private String recipientName;
+    private String recipientPhoneNumber;
+    private Integer disbursementStageId;
+    private String disbursementStageName;
+}
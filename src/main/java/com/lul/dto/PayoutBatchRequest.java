@@ -0,0 +1,21 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Payout batch submitted to a payout provider. The batch ID doubles as the idempotency key, since a
+ * batch whose outcome was lost is submitted again.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutBatchRequest {
+    private Integer batchId;
+    private String country;
+    private String currency;
+    private List<PayoutItemDto> items;
+}
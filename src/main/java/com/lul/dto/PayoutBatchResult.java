@@ -0,0 +1,18 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a payout batch. Items not listed as rejected were paid out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutBatchResult {
+    private String providerReference;
+    private List<Long> rejectedTransactionIds;
+}
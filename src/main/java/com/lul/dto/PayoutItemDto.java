@@ -0,0 +1,25 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One non-wallet transfer of a payout batch with the recipient details the payout provider needs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutItemDto {
+    private Long transactionId;
+    private BigDecimal amount;
+    private String currency;
+    private String recipientName;
+    private String phoneNumber;
+    private String idDocumentType;
+    private String idNumber;
+    private String country;
+    private String city;
+}
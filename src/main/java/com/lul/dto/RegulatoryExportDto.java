@@ -0,0 +1,40 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A regulatory export of transaction history. Written as export.json when the export starts and,
+ * with every partition listed, as manifest.json once all partitions are complete.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegulatoryExportDto {
+    public static final String RUNNING = "RUNNING";
+    public static final String INCOMPLETE = "INCOMPLETE";
+    public static final String COMPLETED = "COMPLETED";
+    
+    private String exportId;
+    private String status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int minId;
+    private int maxId;
+    private int partitionSize;
+    private int partitionsTotal;
+    private int partitionsDone;
+    private long totalRows;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private String lastError;
+    @Builder.Default
+    private List<RegulatoryExportPartitionDto> partitions = new ArrayList<>();
+}
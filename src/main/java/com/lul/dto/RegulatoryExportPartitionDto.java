@@ -0,0 +1,26 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One completed partition file of a regulatory export, covering transaction IDs [fromId, toId)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegulatoryExportPartitionDto {
+    private int index;
+    private int fromId;
+    private int toId;
+    private String file;
+    private long rows;
+    private long bytes;
+    private String sha256;
+    private LocalDateTime completedAt;
+}
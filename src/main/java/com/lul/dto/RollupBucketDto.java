@@ -0,0 +1,36 @@
+package com.lul.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totals of one bucket for one currency, receiver currency and transaction type
+ */
+@Data
+@NoArgsConstructor
+public class RollupBucketDto {
+    private LocalDateTime bucketStart;
+    private String currency;
+    private String receiverCurrency;
+    private Integer transactionTypeId;
+    private long count;
+    private BigDecimal value;
+    private BigDecimal fees;
+    
+    /**
+     * Used by JPQL constructor expressions
+     */
+    public RollupBucketDto(LocalDateTime bucketStart, String currency, String receiverCurrency, Integer transactionTypeId,
+                           Long count, BigDecimal value, BigDecimal fees) {
+        this.bucketStart = bucketStart;
+        this.currency = currency;
+        this.receiverCurrency = receiverCurrency;
+        this.transactionTypeId = transactionTypeId;
+        this.count = count != null ? count : 0L;
+        this.value = value != null ? value : BigDecimal.ZERO;
+        this.fees = fees != null ? fees : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,30 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of a user since a sync cursor. Pass cursor back as since to fetch the next changes; while hasMore
+ * is set more changes are waiting. resyncRequired means the cursor is missing or too old to be served
+ * incrementally: the client reloads its listings in full and continues from the returned cursor.
+ * profileChanged and accessHistoryChanged tell the client to reload those screens.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponseDto {
+    private List<WalletInfoDto> wallets;
+    private List<TransactionHistoryItemDto> transactions;
+    private List<Map<String, Object>> notifications;
+    private boolean profileChanged;
+    private boolean accessHistoryChanged;
+    private String cursor;
+    private boolean hasMore;
+    private boolean resyncRequired;
+}
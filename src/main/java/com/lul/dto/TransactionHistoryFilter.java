@@ -0,0 +1,33 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for the transaction history listing. All fields are optional.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryFilter {
+    
+    public enum Direction {
+        ALL,
+        SENT,
+        RECEIVED
+    }
+    
+    private Integer walletTypeId;  // The wallet_id from wallets table, i.e. the currency
+    private Integer transactionTypeId;
+    private Integer transactionStatusId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    
+    @Builder.Default
+    private Direction direction = Direction.ALL;
+}
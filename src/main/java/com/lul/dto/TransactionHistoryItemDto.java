@@ -0,0 +1,48 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Slim read-only projection of a transaction_history row for history listings.
+ * Built directly by a JPQL constructor expression, so no entity or lazy relation is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryItemDto {
+    private Integer id;
+    private Long transactionId;
+    private Integer senderId;
+    private Integer receiverId;
+    private Integer senderWalletId;
+    private Integer receiverWalletId;
+    private Integer transactionTypeId;
+    private Integer transactionStatusId;
+    private BigDecimal transactedValue;
+    private BigDecimal fee;
+    private BigDecimal totalAmount;
+    private String currency;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    
+    /**
+     * SENT or RECEIVED, relative to the user the history was requested for
+     */
+    private String direction;
+    
+    public TransactionHistoryItemDto(Integer id, Long transactionId, Integer senderId, Integer receiverId,
+                                     Integer senderWalletId, Integer receiverWalletId, Integer transactionTypeId,
+                                     Integer transactionStatusId, BigDecimal transactedValue, BigDecimal fee,
+                                     BigDecimal totalAmount, String currency, String description,
+                                     LocalDateTime createdAt, LocalDateTime completedAt) {
+        this(id, transactionId, senderId, receiverId, senderWalletId, receiverWalletId, transactionTypeId,
+                transactionStatusId, transactedValue, fee, totalAmount, currency, description, createdAt,
+                completedAt, null);
+    }
+}
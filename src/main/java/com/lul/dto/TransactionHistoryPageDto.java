@@ -0,0 +1,22 @@
+package com.lul.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a user's transaction history.
+ * Pass nextCursor back as the cursor parameter to fetch the following (older) page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionHistoryPageDto {
+    private List<TransactionHistoryItemDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,45 @@
+package com.lul.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Count, value and fee totals over a set of transactions or rollup buckets
+ */
+@Data
+@NoArgsConstructor
+public class TransactionTotalsDto {
+    private long count;
+    private BigDecimal value;
+    private BigDecimal fees;
+    
+    /**
+     * Used by JPQL constructor expressions, where COUNT and SUM of longs are Long
+     */
+    public TransactionTotalsDto(Long count, BigDecimal value, BigDecimal fees) {
+        this.count = count != null ? count : 0L;
+        this.value = value != null ? value : BigDecimal.ZERO;
+        this.fees = fees != null ? fees : BigDecimal.ZERO;
+    }
+    
+    public static TransactionTotalsDto empty() {
+        return new TransactionTotalsDto(0L, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+    
+    /**
+     * Add another set of totals to this one
+     * 
+     * @param other The totals to add, may be null
+     * @return This instance
+     */
+    public TransactionTotalsDto add(TransactionTotalsDto other) {
+        if (other != null) {
+            count += other.count;
+            value = value.add(other.value != null ? other.value : BigDecimal.ZERO);
+            fees = fees.add(other.fees != null ? other.fees : BigDecimal.ZERO);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,52 @@
+package com.lul.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Priced transfer: the fee and exchange rate a transfer will be executed with.
+ * Returned to clients together with a signed quote token that locks the price until expiry.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferQuoteDto {
+    
+    public enum TransferType {
+        WALLET,
+        NON_WALLET
+    }
+    
+    private String quoteId;
+    private String quoteToken;
+    
+    @JsonIgnore
+    private Long userId;
+    
+    private TransferType transferType;
+    private Integer senderWalletTypeId;
+    private Integer receiverWalletTypeId;
+    private BigDecimal amount;
+    private BigDecimal fee;
+    private BigDecimal totalAmount;
+    private String currency;
+    
+    /**
+     * FX details, null when the transfer does not change currency
+     */
+    private Integer exchangeRateId;
+    private BigDecimal exchangeRate;
+    private BigDecimal convertedAmount;
+    private String receiverCurrency;
+    
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,34 @@
+package com.lul.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for requesting a price quote before executing a transfer
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferQuoteRequest {
+    
+    @NotNull(message = "Transfer type is required")
+    private TransferQuoteDto.TransferType transferType;
+    
+    @NotNull(message = "Sender wallet type is required")
+    private Integer senderWalletTypeId;
+    
+    private Integer receiverWalletTypeId;  // Optional, defaults to the sender wallet type
+    
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    @Digits(integer = 13, fraction = 2, message = "Amount must have at most 13 digits in integer part and 2 digits in decimal part")
+    private BigDecimal amount;
+}
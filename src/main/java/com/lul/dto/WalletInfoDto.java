@@ -15,6 +15,7 @@ public class WalletInfoDto {
     private String name;
     private String description;
     private BigDecimal availableBalance;
+    private BigDecimal heldBalance;
     private String code;
     private Long id;
     private Integer walletTypeId;
@@ -25,6 +25,8 @@ public class WalletTransferByWorkerIdRequest {
     @NotNull(message = "Sender wallet type is required")
     private Integer senderWalletTypeId;  // This is the wallet_id from wallets table
     
+    private Integer receiverWalletTypeId;  // Optional, defaults to the sender wallet type
+    
     @NotBlank(message = "Receiver worker ID is required")
     private String receiverWorkerId;
     
@@ -39,4 +41,6 @@ public class WalletTransferByWorkerIdRequest {
     private String description;
     
     private String idempotencyKey;
+    
+    private String quoteToken;  // Optional, locks the fee and exchange rate quoted by /api/transactions/quote
 } 
\ No newline at end of file
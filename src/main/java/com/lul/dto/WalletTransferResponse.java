@@ -28,4 +28,7 @@ public class WalletTransferResponse {
     private LocalDateTime timestamp;
     private BigDecimal senderWalletBalanceAfter;
     private String receiverName;
+    private BigDecimal exchangeRate;
+    private BigDecimal convertedAmount;
+    private String receiverCurrency;
 } 
\ No newline at end of file
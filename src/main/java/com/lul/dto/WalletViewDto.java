@@ -0,0 +1,35 @@
+package com.lul.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable view of one user wallet, as cached per user for wallet listings
+ */
+@Value
+@Builder(toBuilder = true)
+public class WalletViewDto {
+    Long id;
+    Integer walletTypeId;
+    String countryCode;
+    String name;
+    String description;
+    String code;
+    BigDecimal availableBalance;
+    BigDecimal heldBalance;
+
+    public WalletInfoDto toWalletInfo() {
+        return WalletInfoDto.builder()
+            .countryCode(countryCode)
+            .name(name)
+            .description(description)
+            .availableBalance(availableBalance)
+            .heldBalance(heldBalance)
+            .code(code)
+            .id(id)
+            .walletTypeId(walletTypeId)
+            .build();
+    }
+}
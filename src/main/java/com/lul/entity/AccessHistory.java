@@ -47,6 +47,7 @@ public class AccessHistory {
     @Column(name = "last_accessed")
     private LocalDateTime lastAccessed;
 
+    // No longer maintained: the current session is audit.current_sessions
     @Column(name = "is_current_session")
     private boolean currentSession;
 
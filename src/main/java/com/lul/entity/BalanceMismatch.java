@@ -0,0 +1,44 @@
+package com.lul.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A wallet whose stored balance differs from the sum of its completed transactions,
+ * as seen by one reconciliation run
+ */
+@Entity
+@Table(name = "balance_mismatches", schema = "wallet")
+@Data
+public class BalanceMismatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+    
+    @Column(name = "user_wallet_id", nullable = false)
+    private Integer userWalletId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "wallet_id", nullable = false)
+    private Integer walletId;
+    
+    @Column(name = "balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance;
+    
+    @Column(name = "expected_balance", precision = 20, scale = 2, nullable = false)
+    private BigDecimal expectedBalance;
+    
+    @Column(name = "difference", precision = 20, scale = 2, nullable = false)
+    private BigDecimal difference;
+    
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,59 @@
+package com.lul.entity;
+
+import com.lul.enums.ReconciliationMode;
+import com.lul.enums.ReconciliationStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pass of the balance reconciliation job over wallet id range [1, maxWalletId].
+ * Every wallet below checkpointWalletId has been checked.
+ */
+@Entity
+@Table(name = "balance_reconciliation_runs", schema = "wallet")
+@Data
+public class BalanceReconciliationRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "mode", length = 20, nullable = false)
+    private ReconciliationMode mode;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private ReconciliationStatus status;
+    
+    @Column(name = "changed_since")
+    private LocalDateTime changedSince;
+    
+    @Column(name = "max_wallet_id", nullable = false)
+    private Integer maxWalletId;
+    
+    @Column(name = "checkpoint_wallet_id", nullable = false)
+    private Integer checkpointWalletId;
+    
+    @Column(name = "partitions_total", nullable = false)
+    private Integer partitionsTotal;
+    
+    @Column(name = "partitions_done", nullable = false)
+    private Integer partitionsDone;
+    
+    @Column(name = "mismatch_count", nullable = false)
+    private Long mismatchCount;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
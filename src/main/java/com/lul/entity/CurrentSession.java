@@ -0,0 +1,24 @@
+package com.lul.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pointer from a user to the access history entry of their current session, moved on every login.
+ */
+@Entity
+@Table(name = "current_sessions", schema = "audit")
+@Data
+public class CurrentSession {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "access_history_id", nullable = false)
+    private Long accessHistoryId;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.lul.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Serialized HyperLogLog sketch of the distinct users active on one day
+ */
+@Entity
+@Table(name = "daily_active_user_sketches", schema = "audit")
+@Data
+public class DailyActiveUserSketch {
+    @Id
+    @Column(name = "activity_date")
+    private LocalDate activityDate;
+    
+    @Column(name = "sketch_precision", nullable = false)
+    private Integer sketchPrecision;
+    
+    @Column(name = "registers", nullable = false)
+    private byte[] registers;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,55 @@
+package com.lul.entity;
+
+import com.lul.enums.DisbursementBatchStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Non-wallet transfers to one recipient country in one currency, paid out together.
+ * Member transfers reference the batch through transaction_history.batch_id.
+ */
+@Entity
+@Table(name = "disbursement_batches", schema = "wallet")
+@Data
+public class DisbursementBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(name = "country", length = 50, nullable = false)
+    private String country;
+    
+    @Column(name = "currency", length = 10, nullable = false)
+    private String currency;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private DisbursementBatchStatus status;
+    
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+    
+    @Column(name = "total_amount", precision = 20, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "provider_reference", length = 100)
+    private String providerReference;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
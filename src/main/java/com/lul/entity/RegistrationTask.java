@@ -0,0 +1,50 @@
+package com.lul.entity;
+
+import com.lul.enums.RegistrationStage;
+import com.lul.enums.RegistrationTaskStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One follow-up stage of a user's registration, run after the registration commits.
+ * referenceId is the OTP log ID for OTP_SMS and null otherwise.
+ */
+@Entity
+@Table(name = "registration_tasks", schema = "auth")
+@Data
+public class RegistrationTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stage", length = 30, nullable = false)
+    private RegistrationStage stage;
+    
+    @Column(name = "reference_id")
+    private Long referenceId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private RegistrationTaskStatus status;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,49 @@
+package com.lul.entity;
+
+import com.lul.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated transaction totals per (granularity, bucket, currency, receiver currency, transaction type).
+ * Maintained incrementally after each transfer commit and rebuilt from transaction_history for closed buckets.
+ */
+@Entity
+@Table(name = "transaction_rollups", schema = "wallet")
+@Data
+public class TransactionRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10, nullable = false)
+    private RollupGranularity granularity;
+    
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "currency", length = 10, nullable = false)
+    private String currency;
+    
+    @Column(name = "receiver_currency", length = 10, nullable = false)
+    private String receiverCurrency;
+    
+    @Column(name = "transaction_type_id", nullable = false)
+    private Integer transactionTypeId;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+    
+    @Column(name = "total_value", precision = 20, scale = 2, nullable = false)
+    private BigDecimal totalValue;
+    
+    @Column(name = "total_fees", precision = 20, scale = 2, nullable = false)
+    private BigDecimal totalFees;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.lul.entity;
+
+import com.lul.enums.UserChangeType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One write affecting what a user sees, in commit-ish order of id. entityId identifies the changed row:
+ * the user wallet ID for WALLET, the public transaction ID for TRANSACTION and the queued notification ID
+ * for NOTIFICATION; it is null for PROFILE and ACCESS_HISTORY.
+ */
+@Entity
+@Table(name = "user_changes", schema = "auth")
+@Data
+public class UserChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 20, nullable = false)
+    private UserChangeType entityType;
+    
+    @Column(name = "entity_id")
+    private Long entityId;
+    
+    @Column(name = "changed_at", insertable = false, updatable = false)
+    private LocalDateTime changedAt;
+}
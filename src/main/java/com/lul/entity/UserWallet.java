@@ -23,6 +23,10 @@ public class UserWallet {
     @Column(name = "balance", precision = 15, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
     
+    // Funds reserved for pending payouts, not part of balance; only changed by atomic wallet hold updates
+    @Column(name = "held_balance", precision = 15, scale = 2, insertable = false, updatable = false)
+    private BigDecimal heldBalance = BigDecimal.ZERO;
+    
     @Column(name = "public_key", length = 200, unique = true)
     private String publicKey;
     
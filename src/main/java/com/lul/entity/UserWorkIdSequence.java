@@ -0,0 +1,25 @@
+package com.lul.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reservation counter of the user work IDs of one month prefix (YYMM): positions below nextIndex of the
+ * month's permuted ID space have been handed out to an instance's pool.
+ */
+@Entity
+@Table(name = "user_work_id_sequences", schema = "auth")
+@Data
+public class UserWorkIdSequence {
+    @Id
+    @Column(name = "prefix", length = 4)
+    private String prefix;
+    
+    @Column(name = "next_index", nullable = false)
+    private Long nextIndex;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
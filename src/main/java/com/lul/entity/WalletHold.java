@@ -0,0 +1,46 @@
+package com.lul.entity;
+
+import com.lul.enums.WalletHoldStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Funds held on a sender wallet for a non-wallet transfer until its payout settles or fails.
+ * amount is held on the sender wallet; creditAmount goes to the company wallet on settlement.
+ */
+@Entity
+@Table(name = "wallet_holds", schema = "wallet")
+@Data
+public class WalletHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "transaction_history_id", nullable = false, unique = true)
+    private Integer transactionHistoryId;
+    
+    @Column(name = "user_wallet_id", nullable = false)
+    private Integer userWalletId;
+    
+    @Column(name = "company_wallet_id", nullable = false)
+    private Integer companyWalletId;
+    
+    @Column(name = "amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount;
+    
+    @Column(name = "credit_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal creditAmount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private WalletHoldStatus status;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+}
@@ -0,0 +1,8 @@
+package com.lul.enums;
+
+public enum ReconciliationMode {
+    /** Check every wallet */
+    FULL,
+    /** Check only wallets updated since the previous completed run */
+    INCREMENTAL
+}
@@ -0,0 +1,7 @@
+package com.lul.enums;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
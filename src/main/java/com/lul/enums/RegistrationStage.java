@@ -0,0 +1,7 @@
+package com.lul.enums;
+
+public enum RegistrationStage {
+    OTP_SMS,
+    DEFAULT_WALLETS,
+    WELCOME_EMAIL
+}
@@ -0,0 +1,37 @@
+package com.lul.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Start of the bucket containing the given instant
+     */
+    public LocalDateTime bucketStart(LocalDateTime instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    /**
+     * Start of the first bucket that begins at or after the given instant
+     */
+    public LocalDateTime bucketCeiling(LocalDateTime instant) {
+        LocalDateTime start = bucketStart(instant);
+        return start.equals(instant) ? start : start.plus(1, unit);
+    }
+
+    /**
+     * Unit name understood by PostgreSQL date_trunc
+     */
+    public String sqlUnit() {
+        return name().toLowerCase();
+    }
+}
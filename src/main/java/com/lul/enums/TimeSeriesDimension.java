@@ -0,0 +1,11 @@
+package com.lul.enums;
+
+/**
+ * Dimension the dashboard time series is broken down by
+ */
+public enum TimeSeriesDimension {
+    NONE,
+    CURRENCY,
+    CORRIDOR,
+    TYPE
+}
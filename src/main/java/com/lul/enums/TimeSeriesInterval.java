@@ -0,0 +1,61 @@
+package com.lul.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket width of the dashboard time series, and the rollup granularity each width is read from
+ */
+public enum TimeSeriesInterval {
+    HOUR(ChronoUnit.HOURS, RollupGranularity.HOUR),
+    DAY(ChronoUnit.DAYS, RollupGranularity.DAY),
+    WEEK(ChronoUnit.WEEKS, RollupGranularity.DAY);
+
+    private final ChronoUnit unit;
+    private final RollupGranularity source;
+
+    TimeSeriesInterval(ChronoUnit unit, RollupGranularity source) {
+        this.unit = unit;
+        this.source = source;
+    }
+
+    /**
+     * Rollup granularity the buckets of this interval are summed from
+     */
+    public RollupGranularity getSource() {
+        return source;
+    }
+
+    /**
+     * Start of the bucket containing the given instant; weeks start on Monday
+     */
+    public LocalDateTime bucketStart(LocalDateTime instant) {
+        if (this == WEEK) {
+            return instant.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        return instant.truncatedTo(unit);
+    }
+
+    /**
+     * Start of the bucket following the one starting at bucketStart
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /**
+     * Number of buckets needed to cover [from, to)
+     */
+    public long bucketCount(LocalDateTime from, LocalDateTime to) {
+        return unit.between(bucketStart(from), to) + 1;
+    }
+
+    /**
+     * Next wider interval used for downsampling, or null for the widest
+     */
+    public TimeSeriesInterval coarser() {
+        return this == HOUR ? DAY : this == DAY ? WEEK : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.lul.enums;
+
+public enum UserChangeType {
+    WALLET,
+    TRANSACTION,
+    NOTIFICATION,
+    PROFILE,
+    ACCESS_HISTORY
+}
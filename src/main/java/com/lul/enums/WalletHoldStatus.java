@@ -0,0 +1,7 @@
+package com.lul.enums;
+
+public enum WalletHoldStatus {
+    HELD,
+    SETTLED,
+    RELEASED
+}
@@ -0,0 +1,24 @@
+package com.lul.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a non-wallet transfer moves to another disbursement stage
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class DisbursementStageChangedEvent {
+    private final Long transactionId;
+    private final Integer senderId;
+    private final Integer previousStageId;
+    private final Integer stageId;
+    private final String stageName;
+    private final LocalDateTime changedAt;
+}
@@ -0,0 +1,57 @@
+package com.lul.event;
+
+import com.lul.entity.TransactionHistory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published by the transfer services once a transfer has been written as completed.
+ * Listeners that must only see committed transfers use @TransactionalEventListener(AFTER_COMMIT).
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@ToString
+public class TransferCompletedEvent {
+    private final Long transactionId;
+    private final Integer senderId;
+    private final Integer receiverId;
+    private final Integer senderWalletId;
+    private final Integer receiverWalletId;
+    private final Integer transactionTypeId;
+    private final BigDecimal amount;
+    private final BigDecimal fee;
+    private final String currency;
+    private final String receiverCurrency;
+    private final LocalDateTime createdAt;
+
+    /**
+     * Build the event from a completed transaction record
+     *
+     * @param transaction The completed transaction
+     * @return The event
+     */
+    public static TransferCompletedEvent from(TransactionHistory transaction) {
+        // Cross-currency transfers record the credited currency next to the exchange rate
+        Object receiverCurrency = transaction.getAdditionalData() != null
+                ? transaction.getAdditionalData().get("receiverCurrency") : null;
+        return TransferCompletedEvent.builder()
+            .transactionId(transaction.getTransactionId())
+            .senderId(transaction.getSenderId())
+            .receiverId(transaction.getReceiverId())
+            .senderWalletId(transaction.getSenderWalletId())
+            .receiverWalletId(transaction.getReceiverWalletId())
+            .transactionTypeId(transaction.getTransactionTypeId())
+            .amount(transaction.getTransactedValue())
+            .fee(transaction.getFee())
+            .currency(transaction.getCurrency())
+            .receiverCurrency(receiverCurrency != null ? receiverCurrency.toString() : transaction.getCurrency())
+            .createdAt(transaction.getCreatedAt())
+            .build();
+    }
+}
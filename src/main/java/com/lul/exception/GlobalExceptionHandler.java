@@ -101,6 +101,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, ex.getErrorCode().getHttpStatus());
     }
 
+    /**
+     * Handle TooManyRequestsException
+     *
+     * @param ex The exception
+     * @return ResponseEntity with error details
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        log.warn("TooManyRequestsException: {}", ex.getMessage());
+
+        String errorCode = ex.getErrorCode() != null ? ex.getErrorCode().getCode() : ex.getMessage();
+        ApiResponse<Void> response = new ApiResponse<>(
+            false,
+            "Too many requests, please try again shortly",
+            errorCode
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     /**
      * Handle validation exceptions
      *
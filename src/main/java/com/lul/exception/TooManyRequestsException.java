@@ -1,13 +1,19 @@
 package com.lul.exception;
 
 import com.lul.constant.ErrorCode;
+import lombok.Getter;
 
+@Getter
 public class TooManyRequestsException extends RuntimeException {
+    private final ErrorCode errorCode;
+
     public TooManyRequestsException(ErrorCode errorCode) {
         super(errorCode.getCode());
+        this.errorCode = errorCode;
     }
 
     public TooManyRequestsException(String message) {
         super(message);
+        this.errorCode = null;
     }
-} 
\ No newline at end of file
+} 
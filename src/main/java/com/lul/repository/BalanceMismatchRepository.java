@@ -0,0 +1,42 @@
+package com.lul.repository;
+
+import com.lul.entity.BalanceMismatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BalanceMismatchRepository extends JpaRepository<BalanceMismatch, Long> {
+    
+    long countByRunId(Long runId);
+    
+    /**
+     * Get a page of the mismatches of a run in wallet order, starting after a wallet ID
+     * 
+     * @param runId The run ID
+     * @param afterUserWalletId Return wallets after this ID (0 for the first page)
+     * @param limit Maximum number of mismatches
+     * @return The mismatches
+     */
+    @Query(value = "SELECT * FROM wallet.balance_mismatches " +
+                   "WHERE run_id = :runId AND user_wallet_id > :afterUserWalletId " +
+                   "ORDER BY user_wallet_id LIMIT :limit", nativeQuery = true)
+    List<BalanceMismatch> findPage(@Param("runId") Long runId,
+                                   @Param("afterUserWalletId") Integer afterUserWalletId,
+                                   @Param("limit") int limit);
+    
+    /**
+     * Drop the mismatches a run recorded at or above its checkpoint, before those partitions are checked again
+     * 
+     * @param runId The run ID
+     * @param fromUserWalletId The run checkpoint
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM BalanceMismatch m WHERE m.runId = :runId AND m.userWalletId >= :fromUserWalletId")
+    int deleteFrom(@Param("runId") Long runId, @Param("fromUserWalletId") Integer fromUserWalletId);
+}
@@ -0,0 +1,43 @@
+package com.lul.repository;
+
+import com.lul.entity.BalanceReconciliationRun;
+import com.lul.enums.ReconciliationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceReconciliationRunRepository extends JpaRepository<BalanceReconciliationRun, Long> {
+    
+    List<BalanceReconciliationRun> findTop20ByOrderByIdDesc();
+    
+    Optional<BalanceReconciliationRun> findTopByOrderByIdDesc();
+    
+    Optional<BalanceReconciliationRun> findTopByStatusOrderByIdDesc(ReconciliationStatus status);
+    
+    /**
+     * Record the progress of a run; the updated_at heartbeat tells other instances the run is alive
+     * 
+     * @param id The run ID
+     * @param checkpointWalletId Wallet ID below which every wallet has been checked
+     * @param partitionsDone Number of partitions checked
+     * @param mismatchCount Number of mismatches found so far
+     * @param updatedAt Time of the update
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE BalanceReconciliationRun r SET r.checkpointWalletId = :checkpointWalletId, " +
+           "r.partitionsDone = :partitionsDone, r.mismatchCount = :mismatchCount, r.updatedAt = :updatedAt " +
+           "WHERE r.id = :id")
+    int updateProgress(@Param("id") Long id,
+                       @Param("checkpointWalletId") Integer checkpointWalletId,
+                       @Param("partitionsDone") Integer partitionsDone,
+                       @Param("mismatchCount") Long mismatchCount,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+}
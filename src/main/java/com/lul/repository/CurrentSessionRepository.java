@@ -0,0 +1,29 @@
+package com.lul.repository;
+
+import com.lul.entity.CurrentSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CurrentSessionRepository extends JpaRepository<CurrentSession, Long> {
+
+    /**
+     * Point a user's current session at an access history entry, creating the pointer if needed. The
+     * pointer only moves forward, so a login committing after a later one cannot take the pointer back.
+     *
+     * @param userId The user ID
+     * @param accessHistoryId The access history entry of the session
+     * @return Number of rows affected, 0 if the pointer already references a later entry
+     */
+    @Modifying
+    @Query(value = "INSERT INTO audit.current_sessions (user_id, access_history_id, updated_at) " +
+                   "VALUES (:userId, :accessHistoryId, NOW()) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET access_history_id = EXCLUDED.access_history_id, " +
+                   "updated_at = NOW() " +
+                   "WHERE audit.current_sessions.access_history_id < EXCLUDED.access_history_id",
+           nativeQuery = true)
+    int moveTo(@Param("userId") Long userId, @Param("accessHistoryId") Long accessHistoryId);
+}
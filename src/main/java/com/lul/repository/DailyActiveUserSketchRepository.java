@@ -0,0 +1,29 @@
+package com.lul.repository;
+
+import com.lul.entity.DailyActiveUserSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyActiveUserSketchRepository extends JpaRepository<DailyActiveUserSketch, LocalDate> {
+    
+    List<DailyActiveUserSketch> findByActivityDateBetween(LocalDate from, LocalDate to);
+    
+    /**
+     * Get the sketch of a day, locked until the end of the transaction so concurrent flushes merge in turn
+     * 
+     * @param activityDate The day
+     * @return The stored sketch, if any
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailyActiveUserSketch s WHERE s.activityDate = :activityDate")
+    Optional<DailyActiveUserSketch> findForUpdate(@Param("activityDate") LocalDate activityDate);
+}
@@ -0,0 +1,35 @@
+package com.lul.repository;
+
+import com.lul.entity.DisbursementBatch;
+import com.lul.enums.DisbursementBatchStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DisbursementBatchRepository extends JpaRepository<DisbursementBatch, Integer> {
+    
+    List<DisbursementBatch> findTop20ByOrderByIdDesc();
+    
+    List<DisbursementBatch> findByStatusAndNextAttemptAtLessThanEqualOrderById(DisbursementBatchStatus status,
+                                                                              LocalDateTime now);
+    
+    /**
+     * Take the lease on a due batch for one submission attempt. Only one worker across instances gets
+     * the lease; if it dies, the batch becomes due again when the lease expires.
+     * 
+     * @param id The batch ID
+     * @param now Current time
+     * @param leaseUntil Time until which no other worker may submit the batch
+     * @return 1 if the lease was taken, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE DisbursementBatch b SET b.attempts = b.attempts + 1, b.nextAttemptAt = :leaseUntil " +
+           "WHERE b.id = :id AND b.status = com.lul.enums.DisbursementBatchStatus.PENDING AND b.nextAttemptAt <= :now")
+    int acquireLease(@Param("id") Integer id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -0,0 +1,22 @@
+package com.lul.repository;
+
+import com.lul.entity.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for managing exchange rates
+ */
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Integer> {
+    
+    /**
+     * Find exchange rates inserted after the given ID, used to refresh the in-memory rate index incrementally
+     * 
+     * @param id The highest exchange rate ID already indexed
+     * @return Newly inserted exchange rates in insertion order
+     */
+    List<ExchangeRate> findByIdGreaterThanOrderByIdAsc(Integer id);
+}
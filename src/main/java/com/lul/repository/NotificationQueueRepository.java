@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +17,6 @@ public interface NotificationQueueRepository extends JpaRepository<NotificationQ
     List<NotificationQueue> findByStatusAndNextRetryAtBefore(String status, LocalDateTime nextRetryAt);
     
     List<NotificationQueue> findByStatus(String status);
+    
+    List<NotificationQueue> findByUserIdAndIdIn(Integer userId, Collection<Integer> ids);
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.lul.repository;
+
+import com.lul.entity.RegistrationTask;
+import com.lul.enums.RegistrationStage;
+import com.lul.enums.RegistrationTaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RegistrationTaskRepository extends JpaRepository<RegistrationTask, Long> {
+    
+    List<RegistrationTask> findTop500ByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+        RegistrationTaskStatus status, LocalDateTime now);
+    
+    boolean existsByUserIdAndStage(Long userId, RegistrationStage stage);
+    
+    /**
+     * Take the lease on a due stage for one attempt. Only one worker across instances gets the lease;
+     * if it dies, the stage becomes due again when the lease expires.
+     * 
+     * @param id The task ID
+     * @param now Current time
+     * @param leaseUntil Time until which no other worker may run the stage
+     * @return 1 if the lease was taken, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE RegistrationTask t SET t.attempts = t.attempts + 1, t.nextAttemptAt = :leaseUntil " +
+           "WHERE t.id = :id AND t.status = com.lul.enums.RegistrationTaskStatus.PENDING AND t.nextAttemptAt <= :now")
+    int acquireLease(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
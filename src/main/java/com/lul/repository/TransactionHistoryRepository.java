@@ -1,8 +1,17 @@
 package com.lul.repository;
 
+import com.lul.dto.NonWalletTransferStatusDto;
+import com.lul.dto.PayoutItemDto;
+import com.lul.dto.TransactionTotalsDto;
 import com.lul.entity.TransactionHistory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -10,11 +19,22 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionHistoryRepository extends JpaRepository<TransactionHistory, Integer> {
     Optional<TransactionHistory> findByTransactionId(Long transactionId);
     
+    /**
+     * Get a transaction, locked until the end of the transaction so stage changes of a transfer apply in turn
+     * 
+     * @param transactionId The transaction ID
+     * @return The transaction, if any
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TransactionHistory t WHERE t.transactionId = :transactionId")
+    Optional<TransactionHistory> findByTransactionIdForUpdate(@Param("transactionId") Long transactionId);
+    
     List<TransactionHistory> findBySenderId(Integer senderId);
     
     List<TransactionHistory> findByReceiverId(Integer receiverId);
@@ -67,4 +87,151 @@ public interface TransactionHistoryRepository extends JpaRepository<TransactionH
      */
     @Query("SELECT COALESCE(SUM(t.fee), 0) FROM TransactionHistory t WHERE t.createdAt BETWEEN :startDate AND :endDate")
     BigDecimal sumFeesBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-} 
\ No newline at end of file
+    
+    /**
+     * Count and sum completed transactions created within the given range, used for partial rollup buckets
+     * so they count the same transfers as the rollups
+     * 
+     * @param startDate Start date (inclusive)
+     * @param endDate End date (exclusive)
+     * @return Totals over the range
+     */
+    @Query("SELECT new com.lul.dto.TransactionTotalsDto(COUNT(t), COALESCE(SUM(t.transactedValue), 0), COALESCE(SUM(t.fee), 0)) "
+            + "FROM TransactionHistory t WHERE t.createdAt >= :startDate AND t.createdAt < :endDate "
+            + "AND t.transactionStatusId = 2")
+    TransactionTotalsDto sumTotalsBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Count and sum completed transactions created within the given range per currency, receiver currency
+     * and transaction type, used for the open bucket of the dashboard time series, like the rollups
+     * 
+     * @param startDate Start date (inclusive)
+     * @param endDate End date (exclusive)
+     * @return Rows of [currency, receiver currency, transaction type ID, count, value, fees]
+     */
+    @Query(value = "SELECT COALESCE(t.currency, ''), COALESCE(t.additional_data ->> 'receiverCurrency', t.currency, ''), "
+            + "t.transaction_type_id, COUNT(*), COALESCE(SUM(t.transacted_value), 0), COALESCE(SUM(t.fee), 0) "
+            + "FROM wallet.transaction_history t "
+            + "WHERE t.created_at >= :startDate AND t.created_at < :endDate AND t.transaction_status_id = 2 "
+            + "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<Object[]> sumByDimensionBetween(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Stream the transactions of a wallet in chronological order as slim rows.
+     * The debits and credits of the wallet are read as two range scans of the sender and receiver wallet
+     * keyset indexes, merged by the ORDER BY; a transfer from the wallet to itself is read once. Rows are
+     * pulled from a forward-only cursor in batches of the fetch size, so memory use does not depend on the
+     * number of rows. Must be consumed inside a transaction and closed after use.
+     * 
+     * @param walletId The user wallet ID
+     * @param startDate Start date (inclusive)
+     * @param endDate End date (exclusive)
+     * @return Stream of rows of [id, transaction ID, sender ID, receiver ID, sender wallet ID, receiver wallet ID,
+     *         transaction type ID, transaction status ID, transacted value, fee, total amount, currency,
+     *         description, created at, completed at]
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT * FROM ( "
+            + "  SELECT " + STATEMENT_COLUMNS + " FROM wallet.transaction_history t "
+            + "  WHERE t.sender_wallet_id = :walletId "
+            + "  AND t.created_at >= :startDate AND t.created_at < :endDate "
+            + "  UNION ALL "
+            + "  SELECT " + STATEMENT_COLUMNS + " FROM wallet.transaction_history t "
+            + "  WHERE t.receiver_wallet_id = :walletId AND t.sender_wallet_id IS DISTINCT FROM :walletId "
+            + "  AND t.created_at >= :startDate AND t.created_at < :endDate "
+            + ") s ORDER BY s.created_at ASC, s.id ASC",
+           nativeQuery = true)
+    Stream<Object[]> streamWalletStatement(@Param("walletId") Integer walletId,
+                                           @Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate);
+    
+    String STATEMENT_COLUMNS = "t.id, t.transaction_id, t.sender_id, t.receiver_id, t.sender_wallet_id, "
+            + "t.receiver_wallet_id, t.transaction_type_id, t.transaction_status_id, t.transacted_value, t.fee, "
+            + "t.total_amount, t.currency, t.description, t.created_at, t.completed_at";
+    
+    @Query("SELECT COALESCE(MIN(t.id), 0) FROM TransactionHistory t")
+    Integer findMinId();
+    
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM TransactionHistory t")
+    Integer findMaxId();
+    
+    /**
+     * Get the status of a non-wallet transfer with its sender wallet, recipient and disbursement stage in one query
+     * 
+     * @param transactionId The transaction ID
+     * @return The transfer status
+     */
+    @Query("SELECT new com.lul.dto.NonWalletTransferStatusDto("
+            + "t.transactionId, t.senderId, t.transactionStatusId, w.id, w.balance, t.transactedValue, t.fee, "
+            + "t.totalAmount, t.currency, t.description, t.createdAt, r.fullName, r.phoneNumber, "
+            + "t.disbursementStageId, s.stageName) "
+            + "FROM TransactionHistory t "
+            + "LEFT JOIN UserWallet w ON w.id = t.senderWalletId "
+            + "LEFT JOIN NonWalletRecipientDetail r ON r.transactionHistoryId = t.id "
+            + "LEFT JOIN DisbursementStage s ON s.id = t.disbursementStageId "
+            + "WHERE t.transactionId = :transactionId")
+    Optional<NonWalletTransferStatusDto> findNonWalletTransferStatus(@Param("transactionId") Long transactionId);
+    
+    /**
+     * Lock unbatched non-wallet transfers waiting in the Processing stage. Rows locked by another
+     * claimer are skipped rather than waited for, so concurrent workers claim disjoint transfers.
+     * Must run in the transaction that assigns the claimed rows to a batch.
+     * 
+     * @param limit Maximum number of transfers to claim
+     * @return Rows of [ID, recipient country, currency, amount], oldest first
+     */
+    @Query(value = "SELECT t.id, r.country, t.currency, t.transacted_value "
+            + "FROM wallet.transaction_history t "
+            + "JOIN wallet.non_wallet_recipient_details r ON r.transaction_history_id = t.id "
+            + "WHERE t.disbursement_stage_id = 2 AND t.batch_id IS NULL "
+            + "ORDER BY t.id LIMIT :limit "
+            + "FOR UPDATE OF t SKIP LOCKED", nativeQuery = true)
+    List<Object[]> claimUnbatchedDisbursements(@Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE TransactionHistory t SET t.batchId = :batchId WHERE t.id IN :ids")
+    int assignBatch(@Param("batchId") Integer batchId, @Param("ids") List<Integer> ids);
+    
+    /**
+     * Get the transfers of a payout batch with their recipients
+     * 
+     * @param batchId The batch ID
+     * @return The payout items
+     */
+    @Query("SELECT new com.lul.dto.PayoutItemDto("
+            + "t.transactionId, t.transactedValue, t.currency, r.fullName, r.phoneNumber, r.idDocumentType, "
+            + "r.idNumber, r.country, r.city) "
+            + "FROM TransactionHistory t "
+            + "JOIN NonWalletRecipientDetail r ON r.transactionHistoryId = t.id "
+            + "WHERE t.batchId = :batchId "
+            + "ORDER BY t.id")
+    List<PayoutItemDto> findPayoutItems(@Param("batchId") Integer batchId);
+    
+    /**
+     * Move every transfer of a batch still in the Processing stage, and its recipient detail, to its final
+     * stage in one statement: rejected transfers to the failed stage, the rest to the disbursed stage
+     * 
+     * @param batchId The batch ID
+     * @param rejectedIds Transaction IDs rejected by the payout provider; never empty
+     * @param disbursedStageId The stage of paid out transfers
+     * @param failedStageId The stage of rejected transfers
+     * @return Rows of [transaction ID, sender ID, new stage ID] of the moved transfers
+     */
+    @Query(value = "WITH moved AS ("
+            + "UPDATE wallet.transaction_history t SET disbursement_stage_id = "
+            + "CASE WHEN t.transaction_id IN (:rejectedIds) THEN :failedStageId ELSE :disbursedStageId END "
+            + "WHERE t.batch_id = :batchId AND t.disbursement_stage_id = 2 "
+            + "RETURNING t.id, t.transaction_id, t.sender_id, t.disbursement_stage_id), "
+            + "details AS ("
+            + "UPDATE wallet.non_wallet_recipient_details r "
+            + "SET disbursement_stage_id = moved.disbursement_stage_id, updated_at = NOW() "
+            + "FROM moved WHERE r.transaction_history_id = moved.id) "
+            + "SELECT moved.transaction_id, moved.sender_id, moved.disbursement_stage_id FROM moved", nativeQuery = true)
+    List<Object[]> advanceBatchStage(@Param("batchId") Integer batchId,
+                                     @Param("rejectedIds") List<Long> rejectedIds,
+                                     @Param("disbursedStageId") Integer disbursedStageId,
+                                     @Param("failedStageId") Integer failedStageId);
+}
@@ -0,0 +1,109 @@
+package com.lul.repository;
+
+import com.lul.dto.RollupBucketDto;
+import com.lul.dto.TransactionTotalsDto;
+import com.lul.entity.TransactionRollup;
+import com.lul.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, Long> {
+
+    /**
+     * Sum the rollup buckets of one granularity that start within the given range
+     *
+     * @param granularity Bucket granularity
+     * @param startDate Start of the first bucket (inclusive)
+     * @param endDate End of the range (exclusive)
+     * @return Totals over the buckets
+     */
+    @Query("SELECT new com.lul.dto.TransactionTotalsDto(COALESCE(SUM(r.transactionCount), 0), "
+            + "COALESCE(SUM(r.totalValue), 0), COALESCE(SUM(r.totalFees), 0)) "
+            + "FROM TransactionRollup r "
+            + "WHERE r.granularity = :granularity AND r.bucketStart >= :startDate AND r.bucketStart < :endDate")
+    TransactionTotalsDto sumTotals(@Param("granularity") RollupGranularity granularity,
+                                   @Param("startDate") LocalDateTime startDate,
+                                   @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Get the rollup rows of one granularity whose bucket starts within the given range
+     *
+     * @param granularity Bucket granularity
+     * @param startDate Start of the first bucket (inclusive)
+     * @param endDate End of the range (exclusive)
+     * @return One row per bucket, currency, receiver currency and transaction type
+     */
+    @Query("SELECT new com.lul.dto.RollupBucketDto(r.bucketStart, r.currency, r.receiverCurrency, r.transactionTypeId, "
+            + "r.transactionCount, r.totalValue, r.totalFees) "
+            + "FROM TransactionRollup r "
+            + "WHERE r.granularity = :granularity AND r.bucketStart >= :startDate AND r.bucketStart < :endDate")
+    List<RollupBucketDto> findBuckets(@Param("granularity") RollupGranularity granularity,
+                                      @Param("startDate") LocalDateTime startDate,
+                                      @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Add a delta to a rollup bucket, creating the bucket if needed
+     *
+     * @return Number of rows affected
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallet.transaction_rollups AS r "
+            + "(granularity, bucket_start, currency, receiver_currency, transaction_type_id, "
+            + "transaction_count, total_value, total_fees, updated_at) "
+            + "VALUES (:granularity, :bucketStart, :currency, :receiverCurrency, :transactionTypeId, :count, :value, :fees, now()) "
+            + "ON CONFLICT (granularity, bucket_start, currency, receiver_currency, transaction_type_id) DO UPDATE SET "
+            + "transaction_count = r.transaction_count + EXCLUDED.transaction_count, "
+            + "total_value = r.total_value + EXCLUDED.total_value, "
+            + "total_fees = r.total_fees + EXCLUDED.total_fees, "
+            + "updated_at = now()", nativeQuery = true)
+    int incrementBucket(@Param("granularity") String granularity,
+                        @Param("bucketStart") LocalDateTime bucketStart,
+                        @Param("currency") String currency,
+                        @Param("receiverCurrency") String receiverCurrency,
+                        @Param("transactionTypeId") Integer transactionTypeId,
+                        @Param("count") long count,
+                        @Param("value") BigDecimal value,
+                        @Param("fees") BigDecimal fees);
+
+    /**
+     * Delete the rollup buckets of one granularity that start within the given range
+     *
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM wallet.transaction_rollups "
+            + "WHERE granularity = :granularity AND bucket_start >= :startDate AND bucket_start < :endDate", nativeQuery = true)
+    int deleteBuckets(@Param("granularity") String granularity,
+                      @Param("startDate") LocalDateTime startDate,
+                      @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Recompute the rollup buckets of one granularity within the given range from transaction_history.
+     * Only completed transfers are counted, as on the incremental path, which is fed by TransferCompletedEvent.
+     * Must be preceded by deleteBuckets for the same range.
+     *
+     * @return Number of buckets written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallet.transaction_rollups "
+            + "(granularity, bucket_start, currency, receiver_currency, transaction_type_id, "
+            + "transaction_count, total_value, total_fees, updated_at) "
+            + "SELECT :granularity, date_trunc(:unit, t.created_at), COALESCE(t.currency, ''), "
+            + "COALESCE(t.additional_data ->> 'receiverCurrency', t.currency, ''), t.transaction_type_id, "
+            + "COUNT(*), COALESCE(SUM(t.transacted_value), 0), COALESCE(SUM(t.fee), 0), now() "
+            + "FROM wallet.transaction_history t "
+            + "WHERE t.created_at >= :startDate AND t.created_at < :endDate AND t.transaction_status_id = 2 "
+            + "GROUP BY 2, 3, 4, 5", nativeQuery = true)
+    int insertBucketsFromHistory(@Param("granularity") String granularity,
+                                 @Param("unit") String unit,
+                                 @Param("startDate") LocalDateTime startDate,
+                                 @Param("endDate") LocalDateTime endDate);
+}
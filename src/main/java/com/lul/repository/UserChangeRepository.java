@@ -0,0 +1,77 @@
+package com.lul.repository;
+
+import com.lul.entity.UserChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+    
+    /**
+     * Append a change of a user and bump their version, without loading or managing an entity
+     * 
+     * @param userId The user ID
+     * @param entityType The UserChangeType name
+     * @param entityId The changed entity's ID, or null
+     */
+    @Modifying
+    @Query(value = "WITH change AS ( " +
+                   "  INSERT INTO auth.user_changes (user_id, entity_type, entity_id) " +
+                   "  VALUES (:userId, :entityType, :entityId) RETURNING user_id " +
+                   ") " +
+                   "INSERT INTO auth.user_versions (user_id, version, updated_at) " +
+                   "SELECT user_id, 1, NOW() FROM change " +
+                   "ON CONFLICT (user_id) DO UPDATE SET version = auth.user_versions.version + 1, updated_at = NOW()",
+           nativeQuery = true)
+    void record(@Param("userId") Long userId, @Param("entityType") String entityType, @Param("entityId") Long entityId);
+    
+    /**
+     * Version of a user's data. Writers bump it under the row lock, so it grows in commit order.
+     * 
+     * @param userId The user ID
+     * @return The version, or 0 if the user has no recorded change
+     */
+    @Query(value = "SELECT COALESCE((SELECT version FROM auth.user_versions WHERE user_id = :userId), 0)",
+           nativeQuery = true)
+    long findVersion(@Param("userId") Long userId);
+    
+    /**
+     * Latest change of a user recorded before the given time
+     * 
+     * @param userId The user ID
+     * @param before Only changes recorded before this time count
+     * @return The highest such change ID, or 0 if none is retained
+     */
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM UserChange c WHERE c.userId = :userId AND c.changedAt < :before")
+    long findVersionBefore(@Param("userId") Long userId, @Param("before") LocalDateTime before);
+    
+    /**
+     * Changes of a user after a sync cursor, oldest first
+     * 
+     * @param userId The user ID
+     * @param afterId The last change ID the client has seen
+     * @param pageable The page size
+     * @return The changes
+     */
+    List<UserChange> findByUserIdAndIdGreaterThanOrderById(Long userId, Long afterId, Pageable pageable);
+    
+    /**
+     * Delete a batch of changes older than the retention period
+     * 
+     * @param before Changes before this time are deleted
+     * @param limit Maximum number of rows to delete
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM auth.user_changes WHERE id IN ( " +
+                   "  SELECT id FROM auth.user_changes WHERE changed_at < :before ORDER BY id LIMIT :limit)",
+           nativeQuery = true)
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
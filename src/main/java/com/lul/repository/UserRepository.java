@@ -7,6 +7,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +18,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByPhoneNumber(String phoneNumber);
     boolean existsByUserWorkId(String userWorkId);
     Optional<User> findByUserWorkId(String userWorkId);
+
+    /**
+     * Find which of the given user work IDs are already taken
+     *
+     * @param userWorkIds The candidate work IDs
+     * @return The candidates that belong to a user
+     */
+    @Query("SELECT u.userWorkId FROM User u WHERE u.userWorkId IN :userWorkIds")
+    List<String> findExistingUserWorkIds(@Param("userWorkIds") Collection<String> userWorkIds);
+
     @Query("SELECT u FROM User u " +
            "JOIN UserToken t ON u = t.user " +
            "JOIN UserProfile p ON u = p.user " +
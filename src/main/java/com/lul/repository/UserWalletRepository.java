@@ -2,7 +2,13 @@ package com.lul.repository;
 
 import com.lul.entity.UserWallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +17,95 @@ public interface UserWalletRepository extends JpaRepository<UserWallet, Integer>
     List<UserWallet> findByUserId(Long userId);
     Optional<UserWallet> findByUserIdAndWalletId(Long userId, Integer walletId);
     boolean existsByUserIdAndWalletId(Long userId, Integer walletId);
+    
+    @Query("SELECT COALESCE(MAX(w.id), 0) FROM UserWallet w")
+    Integer findMaxId();
+    
+    /**
+     * Wallet listing of a user with the wallet type joined in, in one query
+     * 
+     * @param userId The user ID
+     * @return Rows of [user wallet ID, wallet type ID, balance, held balance, country code, currency name, currency code]
+     */
+    @Query("SELECT uw.id, uw.walletId, uw.balance, uw.heldBalance, w.countryCode, w.currencyName, w.currencyCode " +
+           "FROM UserWallet uw JOIN uw.wallet w WHERE uw.userId = :userId ORDER BY uw.id")
+    List<Object[]> findWalletViews(@Param("userId") Long userId);
+    
+    /**
+     * Move funds from the available balance to the held balance of a wallet, if enough are available.
+     * The check and the move are one statement, so concurrent reservations cannot overdraw the wallet.
+     * 
+     * @param id The user wallet ID
+     * @param amount The amount to hold
+     * @return 1 if the funds were held, 0 if the available balance is too low
+     */
+    @Modifying
+    @Query(value = "UPDATE wallet.user_wallets SET balance = balance - :amount, " +
+                   "held_balance = held_balance + :amount, last_updated_at = NOW() " +
+                   "WHERE id = :id AND balance >= :amount",
+           nativeQuery = true)
+    int reserve(@Param("id") Integer id, @Param("amount") BigDecimal amount);
+    
+    /**
+     * Lock wallets for a posting batch and read their balances. Locking every wallet of a batch in ID
+     * order keeps concurrent batches from deadlocking each other.
+     * 
+     * @param ids The user wallet IDs
+     * @return Rows of [user wallet ID, balance]
+     */
+    @Query(value = "SELECT id, COALESCE(balance, 0) FROM wallet.user_wallets WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> lockBalances(@Param("ids") List<Integer> ids);
+    
+    /**
+     * Add a (possibly negative) amount to a wallet balance
+     * 
+     * @param id The user wallet ID
+     * @param delta The amount to add
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query(value = "UPDATE wallet.user_wallets SET balance = balance + :delta, last_updated_at = NOW() WHERE id = :id",
+           nativeQuery = true)
+    int addToBalance(@Param("id") Integer id, @Param("delta") BigDecimal delta);
+    
+    /**
+     * Recompute the balance of each wallet in an ID range from its completed transactions (credits of the
+     * received, possibly converted, amount minus debits of the total amount including fees) and return
+     * the wallets whose stored balance differs. Credits of transfers whose wallet hold has not settled are
+     * not yet in the receiving wallet, while their still pending debits have already left the sender's
+     * available balance. A single statement reads balances and history from one snapshot,
+     * so transfers committing meanwhile cannot cause false mismatches.
+     * 
+     * @param fromId First wallet ID (inclusive)
+     * @param toId Last wallet ID (exclusive)
+     * @param changedSince Only check wallets updated at or after this time
+     * @return Rows of [user wallet ID, user ID, wallet ID, balance, expected balance]
+     */
+    @Query(value = "WITH wallets AS ( " +
+                   "  SELECT id, user_id, wallet_id, balance FROM wallet.user_wallets " +
+                   "  WHERE id >= :fromId AND id < :toId " +
+                   "  AND (last_updated_at IS NULL OR last_updated_at >= :changedSince) " +
+                   "), movements AS ( " +
+                   "  SELECT t.receiver_wallet_id AS wallet_id, " +
+                   "         COALESCE(CAST(t.additional_data->>'convertedAmount' AS NUMERIC), t.transacted_value) AS amount " +
+                   "  FROM wallet.transaction_history t JOIN wallets w ON w.id = t.receiver_wallet_id " +
+                   "  WHERE t.transaction_status_id = 2 " +
+                   "  AND NOT EXISTS (SELECT 1 FROM wallet.wallet_holds h " +
+                   "    WHERE h.transaction_history_id = t.id AND h.status <> 'SETTLED') " +
+                   "  UNION ALL " +
+                   "  SELECT t.sender_wallet_id, -t.total_amount " +
+                   "  FROM wallet.transaction_history t JOIN wallets w ON w.id = t.sender_wallet_id " +
+                   "  WHERE t.transaction_status_id = 2 " +
+                   "  OR EXISTS (SELECT 1 FROM wallet.wallet_holds h " +
+                   "    WHERE h.transaction_history_id = t.id AND h.status = 'HELD') " +
+                   ") " +
+                   "SELECT w.id, w.user_id, w.wallet_id, COALESCE(w.balance, 0), ROUND(COALESCE(SUM(m.amount), 0), 2) " +
+                   "FROM wallets w LEFT JOIN movements m ON m.wallet_id = w.id " +
+                   "GROUP BY w.id, w.user_id, w.wallet_id, w.balance " +
+                   "HAVING COALESCE(w.balance, 0) <> ROUND(COALESCE(SUM(m.amount), 0), 2)",
+           nativeQuery = true)
+    List<Object[]> findBalanceMismatches(@Param("fromId") Integer fromId,
+                                         @Param("toId") Integer toId,
+                                         @Param("changedSince") LocalDateTime changedSince);
 }
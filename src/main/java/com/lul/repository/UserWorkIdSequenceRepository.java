@@ -0,0 +1,27 @@
+package com.lul.repository;
+
+import com.lul.entity.UserWorkIdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserWorkIdSequenceRepository extends JpaRepository<UserWorkIdSequence, String> {
+
+    /**
+     * Reserve the next positions of a month prefix, creating its counter if needed. Concurrent callers are
+     * serialized on the counter row, so every caller gets a disjoint range.
+     *
+     * @param prefix The month prefix (YYMM)
+     * @param count Number of positions to reserve
+     * @return The end (exclusive) of the reserved range; it starts at the returned value minus count
+     */
+    @Query(value = "INSERT INTO auth.user_work_id_sequences AS s (prefix, next_index, updated_at) " +
+                   "VALUES (:prefix, :count, NOW()) " +
+                   "ON CONFLICT (prefix) DO UPDATE SET next_index = s.next_index + EXCLUDED.next_index, " +
+                   "updated_at = NOW() " +
+                   "RETURNING s.next_index",
+           nativeQuery = true)
+    long reserve(@Param("prefix") String prefix, @Param("count") long count);
+}
@@ -0,0 +1,119 @@
+package com.lul.repository;
+
+import com.lul.entity.WalletHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WalletHoldRepository extends JpaRepository<WalletHold, Long> {
+    
+    /**
+     * Take the cluster-wide settlement lock for the current transaction. Settlement statements update
+     * many wallets at once, so running one at a time keeps them from deadlocking each other.
+     * 
+     * @return Whether the lock was taken
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('wallet.wallet_holds.settlement'))", nativeQuery = true)
+    boolean tryLockSettlement();
+    
+    /**
+     * Settle open holds whose transfer reached the given disbursement stage in one statement: the holds
+     * are marked SETTLED, each sender wallet's held balance drops by its settled total, each company
+     * wallet is credited once with the sum of its settled transfers and the transfers are marked completed
+     * (status 2). The owners of all touched wallets get a user change recorded and their version bumped,
+     * so their ETags and delta sync pick the new balances up.
+     * 
+     * @param stageName The disbursement stage of paid out transfers
+     * @param limit Maximum number of holds to settle
+     * @return IDs of the completed transaction_history rows, one per settled hold
+     */
+    @Query(value = "WITH due AS ( " +
+                   "  SELECT h.id FROM wallet.wallet_holds h " +
+                   "  JOIN wallet.transaction_history t ON t.id = h.transaction_history_id " +
+                   "  JOIN wallet.disbursement_stages s ON s.id = t.disbursement_stage_id " +
+                   "  WHERE h.status = 'HELD' AND s.stage_name = :stageName " +
+                   "  ORDER BY h.id LIMIT :limit FOR UPDATE OF h SKIP LOCKED " +
+                   "), settled AS ( " +
+                   "  UPDATE wallet.wallet_holds h SET status = 'SETTLED', resolved_at = NOW() " +
+                   "  FROM due WHERE h.id = due.id " +
+                   "  RETURNING h.transaction_history_id, h.user_wallet_id, h.company_wallet_id, h.amount, h.credit_amount " +
+                   "), senders AS ( " +
+                   "  UPDATE wallet.user_wallets w SET held_balance = w.held_balance - s.amount, last_updated_at = NOW() " +
+                   "  FROM (SELECT user_wallet_id, SUM(amount) AS amount FROM settled GROUP BY user_wallet_id) s " +
+                   "  WHERE w.id = s.user_wallet_id " +
+                   "), companies AS ( " +
+                   "  UPDATE wallet.user_wallets w SET balance = w.balance + c.amount, last_updated_at = NOW() " +
+                   "  FROM (SELECT company_wallet_id, SUM(credit_amount) AS amount FROM settled GROUP BY company_wallet_id) c " +
+                   "  WHERE w.id = c.company_wallet_id " +
+                   "), transfers AS ( " +
+                   "  UPDATE wallet.transaction_history t SET transaction_status_id = 2, completed_at = NOW() " +
+                   "  FROM settled s WHERE t.id = s.transaction_history_id " +
+                   "), changes AS ( " +
+                   "  INSERT INTO auth.user_changes (user_id, entity_type, entity_id) " +
+                   "  SELECT w.user_id, 'WALLET', w.id FROM wallet.user_wallets w " +
+                   "  WHERE w.id IN (SELECT user_wallet_id FROM settled UNION SELECT company_wallet_id FROM settled) " +
+                   "  RETURNING user_id " +
+                   "), versions AS ( " +
+                   "  INSERT INTO auth.user_versions (user_id, version, updated_at) " +
+                   "  SELECT user_id, COUNT(*), NOW() FROM changes GROUP BY user_id ORDER BY user_id " +
+                   "  ON CONFLICT (user_id) DO UPDATE SET version = auth.user_versions.version + EXCLUDED.version, " +
+                   "    updated_at = NOW() " +
+                   ") " +
+                   "SELECT transaction_history_id FROM settled",
+           nativeQuery = true)
+    List<Integer> settle(@Param("stageName") String stageName, @Param("limit") int limit);
+    
+    /**
+     * Release open holds whose transfer reached the given disbursement stage in one statement: the holds
+     * are marked RELEASED, the held funds return to each sender's available balance and the transfers
+     * are marked failed (status 3). The senders get a wallet and a transaction change recorded and their
+     * version bumped.
+     * 
+     * @param stageName The disbursement stage of rejected transfers
+     * @param limit Maximum number of holds to release
+     * @return Number of holds released
+     */
+    @Query(value = "WITH due AS ( " +
+                   "  SELECT h.id FROM wallet.wallet_holds h " +
+                   "  JOIN wallet.transaction_history t ON t.id = h.transaction_history_id " +
+                   "  JOIN wallet.disbursement_stages s ON s.id = t.disbursement_stage_id " +
+                   "  WHERE h.status = 'HELD' AND s.stage_name = :stageName " +
+                   "  ORDER BY h.id LIMIT :limit FOR UPDATE OF h SKIP LOCKED " +
+                   "), released AS ( " +
+                   "  UPDATE wallet.wallet_holds h SET status = 'RELEASED', resolved_at = NOW() " +
+                   "  FROM due WHERE h.id = due.id " +
+                   "  RETURNING h.transaction_history_id, h.user_wallet_id, h.amount " +
+                   "), senders AS ( " +
+                   "  UPDATE wallet.user_wallets w SET balance = w.balance + s.amount, " +
+                   "    held_balance = w.held_balance - s.amount, last_updated_at = NOW() " +
+                   "  FROM (SELECT user_wallet_id, SUM(amount) AS amount FROM released GROUP BY user_wallet_id) s " +
+                   "  WHERE w.id = s.user_wallet_id " +
+                   "), transfers AS ( " +
+                   "  UPDATE wallet.transaction_history t SET transaction_status_id = 3 " +
+                   "  FROM released r WHERE t.id = r.transaction_history_id " +
+                   "), wallet_changes AS ( " +
+                   "  INSERT INTO auth.user_changes (user_id, entity_type, entity_id) " +
+                   "  SELECT w.user_id, 'WALLET', w.id FROM wallet.user_wallets w " +
+                   "  WHERE w.id IN (SELECT user_wallet_id FROM released) " +
+                   "  RETURNING user_id " +
+                   "), transfer_changes AS ( " +
+                   "  INSERT INTO auth.user_changes (user_id, entity_type, entity_id) " +
+                   "  SELECT t.sender_id, 'TRANSACTION', t.transaction_id FROM wallet.transaction_history t " +
+                   "  JOIN released r ON t.id = r.transaction_history_id " +
+                   "  RETURNING user_id " +
+                   "), versions AS ( " +
+                   "  INSERT INTO auth.user_versions (user_id, version, updated_at) " +
+                   "  SELECT user_id, COUNT(*), NOW() " +
+                   "  FROM (SELECT user_id FROM wallet_changes UNION ALL SELECT user_id FROM transfer_changes) c " +
+                   "  GROUP BY user_id ORDER BY user_id " +
+                   "  ON CONFLICT (user_id) DO UPDATE SET version = auth.user_versions.version + EXCLUDED.version, " +
+                   "    updated_at = NOW() " +
+                   ") " +
+                   "SELECT COUNT(*) FROM released",
+           nativeQuery = true)
+    long release(@Param("stageName") String stageName, @Param("limit") int limit);
+}
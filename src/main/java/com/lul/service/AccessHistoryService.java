@@ -9,12 +9,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import com.lul.entity.AccessHistory;
+import com.lul.entity.CurrentSession;
 import com.lul.repository.AccessHistoryRepository;
+import com.lul.repository.CurrentSessionRepository;
 import com.lul.dto.LocationInfo;
 import com.lul.enums.RiskLevel;
+import com.lul.enums.UserChangeType;
 
 
 @Service
@@ -23,42 +27,66 @@ import com.lul.enums.RiskLevel;
 public class AccessHistoryService {
     
     private final AccessHistoryRepository accessHistoryRepository;
+    private final CurrentSessionRepository currentSessionRepository;
     
     @Autowired
     private IpGeolocationService ipGeolocationService;
     
     @Autowired
-    public AccessHistoryService(AccessHistoryRepository accessHistoryRepository) {
+    private ActiveUserService activeUserService;
+    
+    @Autowired
+    private UserChangeService userChangeService;
+    
+    @Autowired
+    public AccessHistoryService(AccessHistoryRepository accessHistoryRepository,
+                                CurrentSessionRepository currentSessionRepository) {
         this.accessHistoryRepository = accessHistoryRepository;
+        this.currentSessionRepository = currentSessionRepository;
     }
     
     @Transactional
     public void recordAccess(AccessHistory accessHistory) {
-        // Get location info from IP
-        LocationInfo locationInfo = ipGeolocationService.getLocation(accessHistory.getIpAddress());
-        
-        // Set location info
-        accessHistory.setCity(locationInfo.getCity());
-        accessHistory.setCountry(locationInfo.getCountry());
-        
-        // Set timestamp
-        accessHistory.setLastAccessed(LocalDateTime.now());
-        
-        // Set all existing sessions to false
-        accessHistoryRepository.updateIsCurrentSessionByUserId(
-            accessHistory.getUserId(), 
-            false
-        );
-        
-        // Set this as current session
-        accessHistory.setCurrentSession(true);
+        recordAccesses(List.of(accessHistory));
+    }
+    
+    /**
+     * Record a batch of accesses in one transaction. Each user's last access of the batch becomes their
+     * current session by moving the user's session pointer, so an access writes at most two rows.
+     * 
+     * @param accessHistories The accesses, oldest first
+     */
+    @Transactional
+    public void recordAccesses(List<AccessHistory> accessHistories) {
+        Map<Long, AccessHistory> latestByUser = new LinkedHashMap<>();
+        for (AccessHistory accessHistory : accessHistories) {
+            // Get location info from IP
+            LocationInfo locationInfo = ipGeolocationService.getLocation(accessHistory.getIpAddress());
+            
+            // Set location info
+            accessHistory.setCity(locationInfo.getCity());
+            accessHistory.setCountry(locationInfo.getCountry());
+            
+            // Set timestamp
+            accessHistory.setLastAccessed(LocalDateTime.now());
+            latestByUser.put(accessHistory.getUserId(), accessHistory);
+        }
         
-        // Save new session
-        accessHistoryRepository.save(accessHistory);
+        // Save new sessions
+        accessHistoryRepository.saveAll(accessHistories);
+        for (AccessHistory latest : latestByUser.values()) {
+            // Set this as current session
+            currentSessionRepository.moveTo(latest.getUserId(), latest.getId());
+            userChangeService.record(latest.getUserId(), UserChangeType.ACCESS_HISTORY, null);
+            activeUserService.recordActivity(latest.getUserId());
+        }
     }
     
     public List<Map<String, Object>> getUserAccessHistory(Long userId) {
         List<AccessHistory> history = accessHistoryRepository.findByUserIdOrderByLastAccessedDesc(userId);
+        Long currentSessionId = currentSessionRepository.findById(userId)
+            .map(CurrentSession::getAccessHistoryId)
+            .orElse(null);
         List<Map<String, Object>> formattedHistory = new ArrayList<>();
         
         for (AccessHistory entry : history) {
@@ -69,7 +97,7 @@ public class AccessHistoryService {
             historyEntry.put("country", entry.getCountry() != null ? entry.getCountry() : "Unknown");
             historyEntry.put("ipAddress", entry.getIpAddress());
             historyEntry.put("deviceId", entry.getDeviceId());
-            historyEntry.put("isCurrentSession", entry.isCurrentSession());
+            historyEntry.put("isCurrentSession", entry.getId().equals(currentSessionId));
             
             // Format timestamp in ISO-8601 with UTC timezone
             // Handle null timestamps gracefully
@@ -100,6 +128,18 @@ public class AccessHistoryService {
         return accessHistoryRepository.save(accessHistory);
     }
     
+    /**
+     * Save an access that starts the user's current session, without the location lookup
+     * 
+     * @param accessHistory The access
+     * @return The saved access
+     */
+    public AccessHistory saveCurrentSession(AccessHistory accessHistory) {
+        AccessHistory saved = accessHistoryRepository.save(accessHistory);
+        currentSessionRepository.moveTo(saved.getUserId(), saved.getId());
+        return saved;
+    }
+    
     /**
      * Check if a device is known for a user based on device fingerprint
      * @param userId The user ID
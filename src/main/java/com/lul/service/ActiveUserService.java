@@ -0,0 +1,248 @@
+package com.lul.service;
+
+import com.lul.dto.ActiveUsersDto;
+import com.lul.entity.DailyActiveUserSketch;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.DailyActiveUserSketchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service counting distinct active users with one HyperLogLog sketch per day.
+ *
+ * Logins and sent transfers are added to the in-memory sketch of the current day, which is merged into
+ * its stored copy every minute (stored sketches are merged rather than overwritten, so several instances
+ * can feed the same day). The active users of any window are estimated by merging the sketches of its
+ * days, so a query costs a fixed number of register comparisons per day whatever the number of users.
+ * Sketches of past days are kept in a bounded in-memory cache once no instance can still merge into
+ * them, i.e. one flush interval plus a margin after the day ended; until then they are read from the
+ * database on every query.
+ */
+@Service
+@Slf4j
+public class ActiveUserService {
+
+    private final DailyActiveUserSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+    private final HyperLogLog emptySketch;
+    private final Duration settleDelay;
+
+    // Sketches of days still receiving activity
+    private final Map<LocalDate, HyperLogLog> liveSketches = new ConcurrentHashMap<>();
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    private static final Duration SETTLE_MARGIN = Duration.ofMinutes(1);
+
+    // Access-ordered cache of past days bounded to maxCachedDays, guarded by its own monitor
+    private final LinkedHashMap<LocalDate, HyperLogLog> pastSketches;
+
+    public ActiveUserService(
+            DailyActiveUserSketchRepository sketchRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${analytics.active-users.precision:14}") int precision,
+            @Value("${analytics.active-users.cache-max-days:400}") int maxCachedDays,
+            @Value("${analytics.active-users.flush-interval-ms:60000}") long flushIntervalMs) {
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.precision = precision;
+        this.emptySketch = new HyperLogLog(precision);
+        // Allow for a flush that started just before midnight, or was slowed down, on another instance
+        this.settleDelay = Duration.ofMillis(flushIntervalMs).plus(SETTLE_MARGIN);
+        this.pastSketches = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, HyperLogLog> eldest) {
+                return size() > maxCachedDays;
+            }
+        };
+    }
+
+    /**
+     * Record that a user was active today
+     *
+     * @param userId The ID of the user
+     */
+    public void recordActivity(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        if (liveSketch(today).add(userId)) {
+            dirtyDays.add(today);
+        }
+    }
+
+    /**
+     * Count the sender of a committed transfer as active
+     *
+     * @param event The completed transfer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (event.getSenderId() != null) {
+            recordActivity(event.getSenderId().longValue());
+        }
+    }
+
+    /**
+     * Estimate the number of distinct users active within a window of days
+     *
+     * @param from First day (inclusive)
+     * @param to Last day (inclusive)
+     * @return The estimated number of distinct active users
+     */
+    public long countActiveUsers(LocalDate from, LocalDate to) {
+        HyperLogLog union = new HyperLogLog(precision);
+        for (HyperLogLog sketch : sketchesBetween(from, to)) {
+            union.merge(sketch);
+        }
+        return union.cardinality();
+    }
+
+    /**
+     * Get daily, weekly and monthly active users for the windows ending today
+     *
+     * @return The active user counts
+     */
+    public ActiveUsersDto getActiveUsers() {
+        LocalDate today = LocalDate.now();
+        return ActiveUsersDto.builder()
+            .dailyActiveUsers(countActiveUsers(today, today))
+            .weeklyActiveUsers(countActiveUsers(today.minusDays(6), today))
+            .monthlyActiveUsers(countActiveUsers(today.minusDays(29), today))
+            .build();
+    }
+
+    /**
+     * Merge the live sketches into their stored copies and retire the sketches of past days
+     */
+    @Scheduled(fixedDelayString = "${analytics.active-users.flush-interval-ms:60000}")
+    public void flush() {
+        for (LocalDate day : new ArrayList<>(dirtyDays)) {
+            dirtyDays.remove(day);
+            HyperLogLog sketch = liveSketches.get(day);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    DailyActiveUserSketch stored = sketchRepository.findForUpdate(day).orElseGet(() -> {
+                        DailyActiveUserSketch created = new DailyActiveUserSketch();
+                        created.setActivityDate(day);
+                        created.setSketchPrecision(precision);
+                        return created;
+                    });
+                    if (stored.getRegisters() != null && stored.getSketchPrecision() == precision) {
+                        sketch.merge(HyperLogLog.fromBytes(precision, stored.getRegisters()));
+                    }
+                    stored.setRegisters(sketch.toBytes());
+                    stored.setUpdatedAt(LocalDateTime.now());
+                    sketchRepository.save(stored);
+                });
+            } catch (Exception e) {
+                dirtyDays.add(day);
+                log.error("Failed to persist active user sketch for {}: {}", day, e.getMessage(), e);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        for (LocalDate day : new ArrayList<>(liveSketches.keySet())) {
+            if (day.isBefore(today) && !dirtyDays.contains(day)) {
+                HyperLogLog sketch = liveSketches.remove(day);
+                if (isSettled(day)) {
+                    synchronized (pastSketches) {
+                        pastSketches.put(day, sketch);
+                    }
+                }
+            }
+        }
+    }
+
+    private HyperLogLog liveSketch(LocalDate day) {
+        HyperLogLog sketch = liveSketches.get(day);
+        if (sketch != null) {
+            return sketch;
+        }
+        // Continue from what was stored before a restart
+        return liveSketches.computeIfAbsent(day, d -> {
+            HyperLogLog created = new HyperLogLog(precision);
+            try {
+                sketchRepository.findById(d)
+                    .filter(stored -> stored.getSketchPrecision() == precision)
+                    .ifPresent(stored -> created.merge(HyperLogLog.fromBytes(precision, stored.getRegisters())));
+            } catch (Exception e) {
+                // The next flush merges the stored copy in anyway
+                log.warn("Could not load active user sketch for {}: {}", d, e.getMessage());
+            }
+            return created;
+        });
+    }
+
+    private List<HyperLogLog> sketchesBetween(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        List<HyperLogLog> sketches = new ArrayList<>();
+        List<LocalDate> missing = new ArrayList<>();
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            HyperLogLog live = liveSketches.get(day);
+            if (live != null) {
+                sketches.add(live);
+                continue;
+            }
+            HyperLogLog past = null;
+            if (day.isBefore(today)) {
+                synchronized (pastSketches) {
+                    past = pastSketches.get(day);
+                }
+            }
+            if (past != null) {
+                sketches.add(past);
+            } else if (!day.isAfter(today)) {
+                missing.add(day);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<LocalDate, HyperLogLog> loaded = new HashMap<>();
+            for (DailyActiveUserSketch stored : sketchRepository.findByActivityDateBetween(
+                    missing.get(0), missing.get(missing.size() - 1))) {
+                if (stored.getSketchPrecision() == precision) {
+                    loaded.put(stored.getActivityDate(), HyperLogLog.fromBytes(precision, stored.getRegisters()));
+                }
+            }
+            for (LocalDate day : missing) {
+                HyperLogLog sketch = loaded.getOrDefault(day, emptySketch);
+                sketches.add(sketch);
+                if (isSettled(day)) {
+                    synchronized (pastSketches) {
+                        pastSketches.put(day, sketch);
+                    }
+                }
+            }
+        }
+
+        return sketches;
+    }
+
+    /**
+     * Whether a day ended long enough ago that no instance can still merge activity into its stored sketch
+     */
+    private boolean isSettled(LocalDate day) {
+        return day.plusDays(1).atStartOfDay().isBefore(LocalDateTime.now().minus(settleDelay));
+    }
+}
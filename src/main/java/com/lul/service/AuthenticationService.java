@@ -2,7 +2,9 @@ package com.lul.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.lul.dto.LoginRequest;
 import com.lul.dto.LoginResponse;
@@ -16,8 +18,6 @@ import com.lul.entity.AccessHistory;
 
 import com.lul.dto.LocationInfo;
 
-import com.lul.enums.RiskLevel;
-
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 
@@ -27,10 +27,10 @@ import java.util.List;
 
 import com.lul.constant.ErrorCode;
 import com.lul.exception.BaseException;
+import com.lul.exception.TooManyRequestsException;
 import lombok.extern.slf4j.Slf4j;
 
-import com.lul.entity.FcmToken;
-import com.lul.repository.FcmTokenRepository;
+import com.lul.service.LoginActivityWriter.LoginActivity;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -39,17 +39,12 @@ import java.util.Date;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import com.lul.dto.WalletInfoDto;
-import com.lul.service.WalletService;
 
 @Service
 @Slf4j
 @Transactional
 public class AuthenticationService {
     
-    @Autowired
-    private AccessHistoryService accessHistoryService;
-    
     @Autowired
     private UserRepository userRepository;
     
@@ -69,13 +64,13 @@ public class AuthenticationService {
     private DeviceFingerprintService deviceFingerprintService;
     
     @Autowired
-    private NotificationService notificationService;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
-    private FcmTokenRepository fcmTokenRepository;
+    private LoginActivityWriter loginActivityWriter;
     
     @Autowired
-    private WalletService walletService;
+    private TransactionTemplate transactionTemplate;
     
     private String extractIpAddress(HttpServletRequest request) {
         String ipAddress = request.getHeader("X-Forwarded-For");
@@ -85,142 +80,126 @@ public class AuthenticationService {
         return ipAddress;
     }
     
-    @Transactional
+    /**
+     * Log a user in. The credential check, the token issuance and the device's token row run on the request,
+     * so the token passes PIN verification as soon as it is returned; the access history, session pointer,
+     * FCM token and login notification are written by the login activity writer. No transaction spans the
+     * password check, so no connection is held while the hash is verified.
+     *
+     * @param request The login request
+     * @param httpRequest The HTTP request, for the client IP address
+     * @return The token and profile of the user
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public LoginResponse login(LoginRequest request, HttpServletRequest httpRequest) {
         try {
             User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new BaseException(ErrorCode.USER_NOT_FOUND));
             
-            // Generate fingerprint
-            String deviceFingerprint = deviceFingerprintService.generateFingerprint(request.getDeviceInfo());
-            
-            // Create new access history entry
-            AccessHistory accessHistory = new AccessHistory();
-            accessHistory.setUserId(user.getId());
-            accessHistory.setDeviceName(request.getDeviceInfo().getDeviceName());
-            accessHistory.setDeviceId(request.getDeviceInfo().getDeviceId());
-            accessHistory.setOs(request.getDeviceInfo().getOs());
-            accessHistory.setIpAddress(extractIpAddress(httpRequest));
-            accessHistory.setDeviceFingerprint(deviceFingerprint);
-            accessHistory.setRiskLevel(assessRiskLevel(user.getId(), deviceFingerprint));
-            
-            // Use the service to record access (handles location lookup, setting current session, etc.)
-            accessHistoryService.recordAccess(accessHistory);
-            
-            // Get user profile data using existing service
-            Map<String, Object> profileData = userProfileService.getUserProfile(user.getId());
+            // Verify password on the dedicated hashing pool
+            if (!passwordHashingService.matches(request.getPassword(), user.getPasswordHash())) {
+                log.warn("Invalid password provided for user ID: {}", user.getId());
+                throw new BaseException(ErrorCode.LOGIN_FAILED);
+            }
             
-            // Handle FCM token if provided during login
-            if (request.getFcmToken() != null && !request.getFcmToken().isEmpty()) {
+            // Transparently re-hash the password if the configured BCrypt cost has changed
+            if (passwordHashingService.needsRehash(user.getPasswordHash())) {
                 try {
-                    // Deactivate old tokens for this device
-                    fcmTokenRepository.deactivateUserTokensForDevice(user.getId(), request.getDeviceInfo().getDeviceId());
-                    
-                    // Create and save new token
-                    FcmToken fcmToken = new FcmToken();
-                    fcmToken.setUserId(user.getId());
-                    fcmToken.setToken(request.getFcmToken());
-                    fcmToken.setDeviceId(request.getDeviceInfo().getDeviceId());
-                    fcmToken.setActive(true);
-                    fcmToken.setCreatedAt(LocalDateTime.now());
-                    
-                    fcmTokenRepository.save(fcmToken);
-                    log.info("FCM token saved during login for user: {}, device: {}", user.getId(), request.getDeviceInfo().getDeviceId());
-                } catch (Exception e) {
-                    log.error("Failed to save FCM token during login", e);
-                    // Don't fail login if token save fails
+                    user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
+                    userRepository.save(user);
+                    log.info("Re-hashed password for user ID: {} with the current BCrypt cost", user.getId());
+                } catch (TooManyRequestsException e) {
+                    // Hashing pool is busy, the upgrade will be retried on the next login
+                    log.debug("Skipping password re-hash for user ID: {}, hashing pool busy", user.getId());
                 }
             }
             
-            // After successful login, send notification
-            try {
-                notificationService.sendNotification(
-                    user.getId(),
-                    "New Login",
-                    "New login detected from " + request.getDeviceInfo().getDeviceName(),
-                    Map.of(
-                        "type", "security",
-                        "event", "login",
-                        "deviceId", request.getDeviceInfo().getDeviceId()
-                    )
-                );
-            } catch (Exception e) {
-                // Don't fail login if notification fails
-                log.error("Failed to send login notification", e);
-            }
-            
-            // Try to find an existing token for this user and device
-            Optional<UserToken> existingToken = userTokenRepository.findByUserIdAndDeviceIdIgnoreActive(user.getId(), request.getDeviceInfo().getDeviceId());
+            String deviceId = request.getDeviceInfo().getDeviceId();
+            LocalDateTime now = LocalDateTime.now();
             
-            UserToken userToken;
+            // Reuse the device's existing token unless it has expired
+            Optional<UserToken> existingToken = userTokenRepository.findByUserIdAndDeviceIdIgnoreActive(user.getId(), deviceId);
             String jwtToken;
-            
-            if (existingToken.isPresent()) {
-                // Use the existing token, just update its status and last used time
-                userToken = existingToken.get();
-                jwtToken = userToken.getToken();
-                
-                // Update token metadata
-                userToken.setActive(true);
-                userToken.setLastUsed(LocalDateTime.now());
-                
-                // Make sure the token hasn't expired
-                if (userToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-                    // If expired, generate a new token value but keep the same record
-                    jwtToken = jwtService.generateToken(Map.of(
-                        "sub", user.getId().toString(),
-                        "deviceId", request.getDeviceInfo().getDeviceId()
-                    ));
-                    userToken.setToken(jwtToken);
-                    userToken.setExpiresAt(LocalDateTime.now().plusMonths(6));
-                }
+            LocalDateTime expiresAt;
+            if (existingToken.isPresent() && !existingToken.get().getExpiresAt().isBefore(now)) {
+                jwtToken = existingToken.get().getToken();
+                expiresAt = existingToken.get().getExpiresAt();
             } else {
-                // This is a new device for this user, create a new token
                 jwtToken = jwtService.generateToken(Map.of(
                     "sub", user.getId().toString(),
-                    "deviceId", request.getDeviceInfo().getDeviceId()
+                    "deviceId", deviceId
                 ));
-                
-                // First deactivate any old tokens for this device (just in case)
-                userTokenRepository.deactivateTokensForDevice(user.getId(), request.getDeviceInfo().getDeviceId());
-                
-                // Create a new token
-                userToken = new UserToken();
-                userToken.setUser(user);
-                userToken.setToken(jwtToken);
-                userToken.setDeviceId(request.getDeviceInfo().getDeviceId());
-                userToken.setDeviceName(request.getDeviceInfo().getDeviceName());
-                String fingerprint = deviceFingerprintService.generateFingerprint(request.getDeviceInfo());
-                userToken.setDeviceFingerprint(fingerprint);
-                userToken.setActive(true);
-                userToken.setCreatedAt(LocalDateTime.now());
-                userToken.setLastUsed(LocalDateTime.now());
-                userToken.setFirstSeenAt(LocalDateTime.now());
-                userToken.setExpiresAt(LocalDateTime.now().plusMonths(6));
+                expiresAt = now.plusMonths(6);
             }
             
-            // Save the token (either updated existing or new)
-            userTokenRepository.save(userToken);
+            // Get user profile data using existing service
+            Map<String, Object> profileData = userProfileService.getUserProfile(user.getId());
+            
+            // New access history entry; location, risk level and session pointer are filled in by the writer
+            AccessHistory accessHistory = new AccessHistory();
+            accessHistory.setUserId(user.getId());
+            accessHistory.setDeviceName(request.getDeviceInfo().getDeviceName());
+            accessHistory.setDeviceId(deviceId);
+            accessHistory.setOs(request.getDeviceInfo().getOs());
+            accessHistory.setIpAddress(extractIpAddress(httpRequest));
+            accessHistory.setDeviceFingerprint(deviceFingerprintService.generateFingerprint(request.getDeviceInfo()));
+            accessHistory.setAccessTime(now);
             
-            // Get user's wallet information
-            List<WalletInfoDto> userWallets = walletService.getUserWalletsFormatted(user.getId());
+            // The token row is written before the token is returned: PIN verification looks it up
+            Long userId = user.getId();
+            transactionTemplate.executeWithoutResult(status -> saveUserToken(userId,
+                existingToken.map(UserToken::getId).orElse(null), deviceId, request.getDeviceInfo().getDeviceName(),
+                accessHistory.getDeviceFingerprint(), jwtToken, expiresAt, now));
             
-            LoginResponse loginResponse = LoginResponse.builder()
+            loginActivityWriter.submit(LoginActivity.builder()
+                .userId(user.getId())
+                .accessHistory(accessHistory)
+                .deviceId(deviceId)
+                .deviceName(request.getDeviceInfo().getDeviceName())
+                .fcmToken(request.getFcmToken())
+                .loggedInAt(now)
+                .build());
+            
+            return LoginResponse.builder()
                 .status("success")
                 .token(jwtToken)
                 .userId(user.getUserWorkId())
                 .profile(profileData)
                 .registerStatus(user.getRegisterStatus())
-                //.wallets(userWallets)
                 .build();
-            
-            return loginResponse;
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Login failed", e);
             throw new BaseException(ErrorCode.LOGIN_FAILED);
         }
     }
 
+    /**
+     * Refresh the device's token row, or deactivate the device's other tokens and create one
+     */
+    private void saveUserToken(Long userId, Long userTokenId, String deviceId, String deviceName,
+                               String deviceFingerprint, String token, LocalDateTime expiresAt, LocalDateTime now) {
+        UserToken userToken = userTokenId != null ? userTokenRepository.findById(userTokenId).orElse(null) : null;
+        if (userToken == null) {
+            // First deactivate any old tokens for this device (just in case)
+            userTokenRepository.deactivateTokensForDevice(userId, deviceId);
+            
+            userToken = new UserToken();
+            userToken.setUser(userRepository.getReferenceById(userId));
+            userToken.setDeviceId(deviceId);
+            userToken.setDeviceName(deviceName);
+            userToken.setDeviceFingerprint(deviceFingerprint);
+            userToken.setCreatedAt(now);
+            userToken.setFirstSeenAt(now);
+        }
+        userToken.setToken(token);
+        userToken.setExpiresAt(expiresAt);
+        userToken.setActive(true);
+        userToken.setLastUsed(now);
+        userTokenRepository.save(userToken);
+    }
+
     private DeviceInfoBase extractDeviceInfo(HttpServletRequest request) {
         DeviceInfoBase info = new DeviceInfoBase();
         String userAgent = request.getHeader("User-Agent");
@@ -238,8 +217,4 @@ public class AuthenticationService {
         if (userAgent.contains("iOS")) return "iOS";
         return "Other";
     }
-
-    private RiskLevel assessRiskLevel(Long userId, String deviceFingerprint) {
-        return accessHistoryService.assessRiskLevel(userId, deviceFingerprint);
-    }
 } 
\ No newline at end of file
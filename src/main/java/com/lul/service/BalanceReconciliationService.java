@@ -0,0 +1,344 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.entity.BalanceMismatch;
+import com.lul.entity.BalanceReconciliationRun;
+import com.lul.enums.ReconciliationMode;
+import com.lul.enums.ReconciliationStatus;
+import com.lul.exception.LulPayException;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.BalanceMismatchRepository;
+import com.lul.repository.BalanceReconciliationRunRepository;
+import com.lul.repository.UserWalletRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service proving that each wallet balance equals the sum of its completed transactions.
+ *
+ * A run splits the wallet ID range into fixed partitions that are checked in parallel on a bounded
+ * fork/join pool, each with one aggregate query returning only the mismatching wallets. The checkpoint
+ * advances past every contiguous run of checked partitions, so an interrupted or failed run resumes
+ * where it stopped. Incremental runs only check wallets updated since the previous completed run.
+ */
+@Service
+@Slf4j
+public class BalanceReconciliationService {
+
+    // Lower bound on last_updated_at that matches every wallet
+    private static final LocalDateTime ALL_WALLETS = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final UserWalletRepository userWalletRepository;
+    private final BalanceReconciliationRunRepository runRepository;
+    private final BalanceMismatchRepository mismatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitionSize;
+    private final Duration staleAfter;
+    private final Duration changedSinceMargin;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public BalanceReconciliationService(
+            UserWalletRepository userWalletRepository,
+            BalanceReconciliationRunRepository runRepository,
+            BalanceMismatchRepository mismatchRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${wallet.reconciliation.partition-size:50000}") int partitionSize,
+            @Value("${wallet.reconciliation.parallelism:4}") int parallelism,
+            @Value("${wallet.reconciliation.stale-after-minutes:10}") long staleAfterMinutes,
+            @Value("${wallet.reconciliation.changed-since-margin-minutes:5}") long changedSinceMarginMinutes) {
+        this.userWalletRepository = userWalletRepository;
+        this.runRepository = runRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.partitionSize = partitionSize;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+        this.changedSinceMargin = Duration.ofMinutes(changedSinceMarginMinutes);
+        // Each worker holds one database connection while its partition query runs
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("balance-reconciliation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Start a reconciliation run in the background. An unfinished run (failed, or abandoned by a stopped
+     * instance) is resumed from its checkpoint instead of starting a new one.
+     *
+     * @param mode FULL to check every wallet, INCREMENTAL for wallets updated since the last completed run
+     * @return The started or resumed run
+     */
+    public BalanceReconciliationRun startRun(ReconciliationMode mode) {
+        if (!running.compareAndSet(false, true)) {
+            throw new LulPayException(ErrorCode.RECONCILIATION_IN_PROGRESS,
+                "A balance reconciliation run is already in progress");
+        }
+        try {
+            BalanceReconciliationRun run = transactionTemplate.execute(status -> claimRun(mode));
+            pool.execute(() -> execute(run));
+            return run;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Check the wallets updated since the previous run every night
+     */
+    @Scheduled(cron = "${wallet.reconciliation.cron:0 30 2 * * *}")
+    public void runIncremental() {
+        startScheduled(ReconciliationMode.INCREMENTAL);
+    }
+
+    /**
+     * Check every wallet once a week, catching balances changed outside the transfer services
+     */
+    @Scheduled(cron = "${wallet.reconciliation.full-cron:0 30 3 * * SUN}")
+    public void runFull() {
+        startScheduled(ReconciliationMode.FULL);
+    }
+
+    /**
+     * Get the most recent runs
+     *
+     * @return Up to 20 runs, newest first
+     */
+    public List<BalanceReconciliationRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByIdDesc();
+    }
+
+    /**
+     * Get a run
+     *
+     * @param runId The run ID
+     * @return The run
+     */
+    public BalanceReconciliationRun getRun(Long runId) {
+        return runRepository.findById(runId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.RECONCILIATION_RUN_NOT_FOUND));
+    }
+
+    /**
+     * Get a page of the mismatches found by a run, in wallet order
+     *
+     * @param runId The run ID
+     * @param afterUserWalletId Return wallets after this ID; the last ID of a page fetches the next one
+     * @param limit Maximum number of mismatches
+     * @return The mismatches
+     */
+    public List<BalanceMismatch> getMismatches(Long runId, Integer afterUserWalletId, int limit) {
+        getRun(runId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return mismatchRepository.findPage(runId, afterUserWalletId != null ? afterUserWalletId : 0, pageSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // An interrupted run goes stale and is resumed from its checkpoint
+        pool.shutdownNow();
+    }
+
+    private void startScheduled(ReconciliationMode mode) {
+        try {
+            BalanceReconciliationRun run = startRun(mode);
+            log.info("Started balance reconciliation run {} ({})", run.getId(), run.getMode());
+        } catch (LulPayException e) {
+            log.info("Skipping scheduled {} balance reconciliation: {}", mode, e.getMessage());
+        }
+    }
+
+    private BalanceReconciliationRun claimRun(ReconciliationMode mode) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<BalanceReconciliationRun> latest = runRepository.findTopByOrderByIdDesc();
+        if (latest.isPresent() && latest.get().getStatus() != ReconciliationStatus.COMPLETED) {
+            BalanceReconciliationRun unfinished = latest.get();
+            if (unfinished.getStatus() == ReconciliationStatus.RUNNING
+                    && unfinished.getUpdatedAt().isAfter(now.minus(staleAfter))) {
+                throw new LulPayException(ErrorCode.RECONCILIATION_IN_PROGRESS,
+                    "Balance reconciliation run " + unfinished.getId() + " is in progress");
+            }
+            // Partitions above the checkpoint are checked again, so drop what they recorded
+            mismatchRepository.deleteFrom(unfinished.getId(), unfinished.getCheckpointWalletId());
+            unfinished.setStatus(ReconciliationStatus.RUNNING);
+            unfinished.setLastError(null);
+            unfinished.setUpdatedAt(now);
+            log.info("Resuming balance reconciliation run {} from wallet {}",
+                unfinished.getId(), unfinished.getCheckpointWalletId());
+            return runRepository.save(unfinished);
+        }
+
+        LocalDateTime changedSince = null;
+        if (mode == ReconciliationMode.INCREMENTAL) {
+            // The margin covers transfers that updated a wallet just before the previous run but committed after it
+            changedSince = runRepository.findTopByStatusOrderByIdDesc(ReconciliationStatus.COMPLETED)
+                .map(previous -> previous.getStartedAt().minus(changedSinceMargin))
+                .orElse(null);
+        }
+        int maxWalletId = userWalletRepository.findMaxId();
+
+        BalanceReconciliationRun run = new BalanceReconciliationRun();
+        run.setMode(mode);
+        run.setStatus(ReconciliationStatus.RUNNING);
+        run.setChangedSince(changedSince);
+        run.setMaxWalletId(maxWalletId);
+        run.setCheckpointWalletId(0);
+        run.setPartitionsTotal(maxWalletId / partitionSize + 1);
+        run.setPartitionsDone(0);
+        run.setMismatchCount(0L);
+        run.setStartedAt(now);
+        run.setUpdatedAt(now);
+        return runRepository.save(run);
+    }
+
+    private void execute(BalanceReconciliationRun run) {
+        long startNanos = System.nanoTime();
+        try {
+            // The checkpoint is always a partition boundary (or the end of the range)
+            int firstPartition = Math.min(run.getCheckpointWalletId() / partitionSize, run.getPartitionsTotal());
+            Progress progress = new Progress(run, firstPartition, mismatchRepository.countByRunId(run.getId()));
+            if (firstPartition < run.getPartitionsTotal()) {
+                new PartitionTask(progress, firstPartition, run.getPartitionsTotal()).invoke();
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                BalanceReconciliationRun completed = getRun(run.getId());
+                completed.setStatus(ReconciliationStatus.COMPLETED);
+                completed.setCheckpointWalletId(run.getMaxWalletId() + 1);
+                completed.setPartitionsDone(completed.getPartitionsTotal());
+                completed.setMismatchCount(progress.mismatches);
+                completed.setCompletedAt(LocalDateTime.now());
+                completed.setUpdatedAt(LocalDateTime.now());
+                runRepository.save(completed);
+            });
+            log.info("Balance reconciliation run {} ({}) completed in {} s with {} mismatches",
+                run.getId(), run.getMode(), Duration.ofNanos(System.nanoTime() - startNanos).toSeconds(),
+                progress.mismatches);
+        } catch (Exception e) {
+            log.error("Balance reconciliation run {} failed: {}", run.getId(), e.getMessage(), e);
+            markFailed(run.getId(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int checkPartition(BalanceReconciliationRun run, int partition) {
+        int fromId = partition * partitionSize;
+        int toId = (int) Math.min((long) fromId + partitionSize, run.getMaxWalletId() + 1L);
+        LocalDateTime changedSince = run.getChangedSince() != null ? run.getChangedSince() : ALL_WALLETS;
+
+        List<Object[]> rows = userWalletRepository.findBalanceMismatches(fromId, toId, changedSince);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime detectedAt = LocalDateTime.now();
+        List<BalanceMismatch> mismatches = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            BalanceMismatch mismatch = new BalanceMismatch();
+            mismatch.setRunId(run.getId());
+            mismatch.setUserWalletId(((Number) row[0]).intValue());
+            mismatch.setUserId(((Number) row[1]).longValue());
+            mismatch.setWalletId(((Number) row[2]).intValue());
+            mismatch.setBalance((BigDecimal) row[3]);
+            mismatch.setExpectedBalance((BigDecimal) row[4]);
+            mismatch.setDifference(mismatch.getBalance().subtract(mismatch.getExpectedBalance()));
+            mismatch.setDetectedAt(detectedAt);
+            mismatches.add(mismatch);
+        }
+        transactionTemplate.executeWithoutResult(status -> mismatchRepository.saveAll(mismatches));
+        log.warn("Balance reconciliation run {} found {} mismatched wallets in [{}, {})",
+            run.getId(), mismatches.size(), fromId, toId);
+        return mismatches.size();
+    }
+
+    private void markFailed(Long runId, Exception cause) {
+        try {
+            String message = String.valueOf(cause.getMessage());
+            transactionTemplate.executeWithoutResult(status -> runRepository.findById(runId).ifPresent(failed -> {
+                failed.setStatus(ReconciliationStatus.FAILED);
+                failed.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                failed.setUpdatedAt(LocalDateTime.now());
+                runRepository.save(failed);
+            }));
+        } catch (Exception e) {
+            // Left RUNNING, the run goes stale and is resumed later
+            log.error("Failed to mark balance reconciliation run {} as failed: {}", runId, e.getMessage());
+        }
+    }
+
+    /**
+     * Tracks checked partitions and persists the checkpoint below the first unchecked one
+     */
+    private final class Progress {
+        private final BalanceReconciliationRun run;
+        private final BitSet checked = new BitSet();
+        private int nextUnchecked;
+        private long mismatches;
+
+        private Progress(BalanceReconciliationRun run, int firstPartition, long mismatches) {
+            this.run = run;
+            this.nextUnchecked = firstPartition;
+            this.mismatches = mismatches;
+            checked.set(0, firstPartition);
+        }
+
+        private synchronized void partitionChecked(int partition, int found) {
+            checked.set(partition);
+            mismatches += found;
+            while (checked.get(nextUnchecked)) {
+                nextUnchecked++;
+            }
+            int checkpoint = (int) Math.min((long) nextUnchecked * partitionSize, run.getMaxWalletId() + 1L);
+            int partitionsDone = checked.cardinality();
+            long mismatchCount = mismatches;
+            transactionTemplate.executeWithoutResult(status -> runRepository.updateProgress(
+                run.getId(), checkpoint, partitionsDone, mismatchCount, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Splits a range of partitions in halves until each task checks a single partition
+     */
+    private final class PartitionTask extends RecursiveAction {
+        private final Progress progress;
+        private final int fromPartition;
+        private final int toPartition;
+
+        private PartitionTask(Progress progress, int fromPartition, int toPartition) {
+            this.progress = progress;
+            this.fromPartition = fromPartition;
+            this.toPartition = toPartition;
+        }
+
+        @Override
+        protected void compute() {
+            if (toPartition - fromPartition == 1) {
+                progress.partitionChecked(fromPartition, checkPartition(progress.run, fromPartition));
+                return;
+            }
+            int middle = (fromPartition + toPartition) >>> 1;
+            invokeAll(new PartitionTask(progress, fromPartition, middle),
+                new PartitionTask(progress, middle, toPartition));
+        }
+    }
+}
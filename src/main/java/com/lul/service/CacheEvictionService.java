@@ -2,7 +2,6 @@ package com.lul.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.CacheManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -13,19 +12,20 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class CacheEvictionService {
 
-    private final CacheManager cacheManager;
+    private final DashboardService dashboardService;
 
     @Autowired
-    public CacheEvictionService(CacheManager cacheManager) {
-        this.cacheManager = cacheManager;
+    public CacheEvictionService(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
     }
 
     /**
-     * Clear dashboard cache every 15 minutes to ensure data freshness
+     * Refresh dashboard summaries ahead of expiry instead of clearing them all at once,
+     * which made every open admin screen recompute its summary at the same moment
      */
-    @Scheduled(fixedRate = 900000) // 15 minutes in milliseconds
-    public void evictDashboardCache() {
-        log.info("Evicting dashboard summary cache");
-        cacheManager.getCache("dashboardSummary").clear();
+    @Scheduled(fixedDelayString = "${dashboard.summary.refresh-check-ms:60000}")
+    public void refreshDashboardCache() {
+        log.debug("Refreshing due dashboard summaries");
+        dashboardService.refreshSummaryCache();
     }
-} 
\ No newline at end of file
+}
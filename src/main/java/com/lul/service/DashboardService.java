@@ -1,32 +1,69 @@
 package com.lul.service;
 
 import com.lul.dto.DashboardSummaryDto;
+import com.lul.dto.TransactionTotalsDto;
+import com.lul.enums.RollupGranularity;
 import com.lul.repository.TransactionHistoryRepository;
-import com.lul.repository.UserRepository;
+import com.lul.repository.TransactionRollupRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for dashboard data and analytics
+ * 
+ * Totals are read from the hourly/daily rollups for every bucket fully inside the requested range;
+ * transaction_history is only scanned for the partial hours at the edges of the range (including the
+ * current, still open hour), so the cost of a summary does not grow with the size of the history.
+ * Like the rollups, which are fed by completed transfers, the totals only count completed transactions;
+ * pending and failed ones are left out.
+ * 
+ * Summaries are cached per date range with request coalescing: concurrent requests for a range that is
+ * not cached share a single computation. Cached ranges are recomputed in the background ahead of expiry,
+ * so admin screens refreshing together never all hit the aggregate queries at once.
  */
 @Service
 @Slf4j
 public class DashboardService {
     
     private final TransactionHistoryRepository transactionHistoryRepository;
-    private final UserRepository userRepository;
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final ActiveUserService activeUserService;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final RefreshAheadCache<String, DashboardSummaryDto> summaryCache;
+    
+    // Lower bound used for all-time totals
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(2000, 1, 1, 0, 0);
     
     @Autowired
     public DashboardService(
             TransactionHistoryRepository transactionHistoryRepository,
-            UserRepository userRepository) {
+            TransactionRollupRepository transactionRollupRepository,
+            ActiveUserService activeUserService,
+            @Value("${dashboard.summary.ttl-seconds:900}") long ttlSeconds,
+            @Value("${dashboard.summary.refresh-ahead-ratio:0.75}") double refreshAheadRatio) {
         this.transactionHistoryRepository = transactionHistoryRepository;
-        this.userRepository = userRepository;
+        this.transactionRollupRepository = transactionRollupRepository;
+        this.activeUserService = activeUserService;
+        
+        // Background refreshes are best effort: when the queue is full the current value stays in use
+        this.refreshExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(32), runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.summaryCache = new RefreshAheadCache<>(Duration.ofSeconds(ttlSeconds), refreshAheadRatio, refreshExecutor);
     }
     
     /**
@@ -36,30 +73,41 @@ public class DashboardService {
      * @param endDate Optional end date for filtering
      * @return DashboardSummaryDto containing all summary metrics
      */
-    @Cacheable(value = "dashboardSummary", key = "#startDate + '-' + #endDate", condition = "#startDate != null && #endDate != null")
     public DashboardSummaryDto getDashboardSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        String key = startDate != null && endDate != null ? startDate + "-" + endDate : "all-time";
+        return summaryCache.get(key, () -> computeDashboardSummary(startDate, endDate));
+    }
+    
+    /**
+     * Refresh cached summaries that are due and drop the ones no longer requested
+     */
+    public void refreshSummaryCache() {
+        summaryCache.refreshDue();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+    
+    private DashboardSummaryDto computeDashboardSummary(LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Calculating dashboard summary data for period: {} to {}", startDate, endDate);
         
-        // Get total transactions
-        long totalTransactions;
-        BigDecimal totalTransactionValue;
-        BigDecimal totalRevenue;
-        
+        // Get totals: all-time data, or filtered data for a specific date range (end date inclusive)
+        TransactionTotalsDto totals;
         if (startDate != null && endDate != null) {
-            // Get filtered data for specific date range
-            totalTransactions = transactionHistoryRepository.countByCreatedAtBetween(startDate, endDate);
-            totalTransactionValue = transactionHistoryRepository.sumTransactedValueBetween(startDate, endDate);
-            totalRevenue = transactionHistoryRepository.sumFeesBetween(startDate, endDate);
+            totals = getTotals(startDate, endDate.plusNanos(1));
         } else {
-            // Get all-time data
-            totalTransactions = transactionHistoryRepository.count();
-            totalTransactionValue = transactionHistoryRepository.sumTransactedValue();
-            totalRevenue = transactionHistoryRepository.sumFees();
+            totals = getTotals(HISTORY_START, LocalDateTime.now().plusHours(1));
         }
         
-        // Get active users (users who had activity in last 30 days)
-        LocalDateTime activeUserCutoff = LocalDateTime.now().minusDays(30);
-        long activeUsers = userRepository.countByUpdatedAtAfter(activeUserCutoff);
+        long totalTransactions = totals.getCount();
+        BigDecimal totalTransactionValue = totals.getValue();
+        BigDecimal totalRevenue = totals.getFees();
+        
+        // Get active users (distinct users who logged in or sent a transfer in the last 30 days)
+        LocalDate today = LocalDate.now();
+        long activeUsers = activeUserService.countActiveUsers(today.minusDays(29), today);
         
         log.info("Dashboard summary calculated: {} transactions, {} value, {} revenue, {} active users", 
                 totalTransactions, totalTransactionValue, totalRevenue, activeUsers);
@@ -72,4 +120,53 @@ public class DashboardService {
             totalRevenue != null ? totalRevenue : BigDecimal.ZERO
         );
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Compute totals for [start, end) from closed rollup buckets plus the raw partial hours at the edges
+     * 
+     * @param start Start of the range (inclusive)
+     * @param end End of the range (exclusive)
+     * @return Totals over the range
+     */
+    public TransactionTotalsDto getTotals(LocalDateTime start, LocalDateTime end) {
+        TransactionTotalsDto totals = TransactionTotalsDto.empty();
+        if (!start.isBefore(end)) {
+            return totals;
+        }
+        
+        // Hours that are not fully inside the range, or not closed yet, are read from the raw table
+        // (allowing a minute for the pending deltas of the previous hour to be flushed)
+        LocalDateTime closedHoursEnd = RollupGranularity.HOUR.bucketStart(LocalDateTime.now().minusMinutes(1));
+        LocalDateTime firstHour = RollupGranularity.HOUR.bucketCeiling(start);
+        LocalDateTime lastHour = RollupGranularity.HOUR.bucketStart(end.isBefore(closedHoursEnd) ? end : closedHoursEnd);
+        
+        if (!firstHour.isBefore(lastHour)) {
+            return totals.add(rawTotals(start, end));
+        }
+        
+        totals.add(rawTotals(start, firstHour));
+        totals.add(rawTotals(lastHour, end));
+        
+        // Whole days inside the closed hours come from daily buckets, the remaining hours from hourly buckets
+        LocalDateTime firstDay = RollupGranularity.DAY.bucketCeiling(firstHour);
+        LocalDateTime lastDay = RollupGranularity.DAY.bucketStart(lastHour);
+        
+        if (firstDay.isBefore(lastDay)) {
+            totals.add(rollupTotals(RollupGranularity.HOUR, firstHour, firstDay));
+            totals.add(rollupTotals(RollupGranularity.DAY, firstDay, lastDay));
+            totals.add(rollupTotals(RollupGranularity.HOUR, lastDay, lastHour));
+        } else {
+            totals.add(rollupTotals(RollupGranularity.HOUR, firstHour, lastHour));
+        }
+        
+        return totals;
+    }
+    
+    private TransactionTotalsDto rawTotals(LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(end) ? transactionHistoryRepository.sumTotalsBetween(start, end) : null;
+    }
+    
+    private TransactionTotalsDto rollupTotals(RollupGranularity granularity, LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(end) ? transactionRollupRepository.sumTotals(granularity, start, end) : null;
+    }
+}
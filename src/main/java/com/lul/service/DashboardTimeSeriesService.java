@@ -0,0 +1,305 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.DashboardSeriesDto;
+import com.lul.dto.DashboardSeriesPointDto;
+import com.lul.dto.DashboardTimeSeriesDto;
+import com.lul.dto.RollupBucketDto;
+import com.lul.enums.RollupGranularity;
+import com.lul.enums.TimeSeriesDimension;
+import com.lul.enums.TimeSeriesInterval;
+import com.lul.exception.BadRequestException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.TransactionRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Service for the admin dashboard time series.
+ *
+ * Buckets are summed from the hourly and daily transaction rollups, never from transaction_history
+ * directly. A bucket that ended more than the settle time ago only changes when its rollups are rebuilt,
+ * so its rows are cached without expiry (bounded by an LRU) and any chart over past data is served from
+ * memory after the first request; the rollup service evicts the buckets of every range it rebuilds. Only buckets still open are recomputed, from hourly rollups plus the raw current hour.
+ * Ranges that would produce more than max-points buckets are downsampled to a wider interval.
+ */
+@Service
+@Slf4j
+public class DashboardTimeSeriesService {
+
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final int maxPoints;
+    private final Duration settleTime;
+
+    // Access-ordered map of closed bucket rows bounded to maxCachedBuckets, guarded by its own monitor
+    private final LinkedHashMap<BucketKey, List<RollupBucketDto>> closedBuckets;
+
+    public DashboardTimeSeriesService(
+            TransactionRollupRepository transactionRollupRepository,
+            TransactionHistoryRepository transactionHistoryRepository,
+            @Value("${dashboard.timeseries.max-points:400}") int maxPoints,
+            @Value("${dashboard.timeseries.settle-minutes:10}") long settleMinutes,
+            @Value("${dashboard.timeseries.cache-max-buckets:20000}") int maxCachedBuckets) {
+        this.transactionRollupRepository = transactionRollupRepository;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.maxPoints = maxPoints;
+        this.settleTime = Duration.ofMinutes(settleMinutes);
+        this.closedBuckets = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BucketKey, List<RollupBucketDto>> eldest) {
+                return size() > maxCachedBuckets;
+            }
+        };
+    }
+
+    /**
+     * Get transaction volume, value and fees over time
+     *
+     * @param from Start of the range, aligned down to a bucket boundary
+     * @param to End of the range, capped at now
+     * @param interval Requested bucket width
+     * @param groupBy Dimension to break the series down by
+     * @param currency Optional sender currency filter
+     * @param transactionTypeId Optional transaction type filter
+     * @return One series per value of the dimension
+     */
+    public DashboardTimeSeriesDto getTimeSeries(LocalDateTime from, LocalDateTime to, TimeSeriesInterval interval,
+                                                TimeSeriesDimension groupBy, String currency, Integer transactionTypeId) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new BadRequestException(ErrorCode.INVALID_DATE_RANGE, "from must be before to");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = to.isAfter(now) ? now : to;
+
+        // Downsample until the chart fits in maxPoints buckets
+        TimeSeriesInterval effective = interval;
+        while (effective.coarser() != null && effective.bucketCount(from, end) > maxPoints) {
+            effective = effective.coarser();
+        }
+
+        List<LocalDateTime> bucketStarts = new ArrayList<>();
+        LocalDateTime bucketStart = effective.bucketStart(from);
+        while (bucketStart.isBefore(end)) {
+            bucketStarts.add(bucketStart);
+            bucketStart = effective.next(bucketStart);
+        }
+
+        Map<LocalDateTime, List<RollupBucketDto>> rowsByBucket = loadBuckets(effective, bucketStarts, now);
+
+        return DashboardTimeSeriesDto.builder()
+            .from(bucketStarts.isEmpty() ? from : bucketStarts.get(0))
+            .to(bucketStarts.isEmpty() ? end : effective.next(bucketStarts.get(bucketStarts.size() - 1)))
+            .requestedInterval(interval)
+            .interval(effective)
+            .groupBy(groupBy)
+            .series(buildSeries(bucketStarts, rowsByBucket, groupBy, currency, transactionTypeId))
+            .build();
+    }
+
+    /**
+     * Drop all cached buckets, e.g. after the rollups were rebuilt
+     */
+    public void clearCache() {
+        synchronized (closedBuckets) {
+            closedBuckets.clear();
+        }
+        log.info("Cleared dashboard time series cache");
+    }
+
+    /**
+     * Drop the cached buckets overlapping a range, e.g. after the rollups of that range were rebuilt
+     *
+     * @param from Start of the range (inclusive)
+     * @param to End of the range (exclusive)
+     */
+    public void evictRange(LocalDateTime from, LocalDateTime to) {
+        int evicted = 0;
+        synchronized (closedBuckets) {
+            Iterator<BucketKey> keys = closedBuckets.keySet().iterator();
+            while (keys.hasNext()) {
+                BucketKey key = keys.next();
+                if (key.bucketStart.isBefore(to) && key.interval.next(key.bucketStart).isAfter(from)) {
+                    keys.remove();
+                    evicted++;
+                }
+            }
+        }
+        log.debug("Evicted {} cached dashboard buckets between {} and {}", evicted, from, to);
+    }
+
+    private Map<LocalDateTime, List<RollupBucketDto>> loadBuckets(TimeSeriesInterval interval, List<LocalDateTime> bucketStarts,
+                                                                  LocalDateTime now) {
+        Map<LocalDateTime, List<RollupBucketDto>> rowsByBucket = new LinkedHashMap<>();
+        LocalDateTime settledBefore = now.minus(settleTime);
+        List<LocalDateTime> missing = new ArrayList<>();
+
+        for (LocalDateTime bucketStart : bucketStarts) {
+            LocalDateTime bucketEnd = interval.next(bucketStart);
+            if (bucketEnd.isAfter(settledBefore)) {
+                rowsByBucket.put(bucketStart, computeOpenBucket(bucketStart, bucketEnd, now));
+                continue;
+            }
+            List<RollupBucketDto> cached;
+            synchronized (closedBuckets) {
+                cached = closedBuckets.get(new BucketKey(interval, bucketStart));
+            }
+            if (cached != null) {
+                rowsByBucket.put(bucketStart, cached);
+            } else {
+                missing.add(bucketStart);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // One range query covers all missing closed buckets
+            LocalDateTime rangeStart = missing.get(0);
+            LocalDateTime rangeEnd = interval.next(missing.get(missing.size() - 1));
+            Map<LocalDateTime, List<RollupBucketDto>> rowsByStart = new TreeMap<>();
+            for (RollupBucketDto row : transactionRollupRepository.findBuckets(interval.getSource(), rangeStart, rangeEnd)) {
+                rowsByStart.computeIfAbsent(interval.bucketStart(row.getBucketStart()), k -> new ArrayList<>()).add(row);
+            }
+
+            synchronized (closedBuckets) {
+                for (LocalDateTime bucketStart : missing) {
+                    List<RollupBucketDto> rows = merge(bucketStart, rowsByStart.getOrDefault(bucketStart, List.of()));
+                    closedBuckets.put(new BucketKey(interval, bucketStart), rows);
+                    rowsByBucket.put(bucketStart, rows);
+                }
+            }
+            log.debug("Loaded {} closed {} buckets from rollups", missing.size(), interval);
+        }
+
+        return rowsByBucket;
+    }
+
+    /**
+     * Compute a bucket that can still change from the closed hourly rollups and the raw current hour
+     */
+    private List<RollupBucketDto> computeOpenBucket(LocalDateTime bucketStart, LocalDateTime bucketEnd, LocalDateTime now) {
+        // Allow a minute for the pending deltas of the previous hour to be flushed
+        LocalDateTime closedHoursEnd = RollupGranularity.HOUR.bucketStart(now.minusMinutes(1));
+        List<RollupBucketDto> rows = new ArrayList<>();
+
+        if (bucketStart.isBefore(closedHoursEnd)) {
+            LocalDateTime rollupEnd = bucketEnd.isBefore(closedHoursEnd) ? bucketEnd : closedHoursEnd;
+            rows.addAll(transactionRollupRepository.findBuckets(RollupGranularity.HOUR, bucketStart, rollupEnd));
+        }
+
+        LocalDateTime rawStart = bucketStart.isAfter(closedHoursEnd) ? bucketStart : closedHoursEnd;
+        if (rawStart.isBefore(bucketEnd)) {
+            for (Object[] row : transactionHistoryRepository.sumByDimensionBetween(rawStart, bucketEnd)) {
+                rows.add(new RollupBucketDto(bucketStart, (String) row[0], (String) row[1],
+                        row[2] != null ? ((Number) row[2]).intValue() : null,
+                        ((Number) row[3]).longValue(), (BigDecimal) row[4], (BigDecimal) row[5]));
+            }
+        }
+
+        return merge(bucketStart, rows);
+    }
+
+    /**
+     * Sum rows into one row per currency, receiver currency and transaction type
+     */
+    private static List<RollupBucketDto> merge(LocalDateTime bucketStart, Collection<RollupBucketDto> rows) {
+        Map<String, RollupBucketDto> merged = new LinkedHashMap<>();
+        for (RollupBucketDto row : rows) {
+            String key = row.getCurrency() + "|" + row.getReceiverCurrency() + "|" + row.getTransactionTypeId();
+            RollupBucketDto total = merged.computeIfAbsent(key, k -> new RollupBucketDto(bucketStart, row.getCurrency(),
+                    row.getReceiverCurrency(), row.getTransactionTypeId(), 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+            total.setCount(total.getCount() + row.getCount());
+            total.setValue(total.getValue().add(row.getValue()));
+            total.setFees(total.getFees().add(row.getFees()));
+        }
+        return List.copyOf(merged.values());
+    }
+
+    private static List<DashboardSeriesDto> buildSeries(List<LocalDateTime> bucketStarts,
+                                                        Map<LocalDateTime, List<RollupBucketDto>> rowsByBucket,
+                                                        TimeSeriesDimension groupBy, String currency, Integer transactionTypeId) {
+        Map<String, Map<LocalDateTime, DashboardSeriesPointDto>> pointsBySeries = new TreeMap<>();
+
+        for (Map.Entry<LocalDateTime, List<RollupBucketDto>> bucket : rowsByBucket.entrySet()) {
+            for (RollupBucketDto row : bucket.getValue()) {
+                if (currency != null && !currency.equalsIgnoreCase(row.getCurrency())) {
+                    continue;
+                }
+                if (transactionTypeId != null && !transactionTypeId.equals(row.getTransactionTypeId())) {
+                    continue;
+                }
+                DashboardSeriesPointDto point = pointsBySeries
+                    .computeIfAbsent(seriesKey(groupBy, row), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(bucket.getKey(), k -> new DashboardSeriesPointDto(k, 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+                point.setCount(point.getCount() + row.getCount());
+                point.setValue(point.getValue().add(row.getValue()));
+                point.setFees(point.getFees().add(row.getFees()));
+            }
+        }
+
+        // Every series gets a point for every bucket so charts line up
+        List<DashboardSeriesDto> series = new ArrayList<>();
+        for (Map.Entry<String, Map<LocalDateTime, DashboardSeriesPointDto>> entry : pointsBySeries.entrySet()) {
+            List<DashboardSeriesPointDto> points = new ArrayList<>(bucketStarts.size());
+            for (LocalDateTime bucketStart : bucketStarts) {
+                DashboardSeriesPointDto point = entry.getValue().get(bucketStart);
+                points.add(point != null ? point : new DashboardSeriesPointDto(bucketStart, 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+            }
+            series.add(new DashboardSeriesDto(entry.getKey(), points));
+        }
+        return series;
+    }
+
+    private static String seriesKey(TimeSeriesDimension groupBy, RollupBucketDto row) {
+        switch (groupBy) {
+            case CURRENCY:
+                return row.getCurrency();
+            case CORRIDOR:
+                return row.getCurrency() + "-" + row.getReceiverCurrency();
+            case TYPE:
+                return String.valueOf(row.getTransactionTypeId());
+            default:
+                return "ALL";
+        }
+    }
+
+    private static final class BucketKey {
+        private final TimeSeriesInterval interval;
+        private final LocalDateTime bucketStart;
+
+        private BucketKey(TimeSeriesInterval interval, LocalDateTime bucketStart) {
+            this.interval = interval;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return interval == other.interval && bucketStart.equals(other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(interval, bucketStart);
+        }
+    }
+}
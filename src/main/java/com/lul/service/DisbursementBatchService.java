@@ -0,0 +1,382 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.PayoutBatchRequest;
+import com.lul.dto.PayoutBatchResult;
+import com.lul.dto.PayoutItemDto;
+import com.lul.entity.DisbursementBatch;
+import com.lul.enums.DisbursementBatchStatus;
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.DisbursementBatchRepository;
+import com.lul.repository.DisbursementStageRepository;
+import com.lul.repository.TransactionHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service driving non-wallet transfers from the Processing stage to their payout.
+ *
+ * Each poll claims unbatched Processing transfers with SKIP LOCKED, so instances never wait on each
+ * other's rows, and groups them into batches per recipient country and currency (a corridor). Due
+ * batches are leased and submitted to the {@link PayoutAdapter} on a bounded pool, with at most
+ * corridor-concurrency batches of one corridor in flight, and the outcome moves every transfer of the
+ * batch to its final stage with one set-based UPDATE. A batch the provider could not take is retried
+ * with backoff and failed after max-attempts.
+ *
+ * Nothing is claimed or submitted unless a {@link PayoutAdapter} bean is configured, so a deployment
+ * without a payout provider leaves its transfers in Processing instead of marking them disbursed.
+ */
+@Service
+@Slf4j
+public class DisbursementBatchService {
+
+    static final int PROCESSING_STAGE_ID = 2;
+    // Keeps the IN list of rejected transfers non-empty; transaction IDs are positive
+    private static final Long NO_TRANSACTION = 0L;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final DisbursementBatchRepository batchRepository;
+    private final DisbursementStageRepository disbursementStageRepository;
+    private final PayoutAdapter payoutAdapter;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int claimSize;
+    private final int maxBatchSize;
+    private final int corridorConcurrency;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration lease;
+    private final String disbursedStageName;
+    private final String failedStageName;
+    private final ThreadPoolExecutor payoutExecutor;
+    private final Map<String, Semaphore> corridorPermits = new ConcurrentHashMap<>();
+    private final Counter disbursedItems;
+    private final Counter failedItems;
+
+    private volatile Integer disbursedStageId;
+    private volatile Integer failedStageId;
+
+    @Autowired
+    public DisbursementBatchService(
+            TransactionHistoryRepository transactionHistoryRepository,
+            DisbursementBatchRepository batchRepository,
+            DisbursementStageRepository disbursementStageRepository,
+            ObjectProvider<PayoutAdapter> payoutAdapter,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${disbursement.batch.claim-size:1000}") int claimSize,
+            @Value("${disbursement.batch.max-size:200}") int maxBatchSize,
+            @Value("${disbursement.batch.threads:8}") int threads,
+            @Value("${disbursement.batch.corridor-concurrency:2}") int corridorConcurrency,
+            @Value("${disbursement.batch.max-attempts:5}") int maxAttempts,
+            @Value("${disbursement.batch.retry-delay-ms:60000}") long retryDelayMs,
+            @Value("${disbursement.batch.lease-ms:300000}") long leaseMs,
+            @Value("${disbursement.stage.disbursed-name:Disbursed}") String disbursedStageName,
+            @Value("${disbursement.stage.failed-name:Failed}") String failedStageName) {
+        this(transactionHistoryRepository, batchRepository, disbursementStageRepository,
+            payoutAdapter.getIfAvailable(), transactionTemplate, eventPublisher, meterRegistry, claimSize,
+            maxBatchSize, threads, corridorConcurrency, maxAttempts, retryDelayMs, leaseMs, disbursedStageName,
+            failedStageName);
+        if (this.payoutAdapter == null) {
+            log.warn("No payout adapter configured, non-wallet transfers stay in Processing");
+        }
+    }
+
+    DisbursementBatchService(TransactionHistoryRepository transactionHistoryRepository,
+                             DisbursementBatchRepository batchRepository,
+                             DisbursementStageRepository disbursementStageRepository, PayoutAdapter payoutAdapter,
+                             TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry, int claimSize, int maxBatchSize, int threads,
+                             int corridorConcurrency, int maxAttempts, long retryDelayMs, long leaseMs,
+                             String disbursedStageName, String failedStageName) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.batchRepository = batchRepository;
+        this.disbursementStageRepository = disbursementStageRepository;
+        this.payoutAdapter = payoutAdapter;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.claimSize = claimSize;
+        this.maxBatchSize = maxBatchSize;
+        this.corridorConcurrency = corridorConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.disbursedStageName = disbursedStageName;
+        this.failedStageName = failedStageName;
+
+        // Corridor permits already bound the work in flight, so the queue only holds accepted batches
+        AtomicInteger threadCount = new AtomicInteger();
+        this.payoutExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(threads * 4), runnable -> {
+                Thread thread = new Thread(runnable, "disbursement-payout-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.disbursedItems = meterRegistry.counter("lulpay.disbursement.items", "outcome", "disbursed");
+        this.failedItems = meterRegistry.counter("lulpay.disbursement.items", "outcome", "failed");
+    }
+
+    /**
+     * Claim new transfers into batches and submit the batches that are due
+     */
+    @Scheduled(fixedDelayString = "${disbursement.batch.poll-ms:10000}")
+    public void poll() {
+        if (payoutAdapter == null) {
+            return;
+        }
+        try {
+            // A full claim means more transfers are waiting
+            int claimed;
+            do {
+                claimed = claimBatches().stream().mapToInt(DisbursementBatch::getItemCount).sum();
+            } while (claimed >= claimSize);
+            submitDueBatches();
+        } catch (Exception e) {
+            log.error("Disbursement poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claim unbatched Processing transfers into one batch per corridor, split at the maximum batch size
+     *
+     * @return The created batches
+     */
+    public List<DisbursementBatch> claimBatches() {
+        List<DisbursementBatch> batches = transactionTemplate.execute(status -> {
+            List<Object[]> rows = transactionHistoryRepository.claimUnbatchedDisbursements(claimSize);
+            Map<String, List<Object[]>> byCorridor = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                byCorridor.computeIfAbsent(corridor((String) row[1], (String) row[2]), key -> new ArrayList<>()).add(row);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<DisbursementBatch> created = new ArrayList<>();
+            for (List<Object[]> corridorRows : byCorridor.values()) {
+                for (int from = 0; from < corridorRows.size(); from += maxBatchSize) {
+                    List<Object[]> chunk = corridorRows.subList(from, Math.min(from + maxBatchSize, corridorRows.size()));
+                    created.add(createBatch(chunk, now));
+                }
+            }
+            return created;
+        });
+        if (!batches.isEmpty()) {
+            log.info("Claimed {} disbursement batches", batches.size());
+        }
+        return batches;
+    }
+
+    /**
+     * Submit due batches to the payout pool, skipping corridors that already have the maximum number of
+     * batches in flight; they are picked up by a later poll
+     *
+     * @return Number of batches handed to the pool
+     */
+    public int submitDueBatches() {
+        int submitted = 0;
+        for (DisbursementBatch batch : batchRepository.findByStatusAndNextAttemptAtLessThanEqualOrderById(
+                DisbursementBatchStatus.PENDING, LocalDateTime.now())) {
+            Semaphore permits = corridorPermits.computeIfAbsent(corridor(batch.getCountry(), batch.getCurrency()),
+                key -> new Semaphore(corridorConcurrency));
+            if (!permits.tryAcquire()) {
+                continue;
+            }
+            try {
+                payoutExecutor.execute(() -> {
+                    try {
+                        processBatch(batch.getId());
+                    } catch (Exception e) {
+                        log.error("Disbursement batch {} failed: {}", batch.getId(), e.getMessage(), e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                submitted++;
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                break;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Submit one batch to the payout provider and record its outcome. Does nothing if another worker
+     * holds the batch lease.
+     *
+     * @param batchId The batch ID
+     */
+    void processBatch(Integer batchId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer leased = transactionTemplate.execute(status -> batchRepository.acquireLease(batchId, now, now.plus(lease)));
+        if (leased == null || leased == 0) {
+            return;
+        }
+        DisbursementBatch batch = batchRepository.findById(batchId).orElseThrow();
+        List<PayoutItemDto> items = transactionHistoryRepository.findPayoutItems(batchId);
+
+        PayoutBatchResult result;
+        try {
+            result = payoutAdapter.submit(new PayoutBatchRequest(batchId, batch.getCountry(), batch.getCurrency(), items));
+        } catch (Exception e) {
+            handleSubmitFailure(batch, items, e);
+            return;
+        }
+
+        List<Long> rejected = result.getRejectedTransactionIds() != null ? result.getRejectedTransactionIds() : List.of();
+        complete(batch, DisbursementBatchStatus.COMPLETED, result.getProviderReference(), null, rejected);
+    }
+
+    /**
+     * Get the most recent payout batches
+     *
+     * @return The last 20 batches, newest first
+     */
+    public List<DisbursementBatch> getRecentBatches() {
+        return batchRepository.findTop20ByOrderByIdDesc();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        payoutExecutor.shutdownNow();
+    }
+
+    private DisbursementBatch createBatch(List<Object[]> rows, LocalDateTime now) {
+        List<Integer> ids = new ArrayList<>(rows.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).intValue());
+            total = total.add((BigDecimal) row[3]);
+        }
+
+        DisbursementBatch batch = new DisbursementBatch();
+        batch.setCountry((String) rows.get(0)[1]);
+        batch.setCurrency((String) rows.get(0)[2]);
+        batch.setStatus(DisbursementBatchStatus.PENDING);
+        batch.setItemCount(rows.size());
+        batch.setTotalAmount(total);
+        batch.setAttempts(0);
+        batch.setCreatedAt(now);
+        batch.setNextAttemptAt(now);
+        batch = batchRepository.save(batch);
+        transactionHistoryRepository.assignBatch(batch.getId(), ids);
+        return batch;
+    }
+
+    private void handleSubmitFailure(DisbursementBatch batch, List<PayoutItemDto> items, Exception e) {
+        // The lease incremented attempts in the database; the loaded entity already reflects it
+        int attempts = batch.getAttempts();
+        String error = truncate(e.getMessage());
+        if (attempts >= maxAttempts) {
+            log.error("Disbursement batch {} failed after {} attempts: {}", batch.getId(), attempts, error);
+            List<Long> all = items.stream().map(PayoutItemDto::getTransactionId).toList();
+            complete(batch, DisbursementBatchStatus.FAILED, null, error, all);
+            return;
+        }
+
+        log.warn("Disbursement batch {} attempt {} failed, retrying: {}", batch.getId(), attempts, error);
+        transactionTemplate.executeWithoutResult(status -> {
+            batch.setLastError(error);
+            batch.setNextAttemptAt(LocalDateTime.now().plus(retryDelay.multipliedBy(attempts)));
+            batchRepository.save(batch);
+        });
+    }
+
+    private void complete(DisbursementBatch batch, DisbursementBatchStatus outcome, String providerReference,
+                          String error, List<Long> rejected) {
+        Integer disbursedStage = disbursedStageId();
+        Integer failedStage = failedStageId();
+        List<Long> rejectedIds = new ArrayList<>(rejected);
+        rejectedIds.add(NO_TRANSACTION);
+        Set<Long> rejectedSet = new HashSet<>(rejectedIds);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> moved = transactionHistoryRepository.advanceBatchStage(batch.getId(), rejectedIds,
+                disbursedStage, failedStage);
+
+            batch.setStatus(outcome);
+            batch.setProviderReference(providerReference);
+            batch.setLastError(error);
+            batch.setCompletedAt(LocalDateTime.now());
+            batchRepository.save(batch);
+
+            // Listeners (status cache, client pushes) run after the commit
+            LocalDateTime changedAt = LocalDateTime.now();
+            for (Object[] row : moved) {
+                Long transactionId = ((Number) row[0]).longValue();
+                boolean failed = rejectedSet.contains(transactionId);
+                eventPublisher.publishEvent(DisbursementStageChangedEvent.builder()
+                    .transactionId(transactionId)
+                    .senderId(((Number) row[1]).intValue())
+                    .previousStageId(PROCESSING_STAGE_ID)
+                    .stageId(failed ? failedStage : disbursedStage)
+                    .stageName(failed ? failedStageName : disbursedStageName)
+                    .changedAt(changedAt)
+                    .build());
+                (failed ? failedItems : disbursedItems).increment();
+            }
+            log.info("Disbursement batch {} {}: {} transfers moved, {} rejected", batch.getId(), outcome,
+                moved.size(), rejected.size());
+        });
+    }
+
+    private Integer disbursedStageId() {
+        if (disbursedStageId == null) {
+            disbursedStageId = stageId(disbursedStageName);
+        }
+        return disbursedStageId;
+    }
+
+    private Integer failedStageId() {
+        if (failedStageId == null) {
+            failedStageId = stageId(failedStageName);
+        }
+        return failedStageId;
+    }
+
+    private Integer stageId(String stageName) {
+        return disbursementStageRepository.findByStageName(stageName)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.DISBURSEMENT_STAGE_NOT_FOUND))
+            .getId();
+    }
+
+    private static String corridor(String country, String currency) {
+        return country + "|" + currency;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,200 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.DisbursementStageEventDto;
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service pushing disbursement stage transitions of non-wallet transfers to their senders, so clients
+ * can stop polling the transfer status.
+ *
+ * Every committed transition is sent over the sender's server-sent event streams on this instance and
+ * as a silent FCM data message to all of the sender's devices. FCM is always sent: it reaches apps in
+ * the background, and clients whose stream is connected to another instance. Sends run on a bounded
+ * pool so neither slow clients nor FCM latency delay the committing thread; when the pool is saturated
+ * an update is dropped and clients fall back to polling.
+ */
+@Service
+@Slf4j
+public class DisbursementEventService {
+
+    static final String FCM_TYPE = "DISBURSEMENT_STAGE";
+
+    private final NotificationService notificationService;
+    private final long emitterTimeoutMs;
+    private final int maxStreamsPerUser;
+    private final int maxStreams;
+    private final ThreadPoolExecutor sendExecutor;
+    private final Counter droppedUpdates;
+
+    private final Map<Long, List<SseEmitter>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger streamCount = new AtomicInteger();
+
+    public DisbursementEventService(
+            NotificationService notificationService,
+            MeterRegistry meterRegistry,
+            @Value("${transfer.non-wallet.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${transfer.non-wallet.events.max-streams-per-user:3}") int maxStreamsPerUser,
+            @Value("${transfer.non-wallet.events.max-streams:5000}") int maxStreams,
+            @Value("${transfer.non-wallet.events.sender-threads:4}") int senderThreads,
+            @Value("${transfer.non-wallet.events.max-pending-sends:2000}") int maxPendingSends) {
+        this.notificationService = notificationService;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.maxStreams = maxStreams;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(maxPendingSends), runnable -> {
+                Thread thread = new Thread(runnable, "disbursement-events-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.droppedUpdates = meterRegistry.counter("lulpay.disbursement.events.dropped");
+        meterRegistry.gauge("lulpay.disbursement.events.streams", streamCount);
+    }
+
+    /**
+     * Open a stream of the disbursement stage transitions of a user's transfers. A user connecting
+     * more streams than allowed closes their oldest one.
+     *
+     * @param userId The ID of the user
+     * @return The event stream
+     * @throws TooManyRequestsException if the maximum number of streams is open
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (streamCount.incrementAndGet() > maxStreams) {
+            streamCount.decrementAndGet();
+            throw new TooManyRequestsException(ErrorCode.DISBURSEMENT_EVENTS_BUSY);
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> {
+            remove(userId, emitter);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(userId, emitter));
+
+        // Added while the user's entry is locked, so remove() cannot drop the list between lookup and add
+        List<SseEmitter> userStreams = streams.compute(userId, (id, current) -> {
+            List<SseEmitter> list = current != null ? current : new CopyOnWriteArrayList<>();
+            list.add(emitter);
+            return list;
+        });
+        while (userStreams.size() > maxStreamsPerUser) {
+            SseEmitter oldest = userStreams.get(0);
+            remove(userId, oldest);
+            oldest.complete();
+        }
+        log.debug("User {} subscribed to disbursement events, {} streams open", userId, streamCount.get());
+        return emitter;
+    }
+
+    /**
+     * Push a committed stage transition to its sender
+     *
+     * @param event The stage transition
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDisbursementStageChanged(DisbursementStageChangedEvent event) {
+        if (event.getSenderId() == null) {
+            return;
+        }
+        Long userId = event.getSenderId().longValue();
+        DisbursementStageEventDto payload = new DisbursementStageEventDto(event.getTransactionId(),
+            event.getPreviousStageId(), event.getStageId(), event.getStageName(), event.getChangedAt());
+
+        for (SseEmitter emitter : streams.getOrDefault(userId, List.of())) {
+            execute(() -> send(userId, emitter, payload));
+        }
+
+        Map<String, String> data = Map.of(
+            "type", FCM_TYPE,
+            "transactionId", String.valueOf(event.getTransactionId()),
+            "stageId", String.valueOf(event.getStageId()),
+            "stageName", String.valueOf(event.getStageName()));
+        execute(() -> notificationService.sendDataMessage(userId, data));
+    }
+
+    /**
+     * Keep idle streams open through proxies and notice clients that went away
+     */
+    @Scheduled(fixedRateString = "${transfer.non-wallet.events.heartbeat-ms:30000}")
+    public void sendHeartbeats() {
+        streams.forEach((userId, userStreams) -> {
+            for (SseEmitter emitter : userStreams) {
+                execute(() -> {
+                    try {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (Exception e) {
+                        remove(userId, emitter);
+                    }
+                });
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.values().forEach(userStreams -> userStreams.forEach(SseEmitter::complete));
+        streams.clear();
+        streamCount.set(0);
+        sendExecutor.shutdownNow();
+    }
+
+    int openStreams(Long userId) {
+        return streams.getOrDefault(userId, List.of()).size();
+    }
+
+    private void send(Long userId, SseEmitter emitter, DisbursementStageEventDto payload) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(DisbursementStageEventDto.EVENT_NAME)
+                .id(payload.getTransactionId() + "-" + payload.getStageId())
+                .data(payload));
+        } catch (Exception e) {
+            // The client went away; the container completes the emitter
+            remove(userId, emitter);
+            log.debug("Dropped disbursement event stream of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            sendExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            droppedUpdates.increment();
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        List<SseEmitter> userStreams = streams.get(userId);
+        if (userStreams != null && userStreams.remove(emitter)) {
+            streamCount.decrementAndGet();
+            // Drop the empty list unless a new stream was added meanwhile
+            streams.computeIfPresent(userId, (id, current) -> current.isEmpty() ? null : current);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.lul.service;
+
+import com.lul.dto.FxRateDto;
+import com.lul.entity.ExchangeRate;
+import com.lul.repository.ExchangeRateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service for resolving exchange rates between wallet currencies.
+ *
+ * Rates are held in an in-memory index: one skip list per currency pair, ordered by
+ * effective date, so "rate valid at instant T" is a floor lookup in O(log n) with no
+ * database query. The index is refreshed incrementally by polling for rows with an ID
+ * above the highest one already indexed minus an overlap window, so a row whose lower ID commits
+ * after a higher one is still picked up; indexing a row twice is harmless. The index is rebuilt
+ * periodically to pick up expiry changes. Rates registered while a rebuild reads its snapshot are
+ * recorded and replayed into the rebuilt index before it replaces the current one, so a rebuild
+ * never drops them. Queries never run under the index lock.
+ */
+@Service
+@Slf4j
+public class ExchangeRateService {
+
+    private static final int RATE_SCALE = 6;
+    private static final int AMOUNT_SCALE = 2;
+    private static final LocalDateTime ALWAYS_EFFECTIVE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final int refreshIdOverlap;
+
+    private volatile Map<Long, ConcurrentNavigableMap<LocalDateTime, IndexedRate>> index = new ConcurrentHashMap<>();
+    private final AtomicInteger lastIndexedId = new AtomicInteger(0);
+    // Guards the swap of the index against registrations, and the replay log below
+    private final ReentrantLock indexLock = new ReentrantLock();
+    // Rates registered since the running rebuild started, or null when no rebuild is running
+    private List<ExchangeRate> registeredDuringReload;
+
+    @Autowired
+    public ExchangeRateService(
+            ExchangeRateRepository exchangeRateRepository,
+            @Value("${fx.rates.refresh-id-overlap:100}") int refreshIdOverlap) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.refreshIdOverlap = refreshIdOverlap;
+    }
+
+    /**
+     * Load all exchange rates once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reloadAll();
+    }
+
+    /**
+     * Index exchange rates inserted since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${fx.rates.refresh-interval-ms:30000}")
+    public void refreshNewRates() {
+        try {
+            int previousLastId = lastIndexedId.get();
+            // IDs are assigned before commit, so rows just below the last indexed ID may have become visible since
+            List<ExchangeRate> rates = exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(
+                Math.max(0, previousLastId - refreshIdOverlap));
+            for (ExchangeRate rate : rates) {
+                register(rate);
+            }
+            if (lastIndexedId.get() > previousLastId) {
+                log.info("Indexed new exchange rates, last ID: {}", lastIndexedId.get());
+            }
+        } catch (Exception e) {
+            log.error("Failed to refresh exchange rates: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuild the whole index so that updated expiry dates on existing rows are picked up
+     */
+    @Scheduled(cron = "${fx.rates.full-reload-cron:0 0 * * * *}")
+    public void reloadAll() {
+        indexLock.lock();
+        try {
+            registeredDuringReload = new ArrayList<>();
+        } finally {
+            indexLock.unlock();
+        }
+        try {
+            Map<Long, ConcurrentNavigableMap<LocalDateTime, IndexedRate>> rebuilt = new ConcurrentHashMap<>();
+            int maxId = 0;
+            for (ExchangeRate rate : exchangeRateRepository.findAll()) {
+                addToIndex(rebuilt, rate);
+                maxId = Math.max(maxId, rate.getId());
+            }
+            // Rows inserted after the snapshot was read; later ones are left to the refresh poll
+            for (ExchangeRate rate : exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(maxId)) {
+                addToIndex(rebuilt, rate);
+                maxId = Math.max(maxId, rate.getId());
+            }
+            indexLock.lock();
+            try {
+                // Rates registered meanwhile, which may not be visible to these queries yet
+                for (ExchangeRate rate : registeredDuringReload) {
+                    addToIndex(rebuilt, rate);
+                }
+                index = rebuilt;
+                lastIndexedId.accumulateAndGet(maxId, Math::max);
+            } finally {
+                indexLock.unlock();
+            }
+            log.info("Exchange rate index rebuilt with {} currency pairs", rebuilt.size());
+        } catch (Exception e) {
+            log.error("Failed to load exchange rates: {}", e.getMessage(), e);
+        } finally {
+            indexLock.lock();
+            try {
+                registeredDuringReload = null;
+            } finally {
+                indexLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Add a single exchange rate to the index, used when a new rate is inserted
+     *
+     * @param rate The exchange rate
+     */
+    public void register(ExchangeRate rate) {
+        indexLock.lock();
+        try {
+            addToIndex(index, rate);
+            if (registeredDuringReload != null) {
+                registeredDuringReload.add(rate);
+            }
+            lastIndexedId.accumulateAndGet(rate.getId(), Math::max);
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    /**
+     * Find the exchange rate valid at the given instant for converting between two wallet currencies.
+     * Falls back to inverting the opposite pair when no direct rate exists.
+     *
+     * @param fromWalletId The source wallet (currency) ID
+     * @param toWalletId The target wallet (currency) ID
+     * @param at The instant the rate must be valid at
+     * @return The resolved rate, or empty if no rate is valid at that instant
+     */
+    public Optional<FxRateDto> findRate(Integer fromWalletId, Integer toWalletId, LocalDateTime at) {
+        if (fromWalletId.equals(toWalletId)) {
+            return Optional.of(FxRateDto.builder()
+                .fromWalletId(fromWalletId)
+                .toWalletId(toWalletId)
+                .rate(BigDecimal.ONE)
+                .build());
+        }
+
+        Optional<IndexedRate> direct = lookup(fromWalletId, toWalletId, at);
+        if (direct.isPresent()) {
+            return direct.map(rate -> toDto(rate, fromWalletId, toWalletId, rate.rate, false));
+        }
+
+        return lookup(toWalletId, fromWalletId, at)
+            .filter(rate -> rate.rate.signum() > 0)
+            .map(rate -> toDto(rate, fromWalletId, toWalletId,
+                BigDecimal.ONE.divide(rate.rate, RATE_SCALE, RoundingMode.HALF_UP), true));
+    }
+
+    /**
+     * Convert an amount with the given rate, rounded to the wallet balance scale
+     *
+     * @param amount The amount in the source currency
+     * @param fxRate The rate to apply
+     * @return The amount in the target currency
+     */
+    public BigDecimal convert(BigDecimal amount, FxRateDto fxRate) {
+        return amount.multiply(fxRate.getRate()).setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private Optional<IndexedRate> lookup(Integer fromWalletId, Integer toWalletId, LocalDateTime at) {
+        ConcurrentNavigableMap<LocalDateTime, IndexedRate> rates = index.get(pairKey(fromWalletId, toWalletId));
+        if (rates == null) {
+            return Optional.empty();
+        }
+
+        // Latest rate that became effective at or before the instant supersedes older ones
+        Map.Entry<LocalDateTime, IndexedRate> entry = rates.floorEntry(at);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        IndexedRate rate = entry.getValue();
+        if (rate.expiryDate != null && !rate.expiryDate.isAfter(at)) {
+            return Optional.empty();
+        }
+        return Optional.of(rate);
+    }
+
+    private static void addToIndex(Map<Long, ConcurrentNavigableMap<LocalDateTime, IndexedRate>> target, ExchangeRate rate) {
+        if (rate.getRate() == null || rate.getFromWalletId() == null || rate.getToWalletId() == null) {
+            return;
+        }
+
+        IndexedRate indexed = new IndexedRate(rate.getId(), rate.getRate(), rate.getEffectiveDate(), rate.getExpiryDate());
+        LocalDateTime effective = rate.getEffectiveDate() != null ? rate.getEffectiveDate() : ALWAYS_EFFECTIVE;
+
+        // When two rates share an effective date, the most recently inserted one wins
+        target.computeIfAbsent(pairKey(rate.getFromWalletId(), rate.getToWalletId()), key -> new ConcurrentSkipListMap<>())
+            .merge(effective, indexed, (existing, incoming) -> incoming.id >= existing.id ? incoming : existing);
+    }
+
+    private static FxRateDto toDto(IndexedRate rate, Integer fromWalletId, Integer toWalletId, BigDecimal value, boolean inverted) {
+        return FxRateDto.builder()
+            .exchangeRateId(rate.id)
+            .fromWalletId(fromWalletId)
+            .toWalletId(toWalletId)
+            .rate(value)
+            .inverted(inverted)
+            .effectiveDate(rate.effectiveDate)
+            .expiryDate(rate.expiryDate)
+            .build();
+    }
+
+    private static long pairKey(Integer fromWalletId, Integer toWalletId) {
+        return ((long) fromWalletId << 32) | (toWalletId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Immutable copy of an exchange rate row held in the index
+     */
+    private static final class IndexedRate {
+        private final int id;
+        private final BigDecimal rate;
+        private final LocalDateTime effectiveDate;
+        private final LocalDateTime expiryDate;
+
+        private IndexedRate(int id, BigDecimal rate, LocalDateTime effectiveDate, LocalDateTime expiryDate) {
+            this.id = id;
+            this.rate = rate;
+            this.effectiveDate = effectiveDate;
+            this.expiryDate = expiryDate;
+        }
+    }
+}
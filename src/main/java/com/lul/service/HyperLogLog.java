@@ -0,0 +1,168 @@
+package com.lul.service;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct longs (e.g. user IDs) added to it.
+ *
+ * Uses 2^precision registers; at the default precision of 14 the standard error is about 0.8%
+ * whatever the cardinality, and the serialized form (6 bits per register) is 12 KB. Sketches of
+ * the same precision can be merged, which yields the sketch of the union of their inputs.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final int REGISTER_BITS = 6;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Add a value to the sketch
+     *
+     * @param value The value, e.g. a user ID
+     * @return true if the sketch changed
+     */
+    public synchronized boolean add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - precision));
+        // The guard bit bounds the rank so it always fits in a register
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merge another sketch into this one
+     *
+     * @param other A sketch of the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        byte[] otherRegisters = other.snapshot();
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                if (otherRegisters[i] > registers[i]) {
+                    registers[i] = otherRegisters[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of distinct values added
+     *
+     * @return The estimated cardinality
+     */
+    public synchronized long cardinality() {
+        double m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(registers.length) * m * m / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Serialize the registers packed at 6 bits each
+     *
+     * @return The packed registers
+     */
+    public byte[] toBytes() {
+        byte[] snapshot = snapshot();
+        byte[] packed = new byte[(snapshot.length * REGISTER_BITS + 7) / 8];
+        for (int i = 0; i < snapshot.length; i++) {
+            int bit = i * REGISTER_BITS;
+            int offset = bit >>> 3;
+            int shift = bit & 7;
+            int value = snapshot[i] & 0x3F;
+            packed[offset] |= (byte) (value << shift);
+            if (shift > 8 - REGISTER_BITS) {
+                packed[offset + 1] |= (byte) (value >>> (8 - shift));
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Restore a sketch serialized with toBytes
+     *
+     * @param precision The precision of the serialized sketch
+     * @param packed The packed registers
+     * @return The sketch
+     */
+    public static HyperLogLog fromBytes(int precision, byte[] packed) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        if (packed.length != (sketch.registers.length * REGISTER_BITS + 7) / 8) {
+            throw new IllegalArgumentException("Serialized sketch does not match precision " + precision);
+        }
+        for (int i = 0; i < sketch.registers.length; i++) {
+            int bit = i * REGISTER_BITS;
+            int offset = bit >>> 3;
+            int shift = bit & 7;
+            int value = (packed[offset] & 0xFF) >>> shift;
+            if (shift > 8 - REGISTER_BITS) {
+                value |= (packed[offset + 1] & 0xFF) << (8 - shift);
+            }
+            sketch.registers[i] = (byte) (value & 0x3F);
+        }
+        return sketch;
+    }
+
+    private synchronized byte[] snapshot() {
+        return registers.clone();
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer; spreads sequential IDs uniformly over all bits
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,6 +1,7 @@
 package com.lul.service;
 
 import org.springframework.stereotype.Service;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -69,11 +70,17 @@ public class JwtService {
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
+            Claims claims = Jwts.parserBuilder()
                 .setSigningKey(getSignKey())
                 .setAllowedClockSkewSeconds(60) // Add 1 minute clock skew allowance
                 .build()
-                .parseClaimsJws(token);
+                .parseClaimsJws(token)
+                .getBody();
+            // Login tokens carry no audience; tokens issued for another purpose (e.g. transfer quotes) do
+            if (claims.getAudience() != null) {
+                logger.warn("Rejected JWT token with audience: {}", claims.getAudience());
+                return false;
+            }
             return true;
         } catch (Exception e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
@@ -0,0 +1,438 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.LiveDashboardEntryDto;
+import com.lul.dto.LiveDashboardEventDto;
+import com.lul.dto.RollupBucketDto;
+import com.lul.enums.RollupGranularity;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.exception.TooManyRequestsException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.TransactionRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service pushing today's transfer totals to live admin dashboards over server-sent events.
+ *
+ * Committed transfers are added to striped LongAdder counters per currency and transaction type, so
+ * concurrent transfers never contend on a shared counter. Once a second the changes since the previous
+ * push are sent as a single delta to every subscriber; connecting or falling behind gets a snapshot of
+ * the published totals instead. The database is read once at startup to seed the day's totals, and
+ * never per viewer. Transfers committed before the seed has been read are held back and only counted
+ * if they were created after the seed's watermark, so a transfer is not counted both by the seed and
+ * by its event. A transfer committing while the seed query runs may still be counted twice or missed.
+ * Like the seed and the rollups, transfers are counted on the day they were created: one created on an
+ * earlier day and settling today is left out of today's totals.
+ *
+ * Totals are per instance: the seed covers every transfer of the day, but afterwards an instance only
+ * adds the transfers committed on it. With several instances, dashboards show the seeded totals plus
+ * the transfers of the instance they are connected to.
+ *
+ * Every subscriber has a small bounded queue drained by a shared sender pool. A client too slow to keep
+ * up has its queued deltas discarded and receives one fresh snapshot when it catches up, so memory per
+ * subscriber stays bounded and a slow connection never delays the others.
+ */
+@Service
+@Slf4j
+public class LiveDashboardService {
+
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private final int maxPendingEvents;
+    private final ThreadPoolExecutor sendExecutor;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Reserved subscriber slots, taken before a subscriber is added so the cap holds under concurrency
+    private final AtomicInteger subscriberSlots = new AtomicInteger();
+    private volatile DayCounters counters = new DayCounters(LocalDate.now());
+
+    // Transfers committed before the seed was read, added under seedLock; null once seeded
+    private final Object seedLock = new Object();
+    private volatile List<TransferCompletedEvent> unseededTransfers = new ArrayList<>();
+
+    // Totals included in the deltas sent so far; only touched by the publishing thread
+    private final Map<CounterKey, long[]> published = new HashMap<>();
+    private LocalDate publishedDay = counters.day;
+    private long sequence;
+    private volatile LiveDashboardEventDto publishedSnapshot =
+            new LiveDashboardEventDto(LiveDashboardEventDto.SNAPSHOT, counters.day, 0L, List.of());
+
+    public LiveDashboardService(
+            TransactionRollupRepository transactionRollupRepository,
+            TransactionHistoryRepository transactionHistoryRepository,
+            MeterRegistry meterRegistry,
+            @Value("${dashboard.live.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${dashboard.live.max-subscribers:200}") int maxSubscribers,
+            @Value("${dashboard.live.max-pending-events:16}") int maxPendingEvents,
+            @Value("${dashboard.live.sender-threads:4}") int senderThreads) {
+        this.transactionRollupRepository = transactionRollupRepository;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPendingEvents = maxPendingEvents;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(maxSubscribers), runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-live-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        meterRegistry.gauge("lulpay.dashboard.live.subscribers", subscribers, Set::size);
+    }
+
+    /**
+     * Add a committed transfer to today's counters
+     *
+     * @param event The completed transfer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (unseededTransfers != null) {
+            synchronized (seedLock) {
+                if (unseededTransfers != null) {
+                    unseededTransfers.add(event);
+                    return;
+                }
+            }
+        }
+        count(event);
+    }
+
+    /**
+     * Seed today's counters from the rollups and the current hour, once per process. Transfers created
+     * before the start of the seed are counted by it; those committed earlier are dropped from the held
+     * back events, the others are counted from their events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedFromDatabase() {
+        if (unseededTransfers == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dayStart = now.toLocalDate().atStartOfDay();
+        LocalDateTime closedHoursEnd = RollupGranularity.HOUR.bucketStart(now.minusMinutes(1));
+        DayCounters today = countersFor(now.toLocalDate());
+
+        try {
+            if (dayStart.isBefore(closedHoursEnd)) {
+                for (RollupBucketDto row : transactionRollupRepository.findBuckets(RollupGranularity.HOUR, dayStart, closedHoursEnd)) {
+                    today.add(row.getCurrency(), row.getTransactionTypeId(), row.getCount(),
+                            toMinorUnits(row.getValue()), toMinorUnits(row.getFees()));
+                }
+            }
+            LocalDateTime rawStart = dayStart.isAfter(closedHoursEnd) ? dayStart : closedHoursEnd;
+            for (Object[] row : transactionHistoryRepository.sumByDimensionBetween(rawStart, now)) {
+                today.add((String) row[0], row[2] != null ? ((Number) row[2]).intValue() : null,
+                        ((Number) row[3]).longValue(), toMinorUnits((BigDecimal) row[4]), toMinorUnits((BigDecimal) row[5]));
+            }
+            log.info("Seeded live dashboard counters for {}", today.day);
+        } catch (Exception e) {
+            log.warn("Could not seed live dashboard counters, starting from zero: {}", e.getMessage());
+        }
+
+        synchronized (seedLock) {
+            if (unseededTransfers == null) {
+                return;
+            }
+            for (TransferCompletedEvent event : unseededTransfers) {
+                if (event.getCreatedAt() == null || !event.getCreatedAt().isBefore(now)) {
+                    count(event);
+                }
+            }
+            unseededTransfers = null;
+        }
+    }
+
+    /**
+     * Subscribe a dashboard; the first event is a snapshot of today's totals
+     *
+     * @return The emitter streaming snapshot and delta events
+     * @throws TooManyRequestsException if the maximum number of subscribers is connected
+     */
+    public SseEmitter subscribe() {
+        if (subscriberSlots.incrementAndGet() > maxSubscribers) {
+            subscriberSlots.decrementAndGet();
+            throw new TooManyRequestsException(ErrorCode.LIVE_DASHBOARD_BUSY);
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, maxPendingEvents);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        drain(subscriber);
+        log.debug("Live dashboard subscribed, {} connected", subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Get the totals published so far today, consistent with the deltas sent to subscribers
+     *
+     * @return The latest snapshot
+     */
+    public LiveDashboardEventDto getSnapshot() {
+        return publishedSnapshot;
+    }
+
+    /**
+     * Send the changes since the previous push to all subscribers
+     */
+    @Scheduled(fixedRateString = "${dashboard.live.push-interval-ms:1000}")
+    public synchronized void publishDeltas() {
+        DayCounters current = countersFor(LocalDate.now());
+
+        if (!current.day.equals(publishedDay)) {
+            // New day: every dashboard starts again from an empty snapshot
+            published.clear();
+            publishedDay = current.day;
+            publishedSnapshot = new LiveDashboardEventDto(LiveDashboardEventDto.SNAPSHOT, current.day, sequence, List.of());
+            for (Subscriber subscriber : subscribers) {
+                subscriber.resync = true;
+                drain(subscriber);
+            }
+        }
+
+        List<LiveDashboardEntryDto> changes = new ArrayList<>();
+        for (Map.Entry<CounterKey, Counters> entry : current.values.entrySet()) {
+            Counters counter = entry.getValue();
+            long count = counter.count.sum();
+            long value = counter.value.sum();
+            long fees = counter.fees.sum();
+            long[] last = published.computeIfAbsent(entry.getKey(), k -> new long[3]);
+            if (count != last[0] || value != last[1] || fees != last[2]) {
+                changes.add(new LiveDashboardEntryDto(entry.getKey().currency, entry.getKey().transactionTypeId,
+                        count - last[0], fromMinorUnits(value - last[1]), fromMinorUnits(fees - last[2])));
+                last[0] = count;
+                last[1] = value;
+                last[2] = fees;
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        sequence++;
+        publishedSnapshot = new LiveDashboardEventDto(LiveDashboardEventDto.SNAPSHOT, current.day, sequence, snapshotEntries());
+        LiveDashboardEventDto delta = new LiveDashboardEventDto(LiveDashboardEventDto.DELTA, current.day, sequence, changes);
+
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.pending.offer(delta)) {
+                // Too far behind: drop the backlog and catch up with one snapshot
+                subscriber.pending.clear();
+                subscriber.resync = true;
+            }
+            drain(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        sendExecutor.shutdownNow();
+    }
+
+    private void count(TransferCompletedEvent event) {
+        LocalDate today = LocalDate.now();
+        if (event.getCreatedAt() != null && event.getCreatedAt().toLocalDate().isBefore(today)) {
+            return;
+        }
+        countersFor(today).add(event.getCurrency(), event.getTransactionTypeId(), 1,
+                toMinorUnits(event.getAmount()), toMinorUnits(event.getFee()));
+    }
+
+    /**
+     * Remove a subscriber and release its slot, once whichever of its callbacks runs first
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberSlots.decrementAndGet();
+        }
+    }
+
+    private List<LiveDashboardEntryDto> snapshotEntries() {
+        List<LiveDashboardEntryDto> entries = new ArrayList<>(published.size());
+        for (Map.Entry<CounterKey, long[]> entry : published.entrySet()) {
+            long[] totals = entry.getValue();
+            entries.add(new LiveDashboardEntryDto(entry.getKey().currency, entry.getKey().transactionTypeId,
+                    totals[0], fromMinorUnits(totals[1]), fromMinorUnits(totals[2])));
+        }
+        return List.copyOf(entries);
+    }
+
+    private void drain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> send(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Retried on the next push
+            subscriber.draining.set(false);
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            if (subscriber.resync) {
+                subscriber.resync = false;
+                subscriber.pending.clear();
+                LiveDashboardEventDto snapshot = publishedSnapshot;
+                subscriber.emitter.send(SseEmitter.event()
+                    .name(snapshot.getType())
+                    .id(String.valueOf(snapshot.getSequence()))
+                    .data(snapshot));
+                subscriber.lastSequence = snapshot.getSequence();
+            }
+            LiveDashboardEventDto event;
+            while ((event = subscriber.pending.poll()) != null) {
+                // Deltas already contained in the snapshot just sent are skipped
+                if (event.getSequence() <= subscriber.lastSequence) {
+                    continue;
+                }
+                subscriber.emitter.send(SseEmitter.event()
+                    .name(event.getType())
+                    .id(String.valueOf(event.getSequence()))
+                    .data(event));
+                subscriber.lastSequence = event.getSequence();
+            }
+        } catch (Exception e) {
+            // The client went away; the container completes the emitter
+            unsubscribe(subscriber);
+            log.debug("Dropped live dashboard subscriber: {}", e.getMessage());
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        if (subscriber.resync || !subscriber.pending.isEmpty()) {
+            drain(subscriber);
+        }
+    }
+
+    private DayCounters countersFor(LocalDate day) {
+        DayCounters current = counters;
+        if (day.isAfter(current.day)) {
+            synchronized (this) {
+                if (day.isAfter(counters.day)) {
+                    counters = new DayCounters(day);
+                }
+                current = counters;
+            }
+        }
+        return current;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+    }
+
+    private static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2);
+    }
+
+    private static final class DayCounters {
+        private final LocalDate day;
+        private final Map<CounterKey, Counters> values = new ConcurrentHashMap<>();
+
+        private DayCounters(LocalDate day) {
+            this.day = day;
+        }
+
+        private void add(String currency, Integer transactionTypeId, long count, long value, long fees) {
+            Counters counter = values.computeIfAbsent(
+                    new CounterKey(currency != null ? currency : "", transactionTypeId), k -> new Counters());
+            counter.count.add(count);
+            counter.value.add(value);
+            counter.fees.add(fees);
+        }
+    }
+
+    private static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder value = new LongAdder();
+        private final LongAdder fees = new LongAdder();
+    }
+
+    private static final class CounterKey {
+        private final String currency;
+        private final Integer transactionTypeId;
+
+        private CounterKey(String currency, Integer transactionTypeId) {
+            this.currency = currency;
+            this.transactionTypeId = transactionTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CounterKey)) {
+                return false;
+            }
+            CounterKey other = (CounterKey) o;
+            return currency.equals(other.currency) && Objects.equals(transactionTypeId, other.transactionTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(currency, transactionTypeId);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<LiveDashboardEventDto> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // A new subscriber starts with a snapshot
+        private volatile boolean resync = true;
+        private long lastSequence = -1;
+
+        private Subscriber(SseEmitter emitter, int maxPendingEvents) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.lul.service;
+
+import com.lul.entity.AccessHistory;
+import com.lul.entity.FcmToken;
+import com.lul.repository.FcmTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background writer of the side effects of a login: the access history entry with its location and risk
+ * level, the current-session pointer, the FCM token and the login notification.
+ *
+ * Login checks the credentials, issues the token and writes its token row, then queues a LoginActivity
+ * here. One writer thread drains up to max-batch-size activities, lingering up to linger-ms after the
+ * first, and writes them in one transaction in queue order. If the batch transaction fails it is split in
+ * halves and retried, so a bad activity only loses itself: it is logged and counted in
+ * lulpay.login.activity.failures, not retried. When the queue is full the login writes its own activity,
+ * which bounds memory and slows logins down instead of discarding activities. Login notifications are
+ * handed to their own bounded pool after the batch commits, so FCM round trips neither slow the writer down
+ * nor run on a login thread; when that pool is full a notification is dropped and counted in
+ * lulpay.login.notification.dropped.
+ */
+@Service
+@Slf4j
+public class LoginActivityWriter {
+
+    private final AccessHistoryService accessHistoryService;
+    private final FcmTokenRepository fcmTokenRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<LoginActivity> queue;
+    private final Thread writer;
+    private final DistributionSummary batchSizes;
+    private final Counter overflows;
+    private final Counter failures;
+    private final Counter droppedNotifications;
+    private final ThreadPoolExecutor notificationExecutor;
+    private volatile boolean running = true;
+
+    public LoginActivityWriter(
+            AccessHistoryService accessHistoryService,
+            FcmTokenRepository fcmTokenRepository,
+            NotificationService notificationService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${login.activity.max-batch-size:100}") int maxBatchSize,
+            @Value("${login.activity.queue-capacity:10000}") int queueCapacity,
+            @Value("${login.activity.linger-ms:20}") long lingerMs,
+            @Value("${login.activity.notification-threads:4}") int notificationThreads,
+            @Value("${login.activity.notification-queue-capacity:10000}") int notificationQueueCapacity) {
+        this.accessHistoryService = accessHistoryService;
+        this.fcmTokenRepository = fcmTokenRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("lulpay.login.activity.batch.size")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.overflows = meterRegistry.counter("lulpay.login.activity.overflows");
+        this.failures = meterRegistry.counter("lulpay.login.activity.failures");
+        this.droppedNotifications = meterRegistry.counter("lulpay.login.notification.dropped");
+        meterRegistry.gauge("lulpay.login.activity.queued", queue, BlockingQueue::size);
+
+        AtomicInteger notificationThreadCount = new AtomicInteger();
+        this.notificationExecutor = new ThreadPoolExecutor(notificationThreads, notificationThreads, 0L,
+            TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(notificationQueueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "login-notification-" + notificationThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.writer = new Thread(this::run, "login-activity-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue the side effects of a login, or write them right away if the queue is full
+     *
+     * @param activity The login activity
+     */
+    public void submit(LoginActivity activity) {
+        if (!running || !queue.offer(activity)) {
+            overflows.increment();
+            writeBatch(List.of(activity));
+        }
+    }
+
+    /**
+     * Stop the writer once the activities already queued are written, then send their notifications
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+            notificationExecutor.shutdown();
+            notificationExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write a batch of activities in one transaction, then queue their notifications. If the transaction
+     * fails the batch is split in halves and each half is retried.
+     *
+     * @param batch Activities in queue order
+     */
+    void writeBatch(List<LoginActivity> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failures.increment();
+                log.error("Failed to write login activity of user {}: {}", batch.get(0).getUserId(),
+                    e.getMessage(), e);
+                return;
+            }
+            log.warn("Login activity batch of {} failed, splitting it: {}", batch.size(), e.getMessage());
+            int half = batch.size() / 2;
+            writeBatch(batch.subList(0, half));
+            writeBatch(batch.subList(half, batch.size()));
+            return;
+        }
+        batchSizes.record(batch.size());
+        batch.forEach(this::queueNotification);
+    }
+
+    private void apply(List<LoginActivity> batch) {
+        // Risk is assessed against the devices known before this batch, as it was at login time
+        List<AccessHistory> accessHistories = new ArrayList<>(batch.size());
+        for (LoginActivity activity : batch) {
+            AccessHistory accessHistory = activity.getAccessHistory();
+            // A retried half may carry the ID of an insert that was rolled back
+            accessHistory.setId(null);
+            accessHistory.setRiskLevel(accessHistoryService.assessRiskLevel(activity.getUserId(),
+                accessHistory.getDeviceFingerprint()));
+            accessHistories.add(accessHistory);
+        }
+        accessHistoryService.recordAccesses(accessHistories);
+
+        for (LoginActivity activity : batch) {
+            if (activity.getFcmToken() != null && !activity.getFcmToken().isEmpty()) {
+                // Deactivate old tokens for this device
+                fcmTokenRepository.deactivateUserTokensForDevice(activity.getUserId(), activity.getDeviceId());
+
+                FcmToken fcmToken = new FcmToken();
+                fcmToken.setUserId(activity.getUserId());
+                fcmToken.setToken(activity.getFcmToken());
+                fcmToken.setDeviceId(activity.getDeviceId());
+                fcmToken.setActive(true);
+                fcmToken.setCreatedAt(activity.getLoggedInAt());
+                fcmTokenRepository.save(fcmToken);
+            }
+        }
+    }
+
+    private void queueNotification(LoginActivity activity) {
+        try {
+            notificationExecutor.execute(() -> notifyLogin(activity));
+        } catch (RejectedExecutionException e) {
+            droppedNotifications.increment();
+            log.warn("Login notification pool is full, not notifying user {}", activity.getUserId());
+        }
+    }
+
+    private void notifyLogin(LoginActivity activity) {
+        try {
+            notificationService.sendNotification(
+                activity.getUserId(),
+                "New Login",
+                "New login detected from " + activity.getDeviceName(),
+                Map.of(
+                    "type", "security",
+                    "event", "login",
+                    "deviceId", activity.getDeviceId()
+                )
+            );
+        } catch (Exception e) {
+            log.error("Failed to send login notification", e);
+        }
+    }
+
+    private void run() {
+        List<LoginActivity> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LoginActivity first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                log.error("Login activity writer failed: {}", t.getMessage(), t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Add queued activities to the batch until it is full or the linger time after the first one has passed
+     */
+    private void fill(List<LoginActivity> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            LoginActivity next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /**
+     * The side effects of one login. The access history entry carries the device, IP address and
+     * fingerprint; location, risk level and the session pointer are filled in by the writer.
+     */
+    @Getter
+    @Builder
+    public static final class LoginActivity {
+        private final Long userId;
+        private final AccessHistory accessHistory;
+        private final String deviceId;
+        private final String deviceName;
+        private final String fcmToken;
+        private final LocalDateTime loggedInAt;
+    }
+}
@@ -3,26 +3,34 @@ package com.lul.service;
 import com.lul.constant.ErrorCode;
 import com.lul.dto.NonWalletTransferRequest;
 import com.lul.dto.NonWalletTransferResponse;
+import com.lul.dto.NonWalletTransferStatusDto;
+import com.lul.dto.TransferQuoteDto;
 import com.lul.entity.*;
+import com.lul.enums.UserChangeType;
+import com.lul.event.DisbursementStageChangedEvent;
 import com.lul.exception.InsufficientFundsException;
 import com.lul.exception.InvalidPinException;
 import com.lul.exception.LulPayException;
 import com.lul.exception.NotFoundException;
+import com.lul.exception.TooManyRequestsException;
 import com.lul.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for handling transfers to non-wallet recipients
@@ -32,6 +40,17 @@ import java.util.Optional;
 @Slf4j
 public class NonWalletTransferService {
 
+    /**
+     * Stages a transfer may move to from each stage, by stage name; every other stage is final. The hold of
+     * a transfer is settled once it is Disbursed and released once it is Failed, so moving it on from
+     * either would pay it out twice or refund a paid transfer.
+     */
+    static final Map<String, Set<String>> ALLOWED_STAGE_TRANSITIONS = Map.of(
+        "Initiated", Set.of("Processing", "Failed"),
+        "Processing", Set.of("Pending Pickup", "Disbursed", "Failed"),
+        "Pending Pickup", Set.of("Disbursed", "Failed")
+    );
+
     private final UserWalletRepository userWalletRepository;
     private final UserRepository userRepository;
     private final TransactionHistoryRepository transactionHistoryRepository;
@@ -46,6 +65,12 @@ public class NonWalletTransferService {
     private final NonWalletRecipientDetailRepository nonWalletRecipientDetailRepository;
     private final DisbursementStageRepository disbursementStageRepository;
     private final SmsService smsService;
+    private final TransferPricingService transferPricingService;
+    private final TransferQuoteService transferQuoteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NonWalletTransferStatusCache nonWalletTransferStatusCache;
+    private final WalletHoldService walletHoldService;
+    private final UserChangeService userChangeService;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -153,9 +178,13 @@ public class NonWalletTransferService {
                 throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
             }
             
-            // 6. Calculate fees
-            BigDecimal fee = calculateTransactionFee(request.getAmount(), request.getSenderWalletTypeId());
-            BigDecimal totalAmount = request.getAmount().add(fee);
+            // 6. Price the transfer: use the locked quote when given, otherwise the current fee
+            TransferQuoteDto pricing = request.getQuoteToken() != null && !request.getQuoteToken().isEmpty()
+                ? transferQuoteService.redeemQuote(request.getQuoteToken(), senderId, TransferQuoteDto.TransferType.NON_WALLET,
+                    request.getSenderWalletTypeId(), null, request.getAmount())
+                : transferPricingService.priceNonWalletTransfer(request.getSenderWalletTypeId(), request.getAmount());
+            BigDecimal fee = pricing.getFee();
+            BigDecimal totalAmount = pricing.getTotalAmount();
             
             if (senderWallet.getBalance().compareTo(totalAmount) < 0) {
                 throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
@@ -186,6 +215,9 @@ public class NonWalletTransferService {
             additionalData.put("recipientName", request.getRecipientFullName());
             additionalData.put("recipientPhone", request.getPhoneNumber());
             additionalData.put("transferMethod", "non_wallet");
+            if (pricing.getQuoteId() != null) {
+                additionalData.put("quoteId", pricing.getQuoteId());
+            }
             transaction.setAdditionalData(additionalData);
             
             transactionHistoryRepository.save(transaction);
@@ -207,117 +239,39 @@ public class NonWalletTransferService {
             
             nonWalletRecipientDetailRepository.save(recipientDetail);
             
-            // 9. Update wallet balances
-            senderWallet.setBalance(senderWallet.getBalance().subtract(totalAmount));
-            companyWallet.setBalance(companyWallet.getBalance().add(request.getAmount()));
-            
-            userWalletRepository.save(senderWallet);
-            userWalletRepository.save(companyWallet);
+            // 9. Hold the funds on the sender wallet; the company wallet is credited when the payout settles
+            walletHoldService.reserve(transaction, senderWallet.getId(), companyWallet.getId());
+            entityManager.refresh(senderWallet);
             
-            // 10. Update transaction status to completed
-            transaction.setTransactionStatusId(2); // Assuming 2 is for completed
-            transaction.setCompletedAt(LocalDateTime.now());
-            transactionHistoryRepository.save(transaction);
+            // 10. The transfer stays pending until its hold settles, which completes it and publishes
+            // TransferCompletedEvent; only the sender's wallet and history have changed so far
+            userChangeService.record(senderId, UserChangeType.WALLET, Long.valueOf(senderWallet.getId()));
+            userChangeService.record(senderId, UserChangeType.TRANSACTION, transaction.getTransactionId());
             
             // 11. Record transaction fee
             recordTransactionFee(transaction.getTransactionId(), fee, senderWallet.getWallet().getCurrencyCode());
             
             // 12. Create audit log
-            createAuditLog(transaction, senderId.intValue(), "NON_WALLET_TRANSFER_COMPLETED", null);
+            createAuditLog(transaction, senderId.intValue(), "NON_WALLET_TRANSFER_INITIATED", null);
             
-            // 13. Send notifications to sender (FCM and SMS)
-            String senderFirstName = sender.getFirstName() != null ? sender.getFirstName() : "User";
-            String recipientFirstName = request.getRecipientFullName() != null ? request.getRecipientFullName() : "Recipient";
+            // 13-14. Notify the sender and the recipient once the transfer has committed, so the sender
+            // wallet row reserved in step 9 is not locked while SMS and FCM calls run
             String currencyCode = senderWallet.getWallet().getCurrencyCode();
-            String transactionIdStr = transaction.getTransactionId().toString();
-            String currentDate = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            
-            // FCM message for sender
-            String fcmSenderMessage = "You Sent " + request.getAmount() + " " + currencyCode + " to " + recipientFirstName;
-            
-            // SMS message for sender
-            String smsSenderMessage = "Hello " + senderFirstName + ", you sent " + request.getAmount() + " " + currencyCode + 
-                " to " + recipientFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
-            
-            // Send FCM notification to sender (but not SMS - we'll send that directly)
-            notificationService.sendFcmNotificationToSender(
-                senderId.intValue(),
-                "Payment Sent",
-                fcmSenderMessage,
-                transaction.getTransactionId()
-            );
-            
-            // Also send SMS directly to sender to ensure delivery
-            try {
-                // Ensure sender phone number is properly formatted
-                String senderPhoneNumber = sender.getPhoneNumber();
-                if (senderPhoneNumber != null && !senderPhoneNumber.isEmpty()) {
-                    log.info("Sending direct SMS to sender phone: {}", senderPhoneNumber);
-                    
-                    // Ensure phone number is properly formatted
-                    if (!senderPhoneNumber.startsWith("+")) {
-                        if (senderPhoneNumber.startsWith("0")) {
-                            senderPhoneNumber = "+256" + senderPhoneNumber.substring(1);
-                        } else {
-                            senderPhoneNumber = "+" + senderPhoneNumber;
-                        }
-                        log.info("Formatted sender phone number: {}", senderPhoneNumber);
-                    }
-                    
-                    boolean smsSent = notificationService.sendDirectSms(senderPhoneNumber, smsSenderMessage);
-                    if (smsSent) {
-                        log.info("SMS sent directly to sender: {}", senderPhoneNumber);
-                    } else {
-                        log.warn("SMS service failed to send message directly to sender: {}", senderPhoneNumber);
-                    }
-                } else {
-                    log.warn("Sender phone number is null or empty. Cannot send SMS.");
-                }
-            } catch (Exception ex) {
-                log.error("Failed to send SMS directly to sender: {}", ex.getMessage(), ex);
-                // Log the full stack trace for better troubleshooting
-                ex.printStackTrace();
-                // Don't fail the transaction if SMS fails
-            }
-            
-            // 14. Send SMS to recipient
-            // SMS message for recipient
-            String smsReceiverMessage = "Hello " + recipientFirstName + ", you received " + request.getAmount() + " " + currencyCode + 
-                " from " + senderFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
-            
-            log.info("Sending SMS to recipient: {}", smsReceiverMessage);
-            
-            // Send SMS directly to non-wallet recipient instead of using notification queue
-            try {
-                // Ensure recipient phone number is properly formatted
-                String recipientPhoneNumber = request.getPhoneNumber();
-                if (recipientPhoneNumber != null && !recipientPhoneNumber.isEmpty()) {
-                    log.info("Sending direct SMS to recipient phone: {}", recipientPhoneNumber);
-                    
-                    // Ensure phone number is properly formatted
-                    if (!recipientPhoneNumber.startsWith("+")) {
-                        if (recipientPhoneNumber.startsWith("0")) {
-                            recipientPhoneNumber = "+256" + recipientPhoneNumber.substring(1);
-                        } else {
-                            recipientPhoneNumber = "+" + recipientPhoneNumber;
+            Long committedTransactionId = transaction.getTransactionId();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        try {
+                            notifyTransfer(senderId, sender, request, committedTransactionId, currencyCode);
+                        } catch (Exception e) {
+                            // The transfer is committed; a failed notification must not fail the response
+                            log.error("Failed to notify non-wallet transfer {}: {}", committedTransactionId, e.getMessage(), e);
                         }
-                        log.info("Formatted recipient phone number: {}", recipientPhoneNumber);
                     }
-                    
-                    boolean smsSent = notificationService.sendDirectSms(recipientPhoneNumber, smsReceiverMessage);
-                    if (smsSent) {
-                        log.info("SMS sent directly to recipient: {}", recipientPhoneNumber);
-                    } else {
-                        log.warn("SMS service failed to send message directly to recipient: {}", recipientPhoneNumber);
-                    }
-                } else {
-                    log.warn("Recipient phone number is null or empty. Cannot send SMS.");
-                }
-            } catch (Exception ex) {
-                log.error("Failed to send SMS directly to recipient: {}", ex.getMessage(), ex);
-                // Log the full stack trace for better troubleshooting
-                ex.printStackTrace();
-                // Don't fail the transaction if SMS fails
+                });
+            } else {
+                notifyTransfer(senderId, sender, request, committedTransactionId, currencyCode);
             }
             
             // 15. Create idempotency key if provided
@@ -364,7 +318,7 @@ public class NonWalletTransferService {
                 
         } catch (Exception e) {
             log.error("Non-wallet transfer failed: {}", e.getMessage(), e);
-            if (e instanceof LulPayException || e instanceof InsufficientFundsException || e instanceof InvalidPinException || e instanceof NotFoundException) {
+            if (e instanceof LulPayException || e instanceof InsufficientFundsException || e instanceof InvalidPinException || e instanceof NotFoundException || e instanceof TooManyRequestsException) {
                 throw e;
             }
             throw new LulPayException(ErrorCode.NON_WALLET_TRANSFER_FAILED, "Non-wallet transfer failed: " + e.getMessage());
@@ -372,21 +326,109 @@ public class NonWalletTransferService {
     }
     
     /**
-     * Calculate the transaction fee for a non-wallet transfer
+     * Notify the sender (FCM and SMS) and the recipient (SMS) of a non-wallet transfer
      * 
-     * @param amount The amount being transferred
-     * @param walletTypeId The wallet type ID
-     * @return The calculated fee
+     * @param senderId The ID of the sender user
+     * @param sender The sender user
+     * @param request The transfer request
+     * @param transactionId The transaction ID
+     * @param currencyCode The currency of the transfer
      */
-    private BigDecimal calculateTransactionFee(BigDecimal amount, Integer walletTypeId) {
-        // Fetch fee configuration from database
-        // For now, using a simple percentage-based fee
-        BigDecimal feePercentage = BigDecimal.valueOf(0.01); // 1%
-        BigDecimal fee = amount.multiply(feePercentage).setScale(2, RoundingMode.HALF_UP);
+    private void notifyTransfer(Long senderId, User sender, NonWalletTransferRequest request, Long transactionId,
+                                String currencyCode) {
+        // Send notifications to sender (FCM and SMS)
+        String senderFirstName = sender.getFirstName() != null ? sender.getFirstName() : "User";
+        String recipientFirstName = request.getRecipientFullName() != null ? request.getRecipientFullName() : "Recipient";
+        String transactionIdStr = transactionId.toString();
+        String currentDate = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        
+        // FCM message for sender
+        String fcmSenderMessage = "You Sent " + request.getAmount() + " " + currencyCode + " to " + recipientFirstName;
+        
+        // SMS message for sender
+        String smsSenderMessage = "Hello " + senderFirstName + ", you sent " + request.getAmount() + " " + currencyCode + 
+            " to " + recipientFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
         
-        // Ensure minimum fee
-        BigDecimal minFee = walletTypeId == 1 ? BigDecimal.valueOf(500) : BigDecimal.valueOf(0.5); // 500 UGX or 0.5 USD
-        return fee.max(minFee);
+        // Send FCM notification to sender (but not SMS - we'll send that directly)
+        notificationService.sendFcmNotificationToSender(
+            senderId.intValue(),
+            "Payment Sent",
+            fcmSenderMessage,
+            transactionId
+        );
+        
+        // Also send SMS directly to sender to ensure delivery
+        try {
+            // Ensure sender phone number is properly formatted
+            String senderPhoneNumber = sender.getPhoneNumber();
+            if (senderPhoneNumber != null && !senderPhoneNumber.isEmpty()) {
+                log.info("Sending direct SMS to sender phone: {}", senderPhoneNumber);
+                
+                // Ensure phone number is properly formatted
+                if (!senderPhoneNumber.startsWith("+")) {
+                    if (senderPhoneNumber.startsWith("0")) {
+                        senderPhoneNumber = "+256" + senderPhoneNumber.substring(1);
+                    } else {
+                        senderPhoneNumber = "+" + senderPhoneNumber;
+                    }
+                    log.info("Formatted sender phone number: {}", senderPhoneNumber);
+                }
+                
+                boolean smsSent = notificationService.sendDirectSms(senderPhoneNumber, smsSenderMessage);
+                if (smsSent) {
+                    log.info("SMS sent directly to sender: {}", senderPhoneNumber);
+                } else {
+                    log.warn("SMS service failed to send message directly to sender: {}", senderPhoneNumber);
+                }
+            } else {
+                log.warn("Sender phone number is null or empty. Cannot send SMS.");
+            }
+        } catch (Exception ex) {
+            log.error("Failed to send SMS directly to sender: {}", ex.getMessage(), ex);
+            // Log the full stack trace for better troubleshooting
+            ex.printStackTrace();
+            // Don't fail the transaction if SMS fails
+        }
+        
+        // Send SMS to recipient
+        // SMS message for recipient
+        String smsReceiverMessage = "Hello " + recipientFirstName + ", you received " + request.getAmount() + " " + currencyCode + 
+            " from " + senderFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
+        
+        log.info("Sending SMS to recipient: {}", smsReceiverMessage);
+        
+        // Send SMS directly to non-wallet recipient instead of using notification queue
+        try {
+            // Ensure recipient phone number is properly formatted
+            String recipientPhoneNumber = request.getPhoneNumber();
+            if (recipientPhoneNumber != null && !recipientPhoneNumber.isEmpty()) {
+                log.info("Sending direct SMS to recipient phone: {}", recipientPhoneNumber);
+                
+                // Ensure phone number is properly formatted
+                if (!recipientPhoneNumber.startsWith("+")) {
+                    if (recipientPhoneNumber.startsWith("0")) {
+                        recipientPhoneNumber = "+256" + recipientPhoneNumber.substring(1);
+                    } else {
+                        recipientPhoneNumber = "+" + recipientPhoneNumber;
+                    }
+                    log.info("Formatted recipient phone number: {}", recipientPhoneNumber);
+                }
+                
+                boolean smsSent = notificationService.sendDirectSms(recipientPhoneNumber, smsReceiverMessage);
+                if (smsSent) {
+                    log.info("SMS sent directly to recipient: {}", recipientPhoneNumber);
+                } else {
+                    log.warn("SMS service failed to send message directly to recipient: {}", recipientPhoneNumber);
+                }
+            } else {
+                log.warn("Recipient phone number is null or empty. Cannot send SMS.");
+            }
+        } catch (Exception ex) {
+            log.error("Failed to send SMS directly to recipient: {}", ex.getMessage(), ex);
+            // Log the full stack trace for better troubleshooting
+            ex.printStackTrace();
+            // Don't fail the transaction if SMS fails
+        }
     }
     
     /**
@@ -464,57 +506,97 @@ public class NonWalletTransferService {
      * @return The transfer response with current status
      */
     public NonWalletTransferResponse getNonWalletTransferStatus(Long userId, Long transactionId) {
-        log.info("Getting non-wallet transfer status: userId={}, transactionId={}", userId, transactionId);
+        log.debug("Getting non-wallet transfer status: userId={}, transactionId={}", userId, transactionId);
         
-        // Find the transaction
-        TransactionHistory transaction = transactionHistoryRepository.findByTransactionId(transactionId)
-            .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_NOT_FOUND));
+        // Clients poll while the disbursement is processing; a stage change evicts the cached status
+        NonWalletTransferStatusDto transfer = nonWalletTransferStatusCache.get(transactionId).orElse(null);
+        if (transfer == null) {
+            long readStartedAt = nonWalletTransferStatusCache.now();
+            transfer = transactionHistoryRepository.findNonWalletTransferStatus(transactionId)
+                .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_NOT_FOUND));
+            nonWalletTransferStatusCache.put(transactionId, transfer, readStartedAt);
+        }
         
         // Verify that the user is the sender of the transaction
-        if (!transaction.getSenderId().equals(userId.intValue())) {
+        if (!transfer.getSenderId().equals(userId.intValue())) {
             throw new LulPayException(ErrorCode.UNAUTHORIZED_WALLET_ACCESS, "User is not authorized to view this transaction");
         }
-        
-        // Find the sender's wallet
-        UserWallet senderWallet = userWalletRepository.findById(transaction.getSenderWalletId())
-            .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
-        
-        // Find recipient details
-        NonWalletRecipientDetail recipientDetail = nonWalletRecipientDetailRepository
-            .findByTransactionHistoryId(transaction.getId())
-            .orElseThrow(() -> new NotFoundException(ErrorCode.RECIPIENT_DETAILS_NOT_FOUND));
-        
-        // Get disbursement stage name
-        String disbursementStageName = "Unknown";
-        try {
-            DisbursementStage stage = disbursementStageRepository.findById(transaction.getDisbursementStageId())
-                .orElse(null);
-            if (stage != null) {
-                disbursementStageName = stage.getStageName();
-            }
-        } catch (Exception e) {
-            log.error("Error fetching disbursement stage: {}", e.getMessage(), e);
+        if (transfer.getSenderWalletId() == null) {
+            throw new NotFoundException(ErrorCode.WALLET_NOT_FOUND);
+        }
+        if (transfer.getRecipientName() == null) {
+            throw new NotFoundException(ErrorCode.RECIPIENT_DETAILS_NOT_FOUND);
         }
         
         // Build and return response
         return NonWalletTransferResponse.builder()
-            .status(getStatusText(transaction.getTransactionStatusId()))
-            .transactionId(transaction.getTransactionId())
-            .senderWalletId(Long.valueOf(senderWallet.getId()))
-            .amount(transaction.getTransactedValue())
-            .fee(transaction.getFee())
-            .totalAmount(transaction.getTotalAmount())
-            .currency(transaction.getCurrency())
-            .description(transaction.getDescription())
-            .timestamp(transaction.getCreatedAt())
-            .senderWalletBalanceAfter(senderWallet.getBalance())
-            .recipientName(recipientDetail.getFullName())
-            .recipientPhoneNumber(recipientDetail.getPhoneNumber())
-            .disbursementStageId(transaction.getDisbursementStageId())
-            .disbursementStageName(disbursementStageName)
+            .status(getStatusText(transfer.getTransactionStatusId()))
+            .transactionId(transfer.getTransactionId())
+            .senderWalletId(Long.valueOf(transfer.getSenderWalletId()))
+            .amount(transfer.getAmount())
+            .fee(transfer.getFee())
+            .totalAmount(transfer.getTotalAmount())
+            .currency(transfer.getCurrency())
+            .description(transfer.getDescription())
+            .timestamp(transfer.getCreatedAt())
+            .senderWalletBalanceAfter(transfer.getSenderWalletBalance())
+            .recipientName(transfer.getRecipientName())
+            .recipientPhoneNumber(transfer.getRecipientPhoneNumber())
+            .disbursementStageId(transfer.getDisbursementStageId())
+            .disbursementStageName(transfer.getDisbursementStageName() != null ? transfer.getDisbursementStageName() : "Unknown")
             .build();
     }
     
+    /**
+     * Move a non-wallet transfer to another disbursement stage. The transfer is locked while it moves, so a
+     * payout batch settling it at the same time either runs first and the move is checked against its final
+     * stage, or waits and finds the transfer no longer in Processing.
+     * 
+     * @param transactionId The transaction ID
+     * @param stageId The new disbursement stage ID
+     * @return true if the stage changed, false if the transfer was already in that stage
+     * @throws LulPayException if the transfer cannot move from its current stage to the new one
+     */
+    @Transactional
+    public boolean updateDisbursementStage(Long transactionId, Integer stageId) {
+        TransactionHistory transaction = transactionHistoryRepository.findByTransactionIdForUpdate(transactionId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_NOT_FOUND));
+        DisbursementStage stage = disbursementStageRepository.findById(stageId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.DISBURSEMENT_STAGE_NOT_FOUND));
+        
+        Integer previousStageId = transaction.getDisbursementStageId();
+        if (stageId.equals(previousStageId)) {
+            return false;
+        }
+        String previousStageName = Optional.ofNullable(previousStageId)
+            .flatMap(disbursementStageRepository::findById)
+            .map(DisbursementStage::getStageName)
+            .orElse("");
+        if (!ALLOWED_STAGE_TRANSITIONS.getOrDefault(previousStageName, Set.of()).contains(stage.getStageName())) {
+            throw new LulPayException(ErrorCode.INVALID_DISBURSEMENT_STAGE_TRANSITION,
+                String.format("Non-wallet transfer %d cannot move from stage %s to %s",
+                    transactionId, previousStageName, stage.getStageName()));
+        }
+        
+        transaction.setDisbursementStageId(stageId);
+        transactionHistoryRepository.save(transaction);
+        nonWalletRecipientDetailRepository.findByTransactionHistoryId(transaction.getId()).ifPresent(detail -> {
+            detail.setDisbursementStageId(stageId);
+            nonWalletRecipientDetailRepository.save(detail);
+        });
+        
+        log.info("Non-wallet transfer {} moved from disbursement stage {} to {}", transactionId, previousStageId, stageId);
+        eventPublisher.publishEvent(DisbursementStageChangedEvent.builder()
+            .transactionId(transactionId)
+            .senderId(transaction.getSenderId())
+            .previousStageId(previousStageId)
+            .stageId(stageId)
+            .stageName(stage.getStageName())
+            .changedAt(LocalDateTime.now())
+            .build());
+        return true;
+    }
+    
     /**
      * Convert transaction status ID to a human-readable status text
      * 
@@ -0,0 +1,127 @@
+package com.lul.service;
+
+import com.lul.dto.NonWalletTransferStatusDto;
+import com.lul.event.DisbursementStageChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of non-wallet transfer statuses, which clients poll while a disbursement is processing.
+ *
+ * Entries expire after a few seconds (the sender wallet balance in the status may change meanwhile) and are
+ * evicted as soon as the disbursement stage changes. An eviction leaves a marker, so a status read from the
+ * database before the change committed cannot be cached after it.
+ */
+@Component
+public class NonWalletTransferStatusCache {
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Access-ordered, bounded to maxEntries, guarded by its own monitor
+    private final LinkedHashMap<Long, Entry> entries;
+
+    @Autowired
+    public NonWalletTransferStatusCache(
+            @Value("${transfer.non-wallet.status-cache-ttl-ms:5000}") long ttlMillis,
+            @Value("${transfer.non-wallet.status-cache-max-entries:10000}") int maxEntries) {
+        this(Duration.ofMillis(ttlMillis), maxEntries, System::nanoTime);
+    }
+
+    NonWalletTransferStatusCache(Duration ttl, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Current time on the cache clock; take it before reading a status from the database and pass it to put
+     *
+     * @return The time in nanoseconds
+     */
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Get a cached status
+     *
+     * @param transactionId The transaction ID
+     * @return The status, if cached and not expired
+     */
+    public Optional<NonWalletTransferStatusDto> get(Long transactionId) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(transactionId);
+            if (entry == null || entry.status == null || now - entry.time >= ttlNanos) {
+                return Optional.empty();
+            }
+            return Optional.of(entry.status);
+        }
+    }
+
+    /**
+     * Cache a status read from the database, unless the stage changed after the read started
+     *
+     * @param transactionId The transaction ID
+     * @param status The status
+     * @param readStartedAt Value of now() taken before the read
+     */
+    public void put(Long transactionId, NonWalletTransferStatusDto status, long readStartedAt) {
+        synchronized (entries) {
+            Entry entry = entries.get(transactionId);
+            if (entry != null && entry.status == null && entry.time - readStartedAt >= 0) {
+                return;
+            }
+            entries.put(transactionId, new Entry(status, readStartedAt));
+        }
+    }
+
+    /**
+     * Drop the status of a transaction
+     *
+     * @param transactionId The transaction ID
+     */
+    public void evict(Long transactionId) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            entries.put(transactionId, new Entry(null, now));
+        }
+    }
+
+    /**
+     * Drop the cached status once a stage change has committed
+     *
+     * @param event The stage change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDisbursementStageChanged(DisbursementStageChangedEvent event) {
+        evict(event.getTransactionId());
+    }
+
+    /**
+     * A cached status, or an eviction marker when status is null
+     */
+    private static final class Entry {
+        private final NonWalletTransferStatusDto status;
+        private final long time;
+
+        private Entry(NonWalletTransferStatusDto status, long time) {
+            this.status = status;
+            this.time = time;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.lul.entity.TransactionHistory;
 import com.lul.entity.User;
 import com.lul.entity.FcmToken;
 import com.lul.constant.ErrorCode;
+import com.lul.enums.UserChangeType;
 import com.lul.exception.NotFoundException;
 import com.lul.repository.ChannelRepository;
 import com.lul.repository.FcmTokenRepository;
@@ -23,6 +24,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
@@ -45,6 +49,7 @@ public class NotificationService {
     private final FcmTokenRepository fcmTokenRepository;
     private final SmsService smsService;
     private final FirebaseMessaging firebaseMessaging;
+    private final UserChangeService userChangeService;
     
     @Autowired
     public NotificationService(
@@ -56,7 +61,8 @@ public class NotificationService {
             NotificationProcessor notificationProcessor,
             FcmTokenRepository fcmTokenRepository,
             SmsService smsService,
-            @Autowired(required = false) FirebaseMessaging firebaseMessaging) {
+            @Autowired(required = false) FirebaseMessaging firebaseMessaging,
+            UserChangeService userChangeService) {
         this.notificationQueueRepository = notificationQueueRepository;
         this.notificationTypeRepository = notificationTypeRepository;
         this.channelRepository = channelRepository;
@@ -66,6 +72,7 @@ public class NotificationService {
         this.fcmTokenRepository = fcmTokenRepository;
         this.smsService = smsService;
         this.firebaseMessaging = firebaseMessaging;
+        this.userChangeService = userChangeService;
         
         if (this.firebaseMessaging == null) {
             log.warn("FirebaseMessaging is not available. FCM notifications will not be sent.");
@@ -163,6 +170,7 @@ public class NotificationService {
             notification.setNextRetryAt(LocalDateTime.now());
             
             notificationQueueRepository.save(notification);
+            userChangeService.record(userId.longValue(), UserChangeType.NOTIFICATION, notification.getId().longValue());
             log.info("Successfully queued notification ID: {} for user ID: {}, channel ID: {}, transaction ID: {}", 
                     notification.getId(), userId, channelId, transactionId);
         } catch (Exception e) {
@@ -316,6 +324,48 @@ public class NotificationService {
         }
     }
     
+    /**
+     * Send a silent data-only FCM message to every active device of a user. Nothing is displayed;
+     * the app handles the data in the background (low priority on Android, content-available on iOS).
+     * 
+     * @param userId The user ID
+     * @param data The data payload
+     */
+    public void sendDataMessage(Long userId, Map<String, String> data) {
+        if (firebaseMessaging == null) {
+            log.debug("FirebaseMessaging is not available. FCM data message will not be sent.");
+            return;
+        }
+        
+        for (FcmToken token : fcmTokenRepository.findAllByUserIdAndActiveTrue(userId)) {
+            try {
+                Message message = Message.builder()
+                    .putAllData(data)
+                    .setAndroidConfig(AndroidConfig.builder()
+                        .setPriority(AndroidConfig.Priority.NORMAL)
+                        .build())
+                    .setApnsConfig(ApnsConfig.builder()
+                        .putHeader("apns-push-type", "background")
+                        .putHeader("apns-priority", "5")
+                        .setAps(Aps.builder().setContentAvailable(true).build())
+                        .build())
+                    .setToken(token.getToken())
+                    .build();
+                firebaseMessaging.send(message);
+            } catch (FirebaseMessagingException e) {
+                log.warn("Failed to send FCM data message to token: {}, Error code: {}, Message: {}",
+                    token.getToken(), e.getMessagingErrorCode(), e.getMessage());
+                
+                // If the token is invalid or unregistered, mark it as inactive
+                if (e.getMessagingErrorCode() == MessagingErrorCode.INVALID_ARGUMENT ||
+                    e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
+                    token.setActive(false);
+                    fcmTokenRepository.save(token);
+                }
+            }
+        }
+    }
+    
     /**
      * Send a transaction notification to the sender
      * 
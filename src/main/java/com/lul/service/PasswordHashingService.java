@@ -0,0 +1,187 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs BCrypt hashing and verification for passwords and PINs on a dedicated,
+ * core-sized thread pool instead of the servlet request threads.
+ *
+ * The pool has a bounded admission queue. When it is full, callers are rejected
+ * immediately with a TooManyRequestsException so that a burst of logins or transfers
+ * cannot starve the rest of the API of CPU.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private static final Pattern BCRYPT_COST_PATTERN = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int bcryptStrength;
+    private final long timeoutMillis;
+
+    private final Timer queueWaitTimer;
+    private final Timer hashTimer;
+    private final Timer matchTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${security.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${security.hashing.pool-size:0}") int poolSize,
+            @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.hashing.timeout-ms:5000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.bcryptStrength = bcryptStrength;
+        this.timeoutMillis = timeoutMillis;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new HashingThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWaitTimer = Timer.builder("lulpay.hashing.queue.wait")
+            .description("Time a hashing task waited for a free hashing thread")
+            .register(meterRegistry);
+        this.hashTimer = Timer.builder("lulpay.hashing.duration")
+            .tag("operation", "encode")
+            .description("Time spent computing BCrypt hashes")
+            .register(meterRegistry);
+        this.matchTimer = Timer.builder("lulpay.hashing.duration")
+            .tag("operation", "matches")
+            .description("Time spent computing BCrypt hashes")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("lulpay.hashing.rejected")
+            .description("Hashing tasks rejected because the admission queue was full")
+            .register(meterRegistry);
+        meterRegistry.gauge("lulpay.hashing.queue.size", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("lulpay.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        log.info("Password hashing pool started with {} threads, queue capacity {}, BCrypt strength {}",
+                threads, queueCapacity, bcryptStrength);
+    }
+
+    /**
+     * Hash a raw password or PIN
+     *
+     * @param rawValue The raw value to hash
+     * @return The encoded hash
+     * @throws TooManyRequestsException if the hashing pool is saturated
+     */
+    public String encode(CharSequence rawValue) {
+        return submit(() -> passwordEncoder.encode(rawValue), hashTimer);
+    }
+
+    /**
+     * Verify a raw password or PIN against a stored hash
+     *
+     * @param rawValue The raw value provided by the user
+     * @param encodedValue The stored hash
+     * @return true if the value matches, false otherwise
+     * @throws TooManyRequestsException if the hashing pool is saturated
+     */
+    public boolean matches(CharSequence rawValue, String encodedValue) {
+        if (rawValue == null || encodedValue == null) {
+            return false;
+        }
+        return submit(() -> passwordEncoder.matches(rawValue, encodedValue), matchTimer);
+    }
+
+    /**
+     * Check whether a stored hash was produced with a different cost factor than the
+     * one currently configured, meaning it should be re-encoded on the next successful login
+     *
+     * @param encodedValue The stored hash
+     * @return true if the hash should be re-encoded
+     */
+    public boolean needsRehash(String encodedValue) {
+        if (encodedValue == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST_PATTERN.matcher(encodedValue);
+        if (!matcher.find()) {
+            return passwordEncoder.upgradeEncoding(encodedValue);
+        }
+        return Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    private <T> T submit(Callable<T> task, Timer workTimer) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return workTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Hashing pool saturated (active: {}, queued: {}), rejecting request",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new TooManyRequestsException(ErrorCode.CREDENTIAL_VERIFICATION_BUSY);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            log.warn("Hashing task timed out after {} ms", timeoutMillis);
+            throw new TooManyRequestsException(ErrorCode.CREDENTIAL_VERIFICATION_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for hashing task", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Hashing task failed", cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
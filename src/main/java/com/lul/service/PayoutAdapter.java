@@ -0,0 +1,20 @@
+package com.lul.service;
+
+import com.lul.dto.PayoutBatchRequest;
+import com.lul.dto.PayoutBatchResult;
+
+/**
+ * Gateway to the provider paying out non-wallet transfers
+ */
+public interface PayoutAdapter {
+    
+    /**
+     * Pay out a batch of transfers to one country in one currency.
+     * Must be idempotent on the batch ID: a batch is submitted again when its outcome was not recorded.
+     * 
+     * @param request The payout batch
+     * @return The outcome per batch
+     * @throws RuntimeException if the provider could not take the batch; it is retried later
+     */
+    PayoutBatchResult submit(PayoutBatchRequest request);
+}
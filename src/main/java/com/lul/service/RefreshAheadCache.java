@@ -0,0 +1,167 @@
+package com.lul.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache for expensive computations with request coalescing and refresh-ahead.
+ *
+ * At most one load per key is in flight at any time: concurrent callers for a key that is missing or
+ * expired wait on the future of the load already running instead of starting their own. Once an entry
+ * is older than the refresh-ahead point it is still served, while a single background reload replaces
+ * it, so callers of frequently used keys never wait for a computation. Entries not read for a whole
+ * TTL are dropped by refreshDue instead of being refreshed.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+@Slf4j
+public class RefreshAheadCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param ttl Age after which an entry is no longer served
+     * @param refreshAheadRatio Fraction of the TTL after which an entry is reloaded in the background
+     * @param refreshExecutor Executor running background reloads
+     */
+    public RefreshAheadCache(Duration ttl, double refreshAheadRatio, Executor refreshExecutor) {
+        this(ttl, refreshAheadRatio, refreshExecutor, System::nanoTime);
+    }
+
+    RefreshAheadCache(Duration ttl, double refreshAheadRatio, Executor refreshExecutor, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = (long) (ttlNanos * Math.min(Math.max(refreshAheadRatio, 0.0), 1.0));
+        this.refreshExecutor = refreshExecutor;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Get the value for a key, loading it if needed
+     *
+     * @param key The cache key
+     * @param loader Computes the value; also kept for background refreshes of the key
+     * @return The cached or freshly loaded value
+     */
+    public V get(K key, Supplier<V> loader) {
+        long now = nanoClock.getAsLong();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            entry.lastAccess = now;
+            if (now - entry.loadedAt >= refreshAfterNanos) {
+                load(key, loader, true);
+            }
+            return entry.value;
+        }
+        return await(load(key, loader, false));
+    }
+
+    /**
+     * Reload entries past their refresh-ahead point in the background and drop entries that went unread for a TTL
+     */
+    public void refreshDue() {
+        long now = nanoClock.getAsLong();
+        for (Map.Entry<K, Entry<V>> mapEntry : entries.entrySet()) {
+            Entry<V> entry = mapEntry.getValue();
+            if (now - entry.lastAccess >= ttlNanos) {
+                entries.remove(mapEntry.getKey(), entry);
+            } else if (now - entry.loadedAt >= refreshAfterNanos) {
+                load(mapEntry.getKey(), entry.loader, true);
+            }
+        }
+    }
+
+    /**
+     * Drop all entries; loads in flight still complete for their waiting callers
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private CompletableFuture<V> load(K key, Supplier<V> loader, boolean background) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return running;
+        }
+
+        Runnable task = () -> {
+            try {
+                V value = loader.get();
+                // A background reload keeps the last read time, so idle entries still age out
+                Entry<V> previous = entries.get(key);
+                long loadedAt = nanoClock.getAsLong();
+                long lastAccess = background && previous != null ? previous.lastAccess : loadedAt;
+                entries.put(key, new Entry<>(value, loader, loadedAt, lastAccess));
+                future.complete(value);
+            } catch (Throwable t) {
+                if (background) {
+                    log.warn("Background refresh failed for cache key {}: {}", key, t.getMessage());
+                }
+                future.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, future);
+            }
+        };
+
+        if (!background) {
+            task.run();
+            return future;
+        }
+        try {
+            refreshExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The current value stays in use until the next attempt
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            log.debug("Background refresh of cache key {} rejected", key);
+        }
+        return future;
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final Supplier<V> loader;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        private Entry(V value, Supplier<V> loader, long loadedAt, long lastAccess) {
+            this.value = value;
+            this.loader = loader;
+            this.loadedAt = loadedAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.entity.OtpLog;
+import com.lul.entity.RegistrationTask;
+import com.lul.entity.User;
+import com.lul.entity.UserProfile;
+import com.lul.enums.RegistrationStage;
+import com.lul.enums.RegistrationTaskStatus;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.OtpLogRepository;
+import com.lul.repository.RegistrationTaskRepository;
+import com.lul.repository.UserProfileRepository;
+import com.lul.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service running the follow-up stages of a registration: the OTP SMS, the default wallets and the welcome
+ * email.
+ *
+ * The registration transaction only writes one registration_tasks row per stage; the default wallets stage is
+ * written when the user creates their PIN, so unverified sign-ups get no wallets. Once it commits, the stages
+ * are handed to a bounded pool and run right away, so sign-up latency does not include the SMS or email
+ * provider. Each attempt takes a lease on its stage first, so a stage runs on one instance at a time. A failed
+ * stage is retried with backoff by the poll, which also picks up stages the pool rejected or whose worker died,
+ * and is marked FAILED after max-attempts. Every stage is safe to repeat: wallets are only created if missing
+ * and the OTP is only sent while it is still pending.
+ */
+@Service
+@Slf4j
+public class RegistrationPipelineService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int OTP_PENDING_STATUS_ID = 1;
+
+    private final RegistrationTaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final OtpLogRepository otpLogRepository;
+    private final SmsService smsService;
+    private final EmailService emailService;
+    private final WalletService walletService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration lease;
+    private final ThreadPoolExecutor stageExecutor;
+
+    public RegistrationPipelineService(
+            RegistrationTaskRepository taskRepository,
+            UserRepository userRepository,
+            UserProfileRepository userProfileRepository,
+            OtpLogRepository otpLogRepository,
+            SmsService smsService,
+            EmailService emailService,
+            WalletService walletService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${registration.pipeline.threads:4}") int threads,
+            @Value("${registration.pipeline.queue-capacity:1000}") int queueCapacity,
+            @Value("${registration.pipeline.max-attempts:5}") int maxAttempts,
+            @Value("${registration.pipeline.retry-delay-ms:30000}") long retryDelayMs,
+            @Value("${registration.pipeline.lease-ms:120000}") long leaseMs) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.otpLogRepository = otpLogRepository;
+        this.smsService = smsService;
+        this.emailService = emailService;
+        this.walletService = walletService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        this.lease = Duration.ofMillis(leaseMs);
+
+        // Stages the queue cannot take stay due in the database and are picked up by the poll
+        AtomicInteger threadCount = new AtomicInteger();
+        this.stageExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "registration-stage-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Schedule the follow-up stages of a new user in the current transaction; they start once it commits
+     *
+     * @param userId The new user's ID
+     * @param otpLogId The ID of the OTP to send by SMS
+     */
+    public void schedule(Long userId, Long otpLogId) {
+        schedule(userId, Map.of(RegistrationStage.OTP_SMS, otpLogId), RegistrationStage.WELCOME_EMAIL);
+    }
+
+    /**
+     * Schedule the default wallets of a user who has just been activated, in the current transaction. This
+     * stage is the only place default wallets are created; scheduling it again for the same user does nothing.
+     *
+     * @param userId The activated user's ID
+     */
+    public void scheduleDefaultWallets(Long userId) {
+        if (taskRepository.existsByUserIdAndStage(userId, RegistrationStage.DEFAULT_WALLETS)) {
+            return;
+        }
+        schedule(userId, Map.of(), RegistrationStage.DEFAULT_WALLETS);
+    }
+
+    private void schedule(Long userId, Map<RegistrationStage, Long> referencedStages, RegistrationStage... stages) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RegistrationStage> scheduled = new ArrayList<>(referencedStages.keySet());
+        scheduled.addAll(List.of(stages));
+        List<Long> taskIds = new ArrayList<>();
+        for (RegistrationStage stage : scheduled) {
+            RegistrationTask task = new RegistrationTask();
+            task.setUserId(userId);
+            task.setStage(stage);
+            task.setReferenceId(referencedStages.get(stage));
+            task.setStatus(RegistrationTaskStatus.PENDING);
+            task.setAttempts(0);
+            task.setCreatedAt(now);
+            task.setNextAttemptAt(now);
+            taskIds.add(taskRepository.save(task).getId());
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            taskIds.forEach(this::submit);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                taskIds.forEach(RegistrationPipelineService.this::submit);
+            }
+        });
+    }
+
+    /**
+     * Run the stages that are due: retries, and stages the pool rejected or whose worker died
+     */
+    @Scheduled(fixedDelayString = "${registration.pipeline.poll-ms:15000}")
+    public void poll() {
+        try {
+            for (RegistrationTask task : taskRepository.findTop500ByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                    RegistrationTaskStatus.PENDING, LocalDateTime.now())) {
+                if (!submit(task.getId())) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Registration stage poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stageExecutor.shutdownNow();
+    }
+
+    /**
+     * Run one stage and record its outcome. Does nothing if another worker holds the stage lease.
+     *
+     * @param taskId The task ID
+     */
+    void processTask(Long taskId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer leased = transactionTemplate.execute(status -> taskRepository.acquireLease(taskId, now, now.plus(lease)));
+        if (leased == null || leased == 0) {
+            return;
+        }
+        RegistrationTask task = taskRepository.findById(taskId).orElseThrow();
+
+        try {
+            runStage(task);
+        } catch (Exception e) {
+            handleFailure(task, e);
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            task.setStatus(RegistrationTaskStatus.DONE);
+            task.setLastError(null);
+            task.setCompletedAt(LocalDateTime.now());
+            taskRepository.save(task);
+        });
+        meterRegistry.counter("lulpay.registration.stages", "stage", task.getStage().name(), "outcome", "done")
+            .increment();
+    }
+
+    private boolean submit(Long taskId) {
+        try {
+            stageExecutor.execute(() -> {
+                try {
+                    processTask(taskId);
+                } catch (Exception e) {
+                    log.error("Registration task {} failed: {}", taskId, e.getMessage(), e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Registration stage pool is full, task {} is left to the poll", taskId);
+            return false;
+        }
+    }
+
+    private void runStage(RegistrationTask task) throws Exception {
+        User user = userRepository.findById(task.getUserId())
+            .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
+        switch (task.getStage()) {
+            case OTP_SMS -> sendOtp(user, task.getReferenceId());
+            case DEFAULT_WALLETS -> createDefaultWallets(user);
+            case WELCOME_EMAIL -> sendWelcomeEmail(user);
+        }
+    }
+
+    private void sendOtp(User user, Long otpLogId) {
+        OtpLog otpLog = otpLogId != null ? otpLogRepository.findById(otpLogId).orElse(null) : null;
+        // A verified or superseded OTP must not be sent any more
+        if (otpLog == null || otpLog.getStatus() == null || otpLog.getStatus().getId() != OTP_PENDING_STATUS_ID) {
+            log.info("OTP {} of user {} is no longer pending, not sending it", otpLogId, user.getId());
+            return;
+        }
+        if (user.getPhoneNumber() == null) {
+            log.warn("User {} has no phone number, not sending the OTP", user.getId());
+            return;
+        }
+        boolean sent = smsService.sendSms(user.getPhoneNumber(),
+            String.format("Your LulPay verification code is: %s", otpLog.getOtpCode()));
+        if (!sent) {
+            throw new IllegalStateException("SMS provider did not accept the OTP");
+        }
+    }
+
+    private void createDefaultWallets(User user) {
+        Map<String, Object> result = walletService.createDefaultWallets(user);
+        if (!"success".equals(result.get("status"))) {
+            throw new IllegalStateException(String.valueOf(result.get("message")));
+        }
+    }
+
+    private void sendWelcomeEmail(User user) throws Exception {
+        if (user.getEmail() == null) {
+            return;
+        }
+        String name = userProfileRepository.findById(user.getId())
+            .map(UserProfile::getFirstName)
+            .filter(firstName -> !firstName.isBlank())
+            .orElse(user.getUsername());
+        emailService.sendWelcomeEmail(user.getEmail(), name);
+    }
+
+    private void handleFailure(RegistrationTask task, Exception e) {
+        // The lease incremented attempts in the database; the loaded entity already reflects it
+        int attempts = task.getAttempts();
+        String error = truncate(e.getMessage());
+        boolean exhausted = attempts >= maxAttempts;
+        if (exhausted) {
+            log.error("Registration stage {} of user {} failed after {} attempts: {}",
+                task.getStage(), task.getUserId(), attempts, error);
+        } else {
+            log.warn("Registration stage {} of user {} attempt {} failed, retrying: {}",
+                task.getStage(), task.getUserId(), attempts, error);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            task.setLastError(error);
+            if (exhausted) {
+                task.setStatus(RegistrationTaskStatus.FAILED);
+                task.setCompletedAt(LocalDateTime.now());
+            } else {
+                task.setNextAttemptAt(LocalDateTime.now().plus(retryDelay.multipliedBy(attempts)));
+            }
+            taskRepository.save(task);
+        });
+        meterRegistry.counter("lulpay.registration.stages", "stage", task.getStage().name(),
+            "outcome", exhausted ? "failed" : "retried").increment();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
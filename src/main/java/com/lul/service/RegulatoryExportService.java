@@ -0,0 +1,567 @@
+package com.lul.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lul.constant.ErrorCode;
+import com.lul.dto.RegulatoryExportDto;
+import com.lul.dto.RegulatoryExportPartitionDto;
+import com.lul.exception.LulPayException;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.TransactionHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service exporting the full transaction history, with sender, receiver and non-wallet recipient
+ * details, for regulators.
+ *
+ * The transaction ID range is split into partitions exported in parallel by a fixed number of workers.
+ * Each partition is read in ID order with one joined, read-only query per chunk of rows into its own gzipped
+ * CSV file; a JSON sidecar with the row count and SHA-256 checksum is written once the file is complete,
+ * so an interrupted export resumes by skipping partitions that have a sidecar. A manifest listing every
+ * partition is written when all are done. Reads are paced to a configurable number of rows per second;
+ * the pause comes between chunks, so no connection or transaction is held while a worker waits.
+ *
+ * The files hold personal data, so the directory must be an absolute path. Export directories are created
+ * readable by the service's user only, and so are the files in them where the file system supports POSIX
+ * permissions.
+ */
+@Service
+@Slf4j
+public class RegulatoryExportService {
+
+    static final String EXPORT_FILE = "export.json";
+    static final String MANIFEST_FILE = "manifest.json";
+
+    private static final int FETCH_SIZE = 1000;
+    private static final LocalDateTime NO_LOWER_BOUND = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime NO_UPPER_BOUND = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final DateTimeFormatter EXPORT_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+    private static final Pattern EXPORT_ID_PATTERN = Pattern.compile("[A-Za-z0-9-]+");
+    private static final Pattern SIDECAR_PATTERN = Pattern.compile("part-\\d+\\.json");
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private static final String EXPORT_QUERY =
+        "SELECT t.id, t.transaction_id, t.created_at, t.completed_at, t.transaction_type_id, " +
+        "t.transaction_status_id, t.disbursement_stage_id, t.transacted_value, t.fee, t.total_amount, t.currency, " +
+        "t.additional_data->>'receiverCurrency' AS receiver_currency, " +
+        "t.additional_data->>'convertedAmount' AS converted_amount, " +
+        "t.additional_data->>'exchangeRate' AS exchange_rate, " +
+        "t.is_reversal, t.original_transaction_id, " +
+        "t.sender_id, su.user_work_id AS sender_work_id, sp.first_name AS sender_first_name, " +
+        "sp.last_name AS sender_last_name, su.phone_number AS sender_phone, su.email AS sender_email, " +
+        "sp.country AS sender_country, t.sender_wallet_id, " +
+        "t.receiver_id, ru.user_work_id AS receiver_work_id, rp.first_name AS receiver_first_name, " +
+        "rp.last_name AS receiver_last_name, ru.phone_number AS receiver_phone, ru.email AS receiver_email, " +
+        "rp.country AS receiver_country, t.receiver_wallet_id, " +
+        "nw.full_name AS recipient_full_name, nw.id_document_type AS recipient_id_document_type, " +
+        "nw.id_number AS recipient_id_number, nw.phone_number AS recipient_phone, " +
+        "nw.country AS recipient_country, nw.relationship AS recipient_relationship, t.description " +
+        "FROM wallet.transaction_history t " +
+        "LEFT JOIN auth.users su ON su.id = t.sender_id " +
+        "LEFT JOIN auth.user_profiles sp ON sp.user_id = t.sender_id " +
+        "LEFT JOIN auth.users ru ON ru.id = t.receiver_id " +
+        "LEFT JOIN auth.user_profiles rp ON rp.user_id = t.receiver_id " +
+        "LEFT JOIN wallet.non_wallet_recipient_details nw ON nw.transaction_history_id = t.id " +
+        "WHERE t.id > ? AND t.id < ? AND t.created_at >= ? AND t.created_at < ? " +
+        "ORDER BY t.id LIMIT " + FETCH_SIZE;
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final Path baseDirectory;
+    private final boolean posix;
+    private final int partitionSize;
+    private final int parallelism;
+    private final RowThrottle throttle;
+    private final ThreadPoolExecutor executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // The export running now, or the last one run by this instance
+    private volatile RegulatoryExportDto current;
+
+    public RegulatoryExportService(
+            TransactionHistoryRepository transactionHistoryRepository,
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${export.regulatory.directory:/var/lib/lulpay/exports/regulatory}") String directory,
+            @Value("${export.regulatory.partition-size:100000}") int partitionSize,
+            @Value("${export.regulatory.parallelism:2}") int parallelism,
+            @Value("${export.regulatory.max-rows-per-second:20000}") int maxRowsPerSecond) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.baseDirectory = Paths.get(directory);
+        if (!baseDirectory.isAbsolute()) {
+            throw new IllegalArgumentException("export.regulatory.directory must be an absolute path: " + directory);
+        }
+        this.posix = baseDirectory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        this.partitionSize = partitionSize;
+        this.parallelism = parallelism;
+        this.throttle = new RowThrottle(maxRowsPerSecond);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism), runnable -> {
+                Thread thread = new Thread(runnable, "regulatory-export-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Start exporting the transactions created within a range, in the background
+     *
+     * @param from Optional start of the range (inclusive)
+     * @param to Optional end of the range (exclusive)
+     * @return The export, with its ID
+     */
+    public RegulatoryExportDto startExport(LocalDateTime from, LocalDateTime to) {
+        claim();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            // The ID range is fixed now so a resumed export covers exactly the same partitions
+            int minId = transactionHistoryRepository.findMinId();
+            int maxId = transactionHistoryRepository.findMaxId();
+            RegulatoryExportDto export = RegulatoryExportDto.builder()
+                .exportId("transactions-" + now.format(EXPORT_ID_FORMAT))
+                .status(RegulatoryExportDto.RUNNING)
+                .from(from)
+                .to(to)
+                .minId(minId)
+                .maxId(maxId)
+                .partitionSize(partitionSize)
+                .partitionsTotal((maxId - minId) / partitionSize + 1)
+                .createdAt(now)
+                .build();
+
+            Path directory = exportDirectory(export.getExportId());
+            createOwnerOnlyDirectory(directory);
+            writeJson(directory.resolve(EXPORT_FILE), export);
+            log.info("Starting regulatory export {} of transactions {} to {} in {} partitions",
+                export.getExportId(), minId, maxId, export.getPartitionsTotal());
+            run(export, directory, new ArrayList<>());
+            return copyOf(export);
+        } catch (IOException e) {
+            running.set(false);
+            throw new LulPayException(ErrorCode.EXPORT_FAILED, "Could not create export: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Resume an interrupted export, exporting only the partitions that are not complete
+     *
+     * @param exportId The export ID
+     * @return The export
+     */
+    public RegulatoryExportDto resumeExport(String exportId) {
+        claim();
+        try {
+            Path directory = exportDirectory(exportId);
+            if (Files.exists(directory.resolve(MANIFEST_FILE))) {
+                running.set(false);
+                return readJson(directory.resolve(MANIFEST_FILE), RegulatoryExportDto.class);
+            }
+            RegulatoryExportDto export = readExport(directory);
+            createOwnerOnlyDirectory(directory);
+            List<RegulatoryExportPartitionDto> completed = readCompletedPartitions(directory);
+            log.info("Resuming regulatory export {}: {} of {} partitions complete",
+                exportId, completed.size(), export.getPartitionsTotal());
+            run(export, directory, completed);
+            return copyOf(export);
+        } catch (IOException e) {
+            running.set(false);
+            throw new LulPayException(ErrorCode.EXPORT_FAILED, "Could not resume export: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the progress of an export, or its manifest once complete
+     *
+     * @param exportId The export ID
+     * @return The export
+     */
+    public RegulatoryExportDto getExport(String exportId) {
+        RegulatoryExportDto export = current;
+        if (export != null && export.getExportId().equals(exportId)) {
+            return copyOf(export);
+        }
+        Path directory = exportDirectory(exportId);
+        try {
+            if (Files.exists(directory.resolve(MANIFEST_FILE))) {
+                return readJson(directory.resolve(MANIFEST_FILE), RegulatoryExportDto.class);
+            }
+            RegulatoryExportDto incomplete = readExport(directory);
+            List<RegulatoryExportPartitionDto> completed = readCompletedPartitions(directory);
+            incomplete.setStatus(RegulatoryExportDto.INCOMPLETE);
+            incomplete.setPartitions(completed);
+            incomplete.setPartitionsDone(completed.size());
+            incomplete.setTotalRows(completed.stream().mapToLong(RegulatoryExportPartitionDto::getRows).sum());
+            return incomplete;
+        } catch (IOException e) {
+            throw new LulPayException(ErrorCode.EXPORT_FAILED, "Could not read export: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Partitions in flight leave only a temporary file and are exported again on resume
+        executor.shutdownNow();
+    }
+
+    private void claim() {
+        if (!running.compareAndSet(false, true)) {
+            throw new LulPayException(ErrorCode.EXPORT_IN_PROGRESS, "A regulatory export is already in progress");
+        }
+    }
+
+    private void run(RegulatoryExportDto export, Path directory, List<RegulatoryExportPartitionDto> completed) {
+        Set<Integer> skip = new HashSet<>();
+        completed.forEach(partition -> skip.add(partition.getIndex()));
+        export.setStatus(RegulatoryExportDto.RUNNING);
+        export.setLastError(null);
+        export.setPartitions(new ArrayList<>(completed));
+        export.setPartitionsDone(completed.size());
+        export.setTotalRows(completed.stream().mapToLong(RegulatoryExportPartitionDto::getRows).sum());
+        current = export;
+
+        // Each worker takes the next partition until none are left or one of them fails
+        AtomicInteger nextPartition = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                int index;
+                while (!failed.get() && (index = nextPartition.getAndIncrement()) < export.getPartitionsTotal()) {
+                    if (skip.contains(index)) {
+                        continue;
+                    }
+                    try {
+                        RegulatoryExportPartitionDto partition = exportPartition(export, directory, index);
+                        synchronized (export) {
+                            export.getPartitions().add(partition);
+                            export.setPartitionsDone(export.getPartitionsDone() + 1);
+                            export.setTotalRows(export.getTotalRows() + partition.getRows());
+                        }
+                    } catch (Exception e) {
+                        // Any failure stops the other workers; the partitions done so far are kept for a resume
+                        failed.set(true);
+                        throw new IllegalStateException("Partition " + index + " failed: " + e.getMessage(), e);
+                    }
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]))
+            .whenComplete((result, error) -> finish(export, directory, error));
+    }
+
+    private void finish(RegulatoryExportDto export, Path directory, Throwable error) {
+        String status = RegulatoryExportDto.INCOMPLETE;
+        String lastError = null;
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            lastError = cause.getMessage();
+            log.error("Regulatory export {} stopped after {} of {} partitions: {}", export.getExportId(),
+                export.getPartitionsDone(), export.getPartitionsTotal(), cause.getMessage(), cause);
+        } else {
+            try {
+                RegulatoryExportDto manifest;
+                synchronized (export) {
+                    export.getPartitions().sort(Comparator.comparingInt(RegulatoryExportPartitionDto::getIndex));
+                    export.setCompletedAt(LocalDateTime.now());
+                    manifest = copyOf(export);
+                }
+                manifest.setStatus(RegulatoryExportDto.COMPLETED);
+                writeJson(directory.resolve(MANIFEST_FILE), manifest);
+                status = RegulatoryExportDto.COMPLETED;
+                log.info("Regulatory export {} completed: {} rows in {} partitions",
+                    export.getExportId(), manifest.getTotalRows(), manifest.getPartitionsTotal());
+            } catch (IOException e) {
+                lastError = "Could not write manifest: " + e.getMessage();
+                log.error("Failed to write manifest of regulatory export {}: {}", export.getExportId(), e.getMessage(), e);
+            }
+        }
+        // Released first, so an export reported as finished can be started or resumed right away
+        running.set(false);
+        synchronized (export) {
+            export.setStatus(status);
+            export.setLastError(lastError);
+        }
+    }
+
+    private RegulatoryExportPartitionDto exportPartition(RegulatoryExportDto export, Path directory, int index)
+            throws IOException, SQLException {
+        long started = System.currentTimeMillis();
+        int fromId = export.getMinId() + index * export.getPartitionSize();
+        int toId = (int) Math.min((long) fromId + export.getPartitionSize(), export.getMaxId() + 1L);
+        String fileName = String.format("part-%05d.csv.gz", index);
+        Path target = directory.resolve(fileName);
+        Path temp = directory.resolve(fileName + ".tmp");
+        MessageDigest digest = sha256();
+
+        long rows = 0;
+        createOwnerOnlyFile(temp);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                new DigestOutputStream(Files.newOutputStream(temp), digest), 65536), StandardCharsets.UTF_8), 65536)) {
+            int afterId = fromId - 1;
+            boolean header = true;
+            while (true) {
+                Chunk chunk = exportChunk(export, afterId, toId, writer, header);
+                header = false;
+                rows += chunk.rows;
+                // Paced here, after the chunk's connection is back in the pool
+                throttle.acquire(chunk.rows);
+                if (chunk.rows < FETCH_SIZE) {
+                    break;
+                }
+                afterId = chunk.lastId;
+            }
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        RegulatoryExportPartitionDto partition = RegulatoryExportPartitionDto.builder()
+            .index(index)
+            .fromId(fromId)
+            .toId(toId)
+            .file(fileName)
+            .rows(rows)
+            .bytes(Files.size(target))
+            .sha256(HexFormat.of().formatHex(digest.digest()))
+            .completedAt(LocalDateTime.now())
+            .build();
+        // The sidecar marks the partition complete
+        writeJson(directory.resolve(String.format("part-%05d.json", index)), partition);
+        log.debug("Exported partition {} of {} ({} rows) in {} ms",
+            index, export.getExportId(), rows, System.currentTimeMillis() - started);
+        return partition;
+    }
+
+    /**
+     * Read the next chunk of a partition in a short read-only query on its own connection and append it
+     *
+     * @param export The export
+     * @param afterId Export transactions with a greater ID
+     * @param toId Export transactions with a lower ID
+     * @param writer The target
+     * @param header Whether to write the header first
+     * @return The rows written
+     */
+    private Chunk exportChunk(RegulatoryExportDto export, int afterId, int toId, Writer writer, boolean header)
+            throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setInt(1, afterId);
+                statement.setInt(2, toId);
+                statement.setTimestamp(3, Timestamp.valueOf(export.getFrom() != null ? export.getFrom() : NO_LOWER_BOUND));
+                statement.setTimestamp(4, Timestamp.valueOf(export.getTo() != null ? export.getTo() : NO_UPPER_BOUND));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return writeCsv(resultSet, writer, header);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a result set as CSV, after a header of its column labels if asked to. The first column is the
+     * transaction ID.
+     *
+     * @param resultSet The rows
+     * @param writer The target
+     * @param header Whether to write the header
+     * @return The rows written
+     */
+    Chunk writeCsv(ResultSet resultSet, Writer writer, boolean header) throws IOException, SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columns = metaData.getColumnCount();
+        StringBuilder line = new StringBuilder(512);
+        if (header) {
+            for (int column = 1; column <= columns; column++) {
+                if (column > 1) {
+                    line.append(',');
+                }
+                line.append(metaData.getColumnLabel(column));
+            }
+            writer.append(line).append('\n');
+        }
+
+        Chunk chunk = new Chunk();
+        while (resultSet.next()) {
+            line.setLength(0);
+            for (int column = 1; column <= columns; column++) {
+                if (column > 1) {
+                    line.append(',');
+                }
+                StatementExportService.appendEscaped(line, resultSet.getString(column));
+            }
+            writer.append(line).append('\n');
+            chunk.rows++;
+            chunk.lastId = resultSet.getInt(1);
+        }
+        return chunk;
+    }
+
+    private Path exportDirectory(String exportId) {
+        if (exportId == null || !EXPORT_ID_PATTERN.matcher(exportId).matches()) {
+            throw new NotFoundException(ErrorCode.EXPORT_NOT_FOUND);
+        }
+        return baseDirectory.resolve(exportId);
+    }
+
+    private RegulatoryExportDto readExport(Path directory) throws IOException {
+        Path exportFile = directory.resolve(EXPORT_FILE);
+        if (!Files.exists(exportFile)) {
+            throw new NotFoundException(ErrorCode.EXPORT_NOT_FOUND);
+        }
+        return readJson(exportFile, RegulatoryExportDto.class);
+    }
+
+    private List<RegulatoryExportPartitionDto> readCompletedPartitions(Path directory) throws IOException {
+        List<RegulatoryExportPartitionDto> completed = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (SIDECAR_PATTERN.matcher(file.getFileName().toString()).matches()) {
+                    completed.add(readJson(file, RegulatoryExportPartitionDto.class));
+                }
+            }
+        }
+        completed.sort(Comparator.comparingInt(RegulatoryExportPartitionDto::getIndex));
+        return completed;
+    }
+
+    private void writeJson(Path file, Object value) throws IOException {
+        // Write then rename, so a file is either complete or absent
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        createOwnerOnlyFile(temp);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), value);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> T readJson(Path file, Class<T> type) throws IOException {
+        return objectMapper.readValue(file.toFile(), type);
+    }
+
+    private void createOwnerOnlyDirectory(Path directory) throws IOException {
+        if (!posix) {
+            Files.createDirectories(directory);
+            return;
+        }
+        Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+        // A directory left by an earlier run may have been created with wider permissions
+        Files.setPosixFilePermissions(directory, OWNER_ONLY_DIRECTORY);
+    }
+
+    private void createOwnerOnlyFile(Path file) throws IOException {
+        // A temporary file left by an interrupted run is replaced rather than reused with its permissions
+        Files.deleteIfExists(file);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+        } else {
+            Files.createFile(file);
+        }
+    }
+
+    private static RegulatoryExportDto copyOf(RegulatoryExportDto export) {
+        synchronized (export) {
+            return export.toBuilder().partitions(new ArrayList<>(export.getPartitions())).build();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Rows written from one query and the ID of the last of them
+     */
+    static final class Chunk {
+        private int rows;
+        private int lastId;
+    }
+
+    /**
+     * Paces all export workers together to a maximum number of rows per second
+     */
+    private static final class RowThrottle {
+        private final long nanosPerRow;
+        private long nextFreeNanos = System.nanoTime();
+
+        private RowThrottle(int maxRowsPerSecond) {
+            this.nanosPerRow = maxRowsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond : 0;
+        }
+
+        private void acquire(int rows) throws InterruptedIOException {
+            if (nanosPerRow == 0 || rows == 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(now, nextFreeNanos);
+                nextFreeNanos = start + rows * nanosPerRow;
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Export interrupted");
+                }
+            }
+        }
+    }
+}
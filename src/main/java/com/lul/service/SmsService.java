@@ -11,6 +11,7 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Base64;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -24,6 +25,12 @@ import java.nio.charset.StandardCharsets;
 @RequiredArgsConstructor
 public class SmsService {
 
+    // Shared client: HttpClient is thread-safe and owns its own connection pool,
+    // and send() parks cleanly when called from a virtual thread
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+
     @Value("${sms.enabled:true}")
     private boolean smsEnabled;
 
@@ -63,8 +70,6 @@ public class SmsService {
             log.info("Formatted phone number: {} -> {}", phoneNumber, formattedPhoneNumber);
             
             // Implementation for Africa's Talking
-            HttpClient client = HttpClient.newHttpClient();
-            
             // Prepare the JSON request body for bulk messaging endpoint according to documentation
             // The format should be:
             // {
@@ -103,13 +108,14 @@ public class SmsService {
                 .header("Content-Type", "application/json")
                 .header("Accept", "application/json")
                 .header("apiKey", africasTalkingApiKey)
+                .timeout(Duration.ofSeconds(30))
                 .POST(HttpRequest.BodyPublishers.ofString(jsonRequestBody))
                 .build();
             
             log.info("Sending SMS request to Africa's Talking bulk messaging endpoint with JSON content type");
             
             // Send the request and get the response
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             
             // Log the full response for troubleshooting
             log.info("Africa's Talking API response: Status={}, Body={}", response.statusCode(), response.body());
@@ -0,0 +1,244 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.TransactionHistoryItemDto;
+import com.lul.entity.UserWallet;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.UserWalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service for exporting wallet account statements as CSV.
+ *
+ * Rows are read from a forward-only cursor and encoded one at a time straight into the response stream,
+ * so memory use stays constant whatever the size of the statement. Exports run on their own bounded pool
+ * with their own timeout, so a few large statements cannot take the threads or the timeout of other
+ * asynchronous requests; exports beyond the pool and its queue are rejected.
+ */
+@Service
+@Slf4j
+public class StatementExportService {
+
+    static final String CSV_HEADER = "transaction_id,created_at,completed_at,direction,transaction_type_id,"
+            + "transaction_status_id,amount,fee,total_amount,currency,description";
+
+    // Flush periodically so the client receives the statement progressively
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final UserWalletRepository userWalletRepository;
+    @Getter
+    private final long timeoutMs;
+    private final ThreadPoolExecutor exportExecutor;
+    @Getter
+    private final AsyncTaskExecutor taskExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StatementExportService(
+            TransactionHistoryRepository transactionHistoryRepository,
+            UserWalletRepository userWalletRepository,
+            @Value("${app.streaming.timeout-ms:600000}") long timeoutMs,
+            @Value("${app.streaming.max-concurrent:8}") int maxConcurrent) {
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.userWalletRepository = userWalletRepository;
+        this.timeoutMs = timeoutMs;
+        this.exportExecutor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxConcurrent * 4), runnable -> {
+                Thread thread = new Thread(runnable, "statement-export");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.taskExecutor = new TaskExecutorAdapter(exportExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+
+    /**
+     * Resolve the user's wallet for the given currency, before the response is committed
+     *
+     * @param userId The ID of the user
+     * @param walletTypeId The wallet type ID (currency)
+     * @return The user's wallet
+     */
+    public UserWallet resolveWallet(Long userId, Integer walletTypeId) {
+        return userWalletRepository.findByUserIdAndWalletId(userId, walletTypeId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
+    }
+
+    /**
+     * Write the statement of a wallet for a date range as CSV
+     *
+     * @param walletId The user wallet ID
+     * @param from Start date (inclusive)
+     * @param to End date (exclusive)
+     * @param out The response stream
+     * @param gzip Whether to gzip the output
+     * @return The number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(Integer walletId, LocalDateTime from, LocalDateTime to, OutputStream out, boolean gzip) throws IOException {
+        long started = System.currentTimeMillis();
+        try (Stream<Object[]> rows = transactionHistoryRepository.streamWalletStatement(walletId, from, to)) {
+            long count = writeCsv(rows.map(StatementExportService::toItem), walletId, out, gzip);
+            log.info("Exported statement for wallet ID: {}, rows: {}, took {} ms",
+                    walletId, count, System.currentTimeMillis() - started);
+            return count;
+        }
+    }
+
+    /**
+     * Encode statement rows to CSV incrementally
+     *
+     * @param rows The statement rows in chronological order
+     * @param walletId The user wallet ID the statement is for, used to mark debits and credits
+     * @param out The target stream, left open
+     * @param gzip Whether to gzip the output
+     * @return The number of rows written
+     */
+    long writeCsv(Stream<TransactionHistoryItemDto> rows, Integer walletId, OutputStream out, boolean gzip) throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(new NonClosingOutputStream(out), 8192) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzipStream != null ? gzipStream : new NonClosingOutputStream(out), StandardCharsets.UTF_8), 16384);
+
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        StringBuilder line = new StringBuilder(256);
+        Iterator<TransactionHistoryItemDto> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            TransactionHistoryItemDto row = iterator.next();
+            line.setLength(0);
+            appendRow(line, row, walletId);
+            writer.append(line);
+
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+                if (entityManager != null) {
+                    // Native rows are not managed, but drop anything the provider may have kept
+                    entityManager.clear();
+                }
+            }
+        }
+
+        // Closing finishes the gzip trailer; the underlying response stream stays open
+        writer.close();
+        return count;
+    }
+
+    /**
+     * Map a statement row of the native query to its item, in the column order of the query
+     */
+    static TransactionHistoryItemDto toItem(Object[] row) {
+        return new TransactionHistoryItemDto(
+            toInteger(row[0]), row[1] != null ? ((Number) row[1]).longValue() : null,
+            toInteger(row[2]), toInteger(row[3]), toInteger(row[4]), toInteger(row[5]),
+            toInteger(row[6]), toInteger(row[7]),
+            (BigDecimal) row[8], (BigDecimal) row[9], (BigDecimal) row[10],
+            (String) row[11], (String) row[12], toDateTime(row[13]), toDateTime(row[14]));
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null ? ((Number) value).intValue() : null;
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static void appendRow(StringBuilder line, TransactionHistoryItemDto row, Integer walletId) {
+        boolean debit = walletId.equals(row.getSenderWalletId());
+        line.append(row.getTransactionId()).append(',')
+            .append(nullToEmpty(row.getCreatedAt())).append(',')
+            .append(nullToEmpty(row.getCompletedAt())).append(',')
+            .append(debit ? "DEBIT" : "CREDIT").append(',')
+            .append(nullToEmpty(row.getTransactionTypeId())).append(',')
+            .append(nullToEmpty(row.getTransactionStatusId())).append(',')
+            .append(plain(row.getTransactedValue())).append(',')
+            .append(debit ? plain(row.getFee()) : "").append(',')
+            .append(debit ? plain(row.getTotalAmount()) : plain(row.getTransactedValue())).append(',')
+            .append(nullToEmpty(row.getCurrency())).append(',');
+        appendEscaped(line, row.getDescription());
+        line.append('\n');
+    }
+
+    static void appendEscaped(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static String plain(BigDecimal value) {
+        return value != null ? value.toPlainString() : "";
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    /**
+     * Leaves the servlet response stream open when the CSV writer is closed
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
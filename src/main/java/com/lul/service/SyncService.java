@@ -0,0 +1,183 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.SyncResponseDto;
+import com.lul.dto.WalletInfoDto;
+import com.lul.entity.NotificationQueue;
+import com.lul.entity.UserChange;
+import com.lul.exception.BadRequestException;
+import com.lul.repository.NotificationQueueRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the delta sync of the mobile app: returns the wallets, transactions and notifications of a
+ * user that changed after a cursor, read from the user's change log.
+ *
+ * Change IDs are assigned when a change is written but become visible when its transaction commits, so a
+ * lower ID can appear after a higher one. The returned cursor therefore never moves past changes recorded
+ * within the overlap window; those are sent again by the next sync, and clients apply changes by entity ID,
+ * so a repeated change is harmless while a skipped one would be lost.
+ */
+@Service
+@Slf4j
+public class SyncService {
+
+    public static final int MAX_CHANGES = 500;
+
+    private final UserChangeService userChangeService;
+    private final WalletService walletService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final NotificationQueueRepository notificationQueueRepository;
+    private final Duration overlap;
+
+    public SyncService(
+            UserChangeService userChangeService,
+            WalletService walletService,
+            TransactionHistoryService transactionHistoryService,
+            NotificationQueueRepository notificationQueueRepository,
+            @Value("${sync.overlap-ms:30000}") long overlapMillis) {
+        this.userChangeService = userChangeService;
+        this.walletService = walletService;
+        this.transactionHistoryService = transactionHistoryService;
+        this.notificationQueueRepository = notificationQueueRepository;
+        this.overlap = Duration.ofMillis(overlapMillis);
+    }
+
+    /**
+     * Get the changes of a user after a sync cursor
+     *
+     * @param userId The ID of the user
+     * @param since The cursor of the previous sync, or null for the first sync
+     * @return The changed entities and the cursor of the next sync
+     */
+    @Transactional(readOnly = true)
+    public SyncResponseDto sync(Long userId, String since) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime stableBefore = now.minus(overlap);
+
+        Cursor position = since != null && !since.isEmpty() ? Cursor.decode(since) : null;
+        // Changes older than the retention period may have been pruned, so an old cursor cannot be served
+        if (position == null || position.issuedAt.isBefore(now.minus(userChangeService.retention()))) {
+            long version = userChangeService.versionBefore(userId, stableBefore);
+            return SyncResponseDto.builder()
+                .wallets(new ArrayList<>())
+                .transactions(new ArrayList<>())
+                .notifications(new ArrayList<>())
+                .cursor(new Cursor(version, now).encode())
+                .resyncRequired(true)
+                .build();
+        }
+
+        // Fetch one extra change to know whether more are waiting
+        List<UserChange> changes = userChangeService.changesSince(userId, position.changeId, MAX_CHANGES + 1);
+        boolean hasMore = changes.size() > MAX_CHANGES;
+        if (hasMore) {
+            changes = changes.subList(0, MAX_CHANGES);
+        }
+
+        Set<Long> walletIds = new LinkedHashSet<>();
+        Set<Long> transactionIds = new LinkedHashSet<>();
+        Set<Integer> notificationIds = new LinkedHashSet<>();
+        boolean profileChanged = false;
+        boolean accessHistoryChanged = false;
+        long nextChangeId = position.changeId;
+        boolean stable = true;
+        for (UserChange change : changes) {
+            switch (change.getEntityType()) {
+                case WALLET -> walletIds.add(change.getEntityId());
+                case TRANSACTION -> transactionIds.add(change.getEntityId());
+                case NOTIFICATION -> notificationIds.add(change.getEntityId().intValue());
+                case PROFILE -> profileChanged = true;
+                case ACCESS_HISTORY -> accessHistoryChanged = true;
+            }
+            stable = stable && change.getChangedAt().isBefore(stableBefore);
+            if (stable) {
+                nextChangeId = change.getId();
+            }
+        }
+        // A full page of recent changes must still advance the cursor, or the client would never get past it
+        if (hasMore && nextChangeId == position.changeId) {
+            nextChangeId = changes.get(changes.size() - 1).getId();
+        }
+
+        // Wallets come from the database: the view cache may lag behind changes committed on other instances
+        List<WalletInfoDto> wallets = walletIds.isEmpty() ? new ArrayList<>()
+            : walletService.refreshUserWallets(userId).stream()
+                .filter(wallet -> walletIds.contains(wallet.getId()))
+                .collect(Collectors.toList());
+
+        List<Map<String, Object>> notifications = notificationIds.isEmpty() ? new ArrayList<>()
+            : notificationQueueRepository.findByUserIdAndIdIn(userId.intValue(), notificationIds).stream()
+                .sorted(Comparator.comparing(NotificationQueue::getId))
+                .map(SyncService::toNotification)
+                .collect(Collectors.toList());
+
+        return SyncResponseDto.builder()
+            .wallets(wallets)
+            .transactions(transactionHistoryService.getItems(userId, transactionIds))
+            .notifications(notifications)
+            .profileChanged(profileChanged)
+            .accessHistoryChanged(accessHistoryChanged)
+            .cursor(new Cursor(nextChangeId, now).encode())
+            .hasMore(hasMore)
+            .build();
+    }
+
+    private static Map<String, Object> toNotification(NotificationQueue notification) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", notification.getId());
+        item.put("notificationTypeId", notification.getNotificationTypeId());
+        item.put("channelId", notification.getChannelId());
+        item.put("subject", notification.getSubject());
+        item.put("content", notification.getContent());
+        item.put("transactionId", notification.getTransactionId());
+        item.put("status", notification.getStatus());
+        item.put("createdAt", notification.getCreatedAt());
+        return item;
+    }
+
+    /**
+     * Last change ID a client has seen and when the cursor was issued, encoded as an opaque URL-safe string
+     */
+    private static final class Cursor {
+        private final long changeId;
+        private final LocalDateTime issuedAt;
+
+        private Cursor(long changeId, LocalDateTime issuedAt) {
+            this.changeId = changeId;
+            this.issuedAt = issuedAt;
+        }
+
+        private String encode() {
+            String raw = changeId + "|" + issuedAt;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(Long.parseLong(raw.substring(0, separator)),
+                        LocalDateTime.parse(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException(ErrorCode.INVALID_SYNC_CURSOR, "Invalid sync cursor");
+            }
+        }
+    }
+}
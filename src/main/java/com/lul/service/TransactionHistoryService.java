@@ -0,0 +1,244 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.TransactionHistoryFilter;
+import com.lul.dto.TransactionHistoryFilter.Direction;
+import com.lul.dto.TransactionHistoryItemDto;
+import com.lul.dto.TransactionHistoryPageDto;
+import com.lul.entity.UserWallet;
+import com.lul.exception.BadRequestException;
+import com.lul.exception.NotFoundException;
+import com.lul.repository.UserWalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for the user-facing transaction history listing.
+ *
+ * Pages are fetched with keyset (seek) pagination on (created_at, id) instead of OFFSET, so each page is
+ * an index range scan starting at the cursor and costs the same at any depth. Every query leads with a
+ * single party column (sender_id, receiver_id, sender_wallet_id or receiver_wallet_id) matching one of the
+ * composite indexes from V2__transaction_history_keyset_indexes.sql. For direction ALL the sent and received
+ * sides are sought separately and merged, rather than OR-ing the two columns, which would defeat the indexes.
+ *
+ * Rows without created_at come after all dated rows, newest ID first, both in the queries (NULLS LAST, as in
+ * the indexes from V14) and when the two sides are merged. A page ending in that undated tail gets a cursor
+ * without a timestamp, and the next page seeks the tail by ID alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SELECT_ITEM = "SELECT new com.lul.dto.TransactionHistoryItemDto("
+            + "t.id, t.transactionId, t.senderId, t.receiverId, t.senderWalletId, t.receiverWalletId, "
+            + "t.transactionTypeId, t.transactionStatusId, t.transactedValue, t.fee, t.totalAmount, "
+            + "t.currency, t.description, t.createdAt, t.completedAt) FROM TransactionHistory t";
+
+    private static final String NEWEST_FIRST_ORDER = " ORDER BY t.createdAt DESC NULLS LAST, t.id DESC";
+
+    // created_at is set on insert, but rows written by native SQL may lack it; those sort last
+    private static final Comparator<TransactionHistoryItemDto> NEWEST_FIRST = Comparator
+            .comparing(TransactionHistoryItemDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(TransactionHistoryItemDto::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final UserWalletRepository userWalletRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Get a page of the user's transaction history, newest first
+     *
+     * @param userId The ID of the user
+     * @param filter Optional filters
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param limit The page size, capped at MAX_PAGE_SIZE
+     * @return The page of transactions and the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDto getHistory(Long userId, TransactionHistoryFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        Cursor position = cursor != null && !cursor.isEmpty() ? Cursor.decode(cursor) : null;
+        Direction direction = filter.getDirection() != null ? filter.getDirection() : Direction.ALL;
+
+        // Resolve the wallet filter to the user's own wallet so other users' wallets cannot be listed
+        Integer userWalletId = null;
+        if (filter.getWalletTypeId() != null) {
+            UserWallet wallet = userWalletRepository.findByUserIdAndWalletId(userId, filter.getWalletTypeId())
+                .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
+            userWalletId = wallet.getId();
+        }
+
+        // Fetch one extra row per side to know whether another page exists
+        List<TransactionHistoryItemDto> rows = new ArrayList<>();
+        if (direction != Direction.RECEIVED) {
+            String party = userWalletId != null ? "t.senderWalletId" : "t.senderId";
+            Integer partyId = userWalletId != null ? userWalletId : Integer.valueOf(userId.intValue());
+            rows.addAll(seek(party, partyId, filter, position, pageSize + 1, "SENT"));
+        }
+        if (direction != Direction.SENT) {
+            String party = userWalletId != null ? "t.receiverWalletId" : "t.receiverId";
+            Integer partyId = userWalletId != null ? userWalletId : Integer.valueOf(userId.intValue());
+            rows.addAll(seek(party, partyId, filter, position, pageSize + 1, "RECEIVED"));
+        }
+
+        // Merge both sides; a transfer to oneself appears on both and is kept once
+        Map<Integer, TransactionHistoryItemDto> merged = new LinkedHashMap<>();
+        rows.stream().sorted(NEWEST_FIRST).forEach(row -> merged.putIfAbsent(row.getId(), row));
+        List<TransactionHistoryItemDto> items = new ArrayList<>(merged.values());
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionHistoryItemDto last = items.get(items.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return TransactionHistoryPageDto.builder()
+            .items(items)
+            .nextCursor(nextCursor)
+            .hasMore(hasMore)
+            .build();
+    }
+
+    /**
+     * Get the user's transactions among the given public transaction IDs, newest first, for delta sync
+     *
+     * @param userId The ID of the user
+     * @param transactionIds Public transaction IDs; IDs of other users' transactions are ignored
+     * @return The transactions the user sent or received
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionHistoryItemDto> getItems(Long userId, Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // transaction_id is unique, so the party check only filters the looked up rows
+        Integer partyId = userId.intValue();
+        List<TransactionHistoryItemDto> items = entityManager.createQuery(SELECT_ITEM
+                + " WHERE t.transactionId IN :transactionIds AND (t.senderId = :partyId OR t.receiverId = :partyId)",
+                TransactionHistoryItemDto.class)
+            .setParameter("transactionIds", transactionIds)
+            .setParameter("partyId", partyId)
+            .getResultList();
+        items.forEach(item -> item.setDirection(partyId.equals(item.getSenderId()) ? "SENT" : "RECEIVED"));
+        items.sort(NEWEST_FIRST);
+        return items;
+    }
+
+    private List<TransactionHistoryItemDto> seek(String partyColumn, Integer partyId, TransactionHistoryFilter filter,
+                                                 Cursor position, int maxResults, String direction) {
+        StringBuilder jpql = new StringBuilder(SELECT_ITEM)
+            .append(" WHERE ").append(partyColumn).append(" = :partyId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("partyId", partyId);
+
+        if (filter.getTransactionTypeId() != null) {
+            jpql.append(" AND t.transactionTypeId = :typeId");
+            params.put("typeId", filter.getTransactionTypeId());
+        }
+        if (filter.getTransactionStatusId() != null) {
+            jpql.append(" AND t.transactionStatusId = :statusId");
+            params.put("statusId", filter.getTransactionStatusId());
+        }
+        if (filter.getFrom() != null) {
+            jpql.append(" AND t.createdAt >= :from");
+            params.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            jpql.append(" AND t.createdAt < :to");
+            params.put("to", filter.getTo());
+        }
+
+        if (position == null) {
+            return fetch(jpql + NEWEST_FIRST_ORDER, params, maxResults, direction);
+        }
+        if (position.createdAt == null) {
+            // The cursor is in the undated tail, which is ordered by ID alone
+            Map<String, Object> tailParams = new HashMap<>(params);
+            tailParams.put("cursorId", position.id);
+            return fetch(jpql + " AND t.createdAt IS NULL AND t.id < :cursorId" + NEWEST_FIRST_ORDER,
+                tailParams, maxResults, direction);
+        }
+
+        // The first predicate bounds the index range scan, the second breaks ties on created_at
+        Map<String, Object> datedParams = new HashMap<>(params);
+        datedParams.put("cursorCreatedAt", position.createdAt);
+        datedParams.put("cursorId", position.id);
+        List<TransactionHistoryItemDto> results = new ArrayList<>(fetch(jpql
+            + " AND t.createdAt <= :cursorCreatedAt AND (t.createdAt < :cursorCreatedAt OR t.id < :cursorId)"
+            + NEWEST_FIRST_ORDER, datedParams, maxResults, direction));
+        // Undated rows follow the oldest dated one, unless a date range filter excludes them anyway
+        if (results.size() < maxResults && filter.getFrom() == null && filter.getTo() == null) {
+            results.addAll(fetch(jpql + " AND t.createdAt IS NULL" + NEWEST_FIRST_ORDER,
+                params, maxResults - results.size(), direction));
+        }
+        return results;
+    }
+
+    private List<TransactionHistoryItemDto> fetch(String jpql, Map<String, Object> params, int maxResults,
+                                                  String direction) {
+        TypedQuery<TransactionHistoryItemDto> query = entityManager.createQuery(jpql, TransactionHistoryItemDto.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(maxResults);
+
+        List<TransactionHistoryItemDto> results = query.getResultList();
+        results.forEach(item -> item.setDirection(direction));
+        return results;
+    }
+
+    /**
+     * Position of the last row of a page, encoded as an opaque URL-safe string
+     */
+    private static final class Cursor {
+        private final LocalDateTime createdAt;
+        private final Integer id;
+
+        private Cursor(LocalDateTime createdAt, Integer id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        private String encode() {
+            // An undated row is encoded with an empty timestamp
+            String raw = (createdAt != null ? createdAt.toString() : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                String createdAt = raw.substring(0, separator);
+                return new Cursor(createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                        Integer.valueOf(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException(ErrorCode.INVALID_HISTORY_CURSOR, "Invalid history cursor");
+            }
+        }
+    }
+}
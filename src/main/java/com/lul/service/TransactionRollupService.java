@@ -0,0 +1,253 @@
+package com.lul.service;
+
+import com.lul.enums.RollupGranularity;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.TransactionRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service maintaining the hourly and daily transaction rollups.
+ *
+ * Completed transfers are accumulated in memory after their transaction commits and flushed to the
+ * rollup table as one upsert per touched bucket every few seconds, so transfers never contend on a
+ * hot rollup row. Pending deltas are flushed on shutdown. A transfer is bucketed by its creation time, so a
+ * non-wallet transfer settling later lands in an hour that may already be closed; the dashboard buckets
+ * cached over such hours are evicted once the flush commits. Closed buckets are periodically rebuilt from
+ * the completed transfers in transaction_history, which also heals any deltas lost in a crash; the
+ * dashboard only reads closed buckets from the rollups.
+ */
+@Service
+@Slf4j
+public class TransactionRollupService {
+
+    private final TransactionRollupRepository transactionRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardTimeSeriesService dashboardTimeSeriesService;
+    private final Duration closeGrace;
+
+    private final Map<BucketKey, Delta> pendingDeltas = new ConcurrentHashMap<>();
+    // Serializes flushes and rebuilds; a ReentrantLock so virtual threads waiting on it are not pinned
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public TransactionRollupService(
+            TransactionRollupRepository transactionRollupRepository,
+            TransactionTemplate transactionTemplate,
+            DashboardTimeSeriesService dashboardTimeSeriesService,
+            @Value("${dashboard.rollup.close-grace-seconds:120}") long closeGraceSeconds) {
+        this.transactionRollupRepository = transactionRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dashboardTimeSeriesService = dashboardTimeSeriesService;
+        this.closeGrace = Duration.ofSeconds(closeGraceSeconds);
+    }
+
+    /**
+     * Record a committed transfer in the pending rollup deltas
+     *
+     * @param event The completed transfer
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        LocalDateTime createdAt = event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+        String currency = event.getCurrency() != null ? event.getCurrency() : "";
+        BucketKey key = new BucketKey(RollupGranularity.HOUR.bucketStart(createdAt), currency,
+                event.getReceiverCurrency() != null ? event.getReceiverCurrency() : currency, event.getTransactionTypeId());
+        Delta delta = new Delta(1, nullToZero(event.getAmount()), nullToZero(event.getFee()));
+        pendingDeltas.merge(key, delta, Delta::plus);
+    }
+
+    /**
+     * Apply pending deltas to the hourly and daily buckets
+     */
+    @Scheduled(fixedDelayString = "${dashboard.rollup.flush-interval-ms:5000}")
+    public void flushPendingDeltas() {
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            int flushed = 0;
+            Set<LocalDateTime> closedHours = new TreeSet<>();
+            LocalDateTime currentHour = RollupGranularity.HOUR.bucketStart(LocalDateTime.now());
+            for (BucketKey key : pendingDeltas.keySet()) {
+                Delta delta = pendingDeltas.remove(key);
+                if (delta == null) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        increment(RollupGranularity.HOUR, key.hourStart, key, delta);
+                        increment(RollupGranularity.DAY, RollupGranularity.DAY.bucketStart(key.hourStart), key, delta);
+                    });
+                    flushed++;
+                    if (key.hourStart.isBefore(currentHour)) {
+                        closedHours.add(key.hourStart);
+                    }
+                } catch (Exception e) {
+                    // Keep the delta for the next flush
+                    pendingDeltas.merge(key, delta, Delta::plus);
+                    log.error("Failed to flush rollup delta for {}: {}", key, e.getMessage(), e);
+                }
+            }
+            // Open buckets are never cached; closed ones would otherwise keep their old totals
+            closedHours.forEach(hourStart -> dashboardTimeSeriesService.evictRange(hourStart, hourStart.plusHours(1)));
+            log.debug("Flushed {} rollup buckets", flushed);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Flush the deltas still pending when the application stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushPendingDeltas();
+    }
+
+    /**
+     * Rebuild the most recently closed buckets from transaction_history
+     */
+    @Scheduled(cron = "${dashboard.rollup.reconcile-cron:0 5 * * * *}")
+    public void reconcileRecentBuckets() {
+        LocalDateTime closedBefore = closedBefore();
+        rebuild(closedBefore.minusHours(3), closedBefore);
+    }
+
+    /**
+     * Rebuild all closed hourly and daily buckets within a range from transaction_history, one day at a time,
+     * then evict the dashboard buckets cached over the range
+     *
+     * @param from Start of the range
+     * @param to End of the range, clamped to the last closed bucket
+     * @return Number of days processed
+     */
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime hourCutoff = RollupGranularity.HOUR.bucketStart(closedBefore());
+        LocalDateTime dayCutoff = RollupGranularity.DAY.bucketStart(hourCutoff);
+        LocalDateTime end = to.isAfter(hourCutoff) ? hourCutoff : to;
+
+        int days = 0;
+        LocalDateTime dayStart = RollupGranularity.DAY.bucketStart(from);
+        while (dayStart.isBefore(end)) {
+            LocalDateTime dayEnd = dayStart.plusDays(1);
+            LocalDateTime hoursFrom = dayStart.isBefore(from) ? RollupGranularity.HOUR.bucketStart(from) : dayStart;
+            LocalDateTime hoursTo = dayEnd.isAfter(end) ? RollupGranularity.HOUR.bucketCeiling(end) : dayEnd;
+            boolean dayClosed = !dayEnd.isAfter(dayCutoff);
+            LocalDateTime currentDay = dayStart;
+
+            writeLock.lock();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    replace(RollupGranularity.HOUR, hoursFrom, hoursTo.isAfter(hourCutoff) ? hourCutoff : hoursTo);
+                    if (dayClosed) {
+                        replace(RollupGranularity.DAY, currentDay, currentDay.plusDays(1));
+                    }
+                });
+            } finally {
+                writeLock.unlock();
+            }
+
+            days++;
+            dayStart = dayEnd;
+        }
+        dashboardTimeSeriesService.evictRange(from, end);
+
+        log.info("Rebuilt transaction rollups from {} to {} ({} days)", from, end, days);
+        return days;
+    }
+
+    private void replace(RollupGranularity granularity, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        transactionRollupRepository.deleteBuckets(granularity.name(), start, end);
+        transactionRollupRepository.insertBucketsFromHistory(granularity.name(), granularity.sqlUnit(), start, end);
+    }
+
+    private void increment(RollupGranularity granularity, LocalDateTime bucketStart, BucketKey key, Delta delta) {
+        transactionRollupRepository.incrementBucket(granularity.name(), bucketStart, key.currency,
+                key.receiverCurrency, key.transactionTypeId, delta.count, delta.value, delta.fees);
+    }
+
+    /**
+     * Buckets ending before this instant are closed: no transfer can still be flushed into them
+     */
+    private LocalDateTime closedBefore() {
+        return LocalDateTime.now().minus(closeGrace);
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static final class BucketKey {
+        private final LocalDateTime hourStart;
+        private final String currency;
+        private final String receiverCurrency;
+        private final Integer transactionTypeId;
+
+        private BucketKey(LocalDateTime hourStart, String currency, String receiverCurrency, Integer transactionTypeId) {
+            this.hourStart = hourStart;
+            this.currency = currency;
+            this.receiverCurrency = receiverCurrency;
+            this.transactionTypeId = transactionTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey other = (BucketKey) o;
+            return hourStart.equals(other.hourStart) && currency.equals(other.currency)
+                    && receiverCurrency.equals(other.receiverCurrency)
+                    && Objects.equals(transactionTypeId, other.transactionTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hourStart, currency, receiverCurrency, transactionTypeId);
+        }
+
+        @Override
+        public String toString() {
+            return hourStart + "/" + currency + "-" + receiverCurrency + "/" + transactionTypeId;
+        }
+    }
+
+    private static final class Delta {
+        private final long count;
+        private final BigDecimal value;
+        private final BigDecimal fees;
+
+        private Delta(long count, BigDecimal value, BigDecimal fees) {
+            this.count = count;
+            this.value = value;
+            this.fees = fees;
+        }
+
+        private Delta plus(Delta other) {
+            return new Delta(count + other.count, value.add(other.value), fees.add(other.fees));
+        }
+    }
+}
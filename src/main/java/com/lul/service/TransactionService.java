@@ -1,22 +1,28 @@
 package com.lul.service;
 
+import com.lul.dto.FxRateDto;
 import com.lul.dto.WalletTransferRequest;
 import com.lul.dto.WalletTransferResponse;
 import com.lul.entity.*;
+import com.lul.event.TransferCompletedEvent;
 import com.lul.exception.InsufficientFundsException;
 import com.lul.exception.InvalidPinException;
 import com.lul.exception.NotFoundException;
 import com.lul.exception.TransactionException;
 import com.lul.repository.*;
 import com.lul.constant.ErrorCode;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -38,19 +44,58 @@ public class TransactionService {
     private final TransactionLimitHistoryRepository transactionLimitHistoryRepository;
     private final TransactionAuditLogRepository transactionAuditLogRepository;
     private final NotificationService notificationService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final ExchangeRateService exchangeRateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletPostingEngine walletPostingEngine;
+    private final UserWalletViewCache userWalletViewCache;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * Process a wallet-to-wallet transfer
+     * Process a wallet-to-wallet transfer. With the wallet posting engine enabled the transfer is validated
+     * in a short transaction and its balance changes and records are committed by the sender wallet's
+     * posting writer; no transaction is held while waiting for it.
      * 
      * @param userId The ID of the user initiating the transfer
      * @param request The transfer request details
      * @return The transfer response with transaction details
      */
-    @Transactional
     public WalletTransferResponse transferBetweenWallets(Long userId, WalletTransferRequest request) {
         log.info("Processing wallet-to-wallet transfer for user ID: {}", userId);
         
+        if (!walletPostingEngine.isEnabled()) {
+            return transactionTemplate.execute(status -> {
+                PreparedTransfer transfer = prepareTransfer(userId, request);
+                if (transfer.getExistingResponse() != null) {
+                    return transfer.getExistingResponse();
+                }
+                
+                // Update wallet balances under the wallet locks, as the posting writers do
+                return walletPostingEngine.postInTransaction(new WalletPostingEngine.Posting<>(
+                    transfer.getSenderWallet().getId(), transfer.getTotalAmount(),
+                    transfer.getReceiverWallet().getId(), transfer.getReceivedAmount(),
+                    balanceAfter -> recordTransfer(transfer, balanceAfter)));
+            });
+        }
+        
+        PreparedTransfer transfer = transactionTemplate.execute(status -> prepareTransfer(userId, request));
+        if (transfer.getExistingResponse() != null) {
+            return transfer.getExistingResponse();
+        }
+        return walletPostingEngine.post(new WalletPostingEngine.Posting<>(
+            transfer.getSenderWallet().getId(), transfer.getTotalAmount(),
+            transfer.getReceiverWallet().getId(), transfer.getReceivedAmount(),
+            balanceAfter -> recordTransfer(transfer, balanceAfter)));
+    }
+    
+    /**
+     * Validate a wallet-to-wallet transfer and resolve everything needed to record it
+     * 
+     * @param userId The ID of the user initiating the transfer
+     * @param request The transfer request details
+     * @return The prepared transfer, carrying the existing response for a repeated idempotency key
+     */
+    private PreparedTransfer prepareTransfer(Long userId, WalletTransferRequest request) {
         // Check idempotency key if provided
         if (request.getIdempotencyKey() != null && !request.getIdempotencyKey().isEmpty()) {
             Optional<IdempotencyKey> existingKey = idempotencyKeyRepository.findByKey(request.getIdempotencyKey());
@@ -61,7 +106,9 @@ public class TransactionService {
                     .findByTransactionId(existingKey.get().getTransactionId())
                     .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_NOT_FOUND));
                 
-                return buildTransferResponse(existingTransaction);
+                return PreparedTransfer.builder()
+                    .existingResponse(buildTransferResponse(existingTransaction))
+                    .build();
             }
         }
         
@@ -70,7 +117,7 @@ public class TransactionService {
             .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
         
         // Verify PIN
-        if (!passwordEncoder.matches(request.getPin(), user.getPinHash())) {
+        if (!passwordHashingService.matches(request.getPin(), user.getPinHash())) {
             log.warn("Invalid PIN provided for user ID: {}", userId);
             throw new InvalidPinException(ErrorCode.PIN_VERIFICATION_FAILED);
         }
@@ -93,18 +140,21 @@ public class TransactionService {
         User receiverUser = userRepository.findById(receiverWallet.getUserId())
             .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
         
-        // Verify wallets have same currency
-        if (!senderWallet.getWallet().getCurrencyCode().equals(receiverWallet.getWallet().getCurrencyCode())) {
-            log.warn("Currency mismatch between sender wallet: {} and receiver wallet: {}", 
-                    senderWallet.getWallet().getCurrencyCode(), receiverWallet.getWallet().getCurrencyCode());
-            throw new TransactionException(ErrorCode.CURRENCY_MISMATCH);
-        }
+        // Resolve the exchange rate when the wallets hold different currencies
+        FxRateDto fxRate = exchangeRateService.findRate(
+                senderWallet.getWalletId(), receiverWallet.getWalletId(), LocalDateTime.now())
+            .orElseThrow(() -> {
+                log.warn("No exchange rate between sender wallet: {} and receiver wallet: {}",
+                        senderWallet.getWallet().getCurrencyCode(), receiverWallet.getWallet().getCurrencyCode());
+                return new TransactionException(ErrorCode.EXCHANGE_RATE_NOT_FOUND);
+            });
+        BigDecimal receivedAmount = exchangeRateService.convert(request.getAmount(), fxRate);
         
         // Calculate fee
         BigDecimal fee = calculateTransferFee(request.getAmount());
         BigDecimal totalAmount = request.getAmount().add(fee);
         
-        // Check if sender has sufficient balance
+        // Check if sender has sufficient balance; the posting checks again under the wallet lock
         if (senderWallet.getBalance().compareTo(totalAmount) < 0) {
             log.warn("Insufficient funds in wallet ID: {}. Required: {}, Available: {}", 
                     request.getSenderWalletId(), totalAmount, senderWallet.getBalance());
@@ -114,6 +164,35 @@ public class TransactionService {
         // Check transaction limits
         checkTransactionLimits(userId, request.getAmount(), senderWallet.getWallet().getCurrencyCode());
         
+        // Currency codes are resolved here because the posting writer records the transfer outside
+        // this persistence context, where the lazy wallet associations cannot be loaded
+        return PreparedTransfer.builder()
+            .userId(userId)
+            .request(request)
+            .user(user)
+            .receiverUser(receiverUser)
+            .senderWallet(senderWallet)
+            .receiverWallet(receiverWallet)
+            .fxRate(fxRate)
+            .receivedAmount(receivedAmount)
+            .fee(fee)
+            .totalAmount(totalAmount)
+            .currency(senderWallet.getWallet().getCurrencyCode())
+            .receiverCurrency(receiverWallet.getWallet().getCurrencyCode())
+            .build();
+    }
+    
+    /**
+     * Record a prepared transfer whose balances have been updated in the current transaction
+     * 
+     * @param transfer The prepared transfer
+     * @param senderBalanceAfter The sender wallet balance after the transfer
+     * @return The transfer response
+     */
+    private WalletTransferResponse recordTransfer(PreparedTransfer transfer, BigDecimal senderBalanceAfter) {
+        WalletTransferRequest request = transfer.getRequest();
+        Long userId = transfer.getUserId();
+        
         // Get transaction type for wallet-to-wallet
         TransactionType transactionType = transactionTypeRepository.findByTypeName("WALLET_TO_WALLET")
             .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_TYPE_NOT_FOUND));
@@ -125,14 +204,22 @@ public class TransactionService {
         // Create transaction record
         TransactionHistory transaction = new TransactionHistory();
         transaction.setSenderId(userId.intValue());
-        transaction.setReceiverId(receiverWallet.getUserId().intValue());
-        transaction.setSenderWalletId(senderWallet.getId());
-        transaction.setReceiverWalletId(receiverWallet.getId());
+        transaction.setReceiverId(transfer.getReceiverWallet().getUserId().intValue());
+        transaction.setSenderWalletId(transfer.getSenderWallet().getId());
+        transaction.setReceiverWalletId(transfer.getReceiverWallet().getId());
         transaction.setTransactionTypeId(transactionType.getId());
         transaction.setTransactionStatusId(pendingStatus.getId());
         transaction.setTransactedValue(request.getAmount());
-        transaction.setCurrency(senderWallet.getWallet().getCurrencyCode());
+        transaction.setCurrency(transfer.getCurrency());
         transaction.setDescription(request.getDescription());
+        transaction.setExchangeRateId(transfer.getFxRate().getExchangeRateId());
+        if (transfer.getFxRate().getExchangeRateId() != null) {
+            Map<String, Object> additionalData = new HashMap<>();
+            additionalData.put("exchangeRate", transfer.getFxRate().getRate());
+            additionalData.put("convertedAmount", transfer.getReceivedAmount());
+            additionalData.put("receiverCurrency", transfer.getReceiverCurrency());
+            transaction.setAdditionalData(additionalData);
+        }
         
         transaction = transactionHistoryRepository.save(transaction);
         
@@ -146,44 +233,49 @@ public class TransactionService {
         }
         
         // Record fee
-        recordTransactionFee(transaction, fee);
+        recordTransactionFee(transaction, transfer.getFee());
         
         // Update transaction limits
-        updateTransactionLimits(userId, request.getAmount(), senderWallet.getWallet().getCurrencyCode(), transaction.getTransactionId());
-        
-        // Update wallet balances
-        senderWallet.setBalance(senderWallet.getBalance().subtract(totalAmount));
-        receiverWallet.setBalance(receiverWallet.getBalance().add(request.getAmount()));
-        
-        userWalletRepository.save(senderWallet);
-        userWalletRepository.save(receiverWallet);
+        updateTransactionLimits(userId, request.getAmount(), transfer.getCurrency(), transaction.getTransactionId());
         
         // Update transaction status to completed
         TransactionStatus completedStatus = transactionStatusRepository.findById(2)
             .orElseThrow(() -> new NotFoundException(ErrorCode.TRANSACTION_STATUS_NOT_FOUND));
         transaction.setTransactionStatusId(completedStatus.getId());
         transaction = transactionHistoryRepository.save(transaction);
+        eventPublisher.publishEvent(TransferCompletedEvent.from(transaction));
         
         // Create audit log
         createAuditLog(transaction, userId.intValue(), "TRANSFER_COMPLETED", null);
         
+        // Update the cached wallet listings of both users once the balances are committed
+        userWalletViewCache.applyAfterCommit(userId, transfer.getSenderWallet().getId(),
+            transfer.getTotalAmount().negate(), BigDecimal.ZERO);
+        userWalletViewCache.applyAfterCommit(transfer.getReceiverWallet().getUserId(),
+            transfer.getReceiverWallet().getId(), transfer.getReceivedAmount(), BigDecimal.ZERO);
+        
         // Queue notifications
-        queueTransferNotifications(transaction, user, receiverUser);
+        User receiverUser = transfer.getReceiverUser();
+        queueTransferNotifications(transaction, transfer.getUser(), receiverUser, transfer.getReceivedAmount(),
+            transfer.getReceiverCurrency());
         
         // Build and return response
         return WalletTransferResponse.builder()
                 .status("success")
                 .transactionId(transaction.getTransactionId())
-                .senderWalletId(Long.valueOf(senderWallet.getId()))
-                .receiverWalletId(Long.valueOf(receiverWallet.getId()))
+                .senderWalletId(Long.valueOf(transfer.getSenderWallet().getId()))
+                .receiverWalletId(Long.valueOf(transfer.getReceiverWallet().getId()))
                 .amount(request.getAmount())
-                .fee(fee)
-                .totalAmount(totalAmount)
-                .currency(senderWallet.getWallet().getCurrencyCode())
+                .fee(transfer.getFee())
+                .totalAmount(transfer.getTotalAmount())
+                .currency(transfer.getCurrency())
                 .description(request.getDescription())
                 .timestamp(transaction.getCreatedAt())
-                .senderWalletBalanceAfter(senderWallet.getBalance())
+                .senderWalletBalanceAfter(senderBalanceAfter)
                 .receiverName(receiverUser.getFirstName() + " " + receiverUser.getLastName())
+                .exchangeRate(transfer.getFxRate().getRate())
+                .convertedAmount(transfer.getReceivedAmount())
+                .receiverCurrency(transfer.getReceiverCurrency())
                 .build();
     }
     
@@ -378,8 +470,11 @@ public class TransactionService {
      * @param transaction The transaction
      * @param sender The sender user
      * @param receiver The receiver user
+     * @param receivedAmount The amount credited to the receiver, in the receiver's currency
+     * @param receiverCurrency The receiver's currency code
      */
-    private void queueTransferNotifications(TransactionHistory transaction, User sender, User receiver) {
+    private void queueTransferNotifications(TransactionHistory transaction, User sender, User receiver,
+                                            BigDecimal receivedAmount, String receiverCurrency) {
         // Queue notification for sender
         notificationService.queueTransactionNotification(
             sender.getId().intValue(),
@@ -399,8 +494,8 @@ public class TransactionService {
             "TRANSACTION_RECEIVED",
             "Transfer Received",
             String.format("You have received %s %s from %s %s", 
-                transaction.getTransactedValue(), 
-                transaction.getCurrency(),
+                receivedAmount, 
+                receiverCurrency,
                 sender.getFirstName(),
                 sender.getLastName()),
             transaction.getTransactionId()
@@ -466,4 +561,25 @@ public class TransactionService {
         // This method needs to be implemented based on the specific requirements
         throw new UnsupportedOperationException("Method not implemented");
     }
-} 
\ No newline at end of file
+
+    /**
+     * A validated wallet-to-wallet transfer, or the response of an earlier request with the same idempotency key
+     */
+    @Getter
+    @Builder
+    private static class PreparedTransfer {
+        private final WalletTransferResponse existingResponse;
+        private final Long userId;
+        private final WalletTransferRequest request;
+        private final User user;
+        private final User receiverUser;
+        private final UserWallet senderWallet;
+        private final UserWallet receiverWallet;
+        private final FxRateDto fxRate;
+        private final BigDecimal receivedAmount;
+        private final BigDecimal fee;
+        private final BigDecimal totalAmount;
+        private final String currency;
+        private final String receiverCurrency;
+    }
+}
@@ -0,0 +1,129 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.FxRateDto;
+import com.lul.dto.TransferQuoteDto;
+import com.lul.dto.TransferQuoteDto.TransferType;
+import com.lul.entity.Wallet;
+import com.lul.exception.LulPayException;
+import com.lul.exception.NotFoundException;
+import com.lul.exception.TransactionException;
+import com.lul.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service that prices transfers: fee, total debit and exchange rate.
+ * Shared by the quote endpoint and the transfer services so that a quoted price and an
+ * unquoted execution are always computed by the same rules. Pricing never touches the
+ * database on the hot path: rates come from the in-memory FX index and currency codes
+ * are cached per wallet type.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferPricingService {
+
+    private static final BigDecimal WALLET_FEE_RATE = new BigDecimal("0.02");
+    private static final BigDecimal NON_WALLET_FEE_RATE = BigDecimal.valueOf(0.01);
+
+    private final ExchangeRateService exchangeRateService;
+    private final WalletRepository walletRepository;
+
+    private final Map<Integer, String> currencyCodes = new ConcurrentHashMap<>();
+
+    /**
+     * Price a transfer
+     *
+     * @param transferType The kind of transfer
+     * @param senderWalletTypeId The wallet type ID (currency) being debited
+     * @param receiverWalletTypeId The wallet type ID (currency) being credited, null for the sender's
+     * @param amount The amount in the sender's currency
+     * @return The priced transfer, without quote ID, token or expiry
+     */
+    public TransferQuoteDto price(TransferType transferType, Integer senderWalletTypeId,
+                                  Integer receiverWalletTypeId, BigDecimal amount) {
+        if (transferType == TransferType.NON_WALLET) {
+            return priceNonWalletTransfer(senderWalletTypeId, amount);
+        }
+        return priceWalletTransfer(senderWalletTypeId,
+                receiverWalletTypeId != null ? receiverWalletTypeId : senderWalletTypeId, amount);
+    }
+
+    /**
+     * Price a wallet-to-wallet transfer, converting to the receiver's currency when it differs
+     *
+     * @param senderWalletTypeId The sender wallet type ID
+     * @param receiverWalletTypeId The receiver wallet type ID
+     * @param amount The amount in the sender's currency
+     * @return The priced transfer
+     */
+    public TransferQuoteDto priceWalletTransfer(Integer senderWalletTypeId, Integer receiverWalletTypeId, BigDecimal amount) {
+        BigDecimal fee = amount.multiply(WALLET_FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+
+        FxRateDto fxRate = exchangeRateService.findRate(senderWalletTypeId, receiverWalletTypeId, LocalDateTime.now())
+            .orElseThrow(() -> new TransactionException(ErrorCode.EXCHANGE_RATE_NOT_FOUND));
+
+        TransferQuoteDto.TransferQuoteDtoBuilder pricing = TransferQuoteDto.builder()
+            .transferType(TransferType.WALLET)
+            .senderWalletTypeId(senderWalletTypeId)
+            .receiverWalletTypeId(receiverWalletTypeId)
+            .amount(amount)
+            .fee(fee)
+            .totalAmount(amount.add(fee))
+            .currency(getCurrencyCode(senderWalletTypeId))
+            .convertedAmount(exchangeRateService.convert(amount, fxRate))
+            .receiverCurrency(getCurrencyCode(receiverWalletTypeId));
+
+        if (fxRate.getExchangeRateId() != null) {
+            pricing.exchangeRateId(fxRate.getExchangeRateId())
+                .exchangeRate(fxRate.getRate());
+        }
+        return pricing.build();
+    }
+
+    /**
+     * Price a transfer to a non-wallet recipient, paid out in the sender's currency
+     *
+     * @param senderWalletTypeId The sender wallet type ID
+     * @param amount The amount being transferred
+     * @return The priced transfer
+     */
+    public TransferQuoteDto priceNonWalletTransfer(Integer senderWalletTypeId, BigDecimal amount) {
+        if (senderWalletTypeId != 1 && senderWalletTypeId != 2) {
+            throw new LulPayException(ErrorCode.INVALID_AMOUNT, "Wallet type not supported");
+        }
+
+        BigDecimal fee = amount.multiply(NON_WALLET_FEE_RATE).setScale(2, RoundingMode.HALF_UP);
+
+        // Ensure minimum fee
+        BigDecimal minFee = senderWalletTypeId == 1 ? BigDecimal.valueOf(500) : BigDecimal.valueOf(0.5); // 500 UGX or 0.5 USD
+        fee = fee.max(minFee);
+
+        String currency = getCurrencyCode(senderWalletTypeId);
+        return TransferQuoteDto.builder()
+            .transferType(TransferType.NON_WALLET)
+            .senderWalletTypeId(senderWalletTypeId)
+            .receiverWalletTypeId(senderWalletTypeId)
+            .amount(amount)
+            .fee(fee)
+            .totalAmount(amount.add(fee))
+            .currency(currency)
+            .convertedAmount(amount)
+            .receiverCurrency(currency)
+            .build();
+    }
+
+    private String getCurrencyCode(Integer walletTypeId) {
+        return currencyCodes.computeIfAbsent(walletTypeId, id -> walletRepository.findById(id)
+            .map(Wallet::getCurrencyCode)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND)));
+    }
+}
@@ -0,0 +1,275 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.TransferQuoteDto;
+import com.lul.dto.TransferQuoteDto.TransferType;
+import com.lul.exception.LulPayException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.security.Key;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Service for time-limited transfer quotes.
+ *
+ * A quote locks the fee and exchange rate of a transfer for a short period. It is returned to the
+ * client as a token signed with its own key and audience, so it can never pass as a login token, and kept
+ * in a bounded in-memory store; executing a transfer with a valid token redeems the stored quote exactly
+ * once and skips re-pricing. A quote is only used up when the transfer redeeming it commits; if the
+ * transfer fails the quote returns to the store while it is still live. Repeated quote requests with the
+ * same parameters (e.g. the mobile app refreshing the confirmation screen) are answered from the
+ * store while the existing quote still has at least half of its lifetime left.
+ */
+@Service
+@Slf4j
+public class TransferQuoteService {
+
+    static final String AUDIENCE = "transfer-quote";
+    private static final String CLAIM_TRANSFER_TYPE = "ttp";
+    private static final String CLAIM_SENDER_WALLET = "swt";
+    private static final String CLAIM_RECEIVER_WALLET = "rwt";
+    private static final String CLAIM_AMOUNT = "amt";
+    private static final String CLAIM_FEE = "fee";
+    private static final String CLAIM_RATE = "fx";
+
+    private final TransferPricingService transferPricingService;
+    private final Duration quoteTtl;
+    private final Key signingKey;
+
+    // Access-ordered map bounded to maxQuotes, guarded by its own monitor
+    private final LinkedHashMap<String, TransferQuoteDto> quotes;
+    private final Map<String, String> quoteIdsByRequest = new HashMap<>();
+
+    public TransferQuoteService(
+            TransferPricingService transferPricingService,
+            @Value("${transfer.quote.ttl-seconds:60}") long ttlSeconds,
+            @Value("${transfer.quote.max-entries:10000}") int maxQuotes,
+            @Value("${transfer.quote.signing-secret}") String signingSecret) {
+        this.transferPricingService = transferPricingService;
+        this.quoteTtl = Duration.ofSeconds(ttlSeconds);
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(signingSecret));
+        this.quotes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransferQuoteDto> eldest) {
+                if (size() > maxQuotes) {
+                    quoteIdsByRequest.remove(requestKey(eldest.getValue()));
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Create a quote for a transfer, or return the user's current quote for the same parameters
+     *
+     * @param userId The ID of the user requesting the quote
+     * @param transferType The kind of transfer
+     * @param senderWalletTypeId The wallet type ID (currency) being debited
+     * @param receiverWalletTypeId The wallet type ID (currency) being credited, null for the sender's
+     * @param amount The amount in the sender's currency
+     * @return The quote including its signed token
+     */
+    public TransferQuoteDto createQuote(Long userId, TransferType transferType, Integer senderWalletTypeId,
+                                        Integer receiverWalletTypeId, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        String requestKey = requestKey(userId, transferType, senderWalletTypeId, receiverWalletTypeId, amount);
+
+        synchronized (quotes) {
+            String existingId = quoteIdsByRequest.get(requestKey);
+            TransferQuoteDto existing = existingId != null ? quotes.get(existingId) : null;
+            if (existing != null && existing.getExpiresAt().minus(quoteTtl.dividedBy(2)).isAfter(now)) {
+                log.debug("Reusing quote {} for user ID: {}", existing.getQuoteId(), userId);
+                return existing;
+            }
+        }
+
+        TransferQuoteDto pricing = transferPricingService.price(transferType, senderWalletTypeId, receiverWalletTypeId, amount);
+        String quoteId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = now.plus(quoteTtl);
+
+        TransferQuoteDto quote = pricing.toBuilder()
+            .quoteId(quoteId)
+            .userId(userId)
+            .expiresAt(expiresAt)
+            .quoteToken(sign(quoteId, userId, pricing, expiresAt))
+            .build();
+
+        synchronized (quotes) {
+            String previousId = quoteIdsByRequest.put(requestKey, quoteId);
+            if (previousId != null) {
+                quotes.remove(previousId);
+            }
+            quotes.put(quoteId, quote);
+        }
+
+        log.info("Created quote {} for user ID: {}, type: {}, amount: {}, fee: {}",
+                quoteId, userId, transferType, amount, quote.getFee());
+        return quote;
+    }
+
+    /**
+     * Redeem a quote for execution. The quote is taken out of the store, so each quote can be used once.
+     * Within a transaction it is only used up on commit and returns to the store on rollback; a caller
+     * recording the transfer in a later transaction returns it with {@link #restoreQuote} if that fails.
+     *
+     * @param quoteToken The signed quote token
+     * @param userId The ID of the user executing the transfer
+     * @param transferType The kind of transfer being executed
+     * @param senderWalletTypeId The wallet type ID being debited
+     * @param receiverWalletTypeId The wallet type ID being credited, null for the sender's
+     * @param amount The amount being transferred
+     * @return The locked pricing for the transfer
+     */
+    public TransferQuoteDto redeemQuote(String quoteToken, Long userId, TransferType transferType,
+                                        Integer senderWalletTypeId, Integer receiverWalletTypeId, BigDecimal amount) {
+        Claims claims = verify(quoteToken);
+        String quoteId = claims.getId();
+        Integer receiverTypeId = receiverWalletTypeId != null ? receiverWalletTypeId : senderWalletTypeId;
+
+        TransferQuoteDto quote;
+        synchronized (quotes) {
+            quote = quotes.get(quoteId);
+            if (quote == null || !quote.getExpiresAt().isAfter(LocalDateTime.now())) {
+                log.warn("Quote {} is expired, evicted or already used", quoteId);
+                throw new LulPayException(ErrorCode.QUOTE_EXPIRED, "Quote has expired, please request a new one");
+            }
+
+            if (!quote.getUserId().equals(userId)
+                    || quote.getTransferType() != transferType
+                    || !quote.getSenderWalletTypeId().equals(senderWalletTypeId)
+                    || !quote.getReceiverWalletTypeId().equals(receiverTypeId)
+                    || quote.getAmount().compareTo(amount) != 0) {
+                log.warn("Quote {} does not match the transfer requested by user ID: {}", quoteId, userId);
+                throw new LulPayException(ErrorCode.QUOTE_INVALID, "Quote does not match the transfer details");
+            }
+
+            quotes.remove(quoteId);
+            quoteIdsByRequest.remove(requestKey(quote));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restoreQuote(quote);
+                    }
+                }
+            });
+        }
+        return quote;
+    }
+
+    /**
+     * Return a redeemed quote to the store after the transfer redeeming it failed, if it is still live
+     *
+     * @param quote The redeemed quote
+     */
+    public void restoreQuote(TransferQuoteDto quote) {
+        if (!quote.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return;
+        }
+        synchronized (quotes) {
+            String requestKey = requestKey(quote);
+            // A newer quote for the same parameters supersedes the restored one for reuse
+            quoteIdsByRequest.putIfAbsent(requestKey, quote.getQuoteId());
+            quotes.putIfAbsent(quote.getQuoteId(), quote);
+        }
+        log.debug("Restored quote {} after its transfer failed", quote.getQuoteId());
+    }
+
+    /**
+     * Drop expired quotes so the store only holds quotes that can still be redeemed
+     */
+    @Scheduled(fixedDelayString = "${transfer.quote.purge-interval-ms:60000}")
+    public void purgeExpiredQuotes() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        synchronized (quotes) {
+            Iterator<TransferQuoteDto> iterator = quotes.values().iterator();
+            while (iterator.hasNext()) {
+                TransferQuoteDto quote = iterator.next();
+                if (!quote.getExpiresAt().isAfter(now)) {
+                    iterator.remove();
+                    quoteIdsByRequest.remove(requestKey(quote));
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Purged {} expired transfer quotes", removed);
+        }
+    }
+
+    private String sign(String quoteId, Long userId, TransferQuoteDto pricing, LocalDateTime expiresAt) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TRANSFER_TYPE, pricing.getTransferType().name());
+        claims.put(CLAIM_SENDER_WALLET, pricing.getSenderWalletTypeId());
+        claims.put(CLAIM_RECEIVER_WALLET, pricing.getReceiverWalletTypeId());
+        claims.put(CLAIM_AMOUNT, pricing.getAmount().toPlainString());
+        claims.put(CLAIM_FEE, pricing.getFee().toPlainString());
+        if (pricing.getExchangeRate() != null) {
+            claims.put(CLAIM_RATE, pricing.getExchangeRate().toPlainString());
+        }
+
+        return Jwts.builder()
+            .setClaims(claims)
+            .setId(quoteId)
+            .setSubject(String.valueOf(userId))
+            .setAudience(AUDIENCE)
+            .setExpiration(Date.from(expiresAt.atZone(ZoneId.systemDefault()).toInstant()))
+            .signWith(signingKey, SignatureAlgorithm.HS256)
+            .compact();
+    }
+
+    private Claims verify(String quoteToken) {
+        try {
+            return Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .requireAudience(AUDIENCE)
+                .build()
+                .parseClaimsJws(quoteToken)
+                .getBody();
+        } catch (ExpiredJwtException e) {
+            throw new LulPayException(ErrorCode.QUOTE_EXPIRED, "Quote has expired, please request a new one");
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("Rejected quote token: {}", e.getMessage());
+            throw new LulPayException(ErrorCode.QUOTE_INVALID, "Quote token is invalid");
+        }
+    }
+
+    private static String requestKey(TransferQuoteDto quote) {
+        return requestKey(quote.getUserId(), quote.getTransferType(), quote.getSenderWalletTypeId(),
+                quote.getReceiverWalletTypeId(), quote.getAmount());
+    }
+
+    private static String requestKey(Long userId, TransferType transferType, Integer senderWalletTypeId,
+                                     Integer receiverWalletTypeId, BigDecimal amount) {
+        Integer receiverTypeId = receiverWalletTypeId != null ? receiverWalletTypeId : senderWalletTypeId;
+        return userId + "|" + transferType + "|" + senderWalletTypeId + "|"
+                + Objects.toString(receiverTypeId) + "|" + amount.stripTrailingZeros().toPlainString();
+    }
+}
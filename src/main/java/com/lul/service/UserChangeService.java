@@ -0,0 +1,244 @@
+package com.lul.service;
+
+import com.lul.entity.UserChange;
+import com.lul.enums.UserChangeType;
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.UserChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Service keeping a change log per user, behind conditional GETs and delta sync of the mobile app.
+ *
+ * Writes that change what a user sees append a row to auth.user_changes in their own transaction, so the
+ * log commits or rolls back with the change, and bump the user's counter in auth.user_versions in the same
+ * statement. That counter is the version of the user and part of the ETag of every per-user listing; unlike
+ * change IDs, which are taken at insert time and commit out of order, it grows in commit order, so a page
+ * tagged with a version contains every change up to it. Delta sync still pages by change ID. Versions are cached in memory so a matching revalidation is
+ * answered without a query; a change committed on this instance drops the cached version right after the
+ * commit, while changes committed by other instances or by set-based statements (hold settlement) become
+ * visible once the cached version expires.
+ */
+@Service
+@Slf4j
+public class UserChangeService {
+
+    private static final int PRUNE_BATCH_SIZE = 10_000;
+
+    private final UserChangeRepository userChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlNanos;
+    private final int retentionDays;
+    private final LongSupplier clock;
+
+    // Access-ordered, bounded to maxEntries, guarded by its own monitor
+    private final LinkedHashMap<Long, Entry> versions;
+
+    @Autowired
+    public UserChangeService(
+            UserChangeRepository userChangeRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${sync.version-cache.ttl-ms:5000}") long ttlMillis,
+            @Value("${sync.version-cache.max-entries:100000}") int maxEntries,
+            @Value("${sync.change-retention-days:30}") int retentionDays) {
+        this(userChangeRepository, transactionTemplate, Duration.ofMillis(ttlMillis), maxEntries, retentionDays,
+            System::nanoTime);
+    }
+
+    UserChangeService(UserChangeRepository userChangeRepository, TransactionTemplate transactionTemplate,
+                      Duration ttl, int maxEntries, int retentionDays, LongSupplier clock) {
+        this.userChangeRepository = userChangeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlNanos = ttl.toNanos();
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+        this.versions = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Record a change of a user in the current transaction, or in a new one outside a transaction
+     *
+     * @param userId The user ID
+     * @param type What changed
+     * @param entityId The changed entity's ID, or null
+     */
+    @Transactional
+    public void record(Long userId, UserChangeType type, Long entityId) {
+        insert(userId, type, entityId);
+    }
+
+    /**
+     * Get the version of a user's data, the counter bumped by each of their changes
+     *
+     * @param userId The user ID
+     * @return The version, 0 if no change is retained
+     */
+    public long version(Long userId) {
+        long now = clock.getAsLong();
+        synchronized (versions) {
+            Entry entry = versions.get(userId);
+            if (entry != null && entry.version >= 0 && now - entry.loadedAt < ttlNanos) {
+                return entry.version;
+            }
+        }
+
+        long version = userChangeRepository.findVersion(userId);
+        synchronized (versions) {
+            // A change committed while the version was read may be missing from it
+            Entry entry = versions.get(userId);
+            if (entry == null || entry.changedAt - now < 0) {
+                versions.put(userId, new Entry(version, now, now));
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Get the ID of a user's latest change recorded before the given time, read from the database
+     *
+     * @param userId The user ID
+     * @param before Only changes recorded before this time count
+     * @return The change ID, 0 if none is retained
+     */
+    public long versionBefore(Long userId, LocalDateTime before) {
+        return userChangeRepository.findVersionBefore(userId, before);
+    }
+
+    /**
+     * Get a page of a user's changes after a sync cursor, oldest first
+     *
+     * @param userId The user ID
+     * @param afterId The last change ID the client has seen
+     * @param limit Maximum number of changes
+     * @return The changes
+     */
+    public List<UserChange> changesSince(Long userId, long afterId, int limit) {
+        return userChangeRepository.findByUserIdAndIdGreaterThanOrderById(userId, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * How long changes are retained; sync cursors older than this cannot be served incrementally
+     *
+     * @return The retention period
+     */
+    public Duration retention() {
+        return Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Record the balance and history changes of both parties of a transfer, in the transfer's transaction
+     *
+     * @param event The completed transfer
+     */
+    @EventListener
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (event.getSenderId() != null) {
+            Long senderId = event.getSenderId().longValue();
+            insert(senderId, UserChangeType.WALLET, toLong(event.getSenderWalletId()));
+            insert(senderId, UserChangeType.TRANSACTION, event.getTransactionId());
+        }
+        if (event.getReceiverId() != null) {
+            Long receiverId = event.getReceiverId().longValue();
+            insert(receiverId, UserChangeType.WALLET, toLong(event.getReceiverWalletId()));
+            // A transfer between one's own wallets is a single history entry
+            if (!event.getReceiverId().equals(event.getSenderId())) {
+                insert(receiverId, UserChangeType.TRANSACTION, event.getTransactionId());
+            }
+        }
+    }
+
+    /**
+     * Record the stage change of a non-wallet transfer for its sender, in the stage update's transaction
+     *
+     * @param event The stage change
+     */
+    @EventListener
+    public void onDisbursementStageChanged(DisbursementStageChangedEvent event) {
+        if (event.getSenderId() != null) {
+            insert(event.getSenderId().longValue(), UserChangeType.TRANSACTION, event.getTransactionId());
+        }
+    }
+
+    /**
+     * Delete changes older than the retention period every night, in batches
+     */
+    @Scheduled(cron = "${sync.change-prune-cron:0 45 3 * * *}")
+    public void pruneChanges() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        long pruned = 0;
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(status ->
+                userChangeRepository.deleteOlderThan(before, PRUNE_BATCH_SIZE));
+            deleted = batch != null ? batch : 0;
+            pruned += deleted;
+        } while (deleted == PRUNE_BATCH_SIZE);
+        log.info("Pruned {} user changes recorded before {}", pruned, before);
+    }
+
+    void changed(Long userId) {
+        long now = clock.getAsLong();
+        synchronized (versions) {
+            versions.put(userId, new Entry(-1, now, now));
+        }
+    }
+
+    private void insert(Long userId, UserChangeType type, Long entityId) {
+        userChangeRepository.record(userId, type.name(), entityId);
+        afterCommit(() -> changed(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Long toLong(Integer value) {
+        return value != null ? value.longValue() : null;
+    }
+
+    /**
+     * Cached version of a user, or a change marker when version is negative
+     */
+    private static final class Entry {
+        private final long version;
+        private final long loadedAt;
+        private final long changedAt;
+
+        private Entry(long version, long loadedAt, long changedAt) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.changedAt = changedAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.lul.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.lul.repository.UserProfileRepository;
 import com.lul.repository.UserRepository;
@@ -27,6 +28,7 @@ public class UserProfileService {
     @Autowired
     private UserProfileRepository userProfileRepository;
     
+    @Transactional(readOnly = true)
     public Map<String, Object> getUserProfile(Long userId) {
         UserProfile profile = userProfileRepository.findByUserId(userId)
             .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
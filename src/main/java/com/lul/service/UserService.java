@@ -7,9 +7,10 @@ import com.lul.entity.UserAgreement;
 import com.lul.repository.UserRepository;
 import com.lul.repository.UserProfileRepository;
 import com.lul.repository.UserAgreementRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.lul.constant.ErrorCode;
 
@@ -46,11 +47,13 @@ import com.lul.repository.OtpMethodRepository;
 import com.lul.repository.OtpStatusRepository;
 import org.springframework.beans.factory.annotation.Value;
 import com.lul.exception.NotFoundException;
+import com.lul.exception.TooManyRequestsException;
 
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import com.lul.service.WalletService;
+import com.lul.enums.UserChangeType;
 
 
 
@@ -61,12 +64,11 @@ import com.lul.service.WalletService;
 public class UserService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private static final SecureRandom secureRandom = new SecureRandom();
-    private static final int MAX_ATTEMPTS = 10;
     
     private final UserRepository userRepository;
     private final UserProfileRepository userProfileRepository;
     private final UserAgreementRepository userAgreementRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final Random random = new Random();
     private final EmailService emailService;
     private final UserTokenRepository userTokenRepository;
@@ -79,6 +81,10 @@ public class UserService {
     private final OtpStatusRepository otpStatusRepository;
     private final DeviceFingerprintService deviceFingerprintService;
     private final WalletService walletService;
+    private final UserChangeService userChangeService;
+    private final RegistrationPipelineService registrationPipelineService;
+    private final UserWorkIdAllocator userWorkIdAllocator;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${otp.length}")
     private int otpLength;
@@ -90,7 +96,7 @@ public class UserService {
     public UserService(UserRepository userRepository, 
                       UserProfileRepository userProfileRepository,
                       UserAgreementRepository userAgreementRepository,
-                      PasswordEncoder passwordEncoder,
+                      PasswordHashingService passwordHashingService,
                       EmailService emailService,
                       UserTokenRepository userTokenRepository,
                       JwtService jwtService,
@@ -101,11 +107,15 @@ public class UserService {
                       OtpMethodRepository otpMethodRepository,
                       OtpStatusRepository otpStatusRepository,
                       DeviceFingerprintService deviceFingerprintService,
-                      WalletService walletService) {
+                      WalletService walletService,
+                      UserChangeService userChangeService,
+                      RegistrationPipelineService registrationPipelineService,
+                      UserWorkIdAllocator userWorkIdAllocator,
+                      TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
         this.userProfileRepository = userProfileRepository;
         this.userAgreementRepository = userAgreementRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
         this.userTokenRepository = userTokenRepository;
         this.jwtService = jwtService;
@@ -117,9 +127,20 @@ public class UserService {
         this.otpStatusRepository = otpStatusRepository;
         this.deviceFingerprintService = deviceFingerprintService;
         this.walletService = walletService;
+        this.userChangeService = userChangeService;
+        this.registrationPipelineService = registrationPipelineService;
+        this.userWorkIdAllocator = userWorkIdAllocator;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Register a user. Duplicate checks, password hashing and work ID generation run before the transaction,
+     * which only writes the user's rows; the OTP SMS, default wallets and welcome email run after it commits.
+     *
+     * @param request The registration request
+     * @return The registration result
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> registerUser(UserRegistrationRequest request) {
         try {
             // Check for duplicate username
@@ -153,102 +174,13 @@ public class UserService {
             }
             */
             
-            User user = new User();
-            user.setEmail(request.getEmail());
-            user.setUsername(request.getUsername());
-            user.setPhoneNumber(request.getPhoneNumber());
-            user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
-            user.setRegisterStatus(2);  // Pending OTP
-            user.setStatusId(1);
-            user.setCreatedAt(LocalDateTime.now());
-            user.setUpdatedAt(LocalDateTime.now());
-            
-            String userWorkId = generateUniqueUserWorkId();
-            user.setUserWorkId(userWorkId);
+            // Hash and pick the work ID before the transaction, so it holds a connection only for the writes
+            String passwordHash = passwordHashingService.encode(request.getPassword());
+            String userWorkId = userWorkIdAllocator.take();
+            String clientIpAddress = getClientIpAddress();
             
-            user = userRepository.save(user);
-
-            // Create user profile with ALL fields from ProfileBase
-            UserProfile profile = new UserProfile();
-            profile.setUser(user);
-            profile.setFirstName(request.getFirstName());
-            profile.setLastName(request.getLastName());
-            profile.setWhatsappNumber(request.getWhatsappNumber());
-            profile.setGender(request.getGender());
-            profile.setDateOfBirth(request.getDateOfBirth());
-            profile.setCity(request.getCity());
-            profile.setCountry(request.getCountry());
-            profile.setState(request.getState());
-            profile.setKycLevel(1);
-            profile.setReferredBy(request.getReferredBy());
-            userProfileRepository.save(profile);
-
-            // Create user agreement with only required fields
-            UserAgreement agreement = new UserAgreement();
-            agreement.setUser(user);
-            agreement.setTermsId(1L);
-            agreement.setAgreedAt(LocalDateTime.now());
-            userAgreementRepository.save(agreement);
-
-            // Create OTP record
-            OtpLog otpLog = new OtpLog();
-            otpLog.setUserId(user.getId());
-            otpLog.setOtpCode(generateOtpCode());
-            otpLog.setStatus(otpStatusRepository.findById(1).orElseThrow());
-            otpLog.setMethod(otpMethodRepository.findById(1).orElseThrow());
-            otpLog.setSentAt(ZonedDateTime.now());
-            otpLog.setMaxAttempts(3);
-            otpLog.setAttemptsCount(0);
-            otpLogRepository.save(otpLog);
-
-            // Send OTP via SMS
-            boolean smsSent = smsService.sendSms(
-                user.getPhoneNumber(),
-                String.format("Your LulPay verification code is: %s", otpLog.getOtpCode())
-            );
-            
-            if (!smsSent) {
-                log.warn("Failed to send SMS OTP to user: {}", user.getPhoneNumber());
-            }
-
-            // Create user token
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("sub", user.getId().toString());
-            claims.put("deviceId", request.getDeviceInfo().getDeviceId());
-            claims.put("type", "REGISTRATION");
-            
-            String token = jwtService.generateToken(claims);
-            
-            UserToken userToken = new UserToken();
-            userToken.setUser(user);
-            userToken.setToken(token);
-            userToken.setDeviceId(request.getDeviceInfo().getDeviceId());
-            userToken.setDeviceName(request.getDeviceInfo().getDeviceName());
-            userToken.setDeviceFingerprint(deviceFingerprintService.generateFingerprint(request.getDeviceInfo()));
-            userToken.setCreatedAt(LocalDateTime.now());
-            userToken.setFirstSeenAt(LocalDateTime.now());
-            userToken.setExpiresAt(LocalDateTime.now().plusMonths(6));
-            userTokenRepository.save(userToken);
-
-            // Record access history
-            AccessHistory accessHistory = new AccessHistory();
-            accessHistory.setUserId(user.getId());
-            accessHistory.setDeviceName(request.getDeviceInfo().getDeviceName());
-            accessHistory.setDeviceId(request.getDeviceInfo().getDeviceId());
-            accessHistory.setOs(request.getDeviceInfo().getOs());
-            accessHistory.setIpAddress(getClientIpAddress());
-            accessHistory.setAccessTime(LocalDateTime.now());
-            accessHistory.setCurrentSession(true);
-            accessHistoryService.save(accessHistory);
-
-            // Generate response
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("token", userToken.getToken());
-            response.put("userId", user.getUserWorkId());
-            response.put("registerStatus", user.getRegisterStatus());
-            
-            return response;
+            return transactionTemplate.execute(status ->
+                createRegisteredUser(request, passwordHash, userWorkId, clientIpAddress));
         } catch (org.springframework.dao.DataIntegrityViolationException e) {
             logger.error("Database constraint violation during registration", e);
             
@@ -271,6 +203,15 @@ public class UserService {
                 response.put("message", "Registration failed due to a database constraint violation");
             }
             
+            return response;
+        } catch (TooManyRequestsException e) {
+            logger.warn("Registration rejected: password hashing pool is saturated");
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("code", ErrorCode.CREDENTIAL_VERIFICATION_BUSY.getCode());
+            response.put("message", "Too many requests, please try again shortly");
+            
             return response;
         } catch (Exception e) {
             logger.error("Error during registration", e);
@@ -284,40 +225,97 @@ public class UserService {
         }
     }
 
-    private String generateUserWorkId() {
-        SecureRandom secureRandom = new SecureRandom();
-        
-        // Available letters (excluding O, I for clarity)
-        char[] availableLetters = "ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();  // 24 letters
-        
-        // Generate 2 random letters
-        char letter1 = availableLetters[secureRandom.nextInt(availableLetters.length)];
-        char letter2 = availableLetters[secureRandom.nextInt(availableLetters.length)];
+    /**
+     * Write the rows of a new user in the registration transaction
+     */
+    private Map<String, Object> createRegisteredUser(UserRegistrationRequest request, String passwordHash,
+                                                     String userWorkId, String clientIpAddress) {
+        User user = new User();
+        user.setEmail(request.getEmail());
+        user.setUsername(request.getUsername());
+        user.setPhoneNumber(request.getPhoneNumber());
+        user.setPasswordHash(passwordHash);
+        user.setRegisterStatus(2);  // Pending OTP
+        user.setStatusId(1);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        user.setUserWorkId(userWorkId);
         
-        // Get current year and month
-        LocalDateTime now = LocalDateTime.now();
-        String year = String.format("%02d", now.getYear() % 100);
-        String month = String.format("%02d", now.getMonthValue());
+        user = userRepository.save(user);
+
+        // Create user profile with ALL fields from ProfileBase
+        UserProfile profile = new UserProfile();
+        profile.setUser(user);
+        profile.setFirstName(request.getFirstName());
+        profile.setLastName(request.getLastName());
+        profile.setWhatsappNumber(request.getWhatsappNumber());
+        profile.setGender(request.getGender());
+        profile.setDateOfBirth(request.getDateOfBirth());
+        profile.setCity(request.getCity());
+        profile.setCountry(request.getCountry());
+        profile.setState(request.getState());
+        profile.setKycLevel(1);
+        profile.setReferredBy(request.getReferredBy());
+        userProfileRepository.save(profile);
+
+        // Create user agreement with only required fields
+        UserAgreement agreement = new UserAgreement();
+        agreement.setUser(user);
+        agreement.setTermsId(1L);
+        agreement.setAgreedAt(LocalDateTime.now());
+        userAgreementRepository.save(agreement);
+
+        // Create OTP record
+        OtpLog otpLog = new OtpLog();
+        otpLog.setUserId(user.getId());
+        otpLog.setOtpCode(generateOtpCode());
+        otpLog.setStatus(otpStatusRepository.findById(1).orElseThrow());
+        otpLog.setMethod(otpMethodRepository.findById(1).orElseThrow());
+        otpLog.setSentAt(ZonedDateTime.now());
+        otpLog.setMaxAttempts(3);
+        otpLog.setAttemptsCount(0);
+        otpLogRepository.save(otpLog);
+
+        // Create user token
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", user.getId().toString());
+        claims.put("deviceId", request.getDeviceInfo().getDeviceId());
+        claims.put("type", "REGISTRATION");
         
-        // Generate 4-digit random number
-        String sequence = String.format("%04d", secureRandom.nextInt(10000));
+        String token = jwtService.generateToken(claims);
         
-        return String.format("%c%c%s%s%s", letter1, letter2, year, month, sequence);
-    }
-
-    private String generateUniqueUserWorkId() {
-        String userWorkId;
-        int attempts = 0;
-        
-        do {
-            if (attempts >= MAX_ATTEMPTS) {
-                throw new RuntimeException("Failed to generate unique user work ID after " + MAX_ATTEMPTS + " attempts");
-            }
-            userWorkId = generateUserWorkId();
-            attempts++;
-        } while (userRepository.existsByUserWorkId(userWorkId));
+        UserToken userToken = new UserToken();
+        userToken.setUser(user);
+        userToken.setToken(token);
+        userToken.setDeviceId(request.getDeviceInfo().getDeviceId());
+        userToken.setDeviceName(request.getDeviceInfo().getDeviceName());
+        userToken.setDeviceFingerprint(deviceFingerprintService.generateFingerprint(request.getDeviceInfo()));
+        userToken.setCreatedAt(LocalDateTime.now());
+        userToken.setFirstSeenAt(LocalDateTime.now());
+        userToken.setExpiresAt(LocalDateTime.now().plusMonths(6));
+        userTokenRepository.save(userToken);
+
+        // Record access history
+        AccessHistory accessHistory = new AccessHistory();
+        accessHistory.setUserId(user.getId());
+        accessHistory.setDeviceName(request.getDeviceInfo().getDeviceName());
+        accessHistory.setDeviceId(request.getDeviceInfo().getDeviceId());
+        accessHistory.setOs(request.getDeviceInfo().getOs());
+        accessHistory.setIpAddress(clientIpAddress);
+        accessHistory.setAccessTime(LocalDateTime.now());
+        accessHistoryService.saveCurrentSession(accessHistory);
+
+        // OTP SMS and welcome email start once the registration commits; default wallets wait for the PIN
+        registrationPipelineService.schedule(user.getId(), otpLog.getId());
+
+        // Generate response
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("token", userToken.getToken());
+        response.put("userId", user.getUserWorkId());
+        response.put("registerStatus", user.getRegisterStatus());
         
-        return userWorkId;
+        return response;
     }
 
     public Optional<User> getUserProfile(String email) {
@@ -348,6 +346,7 @@ public class UserService {
             profile.setDateOfBirth(request.getDateOfBirth());
             
             userProfileRepository.save(profile);
+            userChangeService.record(userId, UserChangeType.PROFILE, null);
             
             return ResponseEntity.ok(Map.of("status", "success"));
         } catch (Exception e) {
@@ -378,6 +377,7 @@ public class UserService {
             user.setPhoneNumber(newPhoneNumber);
             user.setPhoneVerified(false);  // Reset verification status
             userRepository.save(user);
+            userChangeService.record(userId, UserChangeType.PROFILE, null);
             
             // Generate new OTP for verification
             String otpCode = generateOtpCode();
@@ -422,13 +422,13 @@ public class UserService {
         user.setRegisterStatus(4); // USER_ACTIVATED
         userRepository.save(user);
         
-        // Create default wallets for the user
-        Map<String, Object> walletResult = walletService.createDefaultWallets(user);
+        // Default wallets are created by the registration pipeline once the activation commits
+        registrationPipelineService.scheduleDefaultWallets(userId);
         
         // Add wallet information to the response
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
-        response.put("wallets", walletResult.get("walletIds"));
+        response.put("wallets", walletService.getDefaultWalletIds(userId));
         
         return response;
     }
@@ -0,0 +1,216 @@
+package com.lul.service;
+
+import com.lul.dto.WalletViewDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user cache of wallet views, serving wallet listings (login, app open) without a database query.
+ *
+ * Services changing a balance register the change with applyAfterCommit; once their transaction commits the
+ * change is applied to the cached views in place. Changes are applied as deltas, which commute, so the order
+ * in which concurrent commits reach the cache does not matter. A listing read from the database is only
+ * cached if no change of the user was in flight or applied since the read started, so a read can neither
+ * miss a change nor count it twice. The TTL bounds how long changes committed by other instances stay
+ * invisible.
+ */
+@Component
+public class UserWalletViewCache {
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private volatile long clearedAt;
+
+    // Access-ordered, bounded to maxEntries, guarded by its own monitor
+    private final LinkedHashMap<Long, Entry> entries;
+    // Balance changes registered in transactions that have not completed yet, per user; guarded by entries
+    private final Map<Long, Integer> pendingChanges = new HashMap<>();
+
+    @Autowired
+    public UserWalletViewCache(
+            @Value("${wallet.view-cache.ttl-ms:60000}") long ttlMillis,
+            @Value("${wallet.view-cache.max-entries:50000}") int maxEntries) {
+        this(Duration.ofMillis(ttlMillis), maxEntries, System::nanoTime);
+    }
+
+    UserWalletViewCache(Duration ttl, int maxEntries, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.clearedAt = clock.getAsLong() - 1;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Current time on the cache clock; take it before reading wallets from the database and pass it to put
+     *
+     * @return The time in nanoseconds
+     */
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Get the cached wallet views of a user
+     *
+     * @param userId The user ID
+     * @return The views, if cached and not expired
+     */
+    public Optional<List<WalletViewDto>> get(Long userId) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null || entry.views == null || now - entry.loadedAt >= ttlNanos) {
+                return Optional.empty();
+            }
+            return Optional.of(entry.views);
+        }
+    }
+
+    /**
+     * Cache wallet views read from the database, unless a balance change is in flight or happened after the
+     * read started
+     *
+     * @param userId The user ID
+     * @param views The views
+     * @param readStartedAt Value of now() taken before the read
+     */
+    public void put(Long userId, List<WalletViewDto> views, long readStartedAt) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (pendingChanges.containsKey(userId)
+                    || (entry != null && entry.changedAt - readStartedAt >= 0)
+                    || clearedAt - readStartedAt >= 0) {
+                return;
+            }
+            entries.put(userId, new Entry(List.copyOf(views), readStartedAt, readStartedAt));
+        }
+    }
+
+    /**
+     * Apply a balance change to the cached views of a user once the current transaction commits, or right
+     * away outside a transaction
+     *
+     * @param userId The wallet owner's user ID
+     * @param userWalletId The user wallet ID
+     * @param balanceDelta Change of the available balance
+     * @param heldDelta Change of the held balance
+     */
+    public void applyAfterCommit(Long userId, Integer userWalletId, BigDecimal balanceDelta, BigDecimal heldDelta) {
+        afterCommit(userId, () -> apply(userId, userWalletId, balanceDelta, heldDelta));
+    }
+
+    /**
+     * Drop the cached views of a user once the current transaction commits, or right away outside a transaction
+     *
+     * @param userId The user ID
+     */
+    public void evictAfterCommit(Long userId) {
+        afterCommit(userId, () -> evict(userId));
+    }
+
+    /**
+     * Drop all cached views, for changes applied by set-based updates across many users
+     */
+    public void clear() {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            clearedAt = now;
+            entries.clear();
+        }
+    }
+
+    void apply(Long userId, Integer userWalletId, BigDecimal balanceDelta, BigDecimal heldDelta) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry == null || entry.views == null) {
+                entries.put(userId, new Entry(null, now, now));
+                return;
+            }
+            List<WalletViewDto> views = new ArrayList<>(entry.views.size());
+            boolean found = false;
+            for (WalletViewDto view : entry.views) {
+                if (view.getId().equals(Long.valueOf(userWalletId))) {
+                    view = view.toBuilder()
+                        .availableBalance(add(view.getAvailableBalance(), balanceDelta))
+                        .heldBalance(add(view.getHeldBalance(), heldDelta))
+                        .build();
+                    found = true;
+                }
+                views.add(view);
+            }
+            // A wallet the cached listing does not know about means the listing itself is outdated
+            entries.put(userId, found
+                ? new Entry(List.copyOf(views), entry.loadedAt, now)
+                : new Entry(null, now, now));
+        }
+    }
+
+    void evict(Long userId) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            entries.put(userId, new Entry(null, now, now));
+        }
+    }
+
+    private void afterCommit(Long userId, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        synchronized (entries) {
+            pendingChanges.merge(userId, 1, Integer::sum);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (entries) {
+                    pendingChanges.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            }
+        });
+    }
+
+    private static BigDecimal add(BigDecimal value, BigDecimal delta) {
+        if (delta == null || delta.signum() == 0) {
+            return value;
+        }
+        return value != null ? value.add(delta) : delta;
+    }
+
+    /**
+     * Cached views of a user, or a change marker when views is null
+     */
+    private static final class Entry {
+        private final List<WalletViewDto> views;
+        private final long loadedAt;
+        private final long changedAt;
+
+        private Entry(List<WalletViewDto> views, long loadedAt, long changedAt) {
+            this.views = views;
+            this.loadedAt = loadedAt;
+            this.changedAt = changedAt;
+        }
+    }
+}
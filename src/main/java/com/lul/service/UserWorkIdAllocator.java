@@ -0,0 +1,258 @@
+package com.lul.service;
+
+import com.lul.repository.UserRepository;
+import com.lul.repository.UserWorkIdSequenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Allocator of user work IDs: two letters, the month (YYMM) and four digits, e.g. AB25030042.
+ *
+ * The IDs of a month are the positions 0..N-1 of a permutation of the month's 24 * 24 * 10000 IDs, derived
+ * from the month and a deployment seed, so consecutive positions give unrelated-looking IDs. Instances
+ * reserve disjoint ranges of positions through a counter row per month and keep the resulting IDs in an
+ * in-memory pool; registration takes one in O(1) and the pool is topped up in the background once it runs
+ * low. IDs handed out before the allocator existed were drawn at random, so each reserved batch is checked
+ * against the users table with one query and taken IDs are skipped.
+ */
+@Service
+@Slf4j
+public class UserWorkIdAllocator {
+
+    static final String LETTERS = "ABCDEFGHJKLMNPQRSTUVWXYZ";
+    static final int SEQUENCE_SPACE = 10_000;
+    static final long ID_SPACE = (long) LETTERS.length() * LETTERS.length() * SEQUENCE_SPACE;
+
+    private final UserWorkIdSequenceRepository sequenceRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int lowWater;
+    private final long seed;
+    private final Supplier<YearMonth> currentMonth;
+    private final ThreadPoolExecutor refillExecutor;
+
+    private volatile Pool pool;
+
+    @Autowired
+    public UserWorkIdAllocator(
+            UserWorkIdSequenceRepository sequenceRepository,
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${user-work-id.batch-size:200}") int batchSize,
+            @Value("${user-work-id.low-water:50}") int lowWater,
+            @Value("${user-work-id.seed:0}") long seed) {
+        this(sequenceRepository, userRepository, transactionTemplate, meterRegistry, batchSize, lowWater, seed,
+            YearMonth::now);
+    }
+
+    UserWorkIdAllocator(UserWorkIdSequenceRepository sequenceRepository, UserRepository userRepository,
+                        TransactionTemplate transactionTemplate, MeterRegistry meterRegistry, int batchSize,
+                        int lowWater, long seed, Supplier<YearMonth> currentMonth) {
+        this.sequenceRepository = sequenceRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.lowWater = lowWater;
+        this.seed = seed;
+        this.currentMonth = currentMonth;
+
+        // One refill at a time; a refill requested while one is queued is redundant
+        this.refillExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+                Thread thread = new Thread(runnable, "user-work-id-refill");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Take an unused user work ID of the current month
+     *
+     * @return The work ID
+     * @throws IllegalStateException if every ID of the month has been handed out
+     */
+    public String take() {
+        Pool current = currentPool();
+        String userWorkId = current.poll();
+        if (userWorkId == null) {
+            // The pool drained faster than the background refill could top it up
+            refill(current, 1);
+            userWorkId = current.poll();
+            if (userWorkId == null) {
+                throw new IllegalStateException("User work IDs of month " + current.prefix + " are exhausted");
+            }
+        }
+        if (current.size() < lowWater) {
+            requestRefill(current);
+        }
+        current.taken.increment();
+        return userWorkId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    private Pool currentPool() {
+        YearMonth month = currentMonth.get();
+        String prefix = String.format("%02d%02d", month.getYear() % 100, month.getMonthValue());
+        Pool current = pool;
+        if (current != null && current.prefix.equals(prefix)) {
+            return current;
+        }
+        synchronized (this) {
+            current = pool;
+            if (current == null || !current.prefix.equals(prefix)) {
+                // IDs left in the previous month's pool are dropped; their positions are simply never used
+                current = new Pool(prefix);
+                pool = current;
+            }
+            return current;
+        }
+    }
+
+    private void requestRefill(Pool target) {
+        refillExecutor.execute(() -> {
+            try {
+                refill(target, lowWater);
+            } catch (Exception e) {
+                log.error("User work ID refill of month {} failed: {}", target.prefix, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reserve batches for a pool until it holds at least the given number of IDs or the month is exhausted
+     */
+    private void refill(Pool target, int minimum) {
+        synchronized (target) {
+            while (target.size() < minimum && !target.exhausted) {
+                Long reservedEnd = transactionTemplate.execute(status ->
+                    sequenceRepository.reserve(target.prefix, batchSize));
+                if (reservedEnd == null) {
+                    return;
+                }
+                long end = reservedEnd;
+                long start = end - batchSize;
+                target.reserved.set(Math.min(end, ID_SPACE));
+                if (start >= ID_SPACE) {
+                    target.exhausted = true;
+                    log.error("User work IDs of month {} are exhausted", target.prefix);
+                    return;
+                }
+
+                List<String> candidates = new ArrayList<>();
+                for (long position = start; position < Math.min(end, ID_SPACE); position++) {
+                    candidates.add(target.idAt(position));
+                }
+                Set<String> existing = new HashSet<>(userRepository.findExistingUserWorkIds(candidates));
+                for (String candidate : candidates) {
+                    if (!existing.contains(candidate)) {
+                        target.add(candidate);
+                    }
+                }
+                target.skipped.increment(existing.size());
+                log.debug("Reserved user work ID positions {}..{} of month {}, {} already taken",
+                    start, end, target.prefix, existing.size());
+            }
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+
+    /**
+     * Unused IDs of one month prefix, with the permutation and the metrics of that prefix
+     */
+    private final class Pool {
+        private final String prefix;
+        private final long multiplier;
+        private final long offset;
+        private final ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue.size() walks the queue
+        private final AtomicInteger size = new AtomicInteger();
+        // Positions reserved by all instances, as of this instance's latest reservation
+        private final AtomicLong reserved = new AtomicLong();
+        private final Counter taken;
+        private final Counter skipped;
+        private volatile boolean exhausted;
+
+        private Pool(String prefix) {
+            this.prefix = prefix;
+            // Every instance derives the same permutation from the month and the seed
+            SplittableRandom random = new SplittableRandom(seed * 31 + prefix.hashCode());
+            long candidate = random.nextLong(1, ID_SPACE);
+            while (gcd(candidate, ID_SPACE) != 1) {
+                candidate++;
+            }
+            this.multiplier = candidate;
+            this.offset = random.nextLong(ID_SPACE);
+            Tags tags = Tags.of("prefix", prefix);
+            this.taken = meterRegistry.counter("lulpay.user_work_ids.taken", tags);
+            this.skipped = meterRegistry.counter("lulpay.user_work_ids.skipped", tags);
+            meterRegistry.gauge("lulpay.user_work_ids.utilization", tags, reserved,
+                value -> (double) value.get() / ID_SPACE);
+            meterRegistry.gauge("lulpay.user_work_ids.pool.size", tags, size);
+        }
+
+        /**
+         * Map a position of the permutation to its ID. The permutation is an affine map modulo the ID space
+         * with a multiplier coprime to it, so distinct positions always give distinct IDs.
+         */
+        private String idAt(long position) {
+            long value = (multiplier * position + offset) % ID_SPACE;
+            int letters = (int) (value / SEQUENCE_SPACE);
+            return String.format("%c%c%s%04d", LETTERS.charAt(letters / LETTERS.length()),
+                LETTERS.charAt(letters % LETTERS.length()), prefix, value % SEQUENCE_SPACE);
+        }
+
+        private String poll() {
+            String userWorkId = ids.poll();
+            if (userWorkId != null) {
+                size.decrementAndGet();
+            }
+            return userWorkId;
+        }
+
+        private void add(String userWorkId) {
+            ids.add(userWorkId);
+            size.incrementAndGet();
+        }
+
+        private int size() {
+            return size.get();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.entity.TransactionHistory;
+import com.lul.entity.WalletHold;
+import com.lul.enums.WalletHoldStatus;
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.exception.InsufficientFundsException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.UserWalletRepository;
+import com.lul.repository.WalletHoldRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service for the two-phase funds model of non-wallet transfers.
+ *
+ * The transfer request only reserves the total amount on the sender wallet, moving it from the available
+ * balance to the held balance with one conditional UPDATE. When the payout reaches its final disbursement
+ * stage the hold is resolved asynchronously in set-based batches: settled holds leave the held balance, are
+ * credited to the company wallets with one update per wallet and batch and complete their transfer, released
+ * holds return to the available balance and fail their transfer. A transfer stays pending while its funds
+ * are held, so TransferCompletedEvent is only published once it settles. Sweeps run on a schedule and as soon as a transfer reaches a
+ * final stage, one at a time across instances.
+ */
+@Service
+@Slf4j
+public class WalletHoldService {
+
+    private final UserWalletRepository userWalletRepository;
+    private final WalletHoldRepository walletHoldRepository;
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final UserWalletViewCache userWalletViewCache;
+    private final int batchSize;
+    private final String disbursedStageName;
+    private final String failedStageName;
+    private final ExecutorService sweepExecutor;
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+
+    public WalletHoldService(
+            UserWalletRepository userWalletRepository,
+            WalletHoldRepository walletHoldRepository,
+            TransactionHistoryRepository transactionHistoryRepository,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            UserWalletViewCache userWalletViewCache,
+            @Value("${wallet.holds.settlement-batch-size:500}") int batchSize,
+            @Value("${disbursement.stage.disbursed-name:Disbursed}") String disbursedStageName,
+            @Value("${disbursement.stage.failed-name:Failed}") String failedStageName) {
+        this.userWalletRepository = userWalletRepository;
+        this.walletHoldRepository = walletHoldRepository;
+        this.transactionHistoryRepository = transactionHistoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.userWalletViewCache = userWalletViewCache;
+        this.batchSize = batchSize;
+        this.disbursedStageName = disbursedStageName;
+        this.failedStageName = failedStageName;
+        this.sweepExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-hold-settlement");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hold the total amount of a transfer on the sender wallet. Must run in the transaction that creates
+     * the transfer, so the hold and the transfer commit together.
+     *
+     * @param transaction The saved transfer
+     * @param senderWalletId The sender wallet ID
+     * @param companyWalletId The company wallet credited on settlement
+     * @return The hold
+     * @throws InsufficientFundsException if the available balance is below the total amount
+     */
+    public WalletHold reserve(TransactionHistory transaction, Integer senderWalletId, Integer companyWalletId) {
+        if (userWalletRepository.reserve(senderWalletId, transaction.getTotalAmount()) == 0) {
+            throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
+        }
+        userWalletViewCache.applyAfterCommit(transaction.getSenderId().longValue(), senderWalletId,
+            transaction.getTotalAmount().negate(), transaction.getTotalAmount());
+
+        WalletHold hold = new WalletHold();
+        hold.setTransactionHistoryId(transaction.getId());
+        hold.setUserWalletId(senderWalletId);
+        hold.setCompanyWalletId(companyWalletId);
+        hold.setAmount(transaction.getTotalAmount());
+        hold.setCreditAmount(transaction.getTransactedValue());
+        hold.setStatus(WalletHoldStatus.HELD);
+        hold.setCreatedAt(LocalDateTime.now());
+        return walletHoldRepository.save(hold);
+    }
+
+    /**
+     * Resolve holds soon after their transfer reaches a final stage. Requests arriving while a sweep is
+     * pending are coalesced into it.
+     *
+     * @param event The stage transition
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDisbursementStageChanged(DisbursementStageChangedEvent event) {
+        if (!disbursedStageName.equals(event.getStageName()) && !failedStageName.equals(event.getStageName())) {
+            return;
+        }
+        if (sweepRequested.compareAndSet(false, true)) {
+            try {
+                sweepExecutor.execute(() -> {
+                    sweepRequested.set(false);
+                    sweep();
+                });
+            } catch (RejectedExecutionException e) {
+                sweepRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Settle and release the holds of transfers in a final stage, catching up on anything the
+     * event-driven sweeps missed
+     */
+    @Scheduled(fixedDelayString = "${wallet.holds.settlement-interval-ms:30000}")
+    public void sweep() {
+        try {
+            long settled = 0;
+            long released = 0;
+            long batch;
+            do {
+                batch = resolveBatch(true);
+                settled += Math.max(batch, 0);
+            } while (batch >= batchSize);
+            do {
+                batch = resolveBatch(false);
+                released += Math.max(batch, 0);
+            } while (batch >= batchSize);
+            if (settled > 0 || released > 0) {
+                // Settlements touch many wallets in set-based updates, so cached listings are dropped wholesale
+                userWalletViewCache.clear();
+                log.info("Resolved wallet holds: {} settled, {} released", settled, released);
+            }
+        } catch (Exception e) {
+            log.error("Wallet hold settlement failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepExecutor.shutdownNow();
+    }
+
+    /**
+     * Resolve one batch of holds in its own transaction
+     *
+     * @param settle true to settle paid out transfers, false to release rejected ones
+     * @return Number of holds resolved, or -1 if another sweep holds the settlement lock
+     */
+    private long resolveBatch(boolean settle) {
+        Long resolved = transactionTemplate.execute(status -> {
+            if (!walletHoldRepository.tryLockSettlement()) {
+                return -1L;
+            }
+            if (!settle) {
+                return walletHoldRepository.release(failedStageName, batchSize);
+            }
+            List<Integer> completed = walletHoldRepository.settle(disbursedStageName, batchSize);
+            if (!completed.isEmpty()) {
+                // Rollups, live counters and change tracking count a non-wallet transfer once it settles
+                transactionHistoryRepository.findAllById(completed)
+                    .forEach(transaction -> eventPublisher.publishEvent(TransferCompletedEvent.from(transaction)));
+            }
+            return (long) completed.size();
+        });
+        return resolved != null ? resolved : 0L;
+    }
+}
@@ -0,0 +1,338 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.exception.InsufficientFundsException;
+import com.lul.exception.LulPayException;
+import com.lul.exception.NotFoundException;
+import com.lul.exception.TooManyRequestsException;
+import com.lul.repository.UserWalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Opt-in engine applying wallet balance mutations through per-wallet single-writer shards.
+ *
+ * A posting debits one wallet, credits another and records the transfer with a caller-supplied recorder.
+ * Postings are routed to a shard by the debited wallet ID, so all debits of one wallet are applied in
+ * order by one writer thread. The writer drains up to max-batch-size postings and commits them in one
+ * transaction: it locks every wallet of the batch once in ID order, checks each posting against running
+ * balances in memory, runs the recorders and writes one balance update per wallet. A hot wallet takes
+ * one row lock and one commit per batch instead of one per transfer. To fill batches under moderate load
+ * the writer lingers up to linger-ms after the first posting. Postings failing the in-memory checks fail
+ * alone; if the batch transaction itself fails it is split in halves and retried, so a bad posting only
+ * fails itself while the others still commit in groups. Futures complete after the commit.
+ *
+ * Once queued, a posting is always either committed or failed by its writer, never abandoned: overload is
+ * rejected at enqueue, and callers wait for the outcome instead of timing out. A timed-out caller could not
+ * tell a posting that failed from one still about to commit, and a retry would pay twice.
+ */
+@Service
+@Slf4j
+public class WalletPostingEngine {
+
+    private final UserWalletRepository userWalletRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final List<Shard> shards = new ArrayList<>();
+    private final DistributionSummary batchSizes;
+    private final Counter batchSplits;
+
+    public WalletPostingEngine(
+            UserWalletRepository userWalletRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${wallet.posting.enabled:false}") boolean enabled,
+            @Value("${wallet.posting.shards:8}") int shardCount,
+            @Value("${wallet.posting.max-batch-size:256}") int maxBatchSize,
+            @Value("${wallet.posting.queue-capacity:10000}") int queueCapacity,
+            @Value("${wallet.posting.linger-ms:2}") long lingerMs) {
+        this.userWalletRepository = userWalletRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.batchSizes = DistributionSummary.builder("lulpay.wallet.posting.batch.size")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.batchSplits = meterRegistry.counter("lulpay.wallet.posting.batch.splits");
+
+        if (enabled) {
+            for (int i = 0; i < shardCount; i++) {
+                Shard shard = new Shard(i, queueCapacity);
+                shards.add(shard);
+                shard.thread.start();
+            }
+            meterRegistry.gauge("lulpay.wallet.posting.queued", shards,
+                s -> s.stream().mapToInt(shard -> shard.queue.size()).sum());
+            log.info("Wallet posting engine started with {} shards", shardCount);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a posting on the shard of its debited wallet
+     *
+     * @param posting The posting
+     * @return Future completed with the recorder's result after commit, or exceptionally if the posting failed
+     * @throws TooManyRequestsException if the shard queue is full
+     * @throws LulPayException with POSTING_ENGINE_STOPPED if the engine is shutting down
+     */
+    public <R> CompletableFuture<R> submit(Posting<R> posting) {
+        if (!enabled) {
+            throw new IllegalStateException("Wallet posting engine is disabled");
+        }
+        Shard shard = shards.get(Math.floorMod(posting.getDebitWalletId(), shards.size()));
+        if (!shard.running) {
+            throw new LulPayException(ErrorCode.POSTING_ENGINE_STOPPED, "Wallet posting engine stopped");
+        }
+        if (!shard.queue.offer(posting)) {
+            throw new TooManyRequestsException(ErrorCode.POSTING_QUEUE_FULL);
+        }
+        // The writer may have stopped and drained its queue between the check and the offer
+        if (!shard.running && shard.queue.remove(posting)) {
+            throw new LulPayException(ErrorCode.POSTING_ENGINE_STOPPED, "Wallet posting engine stopped");
+        }
+        return posting.future;
+    }
+
+    /**
+     * Queue a posting and wait for its outcome. The caller must not hold a transaction, which would keep a
+     * database connection idle while it waits. There is no timeout and the wait is not interruptible, so an
+     * exception always means the posting was not applied and the transfer can safely be retried.
+     *
+     * @param posting The posting
+     * @return The recorder's result
+     * @throws TooManyRequestsException if the shard queue is full
+     */
+    public <R> R post(Posting<R> posting) {
+        try {
+            return submit(posting).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new LulPayException(ErrorCode.TRANSACTION_FAILED, "Posting failed", e.getCause());
+        }
+    }
+
+    /**
+     * Apply a posting in the caller's transaction, with the same wallet locks and balance deltas as a
+     * posting writer. Used while the engine is disabled, so that balances are never written from an
+     * unlocked read that could overwrite a concurrent hold or settlement.
+     *
+     * @param posting The posting
+     * @return The recorder's result
+     * @throws InsufficientFundsException if the debited wallet's locked balance is too low
+     */
+    public <R> R postInTransaction(Posting<R> posting) {
+        apply(List.of(posting)).forEach(Runnable::run);
+        try {
+            return posting.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new LulPayException(ErrorCode.TRANSACTION_FAILED, "Posting failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+    }
+
+    /**
+     * Commit a batch of postings. If the transaction fails the batch is split in halves and each half is
+     * retried, which isolates a single bad posting in about 2 log2(n) extra transactions. Savepoints are not
+     * used: after a failed statement the persistence context cannot be trusted and the joined transaction
+     * is already marked rollback-only.
+     *
+     * @param batch Postings in queue order
+     */
+    void postBatch(List<Posting<?>> batch) {
+        List<Runnable> completions;
+        try {
+            completions = transactionTemplate.execute(status -> apply(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            log.warn("Posting batch of {} failed, splitting it: {}", batch.size(), e.getMessage());
+            batchSplits.increment();
+            int half = batch.size() / 2;
+            postBatch(batch.subList(0, half));
+            postBatch(batch.subList(half, batch.size()));
+            return;
+        }
+        batchSizes.record(batch.size());
+        completions.forEach(Runnable::run);
+    }
+
+    private List<Runnable> apply(List<Posting<?>> batch) {
+        TreeSet<Integer> walletIds = new TreeSet<>();
+        for (Posting<?> posting : batch) {
+            walletIds.add(posting.getDebitWalletId());
+            walletIds.add(posting.getCreditWalletId());
+        }
+        Map<Integer, BigDecimal> balances = new HashMap<>();
+        for (Object[] row : userWalletRepository.lockBalances(new ArrayList<>(walletIds))) {
+            balances.put(((Number) row[0]).intValue(), (BigDecimal) row[1]);
+        }
+
+        Map<Integer, BigDecimal> deltas = new TreeMap<>();
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        for (Posting<?> posting : batch) {
+            completions.add(applyPosting(posting, balances, deltas));
+        }
+        deltas.forEach((walletId, delta) -> {
+            if (delta.signum() != 0) {
+                userWalletRepository.addToBalance(walletId, delta);
+            }
+        });
+        return completions;
+    }
+
+    private <R> Runnable applyPosting(Posting<R> posting, Map<Integer, BigDecimal> balances,
+                                      Map<Integer, BigDecimal> deltas) {
+        BigDecimal available = balances.get(posting.getDebitWalletId());
+        if (available == null || !balances.containsKey(posting.getCreditWalletId())) {
+            NotFoundException failure = new NotFoundException(ErrorCode.WALLET_NOT_FOUND);
+            return () -> posting.future.completeExceptionally(failure);
+        }
+        if (available.compareTo(posting.getDebitAmount()) < 0) {
+            InsufficientFundsException failure = new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
+            return () -> posting.future.completeExceptionally(failure);
+        }
+
+        BigDecimal balanceAfter = available.subtract(posting.getDebitAmount());
+        balances.put(posting.getDebitWalletId(), balanceAfter);
+        balances.merge(posting.getCreditWalletId(), posting.getCreditAmount(), BigDecimal::add);
+        deltas.merge(posting.getDebitWalletId(), posting.getDebitAmount().negate(), BigDecimal::add);
+        deltas.merge(posting.getCreditWalletId(), posting.getCreditAmount(), BigDecimal::add);
+
+        R result = posting.getRecorder().apply(balanceAfter);
+        return () -> posting.future.complete(result);
+    }
+
+    /**
+     * A balance mutation: debit one wallet, credit another and record the transfer in the same transaction
+     *
+     * @param <R> The recorder's result
+     */
+    @Getter
+    public static final class Posting<R> {
+        private final Integer debitWalletId;
+        private final BigDecimal debitAmount;
+        private final Integer creditWalletId;
+        private final BigDecimal creditAmount;
+        // Receives the debited wallet's balance after the posting; runs in the batch transaction
+        private final Function<BigDecimal, R> recorder;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        public Posting(Integer debitWalletId, BigDecimal debitAmount, Integer creditWalletId, BigDecimal creditAmount,
+                       Function<BigDecimal, R> recorder) {
+            this.debitWalletId = debitWalletId;
+            this.debitAmount = debitAmount;
+            this.creditWalletId = creditWalletId;
+            this.creditAmount = creditAmount;
+            this.recorder = recorder;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final BlockingQueue<Posting<?>> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "wallet-posting-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Posting<?>> batch = new ArrayList<>(maxBatchSize);
+            while (running) {
+                try {
+                    Posting<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    fill(batch);
+                    postBatch(batch);
+                } catch (InterruptedException e) {
+                    // Interrupted while filling the batch, before any of it was applied
+                    Thread.currentThread().interrupt();
+                    LulPayException stopped = new LulPayException(ErrorCode.POSTING_ENGINE_STOPPED,
+                        "Wallet posting engine stopped");
+                    batch.forEach(posting -> posting.future.completeExceptionally(stopped));
+                    break;
+                } catch (Throwable t) {
+                    log.error("Wallet posting shard {} failed: {}", thread.getName(), t.getMessage(), t);
+                    batch.forEach(posting -> posting.future.completeExceptionally(t));
+                } finally {
+                    batch.clear();
+                }
+            }
+
+            // Postings left in the queue were never applied
+            LulPayException stopped = new LulPayException(ErrorCode.POSTING_ENGINE_STOPPED, "Wallet posting engine stopped");
+            Posting<?> posting;
+            while ((posting = queue.poll()) != null) {
+                posting.future.completeExceptionally(stopped);
+            }
+        }
+
+        /**
+         * Add queued postings to the batch until it is full or the linger time after the first one has passed
+         */
+        private void fill(List<Posting<?>> batch) throws InterruptedException {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Posting<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        }
+    }
+}
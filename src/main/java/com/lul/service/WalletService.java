@@ -14,6 +14,13 @@ public interface WalletService {
      */
     Map<String, Object> createDefaultWallets(User user);
     
+    /**
+     * Get the wallet types createDefaultWallets creates for a user
+     * @param userId The ID of the user
+     * @return The wallet IDs: USD, then the wallet of the user's country if it has one
+     */
+    List<Integer> getDefaultWalletIds(Long userId);
+    
     /**
      * Get all wallets for a user
      * @param userId The ID of the user
@@ -28,6 +35,13 @@ public interface WalletService {
      */
     List<WalletInfoDto> getUserWalletsFormatted(Long userId);
     
+    /**
+     * Get formatted wallet information for a user read from the database, refilling the wallet view cache
+     * @param userId The ID of the user
+     * @return List of formatted wallet information
+     */
+    List<WalletInfoDto> refreshUserWallets(Long userId);
+    
     /**
      * Enable a specific wallet type for a user
      * @param userId The ID of the user
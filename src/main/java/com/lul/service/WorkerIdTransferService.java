@@ -1,22 +1,26 @@
 package com.lul.service;
 
 import com.lul.constant.ErrorCode;
+import com.lul.dto.TransferQuoteDto;
 import com.lul.dto.WalletTransferResponse;
 import com.lul.entity.*;
+import com.lul.event.TransferCompletedEvent;
 import com.lul.exception.InsufficientFundsException;
 import com.lul.exception.InvalidPinException;
 import com.lul.exception.NotFoundException;
 import com.lul.repository.*;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -41,6 +45,12 @@ public class WorkerIdTransferService {
     private final TransactionService transactionService;
     private final TransactionAuditLogRepository transactionAuditLogRepository;
     private final NotificationProcessor notificationProcessor;
+    private final TransferPricingService transferPricingService;
+    private final TransferQuoteService transferQuoteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WalletPostingEngine walletPostingEngine;
+    private final UserWalletViewCache userWalletViewCache;
+    private final TransactionTemplate transactionTemplate;
     
     @PersistenceContext
     private EntityManager entityManager;
@@ -66,7 +76,6 @@ public class WorkerIdTransferService {
      * @param idempotencyKey Optional key to prevent duplicate transfers
      * @return The transfer response
      */
-    @Transactional
     public WalletTransferResponse transferByWorkerId(
             Long senderId, 
             Integer senderWalletTypeId,
@@ -75,202 +84,76 @@ public class WorkerIdTransferService {
             String pin,
             String description,
             String idempotencyKey) {
+        return transferByWorkerId(senderId, senderWalletTypeId, senderWalletTypeId, receiverWorkerId,
+                amount, pin, description, idempotencyKey, null);
+    }
+
+    /**
+     * Transfer funds between wallets using worker ID for the receiver, converting the amount
+     * when the receiver wallet holds a different currency than the sender wallet. With the wallet posting
+     * engine enabled the transfer is validated in a short transaction and its balance changes and records
+     * are committed by the sender wallet's posting writer; no transaction is held while waiting for it.
+     * 
+     * @param senderId The ID of the sender user
+     * @param senderWalletTypeId The wallet type ID (currency) of the sender
+     * @param receiverWalletTypeId The wallet type ID (currency) to credit on the receiver side
+     * @param receiverWorkerId The worker ID of the receiver
+     * @param amount The amount to transfer, in the sender's currency
+     * @param pin The sender's PIN for authorization
+     * @param description Optional description of the transfer
+     * @param idempotencyKey Optional key to prevent duplicate transfers
+     * @param quoteToken Optional quote token locking the fee and exchange rate
+     * @return The transfer response
+     */
+    public WalletTransferResponse transferByWorkerId(
+            Long senderId, 
+            Integer senderWalletTypeId,
+            Integer receiverWalletTypeId,
+            String receiverWorkerId,
+            BigDecimal amount,
+            String pin,
+            String description,
+            String idempotencyKey,
+            String quoteToken) {
         
-        log.info("Processing wallet transfer by worker ID: sender={}, walletType={}, receiver={}, amount={}",
-                senderId, senderWalletTypeId, receiverWorkerId, amount);
+        log.info("Processing wallet transfer by worker ID: sender={}, walletType={}, receiverWalletType={}, receiver={}, amount={}",
+                senderId, senderWalletTypeId, receiverWalletTypeId, receiverWorkerId, amount);
         
         try {
-            // Check idempotency if key is provided
-            if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
-                Optional<IdempotencyKey> existingKey = idempotencyKeyRepository.findByKey(idempotencyKey);
-                if (existingKey.isPresent()) {
-                    log.info("Idempotency key found, returning existing transaction: {}", idempotencyKey);
-                    // Return existing transaction details
-                    // Implementation depends on how you store transaction results
-                    throw new UnsupportedOperationException("Idempotency handling not fully implemented");
-                }
-            }
-            
-            // 1. Find the sender's wallet by user ID and wallet type ID
-            UserWallet senderWallet = userWalletRepository.findByUserIdAndWalletId(senderId, senderWalletTypeId)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
-            
-            // 2. Find the receiver by worker ID
-            User receiver = userRepository.findByUserWorkId(receiverWorkerId)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
-            
-            // 3. Find the receiver's wallet with the same wallet type ID
-            UserWallet receiverWallet = userWalletRepository.findByUserIdAndWalletId(receiver.getId(), senderWalletTypeId)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
-            
-            // 4. Verify PIN
-            User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
-            
-            if (!pinService.verifyPin(sender, pin)) {
-                throw new InvalidPinException(ErrorCode.INVALID_PIN);
-            }
-            
-            // 5. Check if sender has sufficient funds
-            if (senderWallet.getBalance().compareTo(amount) < 0) {
-                throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
-            }
-            
-            // 6. Check transaction limits
-            // Implementation depends on your limit checking logic
-            
-            // 7. Calculate fees
-            BigDecimal fee = calculateTransactionFee(amount, senderWalletTypeId);
-            BigDecimal totalAmount = amount.add(fee);
-            
-            if (senderWallet.getBalance().compareTo(totalAmount) < 0) {
-                throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
+            if (!walletPostingEngine.isEnabled()) {
+                return transactionTemplate.execute(status -> {
+                    PreparedTransfer transfer = prepareTransfer(senderId, senderWalletTypeId, receiverWalletTypeId,
+                            receiverWorkerId, amount, pin, description, idempotencyKey, quoteToken);
+                    
+                    // 9. Update wallet balances under the wallet locks, as the posting writers do
+                    WalletTransferResponse response = walletPostingEngine.postInTransaction(
+                            new WalletPostingEngine.Posting<>(
+                                    transfer.getSenderWallet().getId(), transfer.getTotalAmount(),
+                                    transfer.getReceiverWallet().getId(), transfer.getReceivedAmount(),
+                                    balanceAfter -> recordTransfer(transfer, balanceAfter)));
+                    sendTransferNotifications(transfer, response.getTransactionId());
+                    return response;
+                });
             }
             
-            // 8. Create transaction record
-            TransactionHistory transaction = new TransactionHistory();
-            transaction.setSenderId(senderId.intValue());
-            transaction.setReceiverId(receiver.getId().intValue());
-            transaction.setSenderWalletId(senderWallet.getId().intValue());
-            transaction.setReceiverWalletId(receiverWallet.getId().intValue());
-            transaction.setTransactedValue(amount);
-            transaction.setFee(fee);
-            transaction.setTotalAmount(totalAmount);
-            transaction.setCurrency(senderWallet.getWallet().getCurrencyCode());
-            transaction.setDescription(description);
-            transaction.setTransactionTypeId(1); // Assuming 1 is for wallet-to-wallet transfer
-            transaction.setTransactionStatusId(1); // Assuming 1 is for pending
-            transaction.setCreatedAt(LocalDateTime.now());
-            
-            // Generate a unique transaction ID using the database sequence
-            long transactionId = generateTransactionId();
-            transaction.setTransactionId(transactionId);
-            
-            // Set additional data as a Map
-            Map<String, Object> additionalData = new HashMap<>();
-            additionalData.put("senderName", sender.getFirstName() + " " + sender.getLastName());
-            additionalData.put("receiverName", receiver.getFirstName() + " " + receiver.getLastName());
-            additionalData.put("receiverWorkerId", receiverWorkerId);
-            additionalData.put("transferMethod", "worker_id");
-            transaction.setAdditionalData(additionalData);
-            
-            transactionHistoryRepository.save(transaction);
-            
-            // 9. Update wallet balances
-            senderWallet.setBalance(senderWallet.getBalance().subtract(totalAmount));
-            receiverWallet.setBalance(receiverWallet.getBalance().add(amount));
-            
-            userWalletRepository.save(senderWallet);
-            userWalletRepository.save(receiverWallet);
-            
-            // 10. Update transaction status to completed
-            transaction.setTransactionStatusId(2); // Assuming 2 is for completed
-            transaction.setCompletedAt(LocalDateTime.now());
-            transactionHistoryRepository.save(transaction);
-            
-            // 11. Record transaction fee
-            recordTransactionFee(transaction.getTransactionId(), fee, senderWallet.getWallet().getCurrencyCode());
-            
-            // Create audit log
-            createAuditLog(transaction, senderId.intValue(), "TRANSFER_COMPLETED", null);
-            
-            // 12. Send notifications
-            String senderFirstName = sender.getFirstName() != null ? sender.getFirstName() : "User";
-            String receiverFirstName = receiver.getFirstName() != null ? receiver.getFirstName() : "User";
-            String currencyCode = senderWallet.getWallet().getCurrencyCode();
-            String transactionIdStr = transaction.getTransactionId().toString();
-            String currentDate = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            
-            // FCM message for sender
-            String fcmSenderMessage = "You Sent " + amount + " " + currencyCode + " to " + receiverFirstName;
-            
-            // SMS message for sender
-            String smsSenderMessage = "Hello " + senderFirstName + ", you sent " + amount + " " + currencyCode + 
-                " to " + receiverFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
-            
-            // Send FCM notification to sender (but not SMS - we'll send that directly)
-            notificationService.sendFcmNotificationToSender(
-                senderId.intValue(),
-                "Payment Sent",
-                fcmSenderMessage,
-                transaction.getTransactionId()
-            );
-            
-            // Send SMS directly to sender to avoid duplicate notifications
+            PreparedTransfer transfer = transactionTemplate.execute(status -> prepareTransfer(senderId,
+                    senderWalletTypeId, receiverWalletTypeId, receiverWorkerId, amount, pin, description,
+                    idempotencyKey, quoteToken));
+            WalletTransferResponse response;
             try {
-                String senderPhoneNumber = sender.getPhoneNumber();
-                if (senderPhoneNumber != null && !senderPhoneNumber.isEmpty()) {
-                    log.info("Sending direct SMS to sender phone: {}", senderPhoneNumber);
-                    
-                    // Ensure phone number is properly formatted
-                    if (!senderPhoneNumber.startsWith("+")) {
-                        if (senderPhoneNumber.startsWith("0")) {
-                            senderPhoneNumber = "+256" + senderPhoneNumber.substring(1);
-                        } else {
-                            senderPhoneNumber = "+" + senderPhoneNumber;
-                        }
-                        log.info("Formatted sender phone number: {}", senderPhoneNumber);
-                    }
-                    
-                    boolean smsSent = notificationService.sendDirectSms(senderPhoneNumber, smsSenderMessage);
-                    if (smsSent) {
-                        log.info("SMS sent directly to sender: {}", senderPhoneNumber);
-                    } else {
-                        log.warn("SMS service failed to send message directly to sender: {}", senderPhoneNumber);
-                    }
-                } else {
-                    log.warn("Sender phone number is null or empty. Cannot send SMS.");
+                response = walletPostingEngine.post(new WalletPostingEngine.Posting<>(
+                        transfer.getSenderWallet().getId(), transfer.getTotalAmount(),
+                        transfer.getReceiverWallet().getId(), transfer.getReceivedAmount(),
+                        balanceAfter -> recordTransfer(transfer, balanceAfter)));
+            } catch (RuntimeException e) {
+                // The quote was used up when the validating transaction committed; the transfer was not
+                if (transfer.getPricing().getQuoteId() != null) {
+                    transferQuoteService.restoreQuote(transfer.getPricing());
                 }
-            } catch (Exception ex) {
-                log.error("Failed to send SMS directly to sender: {}", ex.getMessage(), ex);
-                // Don't fail the transaction if SMS fails
-            }
-            
-            // FCM message for receiver
-            String fcmReceiverMessage = "You Received " + amount + " " + currencyCode + " from " + senderFirstName;
-            
-            // SMS message for receiver
-            String smsReceiverMessage = "Hello " + receiverFirstName + ", you received " + amount + " " + currencyCode + 
-                " from " + senderFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
-            
-            log.info("Sending notification to receiver with FCM message: {}", fcmReceiverMessage);
-            log.info("Sending notification to receiver with SMS message: {}", smsReceiverMessage);
-            
-            notificationService.sendTransactionNotificationToReceiver(
-                receiver.getId().intValue(),
-                "Payment Received",
-                fcmReceiverMessage,
-                transaction.getTransactionId(),
-                smsReceiverMessage
-            );
-            
-            // Create idempotency key if provided
-            if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
-                IdempotencyKey newKey = new IdempotencyKey();
-                newKey.setKey(idempotencyKey);
-                newKey.setTransactionId(transaction.getTransactionId());
-                newKey.setExpiresAt(LocalDateTime.now().plusDays(1));
-                idempotencyKeyRepository.save(newKey);
+                throw e;
             }
-            
-            // Process all pending notifications immediately to ensure they're sent right away
-            notificationProcessor.processAllPendingNotificationsNow();
-            
-            // 13. Build and return response
-            return WalletTransferResponse.builder()
-                .status("success")
-                .transactionId(transaction.getTransactionId())
-                .senderWalletId(senderWallet.getId().longValue())
-                .receiverWalletId(receiverWallet.getId().longValue())
-                .amount(amount)
-                .fee(fee)
-                .totalAmount(totalAmount)
-                .currency(senderWallet.getWallet().getCurrencyCode())
-                .description(description)
-                .timestamp(transaction.getCreatedAt())
-                .senderWalletBalanceAfter(senderWallet.getBalance())
-                .receiverName(receiver.getFirstName() + " " + receiver.getLastName())
-                .build();
+            sendTransferNotifications(transfer, response.getTransactionId());
+            return response;
             
         } catch (Exception e) {
             log.error("Error processing wallet transfer by worker ID", e);
@@ -279,16 +162,272 @@ public class WorkerIdTransferService {
     }
     
     /**
-     * Calculate transaction fee based on amount and wallet type
+     * Validate a worker ID transfer and price it
+     * 
+     * @return The prepared transfer
+     */
+    private PreparedTransfer prepareTransfer(
+            Long senderId, 
+            Integer senderWalletTypeId,
+            Integer receiverWalletTypeId,
+            String receiverWorkerId,
+            BigDecimal amount,
+            String pin,
+            String description,
+            String idempotencyKey,
+            String quoteToken) {
+        // Check idempotency if key is provided
+        if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+            Optional<IdempotencyKey> existingKey = idempotencyKeyRepository.findByKey(idempotencyKey);
+            if (existingKey.isPresent()) {
+                log.info("Idempotency key found, returning existing transaction: {}", idempotencyKey);
+                // Return existing transaction details
+                // Implementation depends on how you store transaction results
+                throw new UnsupportedOperationException("Idempotency handling not fully implemented");
+            }
+        }
+        
+        // 1. Find the sender's wallet by user ID and wallet type ID
+        UserWallet senderWallet = userWalletRepository.findByUserIdAndWalletId(senderId, senderWalletTypeId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
+        
+        // 2. Find the receiver by worker ID
+        User receiver = userRepository.findByUserWorkId(receiverWorkerId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
+        
+        // 3. Find the receiver's wallet for the requested wallet type ID
+        UserWallet receiverWallet = userWalletRepository.findByUserIdAndWalletId(receiver.getId(), receiverWalletTypeId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.WALLET_NOT_FOUND));
+        
+        // 4. Verify PIN
+        User sender = userRepository.findById(senderId)
+            .orElseThrow(() -> new NotFoundException(ErrorCode.USER_NOT_FOUND));
+        
+        if (!pinService.verifyPin(sender, pin)) {
+            throw new InvalidPinException(ErrorCode.INVALID_PIN);
+        }
+        
+        // 5. Check if sender has sufficient funds
+        if (senderWallet.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
+        }
+        
+        // 6. Check transaction limits
+        // Implementation depends on your limit checking logic
+        
+        // 7. Price the transfer: use the locked quote when given, otherwise the current fee and rate
+        TransferQuoteDto pricing = quoteToken != null && !quoteToken.isEmpty()
+            ? transferQuoteService.redeemQuote(quoteToken, senderId, TransferQuoteDto.TransferType.WALLET,
+                senderWalletTypeId, receiverWalletTypeId, amount)
+            : transferPricingService.priceWalletTransfer(senderWalletTypeId, receiverWalletTypeId, amount);
+        
+        // The posting checks the balance again under the wallet lock
+        if (senderWallet.getBalance().compareTo(pricing.getTotalAmount()) < 0) {
+            throw new InsufficientFundsException(ErrorCode.INSUFFICIENT_FUNDS);
+        }
+        
+        // Currency codes are resolved here because the posting writer records the transfer outside
+        // this persistence context, where the lazy wallet associations cannot be loaded
+        return PreparedTransfer.builder()
+            .senderId(senderId)
+            .sender(sender)
+            .receiver(receiver)
+            .senderWallet(senderWallet)
+            .receiverWallet(receiverWallet)
+            .receiverWorkerId(receiverWorkerId)
+            .amount(amount)
+            .description(description)
+            .idempotencyKey(idempotencyKey)
+            .pricing(pricing)
+            .currency(senderWallet.getWallet().getCurrencyCode())
+            .receiverCurrency(receiverWallet.getWallet().getCurrencyCode())
+            .build();
+    }
+    
+    /**
+     * Record a prepared transfer whose balances have been updated in the current transaction
      * 
-     * @param amount The transaction amount
-     * @param walletTypeId The wallet type ID
-     * @return The calculated fee
+     * @param transfer The prepared transfer
+     * @param senderBalanceAfter The sender wallet balance after the transfer
+     * @return The transfer response
      */
-    private BigDecimal calculateTransactionFee(BigDecimal amount, Integer walletTypeId) {
-        // Implementation depends on your fee structure
-        // This is a simple example with a 2% fee
-        return amount.multiply(new BigDecimal("0.02")).setScale(2, RoundingMode.HALF_UP);
+    private WalletTransferResponse recordTransfer(PreparedTransfer transfer, BigDecimal senderBalanceAfter) {
+        User sender = transfer.getSender();
+        User receiver = transfer.getReceiver();
+        TransferQuoteDto pricing = transfer.getPricing();
+        
+        // 8. Create transaction record
+        TransactionHistory transaction = new TransactionHistory();
+        transaction.setSenderId(transfer.getSenderId().intValue());
+        transaction.setReceiverId(receiver.getId().intValue());
+        transaction.setSenderWalletId(transfer.getSenderWallet().getId().intValue());
+        transaction.setReceiverWalletId(transfer.getReceiverWallet().getId().intValue());
+        transaction.setTransactedValue(transfer.getAmount());
+        transaction.setFee(transfer.getFee());
+        transaction.setTotalAmount(transfer.getTotalAmount());
+        transaction.setCurrency(transfer.getCurrency());
+        transaction.setDescription(transfer.getDescription());
+        transaction.setTransactionTypeId(1); // Assuming 1 is for wallet-to-wallet transfer
+        transaction.setTransactionStatusId(1); // Assuming 1 is for pending
+        transaction.setExchangeRateId(pricing.getExchangeRateId());
+        transaction.setCreatedAt(LocalDateTime.now());
+        
+        // Generate a unique transaction ID using the database sequence
+        long transactionId = generateTransactionId();
+        transaction.setTransactionId(transactionId);
+        
+        // Set additional data as a Map
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("senderName", sender.getFirstName() + " " + sender.getLastName());
+        additionalData.put("receiverName", receiver.getFirstName() + " " + receiver.getLastName());
+        additionalData.put("receiverWorkerId", transfer.getReceiverWorkerId());
+        additionalData.put("transferMethod", "worker_id");
+        if (pricing.getQuoteId() != null) {
+            additionalData.put("quoteId", pricing.getQuoteId());
+        }
+        if (pricing.getExchangeRateId() != null) {
+            additionalData.put("exchangeRate", pricing.getExchangeRate());
+            additionalData.put("convertedAmount", transfer.getReceivedAmount());
+            additionalData.put("receiverCurrency", transfer.getReceiverCurrency());
+        }
+        transaction.setAdditionalData(additionalData);
+        
+        transactionHistoryRepository.save(transaction);
+        
+        // 10. Update transaction status to completed
+        transaction.setTransactionStatusId(2); // Assuming 2 is for completed
+        transaction.setCompletedAt(LocalDateTime.now());
+        transactionHistoryRepository.save(transaction);
+        eventPublisher.publishEvent(TransferCompletedEvent.from(transaction));
+        
+        // 11. Record transaction fee
+        recordTransactionFee(transaction.getTransactionId(), transfer.getFee(), transfer.getCurrency());
+        
+        // Create audit log
+        createAuditLog(transaction, transfer.getSenderId().intValue(), "TRANSFER_COMPLETED", null);
+        
+        // Update the cached wallet listings of both users once the balances are committed
+        userWalletViewCache.applyAfterCommit(transfer.getSenderId(), transfer.getSenderWallet().getId(),
+            transfer.getTotalAmount().negate(), BigDecimal.ZERO);
+        userWalletViewCache.applyAfterCommit(receiver.getId(), transfer.getReceiverWallet().getId(),
+            transfer.getReceivedAmount(), BigDecimal.ZERO);
+        
+        // Create idempotency key if provided
+        String idempotencyKey = transfer.getIdempotencyKey();
+        if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+            IdempotencyKey newKey = new IdempotencyKey();
+            newKey.setKey(idempotencyKey);
+            newKey.setTransactionId(transaction.getTransactionId());
+            newKey.setExpiresAt(LocalDateTime.now().plusDays(1));
+            idempotencyKeyRepository.save(newKey);
+        }
+        
+        // 13. Build and return response
+        return WalletTransferResponse.builder()
+            .status("success")
+            .transactionId(transaction.getTransactionId())
+            .senderWalletId(transfer.getSenderWallet().getId().longValue())
+            .receiverWalletId(transfer.getReceiverWallet().getId().longValue())
+            .amount(transfer.getAmount())
+            .fee(transfer.getFee())
+            .totalAmount(transfer.getTotalAmount())
+            .currency(transfer.getCurrency())
+            .description(transfer.getDescription())
+            .timestamp(transaction.getCreatedAt())
+            .senderWalletBalanceAfter(senderBalanceAfter)
+            .receiverName(receiver.getFirstName() + " " + receiver.getLastName())
+            .exchangeRate(pricing.getExchangeRate())
+            .convertedAmount(transfer.getReceivedAmount())
+            .receiverCurrency(transfer.getReceiverCurrency())
+            .build();
+    }
+    
+    /**
+     * Notify the sender and receiver of a recorded transfer
+     * 
+     * @param transfer The prepared transfer
+     * @param transactionId The transaction ID
+     */
+    private void sendTransferNotifications(PreparedTransfer transfer, Long transactionId) {
+        User sender = transfer.getSender();
+        User receiver = transfer.getReceiver();
+        Long senderId = transfer.getSenderId();
+        BigDecimal amount = transfer.getAmount();
+        BigDecimal receivedAmount = transfer.getReceivedAmount();
+        
+        // 12. Send notifications
+        String senderFirstName = sender.getFirstName() != null ? sender.getFirstName() : "User";
+        String receiverFirstName = receiver.getFirstName() != null ? receiver.getFirstName() : "User";
+        String currencyCode = transfer.getCurrency();
+        String receiverCurrencyCode = transfer.getReceiverCurrency();
+        String transactionIdStr = transactionId.toString();
+        String currentDate = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        
+        // FCM message for sender
+        String fcmSenderMessage = "You Sent " + amount + " " + currencyCode + " to " + receiverFirstName;
+        
+        // SMS message for sender
+        String smsSenderMessage = "Hello " + senderFirstName + ", you sent " + amount + " " + currencyCode + 
+            " to " + receiverFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
+        
+        // Send FCM notification to sender (but not SMS - we'll send that directly)
+        notificationService.sendFcmNotificationToSender(
+            senderId.intValue(),
+            "Payment Sent",
+            fcmSenderMessage,
+            transactionId
+        );
+        
+        // Send SMS directly to sender to avoid duplicate notifications
+        try {
+            String senderPhoneNumber = sender.getPhoneNumber();
+            if (senderPhoneNumber != null && !senderPhoneNumber.isEmpty()) {
+                log.info("Sending direct SMS to sender phone: {}", senderPhoneNumber);
+                
+                // Ensure phone number is properly formatted
+                if (!senderPhoneNumber.startsWith("+")) {
+                    if (senderPhoneNumber.startsWith("0")) {
+                        senderPhoneNumber = "+256" + senderPhoneNumber.substring(1);
+                    } else {
+                        senderPhoneNumber = "+" + senderPhoneNumber;
+                    }
+                    log.info("Formatted sender phone number: {}", senderPhoneNumber);
+                }
+                
+                boolean smsSent = notificationService.sendDirectSms(senderPhoneNumber, smsSenderMessage);
+                if (smsSent) {
+                    log.info("SMS sent directly to sender: {}", senderPhoneNumber);
+                } else {
+                    log.warn("SMS service failed to send message directly to sender: {}", senderPhoneNumber);
+                }
+            } else {
+                log.warn("Sender phone number is null or empty. Cannot send SMS.");
+            }
+        } catch (Exception ex) {
+            log.error("Failed to send SMS directly to sender: {}", ex.getMessage(), ex);
+            // Don't fail the transaction if SMS fails
+        }
+        
+        // FCM message for receiver
+        String fcmReceiverMessage = "You Received " + receivedAmount + " " + receiverCurrencyCode + " from " + senderFirstName;
+        
+        // SMS message for receiver
+        String smsReceiverMessage = "Hello " + receiverFirstName + ", you received " + receivedAmount + " " + receiverCurrencyCode + 
+            " from " + senderFirstName + " at " + currentDate + ". Transaction id is " + transactionIdStr;
+        
+        log.info("Sending notification to receiver with FCM message: {}", fcmReceiverMessage);
+        log.info("Sending notification to receiver with SMS message: {}", smsReceiverMessage);
+        
+        notificationService.sendTransactionNotificationToReceiver(
+            receiver.getId().intValue(),
+            "Payment Received",
+            fcmReceiverMessage,
+            transactionId,
+            smsReceiverMessage
+        );
+        
+        // Process all pending notifications immediately to ensure they're sent right away
+        notificationProcessor.processAllPendingNotificationsNow();
     }
     
     /**
@@ -354,4 +493,36 @@ public class WorkerIdTransferService {
             // Don't throw exception, just log it
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * A validated and priced worker ID transfer
+     */
+    @Getter
+    @Builder
+    private static class PreparedTransfer {
+        private final Long senderId;
+        private final User sender;
+        private final User receiver;
+        private final UserWallet senderWallet;
+        private final UserWallet receiverWallet;
+        private final String receiverWorkerId;
+        private final BigDecimal amount;
+        private final String description;
+        private final String idempotencyKey;
+        private final TransferQuoteDto pricing;
+        private final String currency;
+        private final String receiverCurrency;
+
+        BigDecimal getFee() {
+            return pricing.getFee();
+        }
+
+        BigDecimal getTotalAmount() {
+            return pricing.getTotalAmount();
+        }
+
+        BigDecimal getReceivedAmount() {
+            return pricing.getConvertedAmount();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lul.service.impl;
+
+import com.lul.dto.PayoutBatchRequest;
+import com.lul.dto.PayoutBatchResult;
+import com.lul.service.PayoutAdapter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Payout adapter for local and test environments: accepts every batch without paying anything out.
+ * Only active with disbursement.payout.adapter=local; without any adapter no batch is processed.
+ */
+@Component
+@ConditionalOnProperty(name = "disbursement.payout.adapter", havingValue = "local")
+@Slf4j
+public class LocalPayoutAdapter implements PayoutAdapter {
+    
+    @Override
+    public PayoutBatchResult submit(PayoutBatchRequest request) {
+        log.info("Local payout of batch {}: {} transfers to {} in {}", request.getBatchId(),
+            request.getItems().size(), request.getCountry(), request.getCurrency());
+        return new PayoutBatchResult("local-" + request.getBatchId(), List.of());
+    }
+}
@@ -1,10 +1,10 @@
 package com.lul.service.impl;
 
 import com.lul.entity.User;
+import com.lul.service.PasswordHashingService;
 import com.lul.service.PinService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 /**
@@ -15,7 +15,7 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class PinServiceImpl implements PinService {
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     
     /**
      * Verify if the provided PIN matches the user's stored PIN
@@ -38,9 +38,9 @@ public class PinServiceImpl implements PinService {
             return false;
         }
         
-        // Verify PIN using password encoder
+        // Verify PIN on the dedicated hashing pool
         log.debug("Verifying PIN for user ID: {}", user.getId());
-        boolean isValid = passwordEncoder.matches(pin, user.getPinHash());
+        boolean isValid = passwordHashingService.matches(pin, user.getPinHash());
         log.debug("PIN verification result: {}", isValid);
         
         return isValid;
@@ -1,15 +1,18 @@
 package com.lul.service.impl;
 
+import com.lul.enums.UserChangeType;
+import com.lul.service.UserChangeService;
+import com.lul.service.UserWalletViewCache;
 import com.lul.service.WalletService;
 import com.lul.entity.User;
 import com.lul.entity.UserWallet;
-import com.lul.entity.Wallet;
 import com.lul.repository.UserWalletRepository;
 import com.lul.repository.WalletRepository;
 import com.lul.repository.UserProfileRepository;
 import com.lul.entity.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import java.util.List;
@@ -20,6 +23,7 @@ import java.util.UUID;
 import java.math.BigDecimal;
 import java.util.Optional;
 import com.lul.dto.WalletInfoDto;
+import com.lul.dto.WalletViewDto;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +34,8 @@ public class WalletServiceImpl implements WalletService {
     private final UserWalletRepository userWalletRepository;
     private final WalletRepository walletRepository;
     private final UserProfileRepository userProfileRepository;
+    private final UserWalletViewCache userWalletViewCache;
+    private final UserChangeService userChangeService;
     
     // Country to wallet ID mapping
     private static final Map<String, Integer> COUNTRY_WALLET_MAP = new HashMap<>();
@@ -46,10 +52,14 @@ public class WalletServiceImpl implements WalletService {
     public WalletServiceImpl(
             UserWalletRepository userWalletRepository,
             WalletRepository walletRepository,
-            UserProfileRepository userProfileRepository) {
+            UserProfileRepository userProfileRepository,
+            UserWalletViewCache userWalletViewCache,
+            UserChangeService userChangeService) {
         this.userWalletRepository = userWalletRepository;
         this.walletRepository = walletRepository;
         this.userProfileRepository = userProfileRepository;
+        this.userWalletViewCache = userWalletViewCache;
+        this.userChangeService = userChangeService;
     }
     
     @Override
@@ -59,21 +69,9 @@ public class WalletServiceImpl implements WalletService {
         List<Integer> createdWalletIds = new ArrayList<>();
         
         try {
-            // Always create USD wallet (ID 2)
-            createUserWallet(user.getId(), 2);
-            createdWalletIds.add(2);
-            
-            // Get user's country from profile
-            Optional<UserProfile> profileOpt = userProfileRepository.findById(user.getId());
-            if (profileOpt.isPresent()) {
-                String userCountry = profileOpt.get().getCountry();
-                
-                // Create country-specific wallet based on user's country
-                Integer localWalletId = getWalletIdForCountry(userCountry);
-                if (localWalletId != null && localWalletId != 2) { // Skip if it's USD or not found
-                    createUserWallet(user.getId(), localWalletId);
-                    createdWalletIds.add(localWalletId);
-                }
+            for (Integer walletId : getDefaultWalletIds(user.getId())) {
+                createUserWallet(user.getId(), walletId);
+                createdWalletIds.add(walletId);
             }
             
             result.put("status", "success");
@@ -90,6 +88,24 @@ public class WalletServiceImpl implements WalletService {
         return result;
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> getDefaultWalletIds(Long userId) {
+        // Always a USD wallet (ID 2)
+        List<Integer> walletIds = new ArrayList<>();
+        walletIds.add(2);
+        
+        // Plus the wallet of the user's country, unless it is USD or the country has none
+        Optional<UserProfile> profileOpt = userProfileRepository.findById(userId);
+        if (profileOpt.isPresent()) {
+            Integer localWalletId = getWalletIdForCountry(profileOpt.get().getCountry());
+            if (localWalletId != null && localWalletId != 2) {
+                walletIds.add(localWalletId);
+            }
+        }
+        return walletIds;
+    }
+    
     @Override
     public List<UserWallet> getUserWallets(Long userId) {
         return userWalletRepository.findByUserId(userId);
@@ -145,7 +161,10 @@ public class WalletServiceImpl implements WalletService {
         userWallet.setBalance(BigDecimal.ZERO);
         userWallet.setPublicKey(generatePublicKey());
         
-        return userWalletRepository.save(userWallet);
+        userWalletViewCache.evictAfterCommit(userId);
+        UserWallet saved = userWalletRepository.save(userWallet);
+        userChangeService.record(userId, UserChangeType.WALLET, saved.getId().longValue());
+        return saved;
     }
     
     private String generatePublicKey() {
@@ -162,35 +181,61 @@ public class WalletServiceImpl implements WalletService {
         return COUNTRY_WALLET_MAP.getOrDefault(countryName, null);
     }
 
+    /**
+     * Wallet listing of a user, served from the wallet view cache. A miss is filled with one fetch-joined query;
+     * hits do not open a transaction or touch the database.
+     *
+     * @param userId The user ID
+     * @return The user's wallets
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<WalletInfoDto> getUserWalletsFormatted(Long userId) {
-        List<UserWallet> userWallets = userWalletRepository.findByUserId(userId);
+        List<WalletViewDto> views = userWalletViewCache.get(userId).orElse(null);
+        if (views == null) {
+            views = loadWalletViews(userId);
+        }
         
-        return userWallets.stream()
-            .map(userWallet -> {
-                Wallet wallet = userWallet.getWallet();
-                
-                // If wallet is not loaded via the relationship, try to load it directly
-                if (wallet == null) {
-                    Optional<Wallet> walletOpt = walletRepository.findById(userWallet.getWalletId());
-                    if (walletOpt.isEmpty()) {
-                        log.warn("Wallet not found for ID: {}", userWallet.getWalletId());
-                        return null;
-                    }
-                    wallet = walletOpt.get();
-                }
-                
-                return WalletInfoDto.builder()
-                    .countryCode(wallet.getCountryCode().toLowerCase())
-                    .name(wallet.getCurrencyName())
-                    .description(wallet.getCurrencyName().replace("title", "icon"))
-                    .availableBalance(userWallet.getBalance())
-                    .code(wallet.getCurrencyCode())
-                    .id(Long.valueOf(userWallet.getId()))
-                    .walletTypeId(userWallet.getWalletId())
-                    .build();
-            })
-            .filter(wallet -> wallet != null)
+        return views.stream()
+            .map(WalletViewDto::toWalletInfo)
             .collect(Collectors.toList());
     }
+    
+    /**
+     * Wallet listing of a user read from the database, for callers that must not see balances the cache has not
+     * caught up with yet (changes committed on other instances). The result refills the cache.
+     *
+     * @param userId The user ID
+     * @return The user's wallets
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WalletInfoDto> refreshUserWallets(Long userId) {
+        return loadWalletViews(userId).stream()
+            .map(WalletViewDto::toWalletInfo)
+            .collect(Collectors.toList());
+    }
+    
+    private List<WalletViewDto> loadWalletViews(Long userId) {
+        long readStartedAt = userWalletViewCache.now();
+        List<WalletViewDto> views = userWalletRepository.findWalletViews(userId).stream()
+            .map(WalletServiceImpl::toWalletView)
+            .collect(Collectors.toList());
+        userWalletViewCache.put(userId, views, readStartedAt);
+        return views;
+    }
+    
+    private static WalletViewDto toWalletView(Object[] row) {
+        String currencyName = (String) row[5];
+        return WalletViewDto.builder()
+            .id(((Number) row[0]).longValue())
+            .walletTypeId((Integer) row[1])
+            .availableBalance((BigDecimal) row[2])
+            .heldBalance((BigDecimal) row[3])
+            .countryCode(((String) row[4]).toLowerCase())
+            .name(currencyName)
+            .description(currencyName.replace("title", "icon"))
+            .code((String) row[6])
+            .build();
+    }
 }
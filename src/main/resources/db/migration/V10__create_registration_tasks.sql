@@ -0,0 +1,22 @@
+-- Follow-up stages of a registration (OTP SMS, default wallets, welcome email), written in the registration's
+-- transaction and run after it commits, so sign-up does not wait on the SMS or email provider. A failed
+-- stage is retried with backoff until max-attempts; a worker that dies leaves its stage due again once
+-- the lease in next_attempt_at expires.
+CREATE TABLE IF NOT EXISTS auth.registration_tasks (
+    id              BIGSERIAL   PRIMARY KEY,
+    user_id         BIGINT      NOT NULL,
+    stage           VARCHAR(30) NOT NULL,
+    reference_id    BIGINT,
+    status          VARCHAR(20) NOT NULL,
+    attempts        INTEGER     NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    created_at      TIMESTAMP   NOT NULL,
+    next_attempt_at TIMESTAMP   NOT NULL,
+    completed_at    TIMESTAMP,
+    CONSTRAINT uk_registration_tasks_user_stage UNIQUE (user_id, stage)
+);
+
+-- Stages due for a (re)run
+CREATE INDEX IF NOT EXISTS idx_registration_tasks_pending
+    ON auth.registration_tasks (next_attempt_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,7 @@
+-- Reservation counters of the user work ID allocator, one per month prefix (YYMM). Instances reserve
+-- disjoint ranges of positions in the month's permuted ID space by advancing next_index.
+CREATE TABLE IF NOT EXISTS auth.user_work_id_sequences (
+    prefix     VARCHAR(4) PRIMARY KEY,
+    next_index BIGINT     NOT NULL,
+    updated_at TIMESTAMP  NOT NULL DEFAULT NOW()
+);
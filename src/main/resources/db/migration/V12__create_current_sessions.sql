@@ -0,0 +1,19 @@
+-- Current session of each user: the access_history row of their latest login. A login inserts its
+-- access_history row and moves this pointer, instead of clearing is_current_session on every earlier row
+-- of the user, so it writes two rows however many logins the user has.
+CREATE TABLE IF NOT EXISTS audit.current_sessions (
+    user_id           BIGINT    PRIMARY KEY,
+    access_history_id BIGINT    NOT NULL,
+    updated_at        TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Carry over the sessions flagged as current; if a user has several, the latest one wins
+INSERT INTO audit.current_sessions (user_id, access_history_id)
+SELECT DISTINCT ON (user_id) user_id, id
+FROM audit.access_history
+WHERE is_current_session AND user_id IS NOT NULL
+ORDER BY user_id, id DESC
+ON CONFLICT (user_id) DO NOTHING;
+
+-- is_current_session is no longer maintained; clear the old flags so they cannot be mistaken for current
+UPDATE audit.access_history SET is_current_session = FALSE WHERE is_current_session;
@@ -0,0 +1,16 @@
+-- Version of each user's data, behind the ETags of per-user listings. Every write appending to
+-- auth.user_changes bumps the user's row in the same statement. The row lock makes concurrent writers of
+-- one user bump it in commit order, so a reader seeing version N has also seen every change up to N,
+-- which MAX(user_changes.id) does not guarantee: BIGSERIAL IDs are taken at insert time and commit out of order.
+CREATE TABLE IF NOT EXISTS auth.user_versions (
+    user_id    BIGINT    PRIMARY KEY,
+    version    BIGINT    NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Start from the latest retained change ID, so versions keep growing past the tags already handed out
+INSERT INTO auth.user_versions (user_id, version)
+SELECT user_id, MAX(id)
+FROM auth.user_changes
+GROUP BY user_id
+ON CONFLICT (user_id) DO NOTHING;
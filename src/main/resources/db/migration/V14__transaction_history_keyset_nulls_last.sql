@@ -0,0 +1,18 @@
+-- Rows without created_at come last in the transaction history, after every dated row. The keyset indexes
+-- from V2 sort NULLs first (the default for DESC), so they are rebuilt with NULLS LAST to keep backing the
+-- ORDER BY created_at DESC NULLS LAST, id DESC of the history pages.
+DROP INDEX IF EXISTS wallet.idx_transaction_history_sender_created;
+CREATE INDEX IF NOT EXISTS idx_transaction_history_sender_created
+    ON wallet.transaction_history (sender_id, created_at DESC NULLS LAST, id DESC);
+
+DROP INDEX IF EXISTS wallet.idx_transaction_history_receiver_created;
+CREATE INDEX IF NOT EXISTS idx_transaction_history_receiver_created
+    ON wallet.transaction_history (receiver_id, created_at DESC NULLS LAST, id DESC);
+
+DROP INDEX IF EXISTS wallet.idx_transaction_history_sender_wallet_created;
+CREATE INDEX IF NOT EXISTS idx_transaction_history_sender_wallet_created
+    ON wallet.transaction_history (sender_wallet_id, created_at DESC NULLS LAST, id DESC);
+
+DROP INDEX IF EXISTS wallet.idx_transaction_history_receiver_wallet_created;
+CREATE INDEX IF NOT EXISTS idx_transaction_history_receiver_wallet_created
+    ON wallet.transaction_history (receiver_wallet_id, created_at DESC NULLS LAST, id DESC);
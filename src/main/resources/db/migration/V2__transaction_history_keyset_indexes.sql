@@ -0,0 +1,14 @@
+-- Composite indexes backing keyset pagination of the transaction history API.
+-- Each index leads with one party column and orders by (created_at, id) descending, so a page
+-- is a range scan that starts at the cursor position regardless of how deep the page is.
+CREATE INDEX IF NOT EXISTS idx_transaction_history_sender_created
+    ON wallet.transaction_history (sender_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history_receiver_created
+    ON wallet.transaction_history (receiver_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history_sender_wallet_created
+    ON wallet.transaction_history (sender_wallet_id, created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history_receiver_wallet_created
+    ON wallet.transaction_history (receiver_wallet_id, created_at DESC, id DESC);
@@ -0,0 +1,18 @@
+-- Hourly and daily transaction rollups backing the admin dashboard.
+-- Rows are incremented after each transfer commit and rebuilt from transaction_history for closed buckets.
+CREATE TABLE IF NOT EXISTS wallet.transaction_rollups (
+    id                  BIGSERIAL PRIMARY KEY,
+    granularity         VARCHAR(10)    NOT NULL,
+    bucket_start        TIMESTAMP      NOT NULL,
+    currency            VARCHAR(10)    NOT NULL,
+    transaction_type_id INTEGER        NOT NULL,
+    transaction_count   BIGINT         NOT NULL DEFAULT 0,
+    total_value         NUMERIC(20, 2) NOT NULL DEFAULT 0,
+    total_fees          NUMERIC(20, 2) NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP      NOT NULL DEFAULT now(),
+    CONSTRAINT uq_transaction_rollups_bucket UNIQUE (granularity, bucket_start, currency, transaction_type_id)
+);
+
+-- Raw reads are limited to the partial buckets at the edges of a range
+CREATE INDEX IF NOT EXISTS idx_transaction_history_created_at
+    ON wallet.transaction_history (created_at);
@@ -0,0 +1,12 @@
+-- Corridor dimension (sender currency -> receiver currency) for the dashboard time series.
+ALTER TABLE wallet.transaction_rollups
+    ADD COLUMN IF NOT EXISTS receiver_currency VARCHAR(10) NOT NULL DEFAULT '';
+
+-- Existing buckets predate the column. Same-currency is correct for everything but FX transfers,
+-- which POST /api/admin/dashboard/rollups/backfill recomputes from transaction_history.
+UPDATE wallet.transaction_rollups SET receiver_currency = currency WHERE receiver_currency = '';
+
+ALTER TABLE wallet.transaction_rollups DROP CONSTRAINT IF EXISTS uq_transaction_rollups_bucket;
+ALTER TABLE wallet.transaction_rollups
+    ADD CONSTRAINT uq_transaction_rollups_bucket
+    UNIQUE (granularity, bucket_start, currency, receiver_currency, transaction_type_id);
@@ -0,0 +1,8 @@
+-- One HyperLogLog sketch of distinct active users per day, registers packed at 6 bits each.
+-- Active user counts for any window are estimated by merging the sketches of its days.
+CREATE TABLE IF NOT EXISTS audit.daily_active_user_sketches (
+    activity_date    DATE      PRIMARY KEY,
+    sketch_precision SMALLINT  NOT NULL,
+    registers        BYTEA     NOT NULL,
+    updated_at       TIMESTAMP NOT NULL DEFAULT now()
+);
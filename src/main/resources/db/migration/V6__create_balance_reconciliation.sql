@@ -0,0 +1,42 @@
+-- Balance reconciliation runs. A run checks wallet id ranges in parallel; checkpoint_wallet_id is the
+-- id below which every wallet has been checked, so an interrupted run resumes from there.
+CREATE TABLE IF NOT EXISTS wallet.balance_reconciliation_runs (
+    id                   BIGSERIAL   PRIMARY KEY,
+    mode                 VARCHAR(20) NOT NULL,
+    status               VARCHAR(20) NOT NULL,
+    changed_since        TIMESTAMP,
+    max_wallet_id        INTEGER     NOT NULL,
+    checkpoint_wallet_id INTEGER     NOT NULL,
+    partitions_total     INTEGER     NOT NULL,
+    partitions_done      INTEGER     NOT NULL DEFAULT 0,
+    mismatch_count       BIGINT      NOT NULL DEFAULT 0,
+    last_error           TEXT,
+    started_at           TIMESTAMP   NOT NULL,
+    updated_at           TIMESTAMP   NOT NULL,
+    completed_at         TIMESTAMP
+);
+
+-- Wallets whose balance differs from the sum of their completed transactions
+CREATE TABLE IF NOT EXISTS wallet.balance_mismatches (
+    id               BIGSERIAL      PRIMARY KEY,
+    run_id           BIGINT         NOT NULL REFERENCES wallet.balance_reconciliation_runs (id),
+    user_wallet_id   INTEGER        NOT NULL,
+    user_id          BIGINT         NOT NULL,
+    wallet_id        INTEGER        NOT NULL,
+    balance          NUMERIC(15, 2) NOT NULL,
+    expected_balance NUMERIC(20, 2) NOT NULL,
+    difference       NUMERIC(20, 2) NOT NULL,
+    detected_at      TIMESTAMP      NOT NULL,
+    CONSTRAINT uk_balance_mismatches_run_wallet UNIQUE (run_id, user_wallet_id)
+);
+
+-- Incremental runs only check wallets updated since the previous run
+CREATE INDEX IF NOT EXISTS idx_user_wallets_last_updated
+    ON wallet.user_wallets (last_updated_at);
+
+-- Per-wallet sums of completed movements
+CREATE INDEX IF NOT EXISTS idx_transaction_history_receiver_wallet_status
+    ON wallet.transaction_history (receiver_wallet_id, transaction_status_id);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history_sender_wallet_status
+    ON wallet.transaction_history (sender_wallet_id, transaction_status_id);
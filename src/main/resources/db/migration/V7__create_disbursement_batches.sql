@@ -0,0 +1,36 @@
+-- Payout batches of non-wallet transfers. Transfers waiting in the Processing stage are claimed into one
+-- batch per recipient country and currency (transaction_history.batch_id) and paid out together.
+CREATE TABLE IF NOT EXISTS wallet.disbursement_batches (
+    id                 SERIAL         PRIMARY KEY,
+    country            VARCHAR(50)    NOT NULL,
+    currency           VARCHAR(10)    NOT NULL,
+    status             VARCHAR(20)    NOT NULL,
+    item_count         INTEGER        NOT NULL,
+    total_amount       NUMERIC(20, 2) NOT NULL,
+    attempts           INTEGER        NOT NULL DEFAULT 0,
+    provider_reference VARCHAR(100),
+    last_error         TEXT,
+    created_at         TIMESTAMP      NOT NULL,
+    next_attempt_at    TIMESTAMP      NOT NULL,
+    completed_at       TIMESTAMP
+);
+
+-- Batches due for (re)submission
+CREATE INDEX IF NOT EXISTS idx_disbursement_batches_status_next_attempt
+    ON wallet.disbursement_batches (status, next_attempt_at);
+
+-- Claim scan: transfers in the Processing stage that are not in a batch yet
+CREATE INDEX IF NOT EXISTS idx_transaction_history_unbatched_processing
+    ON wallet.transaction_history (id)
+    WHERE disbursement_stage_id = 2 AND batch_id IS NULL;
+
+-- Stage updates and payout items of a batch
+CREATE INDEX IF NOT EXISTS idx_transaction_history_batch
+    ON wallet.transaction_history (batch_id)
+    WHERE batch_id IS NOT NULL;
+
+-- Final stages of a payout
+INSERT INTO wallet.disbursement_stages (stage_name, description)
+VALUES ('Disbursed', 'Paid out to the recipient'),
+       ('Failed', 'Rejected by the payout provider')
+ON CONFLICT (stage_name) DO NOTHING;
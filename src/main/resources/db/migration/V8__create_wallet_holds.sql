@@ -0,0 +1,23 @@
+-- Funds reserved for non-wallet transfers awaiting payout. Reserving moves the total amount from
+-- balance (the available funds) to held_balance; settling removes it from held_balance and credits the
+-- company wallet, releasing returns it to balance.
+ALTER TABLE wallet.user_wallets
+    ADD COLUMN IF NOT EXISTS held_balance NUMERIC(15, 2) NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS wallet.wallet_holds (
+    id                     BIGSERIAL      PRIMARY KEY,
+    transaction_history_id INTEGER        NOT NULL,
+    user_wallet_id         INTEGER        NOT NULL,
+    company_wallet_id      INTEGER        NOT NULL,
+    amount                 NUMERIC(15, 2) NOT NULL,
+    credit_amount          NUMERIC(15, 2) NOT NULL,
+    status                 VARCHAR(20)    NOT NULL,
+    created_at             TIMESTAMP      NOT NULL,
+    resolved_at            TIMESTAMP,
+    CONSTRAINT uk_wallet_holds_transaction UNIQUE (transaction_history_id)
+);
+
+-- Settlement scans only the open holds
+CREATE INDEX IF NOT EXISTS idx_wallet_holds_open
+    ON wallet.wallet_holds (id)
+    WHERE status = 'HELD';
@@ -0,0 +1,18 @@
+-- Change log per user, behind conditional GETs (the user's latest change id is part of every ETag) and
+-- delta sync (clients pass the last change id they have seen and get the entities changed after it).
+-- Rows are appended in the transaction of the write they describe and pruned after the retention period.
+CREATE TABLE IF NOT EXISTS auth.user_changes (
+    id          BIGSERIAL   PRIMARY KEY,
+    user_id     BIGINT      NOT NULL,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id   BIGINT,
+    changed_at  TIMESTAMP   NOT NULL DEFAULT clock_timestamp()
+);
+
+-- Version lookups and sync pages are range scans on one user's changes
+CREATE INDEX IF NOT EXISTS idx_user_changes_user_id
+    ON auth.user_changes (user_id, id);
+
+-- Pruning scans by age
+CREATE INDEX IF NOT EXISTS idx_user_changes_changed_at
+    ON auth.user_changes (changed_at);
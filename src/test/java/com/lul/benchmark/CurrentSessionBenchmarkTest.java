@@ -0,0 +1,193 @@
+package com.lul.benchmark;
+
+import com.lul.repository.CurrentSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the session bookkeeping of 10,000 logins of one user, comparing the former approach (clear
+ * is_current_session on every access_history row of the user, then insert the new row flagged as current)
+ * with the session pointer (insert the new row, then move the user's current_sessions pointer to it).
+ * Reports the rows written and the mean time per login over the last 1,000 logins, where the former
+ * approach rewrites about 9,500 rows per login and the pointer still writes two.
+ *
+ * The pointer is moved with the statement of CurrentSessionRepository.moveTo, read from its annotation,
+ * so the benchmark measures the INSERT ... ON CONFLICT ... WHERE the application runs. That statement is
+ * PostgreSQL only, so the benchmark needs a scratch PostgreSQL database with the audit schema migrated.
+ * It writes access history to its own bench_access_history table and only touches the current_sessions
+ * row of a user ID no real user has.
+ *
+ * Run with: ./mvnw test -Dtest=CurrentSessionBenchmarkTest -Dbenchmark=true
+ *     -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/lulpay_bench -Dbenchmark.jdbc.user=... -Dbenchmark.jdbc.password=...
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = "jdbc:postgresql:.+")
+class CurrentSessionBenchmarkTest {
+
+    private static final long USER_ID = -42L;
+    private static final int LOGINS = 10_000;
+    private static final int WINDOW = 1_000;
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    @Test
+    void sessionPointer_ShouldWriteTwoRowsPerLogin() throws Exception {
+        String url = System.getProperty("benchmark.jdbc.url");
+        String user = System.getProperty("benchmark.jdbc.user", "postgres");
+        String password = System.getProperty("benchmark.jdbc.password", "");
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            resetSchema(connection);
+            Result rewrite = run(connection, false);
+            assertEquals(1, queryLong(connection, "SELECT COUNT(*) FROM bench_access_history WHERE is_current_session"),
+                "Exactly one session should be flagged as current");
+
+            resetSchema(connection);
+            Result pointer = run(connection, true);
+            assertEquals(pointer.lastId, currentSession(connection),
+                "The pointer should reference the latest login");
+
+            // A login committing late must not move the pointer back to its older entry
+            try (MoveTo move = new MoveTo(connection)) {
+                assertEquals(0, move.execute(USER_ID, pointer.lastId - 1), "The pointer should only move forward");
+            }
+            assertEquals(pointer.lastId, currentSession(connection));
+
+            System.out.printf("rewrite all rows: rows written=%d, last %d logins %.3f ms/login%n",
+                rewrite.rowsWritten, WINDOW, rewrite.windowMillisPerLogin);
+            System.out.printf("session pointer:  rows written=%d, last %d logins %.3f ms/login%n",
+                pointer.rowsWritten, WINDOW, pointer.windowMillisPerLogin);
+
+            assertEquals(2L * LOGINS, pointer.rowsWritten, "A login should write two rows with the pointer");
+            assertTrue(pointer.windowMillisPerLogin < rewrite.windowMillisPerLogin,
+                "The pointer should keep logins cheaper than rewriting every earlier session");
+        }
+    }
+
+    /**
+     * Record the logins of one user, one transaction per login
+     *
+     * @param connection The connection
+     * @param pointer Whether to move the session pointer instead of rewriting the flags
+     * @return Rows written and the cost of the last logins
+     */
+    private Result run(Connection connection, boolean pointer) throws SQLException {
+        Result result = new Result();
+        connection.setAutoCommit(false);
+        try (PreparedStatement clear = connection.prepareStatement(
+                 "UPDATE bench_access_history SET is_current_session = FALSE WHERE user_id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO bench_access_history (user_id, device_id, is_current_session) VALUES (?, ?, ?)",
+                 Statement.RETURN_GENERATED_KEYS);
+             MoveTo move = new MoveTo(connection)) {
+            long windowStart = 0;
+            for (int login = 0; login < LOGINS; login++) {
+                if (login == LOGINS - WINDOW) {
+                    windowStart = System.nanoTime();
+                }
+                if (!pointer) {
+                    clear.setLong(1, USER_ID);
+                    result.rowsWritten += clear.executeUpdate();
+                }
+
+                insert.setLong(1, USER_ID);
+                insert.setString(2, "device-" + (login % 3));
+                insert.setBoolean(3, !pointer);
+                result.rowsWritten += insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    result.lastId = keys.getLong(1);
+                }
+
+                if (pointer) {
+                    result.rowsWritten += move.execute(USER_ID, result.lastId);
+                }
+                connection.commit();
+            }
+            result.windowMillisPerLogin = (System.nanoTime() - windowStart) / 1_000_000.0 / WINDOW;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return result;
+    }
+
+    private void resetSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_access_history");
+            statement.execute("CREATE TABLE bench_access_history (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "user_id BIGINT NOT NULL, device_id VARCHAR(50), is_current_session BOOLEAN NOT NULL)");
+            statement.execute("CREATE INDEX idx_bench_access_history_user_id ON bench_access_history (user_id)");
+            statement.execute("DELETE FROM audit.current_sessions WHERE user_id = " + USER_ID);
+        }
+    }
+
+    private static long currentSession(Connection connection) throws SQLException {
+        return queryLong(connection, "SELECT access_history_id FROM audit.current_sessions WHERE user_id = " + USER_ID);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    /**
+     * The moveTo statement of CurrentSessionRepository, with its named parameters bound by position
+     */
+    private static final class MoveTo implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final List<String> parameters = new ArrayList<>();
+
+        private MoveTo(Connection connection) throws SQLException {
+            String sql;
+            try {
+                sql = CurrentSessionRepository.class.getMethod("moveTo", Long.class, Long.class)
+                    .getAnnotation(Query.class).value();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("CurrentSessionRepository.moveTo not found", e);
+            }
+            Matcher matcher = NAMED_PARAMETER.matcher(sql);
+            StringBuilder positional = new StringBuilder();
+            while (matcher.find()) {
+                parameters.add(matcher.group(1));
+                matcher.appendReplacement(positional, "?");
+            }
+            matcher.appendTail(positional);
+            this.statement = connection.prepareStatement(positional.toString());
+        }
+
+        private int execute(long userId, long accessHistoryId) throws SQLException {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setLong(i + 1, "userId".equals(parameters.get(i)) ? userId : accessHistoryId);
+            }
+            return statement.executeUpdate();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    private static final class Result {
+        private long rowsWritten;
+        private long lastId;
+        private double windowMillisPerLogin;
+    }
+}
@@ -0,0 +1,179 @@
+package com.lul.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures wallet transfer throughput when transfers are group-committed in batches of 1, 8, 32 and 128,
+ * using the transaction shape of the wallet posting engine: lock the batch's wallets in ID order, insert
+ * one history row per transfer and write one net balance update per wallet, then commit once.
+ *
+ * Runs against a file-backed H2 database by default, so commits are written to disk. Point it at a local
+ * PostgreSQL to see the effect of commit fsyncs:
+ *
+ * Run with: ./mvnw test -Dtest=GroupCommitBenchmarkTest -Dbenchmark=true
+ *     [-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/lulpay -Dbenchmark.jdbc.user=... -Dbenchmark.jdbc.password=...]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GroupCommitBenchmarkTest {
+
+    private static final int[] BATCH_SIZES = {1, 8, 32, 128};
+    private static final int TRANSFERS = 4_096;
+    private static final int WALLETS = 64;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Test
+    void groupCommit_ShouldIncreaseThroughputWithBatchSize() throws Exception {
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:h2:file:./target/group-commit-benchmark");
+        String user = System.getProperty("benchmark.jdbc.user", "sa");
+        String password = System.getProperty("benchmark.jdbc.password", "");
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            List<long[]> transfers = transfers();
+
+            // Warm up so JIT compilation and statement caches do not skew the first run
+            resetSchema(connection);
+            run(connection, transfers.subList(0, 512), 8);
+
+            Map<Integer, Double> throughput = new TreeMap<>();
+            for (int batchSize : BATCH_SIZES) {
+                resetSchema(connection);
+                long begin = System.nanoTime();
+                run(connection, transfers, batchSize);
+                double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+                throughput.put(batchSize, TRANSFERS / seconds);
+
+                assertEquals(TRANSFERS, count(connection), "Every transfer should be recorded");
+                assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(WALLETS)).compareTo(totalBalance(connection)),
+                    "Transfers should conserve the total balance");
+                System.out.printf("batch size %-4d throughput=%.0f transfers/s commits=%d%n",
+                    batchSize, throughput.get(batchSize), (TRANSFERS + batchSize - 1) / batchSize);
+            }
+
+            assertTrue(throughput.get(32) > throughput.get(1),
+                "Group commit should sustain more transfers per second than one commit per transfer");
+        }
+    }
+
+    /**
+     * Apply the transfers in group-committed batches
+     *
+     * @param connection The connection
+     * @param transfers Transfers as [from wallet, to wallet, amount in cents]
+     * @param batchSize Transfers per transaction
+     */
+    private void run(Connection connection, List<long[]> transfers, int batchSize) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO bench_transfers (from_wallet_id, to_wallet_id, amount) VALUES (?, ?, ?)");
+             PreparedStatement update = connection.prepareStatement(
+                 "UPDATE bench_wallets SET balance = balance + ? WHERE id = ?")) {
+            for (int from = 0; from < transfers.size(); from += batchSize) {
+                List<long[]> batch = transfers.subList(from, Math.min(from + batchSize, transfers.size()));
+                lock(connection, batch);
+
+                Map<Long, BigDecimal> deltas = new TreeMap<>();
+                for (long[] transfer : batch) {
+                    BigDecimal amount = BigDecimal.valueOf(transfer[2], 2);
+                    insert.setLong(1, transfer[0]);
+                    insert.setLong(2, transfer[1]);
+                    insert.setBigDecimal(3, amount);
+                    insert.addBatch();
+                    deltas.merge(transfer[0], amount.negate(), BigDecimal::add);
+                    deltas.merge(transfer[1], amount, BigDecimal::add);
+                }
+                insert.executeBatch();
+                for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+                    update.setBigDecimal(1, delta.getValue());
+                    update.setLong(2, delta.getKey());
+                    update.addBatch();
+                }
+                update.executeBatch();
+                connection.commit();
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void lock(Connection connection, List<long[]> batch) throws SQLException {
+        TreeSet<Long> walletIds = new TreeSet<>();
+        for (long[] transfer : batch) {
+            walletIds.add(transfer[0]);
+            walletIds.add(transfer[1]);
+        }
+        String ids = walletIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                 "SELECT id, balance FROM bench_wallets WHERE id IN (" + ids + ") ORDER BY id FOR UPDATE")) {
+            while (rows.next()) {
+                rows.getBigDecimal(2);
+            }
+        }
+    }
+
+    private void resetSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_transfers");
+            statement.execute("DROP TABLE IF EXISTS bench_wallets");
+            statement.execute("CREATE TABLE bench_wallets (id BIGINT PRIMARY KEY, balance NUMERIC(15, 2) NOT NULL)");
+            statement.execute("CREATE TABLE bench_transfers (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "from_wallet_id BIGINT NOT NULL, to_wallet_id BIGINT NOT NULL, amount NUMERIC(15, 2) NOT NULL)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_wallets (id, balance) VALUES (?, ?)")) {
+            for (long id = 1; id <= WALLETS; id++) {
+                insert.setLong(1, id);
+                insert.setBigDecimal(2, OPENING_BALANCE);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static List<long[]> transfers() {
+        // Fixed seed so every batch size replays the same transfers
+        Random random = new Random(42);
+        List<long[]> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            long from = 1 + random.nextInt(WALLETS);
+            long to = 1 + (from + random.nextInt(WALLETS - 1)) % WALLETS;
+            transfers.add(new long[]{from, to, 100 + random.nextInt(10_000)});
+        }
+        return transfers;
+    }
+
+    private static long count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM bench_transfers")) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private static BigDecimal totalBalance(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT SUM(balance) FROM bench_wallets")) {
+            rows.next();
+            return rows.getBigDecimal(1);
+        }
+    }
+}
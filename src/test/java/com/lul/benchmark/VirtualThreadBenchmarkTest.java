@@ -0,0 +1,248 @@
+package com.lul.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares throughput and p99 latency of 2,000 concurrent clients against an embedded Tomcat served by its
+ * default platform-thread pool and by virtual threads (spring.threads.virtual.enabled, as set by the
+ * virtual-threads profile).
+ *
+ * Every request has the shape of the blocking endpoints the mode is meant for: a history page read through
+ * a Hikari pool of 20 connections, then a synchronous HTTP call to a provider stub answering after 50ms, like
+ * the SMS and push notification calls. With platform threads the 200 Tomcat workers cap the requests in
+ * flight; with virtual threads only the database part is bounded, by the Hikari pool.
+ *
+ * Runs against an in-memory H2 database by default; point it at PostgreSQL to include network round trips:
+ *
+ * Run with: ./mvnw test -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true
+ *     [-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/lulpay_bench -Dbenchmark.jdbc.user=... -Dbenchmark.jdbc.password=...]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmarkTest {
+
+    private static final int CLIENTS = 2_000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 3;
+    private static final int POOL_SIZE = 20;
+    private static final long PROVIDER_LATENCY_MS = 50;
+    private static final int USERS = 1_000;
+
+    @Test
+    void virtualThreads_ShouldServeMoreRequestsThanThePlatformPool() throws Exception {
+        HttpServer provider = startProvider();
+        try {
+            String providerUrl = "http://localhost:" + provider.getAddress().getPort() + "/send";
+            Result platform = run(false, providerUrl);
+            Result virtual = run(true, providerUrl);
+
+            System.out.printf("platform threads: throughput=%.0f req/s p99=%.1f ms%n",
+                platform.throughput, platform.p99Millis);
+            System.out.printf("virtual threads:  throughput=%.0f req/s p99=%.1f ms%n",
+                virtual.throughput, virtual.p99Millis);
+
+            assertTrue(virtual.throughput > platform.throughput,
+                "Virtual threads should serve more blocking requests than 200 platform workers");
+        } finally {
+            provider.stop(0);
+        }
+    }
+
+    /**
+     * Start the application with the given threading mode and load it with the concurrent clients
+     *
+     * @param virtualThreads Whether to serve requests on virtual threads
+     * @param providerUrl URL of the provider stub
+     * @return Throughput and p99 latency of the measured requests
+     */
+    private Result run(boolean virtualThreads, String providerUrl) throws Exception {
+        Map<String, Object> properties = Map.of(
+            "server.port", 0,
+            "spring.threads.virtual.enabled", virtualThreads,
+            "spring.datasource.url", System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:virtual-thread-benchmark;DB_CLOSE_DELAY=-1"),
+            "spring.datasource.username", System.getProperty("benchmark.jdbc.user", "sa"),
+            "spring.datasource.password", System.getProperty("benchmark.jdbc.password", ""),
+            "spring.datasource.hikari.maximum-pool-size", POOL_SIZE,
+            "spring.datasource.hikari.connection-timeout", 5000,
+            "benchmark.provider.url", providerUrl);
+
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(BenchmarkApplication.class)
+                    .web(WebApplicationType.SERVLET)
+                    .properties(properties)
+                    .run()) {
+            resetSchema(context.getBean(JdbcTemplate.class));
+            String url = "http://localhost:" + context.getWebServer().getPort() + "/bench/history?userId=";
+
+            // Warm up so JIT compilation and connection setup do not skew the measured requests
+            load(url, WARMUP_REQUESTS_PER_CLIENT);
+            long begin = System.nanoTime();
+            long[] latencies = load(url, REQUESTS_PER_CLIENT);
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+            Arrays.sort(latencies);
+            Result result = new Result();
+            result.throughput = latencies.length / seconds;
+            result.p99Millis = latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1_000_000.0;
+            return result;
+        }
+    }
+
+    /**
+     * Send requests from all clients at once, each client waiting for a response before its next request
+     *
+     * @param url Endpoint URL without the user ID
+     * @param requestsPerClient Requests sent by each client
+     * @return Latency of every request in nanoseconds
+     */
+    private long[] load(String url, int requestsPerClient) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[CLIENTS * requestsPerClient];
+        AtomicInteger failures = new AtomicInteger();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientIndex = c;
+                futures.add(clients.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                            URI.create(url + ((clientIndex * requestsPerClient + r) % USERS))).GET().build();
+                        long start = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[clientIndex * requestsPerClient + r] = System.nanoTime() - start;
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        }
+        assertEquals(0, failures.get(), "Every request should succeed");
+        return latencies;
+    }
+
+    private static void resetSchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_transaction_history");
+        jdbcTemplate.execute("CREATE TABLE bench_transaction_history (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+            + "user_id BIGINT NOT NULL, amount DECIMAL(19, 2) NOT NULL, created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_bench_transaction_history_user ON bench_transaction_history (user_id, created_at DESC, id DESC)");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < USERS * 50; i++) {
+            rows.add(new Object[]{(long) (i % USERS), i % 10_000 + 0.5, new Timestamp(1_700_000_000_000L + i * 1_000L)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bench_transaction_history (user_id, amount, created_at) VALUES (?, ?, ?)", rows);
+    }
+
+    /**
+     * A provider answering every call after a fixed latency, on a virtual thread per call so it never queues
+     */
+    private static HttpServer startProvider() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/send", exchange -> {
+            try {
+                Thread.sleep(PROVIDER_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"status\":\"sent\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+        PropertyPlaceholderAutoConfiguration.class,
+        ServletWebServerFactoryAutoConfiguration.class,
+        EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class,
+        DataSourceAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class
+    })
+    @Import(HistoryController.class)
+    static class BenchmarkApplication {
+    }
+
+    /**
+     * Reads a history page, releasing its connection, then makes the blocking provider call
+     */
+    @RestController
+    static class HistoryController {
+        private final JdbcTemplate jdbcTemplate;
+        private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        private final URI providerUri;
+
+        HistoryController(JdbcTemplate jdbcTemplate, @Value("${benchmark.provider.url}") String providerUrl) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.providerUri = URI.create(providerUrl);
+        }
+
+        @GetMapping("/bench/history")
+        public Map<String, Object> history(@RequestParam long userId) throws IOException, InterruptedException {
+            List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "SELECT id, amount, created_at FROM bench_transaction_history WHERE user_id = ? "
+                    + "ORDER BY created_at DESC, id DESC LIMIT 20", userId);
+            HttpResponse<String> sent = httpClient.send(HttpRequest.newBuilder(providerUri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            return Map.of("items", items.size(), "provider", sent.statusCode());
+        }
+    }
+
+    private static final class Result {
+        private double throughput;
+        private double p99Millis;
+    }
+}
@@ -0,0 +1,85 @@
+package com.lul.service;
+
+import com.lul.entity.DailyActiveUserSketch;
+import com.lul.repository.DailyActiveUserSketchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActiveUserServiceTest {
+
+    private static final int PRECISION = 14;
+
+    @Mock
+    private DailyActiveUserSketchRepository sketchRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void countActiveUsers_DayStillOpenToOtherInstances_ShouldBeReadAgain() {
+        // Arrange: with a two-day flush interval another instance may still merge into yesterday's sketch
+        ActiveUserService activeUserService = service(2 * 24 * 60 * 60 * 1000L);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(sketchRepository.findByActivityDateBetween(any(), any()))
+            .thenReturn(List.of(stored(yesterday, 1L)))
+            .thenReturn(List.of(stored(yesterday, 1L, 2L)));
+
+        // Act
+        long first = activeUserService.countActiveUsers(yesterday, yesterday);
+        long second = activeUserService.countActiveUsers(yesterday, yesterday);
+
+        // Assert
+        assertEquals(1L, first);
+        assertEquals(2L, second);
+        verify(sketchRepository, times(2)).findByActivityDateBetween(yesterday, yesterday);
+    }
+
+    @Test
+    void countActiveUsers_SettledDay_ShouldBeCached() {
+        // Arrange
+        ActiveUserService activeUserService = service(60000L);
+        LocalDate day = LocalDate.now().minusDays(10);
+        when(sketchRepository.findByActivityDateBetween(any(), any())).thenReturn(List.of(stored(day, 1L, 2L)));
+
+        // Act
+        activeUserService.countActiveUsers(day, day);
+        long count = activeUserService.countActiveUsers(day, day);
+
+        // Assert
+        assertEquals(2L, count);
+        verify(sketchRepository, times(1)).findByActivityDateBetween(day, day);
+    }
+
+    private ActiveUserService service(long flushIntervalMs) {
+        return new ActiveUserService(sketchRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            PRECISION, 400, flushIntervalMs);
+    }
+
+    private static DailyActiveUserSketch stored(LocalDate day, long... userIds) {
+        HyperLogLog sketch = new HyperLogLog(PRECISION);
+        for (long userId : userIds) {
+            sketch.add(userId);
+        }
+        DailyActiveUserSketch stored = new DailyActiveUserSketch();
+        stored.setActivityDate(day);
+        stored.setSketchPrecision(PRECISION);
+        stored.setRegisters(sketch.toBytes());
+        return stored;
+    }
+}
@@ -0,0 +1,141 @@
+package com.lul.service;
+
+import com.lul.entity.BalanceMismatch;
+import com.lul.entity.BalanceReconciliationRun;
+import com.lul.enums.ReconciliationMode;
+import com.lul.enums.ReconciliationStatus;
+import com.lul.repository.BalanceMismatchRepository;
+import com.lul.repository.BalanceReconciliationRunRepository;
+import com.lul.repository.UserWalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BalanceReconciliationServiceTest {
+
+    @Mock
+    private UserWalletRepository userWalletRepository;
+
+    @Mock
+    private BalanceReconciliationRunRepository runRepository;
+
+    @Mock
+    private BalanceMismatchRepository mismatchRepository;
+
+    private BalanceReconciliationService balanceReconciliationService;
+    private final AtomicReference<BalanceReconciliationRun> storedRun = new AtomicReference<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        balanceReconciliationService = new BalanceReconciliationService(userWalletRepository, runRepository,
+            mismatchRepository, transactionTemplate, 100, 2, 10, 5);
+
+        when(runRepository.save(any(BalanceReconciliationRun.class))).thenAnswer(invocation -> {
+            BalanceReconciliationRun run = invocation.getArgument(0);
+            if (run.getId() == null) {
+                run.setId(1L);
+            }
+            storedRun.set(run);
+            if (run.getStatus() == ReconciliationStatus.COMPLETED) {
+                completed.countDown();
+            }
+            return run;
+        });
+        when(runRepository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(storedRun.get()));
+        when(userWalletRepository.findBalanceMismatches(anyInt(), anyInt(), any())).thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        balanceReconciliationService.shutdown();
+    }
+
+    @Test
+    void startRun_Full_ShouldCheckEveryPartitionAndRecordMismatches() throws Exception {
+        // Arrange: wallets 1..250 make partitions [0, 100), [100, 200) and [200, 251)
+        when(runRepository.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
+        when(userWalletRepository.findMaxId()).thenReturn(250);
+        List<Object[]> mismatchRows = new ArrayList<>();
+        mismatchRows.add(new Object[]{150, 42L, 1, new BigDecimal("100.00"), new BigDecimal("90.00")});
+        when(userWalletRepository.findBalanceMismatches(eq(100), eq(200), any())).thenReturn(mismatchRows);
+
+        // Act
+        BalanceReconciliationRun run = balanceReconciliationService.startRun(ReconciliationMode.FULL);
+
+        // Assert
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        verify(userWalletRepository).findBalanceMismatches(eq(0), eq(100), any());
+        verify(userWalletRepository).findBalanceMismatches(eq(200), eq(251), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BalanceMismatch>> saved = ArgumentCaptor.forClass(List.class);
+        verify(mismatchRepository).saveAll(saved.capture());
+        BalanceMismatch mismatch = saved.getValue().get(0);
+        assertEquals(150, mismatch.getUserWalletId());
+        assertEquals(new BigDecimal("10.00"), mismatch.getDifference());
+
+        assertEquals(3, run.getPartitionsTotal());
+        assertEquals(251, run.getCheckpointWalletId());
+        assertEquals(1L, run.getMismatchCount());
+    }
+
+    @Test
+    void startRun_AfterFailedRun_ShouldResumeFromCheckpoint() throws Exception {
+        // Arrange
+        BalanceReconciliationRun failed = new BalanceReconciliationRun();
+        failed.setId(7L);
+        failed.setMode(ReconciliationMode.FULL);
+        failed.setStatus(ReconciliationStatus.FAILED);
+        failed.setMaxWalletId(250);
+        failed.setCheckpointWalletId(100);
+        failed.setPartitionsTotal(3);
+        failed.setPartitionsDone(2);
+        failed.setMismatchCount(4L);
+        failed.setStartedAt(LocalDateTime.now().minusHours(1));
+        failed.setUpdatedAt(LocalDateTime.now().minusHours(1));
+        when(runRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(failed));
+        when(mismatchRepository.countByRunId(7L)).thenReturn(1L);
+
+        // Act
+        BalanceReconciliationRun run = balanceReconciliationService.startRun(ReconciliationMode.INCREMENTAL);
+
+        // Assert: mismatches recorded above the checkpoint are dropped and only the remaining partitions run
+        assertEquals(7L, run.getId());
+        verify(mismatchRepository).deleteFrom(7L, 100);
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        verify(userWalletRepository, never()).findBalanceMismatches(eq(0), anyInt(), any());
+        verify(userWalletRepository).findBalanceMismatches(eq(100), eq(200), any());
+        verify(userWalletRepository).findBalanceMismatches(eq(200), eq(251), any());
+        verify(mismatchRepository, never()).saveAll(anyList());
+        assertEquals(1L, run.getMismatchCount());
+    }
+}
@@ -1,11 +1,12 @@
 package com.lul.service;
 
 import com.lul.dto.DashboardSummaryDto;
+import com.lul.dto.TransactionTotalsDto;
+import com.lul.enums.RollupGranularity;
 import com.lul.repository.TransactionHistoryRepository;
-import com.lul.repository.UserRepository;
+import com.lul.repository.TransactionRollupRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 class DashboardServiceTest {
@@ -22,23 +24,28 @@ class DashboardServiceTest {
     private TransactionHistoryRepository transactionHistoryRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Mock
+    private ActiveUserService activeUserService;
 
-    @InjectMocks
     private DashboardService dashboardService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        dashboardService = new DashboardService(transactionHistoryRepository, transactionRollupRepository,
+            activeUserService, 900, 0.75);
     }
 
     @Test
     void getDashboardSummary_AllTime_ShouldReturnCorrectValues() {
         // Arrange
-        when(transactionHistoryRepository.count()).thenReturn(1248L);
-        when(transactionHistoryRepository.sumTransactedValue()).thenReturn(new BigDecimal("87654.32"));
-        when(transactionHistoryRepository.sumFees()).thenReturn(new BigDecimal("4328.75"));
-        when(userRepository.countByUpdatedAtAfter(any())).thenReturn(356L);
+        when(transactionRollupRepository.sumTotals(eq(RollupGranularity.DAY), any(), any()))
+            .thenReturn(new TransactionTotalsDto(1240L, new BigDecimal("87500.00"), new BigDecimal("4320.00")));
+        when(transactionHistoryRepository.sumTotalsBetween(any(), any()))
+            .thenReturn(new TransactionTotalsDto(8L, new BigDecimal("154.32"), new BigDecimal("8.75")));
+        when(activeUserService.countActiveUsers(any(), any())).thenReturn(356L);
 
         // Act
         DashboardSummaryDto result = dashboardService.getDashboardSummary(null, null);
@@ -56,10 +63,18 @@ class DashboardServiceTest {
         LocalDateTime startDate = LocalDateTime.of(2023, 1, 1, 0, 0);
         LocalDateTime endDate = LocalDateTime.of(2023, 12, 31, 23, 59);
 
-        when(transactionHistoryRepository.countByCreatedAtBetween(startDate, endDate)).thenReturn(500L);
-        when(transactionHistoryRepository.sumTransactedValueBetween(startDate, endDate)).thenReturn(new BigDecimal("30000.00"));
-        when(transactionHistoryRepository.sumFeesBetween(startDate, endDate)).thenReturn(new BigDecimal("1500.00"));
-        when(userRepository.countByUpdatedAtAfter(any())).thenReturn(300L);
+        LocalDateTime lastDay = LocalDateTime.of(2023, 12, 31, 0, 0);
+        LocalDateTime lastHour = LocalDateTime.of(2023, 12, 31, 23, 0);
+
+        // Whole days from the daily rollups, the last day's closed hours from the hourly rollups
+        // and the partial last hour from the raw table
+        when(transactionRollupRepository.sumTotals(RollupGranularity.DAY, startDate, lastDay))
+            .thenReturn(new TransactionTotalsDto(480L, new BigDecimal("29000.00"), new BigDecimal("1450.00")));
+        when(transactionRollupRepository.sumTotals(RollupGranularity.HOUR, lastDay, lastHour))
+            .thenReturn(new TransactionTotalsDto(15L, new BigDecimal("700.00"), new BigDecimal("35.00")));
+        when(transactionHistoryRepository.sumTotalsBetween(lastHour, endDate.plusNanos(1)))
+            .thenReturn(new TransactionTotalsDto(5L, new BigDecimal("300.00"), new BigDecimal("15.00")));
+        when(activeUserService.countActiveUsers(any(), any())).thenReturn(300L);
 
         // Act
         DashboardSummaryDto result = dashboardService.getDashboardSummary(startDate, endDate);
@@ -74,10 +89,10 @@ class DashboardServiceTest {
     @Test
     void getDashboardSummary_NullValues_ShouldHandleGracefully() {
         // Arrange
-        when(transactionHistoryRepository.count()).thenReturn(0L);
-        when(transactionHistoryRepository.sumTransactedValue()).thenReturn(null);
-        when(transactionHistoryRepository.sumFees()).thenReturn(null);
-        when(userRepository.countByUpdatedAtAfter(any())).thenReturn(0L);
+        when(transactionRollupRepository.sumTotals(any(), any(), any())).thenReturn(null);
+        when(transactionHistoryRepository.sumTotalsBetween(any(), any()))
+            .thenReturn(new TransactionTotalsDto(null, null, null));
+        when(activeUserService.countActiveUsers(any(), any())).thenReturn(0L);
 
         // Act
         DashboardSummaryDto result = dashboardService.getDashboardSummary(null, null);
@@ -0,0 +1,132 @@
+package com.lul.service;
+
+import com.lul.dto.DashboardSeriesDto;
+import com.lul.dto.DashboardTimeSeriesDto;
+import com.lul.dto.RollupBucketDto;
+import com.lul.enums.RollupGranularity;
+import com.lul.enums.TimeSeriesDimension;
+import com.lul.enums.TimeSeriesInterval;
+import com.lul.exception.BadRequestException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.TransactionRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardTimeSeriesServiceTest {
+
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime NEXT_JAN_1 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    private DashboardTimeSeriesService dashboardTimeSeriesService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dashboardTimeSeriesService = new DashboardTimeSeriesService(
+            transactionRollupRepository, transactionHistoryRepository, 400, 10, 1000);
+    }
+
+    @Test
+    void getTimeSeries_HourlyYear_ShouldDownsampleAndServeClosedBucketsFromCache() {
+        // Arrange
+        when(transactionRollupRepository.findBuckets(RollupGranularity.DAY, JAN_1, NEXT_JAN_1)).thenReturn(List.of(
+            row(JAN_1, "UGX", "UGX", 10, "1000.00"),
+            row(JAN_1, "UGX", "USD", 2, "500.00"),
+            row(JAN_1.plusDays(63), "USD", "USD", 1, "20.00")
+        ));
+
+        // Act
+        DashboardTimeSeriesDto first = dashboardTimeSeriesService.getTimeSeries(
+            JAN_1, NEXT_JAN_1, TimeSeriesInterval.HOUR, TimeSeriesDimension.CORRIDOR, null, null);
+        DashboardTimeSeriesDto second = dashboardTimeSeriesService.getTimeSeries(
+            JAN_1, NEXT_JAN_1, TimeSeriesInterval.HOUR, TimeSeriesDimension.CORRIDOR, null, null);
+
+        // Assert
+        assertEquals(TimeSeriesInterval.DAY, first.getInterval());
+        assertEquals(3, first.getSeries().size());
+        DashboardSeriesDto fx = first.getSeries().get(1);
+        assertEquals("UGX-USD", fx.getKey());
+        assertEquals(366, fx.getPoints().size());
+        assertEquals(2L, fx.getPoints().get(0).getCount());
+        assertEquals(0L, fx.getPoints().get(1).getCount());
+        assertEquals(first, second);
+        verify(transactionRollupRepository, times(1)).findBuckets(any(), any(), any());
+        verify(transactionHistoryRepository, never()).sumByDimensionBetween(any(), any());
+    }
+
+    @Test
+    void evictRange_ShouldReloadOnlyTheRebuiltBuckets() {
+        // Arrange: two cached daily buckets, then the rollups of the second day are rebuilt
+        LocalDateTime jan3 = JAN_1.plusDays(2);
+        when(transactionRollupRepository.findBuckets(RollupGranularity.DAY, JAN_1, jan3)).thenReturn(List.of(
+            row(JAN_1.plusDays(1), "UGX", "UGX", 1, "100.00")
+        ));
+        dashboardTimeSeriesService.getTimeSeries(JAN_1, jan3, TimeSeriesInterval.DAY, TimeSeriesDimension.NONE, null, null);
+        when(transactionRollupRepository.findBuckets(RollupGranularity.DAY, JAN_1.plusDays(1), jan3)).thenReturn(List.of(
+            row(JAN_1.plusDays(1), "UGX", "UGX", 3, "300.00")
+        ));
+
+        // Act
+        dashboardTimeSeriesService.evictRange(JAN_1.plusDays(1).plusHours(5), JAN_1.plusDays(1).plusHours(8));
+        DashboardTimeSeriesDto result = dashboardTimeSeriesService.getTimeSeries(
+            JAN_1, jan3, TimeSeriesInterval.DAY, TimeSeriesDimension.NONE, null, null);
+
+        // Assert
+        assertEquals(3L, result.getSeries().get(0).getPoints().get(1).getCount());
+        verify(transactionRollupRepository, times(1)).findBuckets(RollupGranularity.DAY, JAN_1.plusDays(1), jan3);
+    }
+
+    @Test
+    void getTimeSeries_Weekly_ShouldSumDailyRollupsPerWeek() {
+        // Arrange: 2024-01-01 is a Monday
+        when(transactionRollupRepository.findBuckets(RollupGranularity.DAY, JAN_1, JAN_1.plusWeeks(2))).thenReturn(List.of(
+            row(JAN_1, "UGX", "UGX", 10, "1000.00"),
+            row(JAN_1.plusDays(6), "UGX", "UGX", 5, "250.50"),
+            row(JAN_1.plusDays(7), "USD", "USD", 1, "20.00")
+        ));
+
+        // Act
+        DashboardTimeSeriesDto result = dashboardTimeSeriesService.getTimeSeries(
+            JAN_1.plusHours(5), JAN_1.plusDays(10), TimeSeriesInterval.WEEK, TimeSeriesDimension.NONE, "UGX", null);
+
+        // Assert
+        assertEquals(JAN_1, result.getFrom());
+        assertEquals(JAN_1.plusWeeks(2), result.getTo());
+        assertEquals(1, result.getSeries().size());
+        assertEquals(15L, result.getSeries().get(0).getPoints().get(0).getCount());
+        assertEquals(new BigDecimal("1250.50"), result.getSeries().get(0).getPoints().get(0).getValue());
+        assertEquals(0L, result.getSeries().get(0).getPoints().get(1).getCount());
+    }
+
+    @Test
+    void getTimeSeries_InvalidRange_ShouldThrow() {
+        assertThrows(BadRequestException.class, () -> dashboardTimeSeriesService.getTimeSeries(
+            NEXT_JAN_1, JAN_1, TimeSeriesInterval.DAY, TimeSeriesDimension.NONE, null, null));
+    }
+
+    private static RollupBucketDto row(LocalDateTime bucketStart, String currency, String receiverCurrency,
+                                       long count, String value) {
+        return new RollupBucketDto(bucketStart, currency, receiverCurrency, 1, count,
+            new BigDecimal(value), BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,181 @@
+package com.lul.service;
+
+import com.lul.dto.PayoutBatchRequest;
+import com.lul.dto.PayoutBatchResult;
+import com.lul.dto.PayoutItemDto;
+import com.lul.entity.DisbursementBatch;
+import com.lul.entity.DisbursementStage;
+import com.lul.enums.DisbursementBatchStatus;
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.repository.DisbursementBatchRepository;
+import com.lul.repository.DisbursementStageRepository;
+import com.lul.repository.TransactionHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DisbursementBatchServiceTest {
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Mock
+    private DisbursementBatchRepository batchRepository;
+
+    @Mock
+    private DisbursementStageRepository disbursementStageRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<PayoutBatchRequest> submitted = new ArrayList<>();
+    private PayoutBatchResult payoutResult = new PayoutBatchResult("ref-1", List.of());
+    private DisbursementBatchService disbursementBatchService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // Local stub standing in for the payout provider
+        PayoutAdapter payoutAdapter = request -> {
+            submitted.add(request);
+            return payoutResult;
+        };
+        disbursementBatchService = new DisbursementBatchService(transactionHistoryRepository, batchRepository,
+            disbursementStageRepository, payoutAdapter, transactionTemplate, eventPublisher, new SimpleMeterRegistry(),
+            100, 2, 2, 1, 3, 1000, 60000, "Disbursed", "Failed");
+
+        AtomicInteger batchIds = new AtomicInteger();
+        when(batchRepository.save(any(DisbursementBatch.class))).thenAnswer(invocation -> {
+            DisbursementBatch batch = invocation.getArgument(0);
+            if (batch.getId() == null) {
+                batch.setId(batchIds.incrementAndGet());
+            }
+            return batch;
+        });
+        when(disbursementStageRepository.findByStageName("Disbursed")).thenReturn(Optional.of(stage(5, "Disbursed")));
+        when(disbursementStageRepository.findByStageName("Failed")).thenReturn(Optional.of(stage(6, "Failed")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        disbursementBatchService.shutdown();
+    }
+
+    @Test
+    void claimBatches_ShouldGroupByCorridorAndSplitAtMaxSize() {
+        // Arrange: three UG/UGX transfers and one KE/KES transfer, with at most two per batch
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "UG", "UGX", new BigDecimal("10.00")});
+        rows.add(new Object[]{2, "KE", "KES", new BigDecimal("20.00")});
+        rows.add(new Object[]{3, "UG", "UGX", new BigDecimal("30.00")});
+        rows.add(new Object[]{4, "UG", "UGX", new BigDecimal("40.00")});
+        when(transactionHistoryRepository.claimUnbatchedDisbursements(100)).thenReturn(rows);
+
+        // Act
+        List<DisbursementBatch> batches = disbursementBatchService.claimBatches();
+
+        // Assert
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(0).getItemCount());
+        assertEquals(new BigDecimal("40.00"), batches.get(0).getTotalAmount());
+        assertEquals("KE", batches.get(2).getCountry());
+        verify(transactionHistoryRepository).assignBatch(1, List.of(1, 3));
+        verify(transactionHistoryRepository).assignBatch(2, List.of(4));
+        verify(transactionHistoryRepository).assignBatch(3, List.of(2));
+    }
+
+    @Test
+    void processBatch_ShouldAdvanceWholeBatchInOneUpdate() {
+        // Arrange
+        DisbursementBatch batch = leasedBatch(7, 1);
+        when(transactionHistoryRepository.findPayoutItems(7)).thenReturn(List.of(item(101L), item(102L)));
+        payoutResult = new PayoutBatchResult("ref-7", List.of(102L));
+        List<Object[]> moved = new ArrayList<>();
+        moved.add(new Object[]{101L, 11, 5});
+        moved.add(new Object[]{102L, 12, 6});
+        when(transactionHistoryRepository.advanceBatchStage(eq(7), any(), eq(5), eq(6))).thenReturn(moved);
+
+        // Act
+        disbursementBatchService.processBatch(7);
+
+        // Assert
+        assertEquals(1, submitted.size());
+        assertEquals(2, submitted.get(0).getItems().size());
+        verify(transactionHistoryRepository, times(1)).advanceBatchStage(eq(7), eq(List.of(102L, 0L)), eq(5), eq(6));
+        assertEquals(DisbursementBatchStatus.COMPLETED, batch.getStatus());
+        assertEquals("ref-7", batch.getProviderReference());
+
+        ArgumentCaptor<DisbursementStageChangedEvent> events = ArgumentCaptor.forClass(DisbursementStageChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals("Disbursed", events.getAllValues().get(0).getStageName());
+        assertEquals(6, events.getAllValues().get(1).getStageId());
+    }
+
+    @Test
+    void processBatch_ProviderUnavailable_ShouldRetryLater() {
+        // Arrange
+        DisbursementBatch batch = leasedBatch(8, 1);
+        when(transactionHistoryRepository.findPayoutItems(8)).thenReturn(List.of(item(201L)));
+        disbursementBatchService = new DisbursementBatchService(transactionHistoryRepository, batchRepository,
+            disbursementStageRepository, request -> {
+                throw new IllegalStateException("provider down");
+            }, new TransactionTemplate(mock(PlatformTransactionManager.class)), eventPublisher,
+            new SimpleMeterRegistry(), 100, 2, 2, 1, 3, 1000, 60000, "Disbursed", "Failed");
+
+        // Act
+        disbursementBatchService.processBatch(8);
+
+        // Assert
+        assertEquals(DisbursementBatchStatus.PENDING, batch.getStatus());
+        assertEquals("provider down", batch.getLastError());
+        verify(transactionHistoryRepository, never()).advanceBatchStage(anyInt(), any(), anyInt(), anyInt());
+    }
+
+    private DisbursementBatch leasedBatch(Integer id, int attempts) {
+        DisbursementBatch batch = new DisbursementBatch();
+        batch.setId(id);
+        batch.setCountry("UG");
+        batch.setCurrency("UGX");
+        batch.setStatus(DisbursementBatchStatus.PENDING);
+        batch.setAttempts(attempts);
+        when(batchRepository.acquireLease(eq(id), any(), any())).thenReturn(1);
+        when(batchRepository.findById(id)).thenReturn(Optional.of(batch));
+        return batch;
+    }
+
+    private static PayoutItemDto item(Long transactionId) {
+        return new PayoutItemDto(transactionId, new BigDecimal("10.00"), "UGX", "Jane Doe", "+256700000000",
+            "NATIONAL_ID", "CM123", "UG", "Kampala");
+    }
+
+    private static DisbursementStage stage(Integer id, String name) {
+        DisbursementStage stage = new DisbursementStage();
+        stage.setId(id);
+        stage.setStageName(name);
+        return stage;
+    }
+}
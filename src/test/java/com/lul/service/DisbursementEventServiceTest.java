@@ -0,0 +1,76 @@
+package com.lul.service;
+
+import com.lul.event.DisbursementStageChangedEvent;
+import com.lul.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class DisbursementEventServiceTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    private DisbursementEventService disbursementEventService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        disbursementEventService = new DisbursementEventService(notificationService, new SimpleMeterRegistry(),
+            60000, 2, 3, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        disbursementEventService.shutdown();
+    }
+
+    @Test
+    void onDisbursementStageChanged_ShouldSendSilentDataMessageToSender() {
+        // Arrange
+        DisbursementStageChangedEvent event = DisbursementStageChangedEvent.builder()
+            .transactionId(15L)
+            .senderId(42)
+            .previousStageId(1)
+            .stageId(2)
+            .stageName("Processing")
+            .changedAt(LocalDateTime.now())
+            .build();
+
+        // Act: the sender has no open stream, FCM still reaches their devices
+        disbursementEventService.onDisbursementStageChanged(event);
+
+        // Assert
+        verify(notificationService, timeout(2000)).sendDataMessage(eq(42L), eq(Map.of(
+            "type", DisbursementEventService.FCM_TYPE,
+            "transactionId", "15",
+            "stageId", "2",
+            "stageName", "Processing")));
+    }
+
+    @Test
+    void subscribe_ShouldCloseOldestStreamPerUserAndRejectWhenFull() {
+        // Act
+        disbursementEventService.subscribe(1L);
+        disbursementEventService.subscribe(1L);
+        disbursementEventService.subscribe(1L);
+        disbursementEventService.subscribe(2L);
+
+        // Assert: user 1 keeps two streams, and the third stream overall fills the service
+        assertEquals(2, disbursementEventService.openStreams(1L));
+        assertEquals(1, disbursementEventService.openStreams(2L));
+        assertThrows(TooManyRequestsException.class, () -> disbursementEventService.subscribe(3L));
+    }
+}
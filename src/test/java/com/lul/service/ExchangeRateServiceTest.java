@@ -0,0 +1,164 @@
+package com.lul.service;
+
+import com.lul.dto.FxRateDto;
+import com.lul.entity.ExchangeRate;
+import com.lul.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+class ExchangeRateServiceTest {
+
+    private static final int UGX = 1;
+    private static final int USD = 2;
+    private static final int KES = 4;
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private ExchangeRateRepository exchangeRateRepository;
+
+    private ExchangeRateService exchangeRateService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exchangeRateService = new ExchangeRateService(exchangeRateRepository, 2);
+    }
+
+    @Test
+    void findRate_ShouldReturnLatestRateEffectiveAtInstant() {
+        // Arrange
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+            rate(1, USD, UGX, "3700", JAN_1, null),
+            rate(2, USD, UGX, "3750", JAN_1.plusDays(10), null),
+            rate(3, USD, UGX, "3800", JAN_1.plusDays(20), null)
+        ));
+        exchangeRateService.reloadAll();
+
+        // Act
+        Optional<FxRateDto> beforeAll = exchangeRateService.findRate(USD, UGX, JAN_1.minusDays(1));
+        Optional<FxRateDto> midMonth = exchangeRateService.findRate(USD, UGX, JAN_1.plusDays(15));
+
+        // Assert
+        assertFalse(beforeAll.isPresent());
+        assertTrue(midMonth.isPresent());
+        assertEquals(2, midMonth.get().getExchangeRateId());
+        assertEquals(new BigDecimal("3750"), midMonth.get().getRate());
+    }
+
+    @Test
+    void findRate_ShouldIgnoreExpiredRate() {
+        // Arrange
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+            rate(1, USD, KES, "129.5", JAN_1, JAN_1.plusDays(5))
+        ));
+        exchangeRateService.reloadAll();
+
+        // Act & Assert
+        assertTrue(exchangeRateService.findRate(USD, KES, JAN_1.plusDays(4)).isPresent());
+        assertFalse(exchangeRateService.findRate(USD, KES, JAN_1.plusDays(5)).isPresent());
+    }
+
+    @Test
+    void findRate_ShouldInvertOppositePair_WhenNoDirectRate() {
+        // Arrange
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+            rate(1, USD, UGX, "4000", JAN_1, null)
+        ));
+        exchangeRateService.reloadAll();
+
+        // Act
+        FxRateDto result = exchangeRateService.findRate(UGX, USD, JAN_1.plusDays(1)).orElseThrow();
+
+        // Assert
+        assertTrue(result.isInverted());
+        assertEquals(1, result.getExchangeRateId());
+        assertEquals(new BigDecimal("0.000250"), result.getRate());
+        assertEquals(new BigDecimal("25.00"), exchangeRateService.convert(new BigDecimal("100000"), result));
+    }
+
+    @Test
+    void refreshNewRates_ShouldIndexOnlyRowsAfterLastSeenId() {
+        // Arrange: the overlap window re-reads rate 1, which is already indexed
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+            rate(1, USD, UGX, "3700", JAN_1, null)
+        ));
+        exchangeRateService.reloadAll();
+        when(exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(anyInt())).thenReturn(List.of());
+        when(exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(0)).thenReturn(List.of(
+            rate(1, USD, UGX, "3700", JAN_1, null),
+            rate(2, USD, UGX, "3900", JAN_1.plusDays(1), null)
+        ));
+
+        // Act
+        exchangeRateService.refreshNewRates();
+
+        // Assert
+        assertEquals(new BigDecimal("3900"),
+            exchangeRateService.findRate(USD, UGX, JAN_1.plusDays(2)).orElseThrow().getRate());
+        assertEquals(new BigDecimal("3700"),
+            exchangeRateService.findRate(USD, UGX, JAN_1.plusHours(12)).orElseThrow().getRate());
+    }
+
+    @Test
+    void refreshNewRates_LowerIdCommittedLate_ShouldBeIndexedByTheNextRefresh() {
+        // Arrange: rates 4 and 6 are indexed; rate 5 commits after them
+        when(exchangeRateRepository.findAll()).thenReturn(List.of(
+            rate(4, USD, UGX, "3700", JAN_1, null),
+            rate(6, USD, KES, "129.5", JAN_1, null)
+        ));
+        exchangeRateService.reloadAll();
+        when(exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(anyInt())).thenReturn(List.of());
+        when(exchangeRateRepository.findByIdGreaterThanOrderByIdAsc(4)).thenReturn(List.of(
+            rate(5, USD, UGX, "3900", JAN_1.plusDays(1), null),
+            rate(6, USD, KES, "129.5", JAN_1, null)
+        ));
+
+        // Act
+        exchangeRateService.refreshNewRates();
+
+        // Assert
+        assertEquals(new BigDecimal("3900"),
+            exchangeRateService.findRate(USD, UGX, JAN_1.plusDays(2)).orElseThrow().getRate());
+    }
+
+    @Test
+    void reloadAll_RateRegisteredWhileReading_ShouldBeKept() {
+        // Arrange: a new rate is registered after the snapshot was read, before the index is swapped
+        ExchangeRate registered = rate(2, USD, UGX, "3900", JAN_1.plusDays(1), null);
+        when(exchangeRateRepository.findAll()).thenAnswer(invocation -> {
+            exchangeRateService.register(registered);
+            return List.of(rate(1, USD, UGX, "3700", JAN_1, null));
+        });
+
+        // Act
+        exchangeRateService.reloadAll();
+
+        // Assert
+        assertEquals(new BigDecimal("3900"),
+            exchangeRateService.findRate(USD, UGX, JAN_1.plusDays(2)).orElseThrow().getRate());
+    }
+
+    private ExchangeRate rate(int id, int from, int to, String value, LocalDateTime effective, LocalDateTime expiry) {
+        ExchangeRate rate = new ExchangeRate();
+        rate.setId(id);
+        rate.setFromWalletId(from);
+        rate.setToWalletId(to);
+        rate.setRate(new BigDecimal(value));
+        rate.setEffectiveDate(effective);
+        rate.setExpiryDate(expiry);
+        return rate;
+    }
+}
@@ -0,0 +1,63 @@
+package com.lul.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void cardinality_ShouldEstimateDistinctValuesWithinTwoPercent() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+
+        // Act: every user is seen three times
+        for (int pass = 0; pass < 3; pass++) {
+            for (long userId = 1; userId <= 200_000; userId++) {
+                sketch.add(userId);
+            }
+        }
+
+        // Assert
+        long estimate = sketch.cardinality();
+        assertTrue(Math.abs(estimate - 200_000) < 4_000, "Estimate was " + estimate);
+    }
+
+    @Test
+    void merge_ShouldEstimateUnionOfOverlappingDays() {
+        // Arrange: two days of 10k users each, sharing 5k
+        HyperLogLog monday = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        HyperLogLog tuesday = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (long userId = 1; userId <= 10_000; userId++) {
+            monday.add(userId);
+            tuesday.add(userId + 5_000);
+        }
+
+        // Act
+        HyperLogLog week = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        week.merge(monday);
+        week.merge(tuesday);
+
+        // Assert
+        long estimate = week.cardinality();
+        assertTrue(Math.abs(estimate - 15_000) < 300, "Estimate was " + estimate);
+    }
+
+    @Test
+    void toBytes_ShouldRoundTripPackedRegisters() {
+        // Arrange
+        HyperLogLog sketch = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+        for (long userId = 1; userId <= 50_000; userId++) {
+            sketch.add(userId * 7919);
+        }
+
+        // Act
+        byte[] packed = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(HyperLogLog.DEFAULT_PRECISION, packed);
+
+        // Assert
+        assertEquals(12 * 1024, packed.length);
+        assertEquals(sketch.cardinality(), restored.cardinality());
+    }
+}
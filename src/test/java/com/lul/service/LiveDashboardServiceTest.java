@@ -0,0 +1,161 @@
+package com.lul.service;
+
+import com.lul.dto.LiveDashboardEntryDto;
+import com.lul.dto.LiveDashboardEventDto;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.TransactionRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LiveDashboardServiceTest {
+
+    @Mock
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    private LiveDashboardService liveDashboardService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        liveDashboardService = new LiveDashboardService(transactionRollupRepository, transactionHistoryRepository,
+            new SimpleMeterRegistry(), 60000, 10, 4, 2);
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        liveDashboardService.shutdown();
+    }
+
+    @Test
+    void publishDeltas_ConcurrentTransfers_ShouldCountEveryTransferWithoutDatabaseReads() throws Exception {
+        // Arrange
+        seedEmpty();
+        ExecutorService transfers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            String currency = i % 2 == 0 ? "UGX" : "USD";
+            transfers.execute(() -> liveDashboardService.onTransferCompleted(transfer(currency, "10.25", "0.20")));
+        }
+        transfers.shutdown();
+        assertTrue(transfers.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Act
+        liveDashboardService.publishDeltas();
+
+        // Assert
+        LiveDashboardEventDto snapshot = liveDashboardService.getSnapshot();
+        assertEquals(1L, snapshot.getSequence());
+        assertEquals(2, snapshot.getEntries().size());
+        for (LiveDashboardEntryDto entry : snapshot.getEntries()) {
+            assertEquals(4_000L, entry.getCount());
+            assertEquals(new BigDecimal("41000.00"), entry.getValue());
+            assertEquals(new BigDecimal("800.00"), entry.getFees());
+        }
+        verifyNoInteractions(transactionRollupRepository, transactionHistoryRepository);
+    }
+
+    @Test
+    void getSnapshot_ShouldOnlyIncludePublishedTotals() {
+        // Arrange
+        seedEmpty();
+        liveDashboardService.onTransferCompleted(transfer("UGX", "100.00", "2.00"));
+        liveDashboardService.publishDeltas();
+
+        // Act: a transfer after the last push is not in the snapshot until the next delta
+        liveDashboardService.onTransferCompleted(transfer("UGX", "50.00", "1.00"));
+        LiveDashboardEventDto beforePush = liveDashboardService.getSnapshot();
+        liveDashboardService.publishDeltas();
+        LiveDashboardEventDto afterPush = liveDashboardService.getSnapshot();
+        liveDashboardService.publishDeltas();
+
+        // Assert
+        assertEquals(1L, beforePush.getSequence());
+        assertEquals(new BigDecimal("100.00"), beforePush.getEntries().get(0).getValue());
+        assertEquals(2L, afterPush.getSequence());
+        assertEquals(2L, afterPush.getEntries().get(0).getCount());
+        assertEquals(new BigDecimal("150.00"), afterPush.getEntries().get(0).getValue());
+        // Nothing changed, so no new delta
+        assertEquals(2L, liveDashboardService.getSnapshot().getSequence());
+    }
+
+    @Test
+    void seedFromDatabase_TransferCommittedBeforeSeed_ShouldBeCountedOnce() {
+        // Arrange: one transfer is committed before the seed and also read by it, another one is created
+        // after the seed started
+        LocalDateTime now = LocalDateTime.now();
+        liveDashboardService.onTransferCompleted(transfer("UGX", "100.00", "2.00", now.minusSeconds(5)));
+        liveDashboardService.onTransferCompleted(transfer("UGX", "50.00", "1.00", now.plusMinutes(1)));
+        when(transactionHistoryRepository.sumByDimensionBetween(any(), any())).thenReturn(List.<Object[]>of(
+            new Object[]{"UGX", "UGX", 1, 1L, new BigDecimal("100.00"), new BigDecimal("2.00")}
+        ));
+
+        // Act
+        liveDashboardService.seedFromDatabase();
+        liveDashboardService.publishDeltas();
+
+        // Assert
+        LiveDashboardEntryDto entry = liveDashboardService.getSnapshot().getEntries().get(0);
+        assertEquals(2L, entry.getCount());
+        assertEquals(new BigDecimal("150.00"), entry.getValue());
+    }
+
+    @Test
+    void publishDeltas_TransferCreatedOnAnEarlierDay_ShouldNotBeCountedToday() {
+        // Arrange: a transfer created yesterday settles today
+        seedEmpty();
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        liveDashboardService.onTransferCompleted(transfer("UGX", "100.00", "2.00", yesterday));
+        liveDashboardService.onTransferCompleted(transfer("UGX", "50.00", "1.00", LocalDateTime.now()));
+
+        // Act
+        liveDashboardService.publishDeltas();
+
+        // Assert
+        LiveDashboardEntryDto entry = liveDashboardService.getSnapshot().getEntries().get(0);
+        assertEquals(1L, entry.getCount());
+        assertEquals(new BigDecimal("50.00"), entry.getValue());
+    }
+
+    private void seedEmpty() {
+        liveDashboardService.seedFromDatabase();
+        clearInvocations(transactionRollupRepository, transactionHistoryRepository);
+    }
+
+    private static TransferCompletedEvent transfer(String currency, String amount, String fee) {
+        return transfer(currency, amount, fee, null);
+    }
+
+    private static TransferCompletedEvent transfer(String currency, String amount, String fee, LocalDateTime createdAt) {
+        return TransferCompletedEvent.builder()
+            .senderId(1)
+            .receiverId(2)
+            .transactionTypeId(1)
+            .amount(new BigDecimal(amount))
+            .fee(new BigDecimal(fee))
+            .currency(currency)
+            .createdAt(createdAt)
+            .build();
+    }
+}
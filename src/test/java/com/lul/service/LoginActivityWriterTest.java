@@ -0,0 +1,123 @@
+package com.lul.service;
+
+import com.lul.entity.AccessHistory;
+import com.lul.entity.FcmToken;
+import com.lul.repository.FcmTokenRepository;
+import com.lul.service.LoginActivityWriter.LoginActivity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LoginActivityWriterTest {
+
+    @Mock
+    private AccessHistoryService accessHistoryService;
+    @Mock
+    private FcmTokenRepository fcmTokenRepository;
+    @Mock
+    private NotificationService notificationService;
+
+    private LoginActivityWriter loginActivityWriter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        loginActivityWriter = new LoginActivityWriter(accessHistoryService, fcmTokenRepository, notificationService,
+            transactionTemplate, new SimpleMeterRegistry(), 100, 100, 0, 1, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginActivityWriter.shutdown();
+    }
+
+    @Test
+    void writeBatch_OneActivityFails_ShouldWriteTheOthers() {
+        // Arrange: writing user 2's access history fails
+        doThrow(new IllegalStateException("constraint violation")).when(accessHistoryService)
+            .recordAccesses(argThat(accesses -> accesses.stream().anyMatch(access -> access.getUserId() == 2L)));
+
+        // Act
+        loginActivityWriter.writeBatch(List.of(activity(1L), activity(2L), activity(3L), activity(4L)));
+
+        // Assert: halves [1,2] and [3,4], then [1] and [2] alone
+        verify(accessHistoryService, times(5)).recordAccesses(anyList());
+        verify(notificationService, timeout(1000)).sendNotification(eq(1L), anyString(), anyString(), anyMap());
+        verify(notificationService, timeout(1000)).sendNotification(eq(3L), anyString(), anyString(), anyMap());
+        verify(notificationService, timeout(1000)).sendNotification(eq(4L), anyString(), anyString(), anyMap());
+        verify(notificationService, never()).sendNotification(eq(2L), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void writeBatch_FcmToken_ShouldDeactivateOldTokensOfDeviceAndSaveIt() {
+        // Act
+        loginActivityWriter.writeBatch(List.of(activity(1L)));
+
+        // Assert
+        verify(fcmTokenRepository).deactivateUserTokensForDevice(1L, "device-1");
+        ArgumentCaptor<FcmToken> saved = ArgumentCaptor.forClass(FcmToken.class);
+        verify(fcmTokenRepository).save(saved.capture());
+        assertEquals("fcm-1", saved.getValue().getToken());
+        assertEquals("device-1", saved.getValue().getDeviceId());
+        assertTrue(saved.getValue().isActive());
+    }
+
+    @Test
+    void writeBatch_Notification_ShouldBeSentOffTheCallingThread() {
+        // Arrange: the overflow path, where a login thread writes its own activity
+        Set<Thread> senders = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> senders.add(Thread.currentThread())).when(notificationService)
+            .sendNotification(eq(1L), anyString(), anyString(), anyMap());
+
+        // Act
+        loginActivityWriter.writeBatch(List.of(activity(1L)));
+
+        // Assert
+        verify(notificationService, timeout(1000)).sendNotification(eq(1L), anyString(), anyString(), anyMap());
+        assertFalse(senders.contains(Thread.currentThread()));
+    }
+
+    private static LoginActivity activity(Long userId) {
+        AccessHistory accessHistory = new AccessHistory();
+        accessHistory.setUserId(userId);
+        accessHistory.setDeviceId("device-" + userId);
+        accessHistory.setIpAddress("10.0.0.1");
+        accessHistory.setOs("Android");
+        return LoginActivity.builder()
+            .userId(userId)
+            .accessHistory(accessHistory)
+            .deviceId("device-" + userId)
+            .deviceName("Pixel")
+            .fcmToken("fcm-" + userId)
+            .loggedInAt(LocalDateTime.now())
+            .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.lul.service;
+
+import com.lul.dto.NonWalletTransferStatusDto;
+import com.lul.event.DisbursementStageChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NonWalletTransferStatusCacheTest {
+
+    private static final Long TRANSACTION_ID = 1001L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private NonWalletTransferStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NonWalletTransferStatusCache(Duration.ofSeconds(5), 100, clock::get);
+    }
+
+    @Test
+    void get_WithinTtl_ShouldReturnCachedStatusUntilItExpires() {
+        // Arrange
+        cache.put(TRANSACTION_ID, status(2), cache.now());
+
+        // Act
+        clock.set(Duration.ofSeconds(4).toNanos());
+        boolean cachedBeforeExpiry = cache.get(TRANSACTION_ID).isPresent();
+        clock.set(Duration.ofSeconds(5).toNanos());
+        boolean cachedAfterExpiry = cache.get(TRANSACTION_ID).isPresent();
+
+        // Assert
+        assertTrue(cachedBeforeExpiry);
+        assertFalse(cachedAfterExpiry);
+    }
+
+    @Test
+    void onDisbursementStageChanged_ShouldEvictAndRejectStatusReadBeforeTheChange() {
+        // Arrange: a poll starts reading the old stage, then the stage change commits
+        cache.put(TRANSACTION_ID, status(2), cache.now());
+        clock.set(10);
+        long staleReadStartedAt = cache.now();
+        clock.set(20);
+        cache.onDisbursementStageChanged(DisbursementStageChangedEvent.builder()
+            .transactionId(TRANSACTION_ID)
+            .previousStageId(2)
+            .stageId(3)
+            .build());
+
+        // Act
+        clock.set(30);
+        cache.put(TRANSACTION_ID, status(2), staleReadStartedAt);
+        boolean staleCached = cache.get(TRANSACTION_ID).isPresent();
+        long freshReadStartedAt = cache.now();
+        cache.put(TRANSACTION_ID, status(3), freshReadStartedAt);
+
+        // Assert
+        assertFalse(staleCached);
+        assertEquals(3, cache.get(TRANSACTION_ID).orElseThrow().getDisbursementStageId());
+    }
+
+    private static NonWalletTransferStatusDto status(int stageId) {
+        NonWalletTransferStatusDto status = new NonWalletTransferStatusDto();
+        status.setTransactionId(TRANSACTION_ID);
+        status.setSenderId(7);
+        status.setDisbursementStageId(stageId);
+        return status;
+    }
+}
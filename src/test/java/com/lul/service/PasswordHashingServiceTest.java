@@ -0,0 +1,103 @@
+package com.lul.service;
+
+import com.lul.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+
+    private PasswordHashingService hashingService;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (hashingService != null) {
+            hashingService.shutdown();
+        }
+        if (callers != null) {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void matches_ShouldVerifyOnHashingPool() {
+        // Arrange
+        PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        hashingService = new PasswordHashingService(encoder, new SimpleMeterRegistry(), 4, 2, 8, 5000);
+        String hash = hashingService.encode("1234");
+
+        // Act & Assert
+        assertTrue(hashingService.matches("1234", hash));
+        assertFalse(hashingService.matches("4321", hash));
+        assertFalse(hashingService.matches("1234", null));
+    }
+
+    @Test
+    void submit_WhenPoolSaturated_ShouldRejectImmediately() throws Exception {
+        // Arrange: one hashing thread, one queue slot, and an encoder that blocks until released
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hashingService = new PasswordHashingService(blockingEncoder, meterRegistry, 4, 1, 1, 5000);
+        callers = Executors.newFixedThreadPool(2);
+
+        callers.submit(() -> hashingService.matches("a", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> hashingService.matches("b", "hash"));
+        waitForQueueSize(meterRegistry, 1);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> hashingService.matches("c", "hash"));
+        release.countDown();
+    }
+
+    @Test
+    void needsRehash_ShouldDetectCostFactorChanges() {
+        // Arrange
+        hashingService = new PasswordHashingService(new BCryptPasswordEncoder(5), new SimpleMeterRegistry(), 5, 1, 4, 5000);
+        String cost4Hash = new BCryptPasswordEncoder(4).encode("secret");
+        String cost5Hash = new BCryptPasswordEncoder(5).encode("secret");
+        String cost6Hash = new BCryptPasswordEncoder(6).encode("secret");
+
+        // Act & Assert
+        assertTrue(hashingService.needsRehash(cost4Hash));
+        assertFalse(hashingService.needsRehash(cost5Hash));
+        assertTrue(hashingService.needsRehash(cost6Hash));
+        assertFalse(hashingService.needsRehash(null));
+    }
+
+    private void waitForQueueSize(SimpleMeterRegistry meterRegistry, int expected) throws InterruptedException {
+        for (int i = 0; i < 250; i++) {
+            if (meterRegistry.get("lulpay.hashing.queue.size").gauge().value() >= expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals(expected, (int) meterRegistry.get("lulpay.hashing.queue.size").gauge().value());
+    }
+}
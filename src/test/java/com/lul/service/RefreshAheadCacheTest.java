@@ -0,0 +1,116 @@
+package com.lul.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshAheadCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    @Test
+    void get_ConcurrentMisses_ShouldRunLoaderOnce() throws Exception {
+        // Arrange
+        RefreshAheadCache<String, Integer> cache = new RefreshAheadCache<>(TTL, 0.75, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        // Act: the first caller blocks inside the loader while the others arrive
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add(callers.submit(() -> cache.get("summary", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            awaitQuietly(release);
+            return 42;
+        })));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            results.add(callers.submit(() -> cache.get("summary", () -> {
+                loads.incrementAndGet();
+                return -1;
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<Integer> result : results) {
+            assertEquals(42, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        callers.shutdownNow();
+    }
+
+    @Test
+    void get_PastRefreshAhead_ShouldServeCurrentValueAndReloadInBackground() {
+        // Arrange
+        AtomicLong clock = new AtomicLong();
+        List<Runnable> backgroundTasks = new ArrayList<>();
+        RefreshAheadCache<String, Integer> cache = new RefreshAheadCache<>(TTL, 0.75, backgroundTasks::add, clock::get);
+        AtomicInteger version = new AtomicInteger();
+        cache.get("summary", version::incrementAndGet);
+
+        // Act
+        clock.set(Duration.ofMinutes(12).toNanos());
+        int served = cache.get("summary", version::incrementAndGet);
+        int servedAgain = cache.get("summary", version::incrementAndGet);
+        backgroundTasks.forEach(Runnable::run);
+        int refreshed = cache.get("summary", version::incrementAndGet);
+
+        // Assert: one background reload, callers never waited for it
+        assertEquals(1, served);
+        assertEquals(1, servedAgain);
+        assertEquals(1, backgroundTasks.size());
+        assertEquals(2, refreshed);
+    }
+
+    @Test
+    void refreshDue_ShouldDropEntriesNotReadForATtl() {
+        // Arrange
+        AtomicLong clock = new AtomicLong();
+        RefreshAheadCache<String, Integer> cache = new RefreshAheadCache<>(TTL, 0.75, Runnable::run, clock::get);
+        cache.get("idle", () -> 1);
+
+        // Act
+        clock.set(TTL.toNanos());
+        cache.refreshDue();
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_LoaderFailure_ShouldPropagateAndNotCache() {
+        // Arrange
+        RefreshAheadCache<String, Integer> cache = new RefreshAheadCache<>(TTL, 0.75, Runnable::run);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> cache.get("summary", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+        assertEquals(7, cache.get("summary", () -> 7));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.lul.service;
+
+import com.lul.entity.OtpLog;
+import com.lul.entity.OtpStatus;
+import com.lul.entity.RegistrationTask;
+import com.lul.entity.User;
+import com.lul.enums.RegistrationStage;
+import com.lul.enums.RegistrationTaskStatus;
+import com.lul.repository.OtpLogRepository;
+import com.lul.repository.RegistrationTaskRepository;
+import com.lul.repository.UserProfileRepository;
+import com.lul.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegistrationPipelineServiceTest {
+
+    private static final Long TASK_ID = 11L;
+    private static final Long USER_ID = 42L;
+
+    @Mock
+    private RegistrationTaskRepository taskRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserProfileRepository userProfileRepository;
+    @Mock
+    private OtpLogRepository otpLogRepository;
+    @Mock
+    private SmsService smsService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private WalletService walletService;
+
+    private RegistrationPipelineService registrationPipelineService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        registrationPipelineService = new RegistrationPipelineService(taskRepository, userRepository,
+            userProfileRepository, otpLogRepository, smsService, emailService, walletService, transactionTemplate,
+            new SimpleMeterRegistry(), 1, 10, 3, 30000, 120000);
+
+        User user = new User();
+        user.setId(USER_ID);
+        user.setPhoneNumber("256700000000");
+        user.setEmail("user@example.com");
+        user.setUsername("user");
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(taskRepository.acquireLease(eq(TASK_ID), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrationPipelineService.shutdown();
+    }
+
+    @Test
+    void processTask_SmsRejected_ShouldScheduleRetry() {
+        // Arrange
+        RegistrationTask task = task(RegistrationStage.OTP_SMS, 1, 7L);
+        when(otpLogRepository.findById(7L)).thenReturn(Optional.of(otpLog(1)));
+        when(smsService.sendSms(anyString(), anyString())).thenReturn(false);
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        registrationPipelineService.processTask(TASK_ID);
+
+        // Assert
+        assertEquals(RegistrationTaskStatus.PENDING, task.getStatus());
+        assertTrue(task.getNextAttemptAt().isAfter(before));
+        assertNotNull(task.getLastError());
+        verify(taskRepository).save(task);
+    }
+
+    @Test
+    void processTask_LastAttemptFails_ShouldMarkFailed() {
+        // Arrange
+        RegistrationTask task = task(RegistrationStage.DEFAULT_WALLETS, 3, null);
+        when(walletService.createDefaultWallets(any())).thenReturn(Map.of("status", "error", "message", "db down"));
+
+        // Act
+        registrationPipelineService.processTask(TASK_ID);
+
+        // Assert
+        assertEquals(RegistrationTaskStatus.FAILED, task.getStatus());
+        assertEquals("db down", task.getLastError());
+    }
+
+    @Test
+    void processTask_OtpAlreadyVerified_ShouldCompleteWithoutSending() {
+        // Arrange
+        RegistrationTask task = task(RegistrationStage.OTP_SMS, 1, 7L);
+        when(otpLogRepository.findById(7L)).thenReturn(Optional.of(otpLog(2)));
+
+        // Act
+        registrationPipelineService.processTask(TASK_ID);
+
+        // Assert
+        assertEquals(RegistrationTaskStatus.DONE, task.getStatus());
+        verify(smsService, never()).sendSms(anyString(), anyString());
+    }
+
+    @Test
+    void scheduleDefaultWallets_AlreadyScheduled_ShouldNotScheduleAgain() {
+        // Arrange
+        when(taskRepository.existsByUserIdAndStage(USER_ID, RegistrationStage.DEFAULT_WALLETS)).thenReturn(true);
+
+        // Act
+        registrationPipelineService.scheduleDefaultWallets(USER_ID);
+
+        // Assert
+        verify(taskRepository, never()).save(any());
+        verify(walletService, never()).createDefaultWallets(any());
+    }
+
+    private RegistrationTask task(RegistrationStage stage, int attempts, Long referenceId) {
+        RegistrationTask task = new RegistrationTask();
+        task.setId(TASK_ID);
+        task.setUserId(USER_ID);
+        task.setStage(stage);
+        task.setReferenceId(referenceId);
+        task.setStatus(RegistrationTaskStatus.PENDING);
+        // The lease has already incremented attempts
+        task.setAttempts(attempts);
+        task.setCreatedAt(LocalDateTime.now());
+        task.setNextAttemptAt(LocalDateTime.now());
+        when(taskRepository.findById(TASK_ID)).thenReturn(Optional.of(task));
+        return task;
+    }
+
+    private static OtpLog otpLog(int statusId) {
+        OtpStatus status = new OtpStatus();
+        status.setId(statusId);
+        OtpLog otpLog = new OtpLog();
+        otpLog.setOtpCode("123456");
+        otpLog.setStatus(status);
+        return otpLog;
+    }
+}
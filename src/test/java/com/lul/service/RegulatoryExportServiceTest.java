@@ -0,0 +1,168 @@
+package com.lul.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lul.dto.RegulatoryExportDto;
+import com.lul.dto.RegulatoryExportPartitionDto;
+import com.lul.repository.TransactionHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegulatoryExportServiceTest {
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @TempDir
+    Path directory;
+
+    private RegulatoryExportService regulatoryExportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        regulatoryExportService = new RegulatoryExportService(transactionHistoryRepository, dataSource,
+            new ObjectMapper().findAndRegisterModules(), directory.toString(), 100, 2, 0);
+
+        // Transaction IDs 1..150 make partitions [1, 101) and [101, 151), one row each
+        when(transactionHistoryRepository.findMinId()).thenReturn(1);
+        when(transactionHistoryRepository.findMaxId()).thenReturn(150);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> singleRow());
+    }
+
+    @AfterEach
+    void tearDown() {
+        regulatoryExportService.shutdown();
+    }
+
+    @Test
+    void startExport_ShouldWriteOneCompressedFilePerPartitionAndManifest() throws Exception {
+        // Act
+        RegulatoryExportDto started = regulatoryExportService.startExport(null, null);
+        RegulatoryExportDto export = awaitCompletion(started.getExportId());
+
+        // Assert
+        assertEquals(2, export.getPartitionsTotal());
+        assertEquals(2, export.getPartitions().size());
+        assertEquals(2L, export.getTotalRows());
+        Path exportDirectory = directory.resolve(export.getExportId());
+        assertTrue(Files.exists(exportDirectory.resolve(RegulatoryExportService.MANIFEST_FILE)));
+
+        RegulatoryExportPartitionDto first = export.getPartitions().get(0);
+        assertEquals(1, first.getFromId());
+        assertEquals(101, first.getToId());
+        Path file = exportDirectory.resolve(first.getFile());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))),
+            first.getSha256());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            assertEquals("id,description\n7,\"rent, March\"\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        verify(connection, times(2)).setReadOnly(true);
+    }
+
+    @Test
+    void resumeExport_ShouldOnlyExportIncompletePartitions() throws Exception {
+        // Arrange: an export interrupted before the second partition completed
+        String exportId = regulatoryExportService.startExport(null, null).getExportId();
+        awaitCompletion(exportId);
+        Path exportDirectory = directory.resolve(exportId);
+        Files.delete(exportDirectory.resolve(RegulatoryExportService.MANIFEST_FILE));
+        Files.delete(exportDirectory.resolve("part-00001.json"));
+
+        // Act
+        regulatoryExportService.resumeExport(exportId);
+        RegulatoryExportDto export = awaitCompletion(exportId);
+
+        // Assert
+        verify(statement, times(3)).executeQuery();
+        assertEquals(2, export.getPartitions().size());
+        assertEquals(2L, export.getTotalRows());
+        assertTrue(Files.exists(exportDirectory.resolve(RegulatoryExportService.MANIFEST_FILE)));
+    }
+
+    @Test
+    void startExport_ShouldKeepFilesReadableByOwnerOnly() throws Exception {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        // Act
+        RegulatoryExportDto export = awaitCompletion(regulatoryExportService.startExport(null, null).getExportId());
+
+        // Assert
+        Path exportDirectory = directory.resolve(export.getExportId());
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(exportDirectory));
+        assertEquals(PosixFilePermissions.fromString("rw-------"),
+            Files.getPosixFilePermissions(exportDirectory.resolve(export.getPartitions().get(0).getFile())));
+        assertEquals(PosixFilePermissions.fromString("rw-------"),
+            Files.getPosixFilePermissions(exportDirectory.resolve(RegulatoryExportService.MANIFEST_FILE)));
+    }
+
+    @Test
+    void constructor_RelativeDirectory_ShouldBeRejected() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RegulatoryExportService(transactionHistoryRepository,
+            dataSource, new ObjectMapper(), "exports/regulatory", 100, 2, 0));
+    }
+
+    private RegulatoryExportDto awaitCompletion(String exportId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        RegulatoryExportDto export = regulatoryExportService.getExport(exportId);
+        while (!RegulatoryExportDto.COMPLETED.equals(export.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            export = regulatoryExportService.getExport(exportId);
+        }
+        assertEquals(RegulatoryExportDto.COMPLETED, export.getStatus());
+        return export;
+    }
+
+    private static ResultSet singleRow() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("description");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn("7");
+        when(resultSet.getString(2)).thenReturn("rent, March");
+        return resultSet;
+    }
+}
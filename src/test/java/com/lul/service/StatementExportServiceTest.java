@@ -0,0 +1,137 @@
+package com.lul.service;
+
+import com.lul.dto.TransactionHistoryItemDto;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.UserWalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests tagged bounded-heap run in their own surefire fork with a small fixed heap (see pom.xml), so
+ * buffering the statement instead of streaming it would fail the million-row export with an OutOfMemoryError.
+ */
+class StatementExportServiceTest {
+
+    private static final int WALLET_ID = 42;
+    private static final int ROWS = 1_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Mock
+    private UserWalletRepository userWalletRepository;
+
+    private StatementExportService statementExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        statementExportService = new StatementExportService(transactionHistoryRepository, userWalletRepository,
+                600_000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statementExportService.shutdown();
+    }
+
+    @Test
+    @Tag("bounded-heap")
+    void exportCsv_ShouldStreamMillionRows_InConstantMemory() throws Exception {
+        // Arrange: the repository cursor yields its rows lazily, as the database would
+        LocalDateTime to = START.plusSeconds(ROWS);
+        when(transactionHistoryRepository.streamWalletStatement(WALLET_ID, START, to))
+            .thenReturn(LongStream.range(0, ROWS).mapToObj(StatementExportServiceTest::statementRow));
+        CountingOutputStream sink = new CountingOutputStream();
+
+        // Act
+        long written = statementExportService.exportCsv(WALLET_ID, START, to, sink, false);
+
+        // Assert
+        assertEquals(ROWS, written);
+        assertEquals(ROWS + 1, sink.lines);
+    }
+
+    @Test
+    void writeCsv_WithGzip_ShouldProduceValidEscapedCsv() throws Exception {
+        // Arrange
+        TransactionHistoryItemDto debit = syntheticRow(1);
+        debit.setDescription("Rent, \"March\"");
+        TransactionHistoryItemDto credit = syntheticRow(2);
+        credit.setSenderWalletId(7);
+        credit.setReceiverWalletId(WALLET_ID);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        statementExportService.writeCsv(Stream.of(debit, credit), WALLET_ID, out, true);
+
+        // Assert
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(StatementExportService.CSV_HEADER, lines[0]);
+        assertTrue(lines[1].contains(",DEBIT,"));
+        assertTrue(lines[1].endsWith(",UGX,\"Rent, \"\"March\"\"\""));
+        assertTrue(lines[2].contains(",CREDIT,"));
+    }
+
+    private static Object[] statementRow(long i) {
+        TransactionHistoryItemDto item = syntheticRow(i);
+        return new Object[] {item.getId(), item.getTransactionId(), item.getSenderId(), item.getReceiverId(),
+                item.getSenderWalletId(), item.getReceiverWalletId(), item.getTransactionTypeId(),
+                item.getTransactionStatusId(), item.getTransactedValue(), item.getFee(), item.getTotalAmount(),
+                item.getCurrency(), item.getDescription(), Timestamp.valueOf(item.getCreatedAt()),
+                Timestamp.valueOf(item.getCompletedAt())};
+    }
+
+    private static TransactionHistoryItemDto syntheticRow(long i) {
+        BigDecimal amount = BigDecimal.valueOf(1000 + (i % 5000), 2);
+        BigDecimal fee = BigDecimal.valueOf(20 + (i % 100), 2);
+        LocalDateTime createdAt = START.plusSeconds(i);
+        return new TransactionHistoryItemDto((int) i, 100_000_000L + i, 1, 2, WALLET_ID, 7, 1, 2,
+                amount, fee, amount.add(fee), "UGX", "Transfer " + i, createdAt, createdAt.plusSeconds(1));
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.lul.service;
+
+import com.lul.dto.TransactionHistoryFilter;
+import com.lul.dto.TransactionHistoryItemDto;
+import com.lul.dto.TransactionHistoryPageDto;
+import com.lul.exception.BadRequestException;
+import com.lul.repository.UserWalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionHistoryServiceTest {
+
+    private static final long USER_ID = 7L;
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Mock
+    private UserWalletRepository userWalletRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<TransactionHistoryItemDto> sentQuery;
+
+    @Mock
+    private TypedQuery<TransactionHistoryItemDto> receivedQuery;
+
+    @Mock
+    private TypedQuery<TransactionHistoryItemDto> undatedQuery;
+
+    private TransactionHistoryService transactionHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transactionHistoryService = new TransactionHistoryService(userWalletRepository);
+        ReflectionTestUtils.setField(transactionHistoryService, "entityManager", entityManager);
+        when(entityManager.createQuery(argThat((String jpql) -> jpql != null && jpql.contains("t.senderId = :partyId")),
+            eq(TransactionHistoryItemDto.class))).thenReturn(sentQuery);
+        when(entityManager.createQuery(argThat((String jpql) -> jpql != null && jpql.contains("t.receiverId = :partyId")),
+            eq(TransactionHistoryItemDto.class))).thenReturn(receivedQuery);
+        for (TypedQuery<TransactionHistoryItemDto> query : List.of(sentQuery, receivedQuery)) {
+            when(query.setParameter(anyString(), any())).thenReturn(query);
+            when(query.setMaxResults(anyInt())).thenReturn(query);
+        }
+    }
+
+    @Test
+    void getHistory_BothDirections_ShouldMergeNewestFirstAndKeepSelfTransfersOnce() {
+        // Arrange: transfer 3 is to the user's own other wallet, so it is both sent and received
+        when(sentQuery.getResultList()).thenReturn(rows(item(5, NOON.plusMinutes(5)), item(3, NOON.plusMinutes(3)),
+            item(1, NOON.plusMinutes(1))));
+        when(receivedQuery.getResultList()).thenReturn(rows(item(4, NOON.plusMinutes(4)), item(3, NOON.plusMinutes(3)),
+            item(2, NOON.plusMinutes(2))));
+
+        // Act
+        TransactionHistoryPageDto page = transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), null, 4);
+
+        // Assert
+        assertEquals(List.of(5, 4, 3, 2), ids(page));
+        assertEquals("SENT", page.getItems().get(0).getDirection());
+        assertEquals("RECEIVED", page.getItems().get(1).getDirection());
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    void getHistory_TiesOnCreatedAt_ShouldOrderByIdAndPutUndatedRowsLast() {
+        // Arrange
+        when(sentQuery.getResultList()).thenReturn(rows(item(8, NOON), item(6, NOON)));
+        when(receivedQuery.getResultList()).thenReturn(rows(item(9, null), item(7, NOON)));
+
+        // Act
+        TransactionHistoryPageDto page = transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), null, 10);
+
+        // Assert
+        assertEquals(List.of(8, 7, 6, 9), ids(page));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getHistory_NextCursor_ShouldSeekBothSidesFromTheLastRowOfThePage() {
+        // Arrange: the page ends on a row that shares its created_at with the next one
+        when(sentQuery.getResultList()).thenReturn(rows(item(12, NOON.plusMinutes(1)), item(11, NOON), item(10, NOON)));
+        when(receivedQuery.getResultList()).thenReturn(rows());
+        TransactionHistoryPageDto first = transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), null, 2);
+
+        // Act
+        transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(12, 11), ids(first));
+        for (TypedQuery<TransactionHistoryItemDto> query : List.of(sentQuery, receivedQuery)) {
+            verify(query).setParameter("cursorCreatedAt", NOON);
+            verify(query).setParameter("cursorId", 11);
+        }
+    }
+
+    @Test
+    void getHistory_PageEndingOnUndatedRow_ShouldContinueWithTheUndatedTail() {
+        // Arrange: the first page ends on undated row 9; the next page seeks the undated rows below it
+        when(sentQuery.getResultList()).thenReturn(rows(item(8, NOON), item(9, null), item(5, null)));
+        when(receivedQuery.getResultList()).thenReturn(rows());
+        TransactionHistoryPageDto first = transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), null, 2);
+        when(entityManager.createQuery(argThat((String jpql) -> jpql != null && jpql.contains("t.senderId = :partyId")
+            && jpql.contains("t.createdAt IS NULL AND t.id < :cursorId")), eq(TransactionHistoryItemDto.class)))
+            .thenReturn(undatedQuery);
+        when(undatedQuery.setParameter(anyString(), any())).thenReturn(undatedQuery);
+        when(undatedQuery.setMaxResults(anyInt())).thenReturn(undatedQuery);
+        when(undatedQuery.getResultList()).thenReturn(rows(item(5, null)));
+
+        // Act
+        TransactionHistoryPageDto second = transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(),
+            first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(8, 9), ids(first));
+        assertEquals(List.of(5), ids(second));
+        assertFalse(second.isHasMore());
+        verify(undatedQuery).setParameter("cursorId", 9);
+    }
+
+    @Test
+    void getHistory_TamperedCursor_ShouldBeRejected() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () ->
+            transactionHistoryService.getHistory(USER_ID, new TransactionHistoryFilter(), "not-a-cursor", 2));
+    }
+
+    private static List<TransactionHistoryItemDto> rows(TransactionHistoryItemDto... items) {
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    private static List<Integer> ids(TransactionHistoryPageDto page) {
+        return page.getItems().stream().map(TransactionHistoryItemDto::getId).toList();
+    }
+
+    private static TransactionHistoryItemDto item(int id, LocalDateTime createdAt) {
+        BigDecimal amount = new BigDecimal("10.00");
+        return new TransactionHistoryItemDto(id, 1_000L + id, (int) USER_ID, 8, 70, 80, 1, 2,
+            amount, BigDecimal.ZERO, amount, "UGX", null, createdAt, createdAt);
+    }
+}
@@ -0,0 +1,83 @@
+package com.lul.service;
+
+import com.lul.dto.DashboardTimeSeriesDto;
+import com.lul.dto.RollupBucketDto;
+import com.lul.enums.RollupGranularity;
+import com.lul.enums.TimeSeriesDimension;
+import com.lul.enums.TimeSeriesInterval;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.TransactionRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionRollupServiceTest {
+
+    @Mock
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    private DashboardTimeSeriesService dashboardTimeSeriesService;
+    private TransactionRollupService transactionRollupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dashboardTimeSeriesService = new DashboardTimeSeriesService(
+            transactionRollupRepository, transactionHistoryRepository, 400, 10, 1000);
+        transactionRollupService = new TransactionRollupService(transactionRollupRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), dashboardTimeSeriesService, 120);
+    }
+
+    @Test
+    void flushPendingDeltas_TransferSettledInCachedClosedHour_ShouldReloadThatHour() {
+        // Arrange: an hour that closed hours ago is cached with one transfer
+        LocalDateTime hour = RollupGranularity.HOUR.bucketStart(LocalDateTime.now()).minusHours(5);
+        when(transactionRollupRepository.findBuckets(RollupGranularity.HOUR, hour, hour.plusHours(1))).thenReturn(
+            List.of(row(hour, 1, "100.00")), List.of(row(hour, 2, "150.00")));
+        dashboardTimeSeriesService.getTimeSeries(hour, hour.plusHours(1), TimeSeriesInterval.HOUR,
+            TimeSeriesDimension.NONE, null, null);
+
+        // Act: a non-wallet transfer created in that hour settles now
+        transactionRollupService.onTransferCompleted(TransferCompletedEvent.builder()
+            .transactionTypeId(2)
+            .amount(new BigDecimal("50.00"))
+            .fee(BigDecimal.ZERO)
+            .currency("UGX")
+            .receiverCurrency("UGX")
+            .createdAt(hour.plusMinutes(10))
+            .build());
+        transactionRollupService.flushPendingDeltas();
+        DashboardTimeSeriesDto result = dashboardTimeSeriesService.getTimeSeries(hour, hour.plusHours(1),
+            TimeSeriesInterval.HOUR, TimeSeriesDimension.NONE, null, null);
+
+        // Assert
+        verify(transactionRollupRepository).incrementBucket(eq(RollupGranularity.HOUR.name()), eq(hour), eq("UGX"),
+            eq("UGX"), eq(2), anyLong(), any(), any());
+        assertEquals(2L, result.getSeries().get(0).getPoints().get(0).getCount());
+        verify(transactionRollupRepository, times(2)).findBuckets(RollupGranularity.HOUR, hour, hour.plusHours(1));
+    }
+
+    private static RollupBucketDto row(LocalDateTime bucketStart, long count, String value) {
+        return new RollupBucketDto(bucketStart, "UGX", "UGX", 2, count, new BigDecimal(value), BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,121 @@
+package com.lul.service;
+
+import com.lul.constant.ErrorCode;
+import com.lul.dto.TransferQuoteDto;
+import com.lul.dto.TransferQuoteDto.TransferType;
+import com.lul.exception.LulPayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransferQuoteServiceTest {
+
+    private static final String SECRET = Base64.getEncoder()
+        .encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Mock
+    private TransferPricingService transferPricingService;
+
+    private TransferQuoteService transferQuoteService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transferQuoteService = new TransferQuoteService(transferPricingService, 60, 100, SECRET);
+        when(transferPricingService.price(TransferType.WALLET, 2, 1, AMOUNT)).thenReturn(TransferQuoteDto.builder()
+            .transferType(TransferType.WALLET)
+            .senderWalletTypeId(2)
+            .receiverWalletTypeId(1)
+            .amount(AMOUNT)
+            .fee(new BigDecimal("2.00"))
+            .totalAmount(new BigDecimal("102.00"))
+            .exchangeRateId(7)
+            .exchangeRate(new BigDecimal("3750"))
+            .convertedAmount(new BigDecimal("375000.00"))
+            .build());
+    }
+
+    @Test
+    void createQuote_ShouldReuseLiveQuote_ForSameParameters() {
+        // Act
+        TransferQuoteDto first = transferQuoteService.createQuote(10L, TransferType.WALLET, 2, 1, AMOUNT);
+        TransferQuoteDto second = transferQuoteService.createQuote(10L, TransferType.WALLET, 2, 1, new BigDecimal("100"));
+
+        // Assert
+        assertEquals(first.getQuoteId(), second.getQuoteId());
+        verify(transferPricingService, times(1)).price(TransferType.WALLET, 2, 1, AMOUNT);
+    }
+
+    @Test
+    void redeemQuote_ShouldReturnLockedPricingOnlyOnce() {
+        // Arrange
+        TransferQuoteDto quote = transferQuoteService.createQuote(10L, TransferType.WALLET, 2, 1, AMOUNT);
+
+        // Act
+        TransferQuoteDto redeemed = transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, AMOUNT);
+
+        // Assert
+        assertEquals(new BigDecimal("2.00"), redeemed.getFee());
+        assertEquals(7, redeemed.getExchangeRateId());
+        LulPayException reuse = assertThrows(LulPayException.class, () ->
+            transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, AMOUNT));
+        assertEquals(ErrorCode.QUOTE_EXPIRED, reuse.getErrorCode());
+    }
+
+    @Test
+    void redeemQuote_TransferRolledBack_ShouldReturnQuoteToStore() {
+        // Arrange
+        TransferQuoteDto quote = transferQuoteService.createQuote(10L, TransferType.WALLET, 2, 1, AMOUNT);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act: the transfer redeeming the quote fails and rolls back
+        try {
+            transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, AMOUNT);
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        TransferQuoteDto redeemed = transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, AMOUNT);
+        assertEquals(quote.getQuoteId(), redeemed.getQuoteId());
+    }
+
+    @Test
+    void redeemQuote_ShouldRejectMismatchedOrTamperedQuote() {
+        // Arrange
+        TransferQuoteDto quote = transferQuoteService.createQuote(10L, TransferType.WALLET, 2, 1, AMOUNT);
+        String tampered = quote.getQuoteToken().substring(0, quote.getQuoteToken().length() - 2) + "xx";
+
+        // Act & Assert
+        LulPayException otherUser = assertThrows(LulPayException.class, () ->
+            transferQuoteService.redeemQuote(quote.getQuoteToken(), 11L, TransferType.WALLET, 2, 1, AMOUNT));
+        assertEquals(ErrorCode.QUOTE_INVALID, otherUser.getErrorCode());
+
+        LulPayException otherAmount = assertThrows(LulPayException.class, () ->
+            transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, new BigDecimal("150.00")));
+        assertEquals(ErrorCode.QUOTE_INVALID, otherAmount.getErrorCode());
+
+        LulPayException badSignature = assertThrows(LulPayException.class, () ->
+            transferQuoteService.redeemQuote(tampered, 10L, TransferType.WALLET, 2, 1, AMOUNT));
+        assertEquals(ErrorCode.QUOTE_INVALID, badSignature.getErrorCode());
+
+        // The original quote is still redeemable after rejected attempts
+        assertNotEquals(null, transferQuoteService.redeemQuote(quote.getQuoteToken(), 10L, TransferType.WALLET, 2, 1, AMOUNT));
+    }
+}
@@ -0,0 +1,115 @@
+package com.lul.service;
+
+import com.lul.enums.UserChangeType;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.repository.UserChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserChangeServiceTest {
+
+    private static final Long USER_ID = 42L;
+
+    @Mock
+    private UserChangeRepository userChangeRepository;
+
+    private final AtomicLong clock = new AtomicLong();
+    private UserChangeService userChangeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        userChangeService = new UserChangeService(userChangeRepository, transactionTemplate,
+            Duration.ofSeconds(5), 100, 30, clock::get);
+    }
+
+    @Test
+    void version_WithinTtl_ShouldNotQueryAgain() {
+        // Arrange
+        when(userChangeRepository.findVersion(USER_ID)).thenReturn(7L);
+
+        // Act
+        long first = userChangeService.version(USER_ID);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        long second = userChangeService.version(USER_ID);
+
+        // Assert
+        assertEquals(7L, first);
+        assertEquals(7L, second);
+        verify(userChangeRepository, times(1)).findVersion(USER_ID);
+    }
+
+    @Test
+    void record_OutsideTransaction_ShouldDropCachedVersion() {
+        // Arrange
+        when(userChangeRepository.findVersion(USER_ID)).thenReturn(7L, 8L);
+        userChangeService.version(USER_ID);
+
+        // Act
+        clock.addAndGet(10);
+        userChangeService.record(USER_ID, UserChangeType.PROFILE, null);
+        clock.addAndGet(10);
+        long version = userChangeService.version(USER_ID);
+
+        // Assert
+        verify(userChangeRepository).record(USER_ID, "PROFILE", null);
+        assertEquals(8L, version);
+    }
+
+    @Test
+    void version_ChangeDuringRead_ShouldNotCacheTheOlderVersion() {
+        // Arrange: a transfer commits while the version is being read
+        when(userChangeRepository.findVersion(USER_ID)).thenAnswer(invocation -> {
+            clock.addAndGet(10);
+            userChangeService.changed(USER_ID);
+            return 7L;
+        }).thenReturn(8L);
+
+        // Act
+        long stale = userChangeService.version(USER_ID);
+        clock.addAndGet(10);
+        long fresh = userChangeService.version(USER_ID);
+
+        // Assert
+        assertEquals(7L, stale);
+        assertEquals(8L, fresh);
+        verify(userChangeRepository, times(2)).findVersion(USER_ID);
+    }
+
+    @Test
+    void onTransferCompleted_TransferBetweenOwnWallets_ShouldRecordBothWalletsAndOneTransaction() {
+        // Arrange
+        TransferCompletedEvent event = TransferCompletedEvent.builder()
+            .transactionId(1001L)
+            .senderId(42)
+            .receiverId(42)
+            .senderWalletId(7)
+            .receiverWalletId(8)
+            .build();
+
+        // Act
+        userChangeService.onTransferCompleted(event);
+
+        // Assert
+        verify(userChangeRepository).record(USER_ID, "WALLET", 7L);
+        verify(userChangeRepository).record(USER_ID, "WALLET", 8L);
+        verify(userChangeRepository, times(1)).record(USER_ID, "TRANSACTION", 1001L);
+        verify(userChangeRepository, times(3)).record(any(), anyString(), any());
+    }
+}
@@ -0,0 +1,108 @@
+package com.lul.service;
+
+import com.lul.dto.WalletViewDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserWalletViewCacheTest {
+
+    private static final Long USER_ID = 42L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private UserWalletViewCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserWalletViewCache(Duration.ofMinutes(1), 100, clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void applyAfterCommit_OutsideTransaction_ShouldUpdateCachedBalanceInPlace() {
+        // Arrange
+        clock.set(10);
+        cache.put(USER_ID, List.of(view(7L, "100.00"), view(8L, "5.00")), cache.now());
+
+        // Act
+        clock.set(20);
+        cache.applyAfterCommit(USER_ID, 7, new BigDecimal("-30.00"), new BigDecimal("30.00"));
+
+        // Assert
+        List<WalletViewDto> views = cache.get(USER_ID).orElseThrow();
+        assertEquals(new BigDecimal("70.00"), views.get(0).getAvailableBalance());
+        assertEquals(new BigDecimal("30.00"), views.get(0).getHeldBalance());
+        assertEquals(new BigDecimal("5.00"), views.get(1).getAvailableBalance());
+    }
+
+    @Test
+    void put_ReadStartedBeforeChange_ShouldNotBeCached() {
+        // Arrange: a listing read starts, then a transfer to the user commits
+        clock.set(10);
+        long staleReadStartedAt = cache.now();
+        clock.set(20);
+        cache.applyAfterCommit(USER_ID, 7, new BigDecimal("25.00"), BigDecimal.ZERO);
+
+        // Act
+        clock.set(30);
+        cache.put(USER_ID, List.of(view(7L, "100.00")), staleReadStartedAt);
+
+        // Assert
+        assertFalse(cache.get(USER_ID).isPresent());
+    }
+
+    @Test
+    void put_WhileChangeIsInFlight_ShouldNotBeCachedAndChangeShouldApplyOnCommit() {
+        // Arrange: a transfer registers its change but has not committed yet
+        TransactionSynchronizationManager.initSynchronization();
+        clock.set(10);
+        cache.applyAfterCommit(USER_ID, 7, new BigDecimal("-10.00"), BigDecimal.ZERO);
+        clock.set(20);
+        long readStartedAt = cache.now();
+
+        // Act: a listing read that may already see the committed row is put before the commit completes
+        cache.put(USER_ID, List.of(view(7L, "90.00")), readStartedAt);
+        boolean cachedWhilePending = cache.get(USER_ID).isPresent();
+        clock.set(30);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        clock.set(40);
+        cache.put(USER_ID, List.of(view(7L, "90.00")), cache.now());
+
+        // Assert
+        assertFalse(cachedWhilePending);
+        assertTrue(cache.get(USER_ID).isPresent());
+        assertEquals(new BigDecimal("90.00"), cache.get(USER_ID).orElseThrow().get(0).getAvailableBalance());
+    }
+
+    private static WalletViewDto view(Long id, String balance) {
+        return WalletViewDto.builder()
+            .id(id)
+            .walletTypeId(1)
+            .countryCode("ug")
+            .name("title_ugx")
+            .description("icon_ugx")
+            .code("UGX")
+            .availableBalance(new BigDecimal(balance))
+            .heldBalance(BigDecimal.ZERO)
+            .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.lul.service;
+
+import com.lul.repository.UserRepository;
+import com.lul.repository.UserWorkIdSequenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserWorkIdAllocatorTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    @Mock
+    private UserWorkIdSequenceRepository sequenceRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    private final AtomicLong nextIndex = new AtomicLong();
+    private UserWorkIdAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(sequenceRepository.reserve(eq("2503"), anyLong()))
+            .thenAnswer(invocation -> nextIndex.addAndGet(invocation.<Long>getArgument(1)));
+        when(userRepository.findExistingUserWorkIds(anyCollection())).thenReturn(List.of());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // A low-water mark of 0 keeps refills inline, so the test needs no background thread
+        allocator = new UserWorkIdAllocator(sequenceRepository, userRepository, transactionTemplate,
+            new SimpleMeterRegistry(), BATCH_SIZE, 0, 42L, () -> YearMonth.of(2025, 3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocator.shutdown();
+    }
+
+    @Test
+    void take_AcrossBatches_ShouldReturnDistinctIdsOfTheMonth() {
+        // Act
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 5 * BATCH_SIZE; i++) {
+            ids.add(allocator.take());
+        }
+
+        // Assert
+        assertEquals(5 * BATCH_SIZE, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id.matches("[A-HJ-NP-Z]{2}2503\\d{4}")));
+        verify(sequenceRepository, times(5)).reserve("2503", BATCH_SIZE);
+    }
+
+    @Test
+    void take_IdAlreadyTaken_ShouldSkipIt() {
+        // Arrange: the first ID of the first batch belongs to a user registered before the allocator
+        String first = allocator.take();
+        nextIndex.set(0);
+        when(userRepository.findExistingUserWorkIds(anyCollection())).thenReturn(List.of(first));
+        UserWorkIdAllocator restarted = new UserWorkIdAllocator(sequenceRepository, userRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(),
+            BATCH_SIZE, 0, 42L, () -> YearMonth.of(2025, 3));
+
+        // Act
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < BATCH_SIZE - 1; i++) {
+            ids.add(restarted.take());
+        }
+        restarted.shutdown();
+
+        // Assert
+        assertEquals(BATCH_SIZE - 1, ids.size());
+        assertFalse(ids.contains(first));
+    }
+}
@@ -0,0 +1,135 @@
+package com.lul.service;
+
+import com.lul.entity.TransactionHistory;
+import com.lul.entity.WalletHold;
+import com.lul.enums.WalletHoldStatus;
+import com.lul.event.TransferCompletedEvent;
+import com.lul.exception.InsufficientFundsException;
+import com.lul.repository.TransactionHistoryRepository;
+import com.lul.repository.UserWalletRepository;
+import com.lul.repository.WalletHoldRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletHoldServiceTest {
+
+    @Mock
+    private UserWalletRepository userWalletRepository;
+
+    @Mock
+    private WalletHoldRepository walletHoldRepository;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WalletHoldService walletHoldService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        UserWalletViewCache userWalletViewCache = new UserWalletViewCache(Duration.ofMinutes(1), 100, System::nanoTime);
+        walletHoldService = new WalletHoldService(userWalletRepository, walletHoldRepository,
+            transactionHistoryRepository, eventPublisher, transactionTemplate, userWalletViewCache, 100,
+            "Disbursed", "Failed");
+        when(walletHoldRepository.save(any(WalletHold.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        walletHoldService.shutdown();
+    }
+
+    @Test
+    void reserve_ShouldHoldTotalAmountAndCreditTransactedValueLater() {
+        // Arrange
+        TransactionHistory transaction = transfer();
+        when(userWalletRepository.reserve(3, new BigDecimal("102.00"))).thenReturn(1);
+
+        // Act
+        WalletHold hold = walletHoldService.reserve(transaction, 3, 7);
+
+        // Assert
+        assertEquals(WalletHoldStatus.HELD, hold.getStatus());
+        assertEquals(new BigDecimal("102.00"), hold.getAmount());
+        assertEquals(new BigDecimal("100.00"), hold.getCreditAmount());
+        assertEquals(7, hold.getCompanyWalletId());
+    }
+
+    @Test
+    void reserve_InsufficientAvailableBalance_ShouldThrowWithoutHold() {
+        // Arrange
+        when(userWalletRepository.reserve(3, new BigDecimal("102.00"))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(InsufficientFundsException.class, () -> walletHoldService.reserve(transfer(), 3, 7));
+        verify(walletHoldRepository, never()).save(any());
+    }
+
+    @Test
+    void sweep_ShouldResolveInBatchesUntilBacklogIsDrained() {
+        // Arrange: 250 paid out transfers and 10 rejected ones
+        when(walletHoldRepository.tryLockSettlement()).thenReturn(true);
+        when(walletHoldRepository.settle("Disbursed", 100)).thenReturn(ids(100), ids(100), ids(50));
+        when(walletHoldRepository.release("Failed", 100)).thenReturn(10L);
+
+        // Act
+        walletHoldService.sweep();
+
+        // Assert
+        verify(walletHoldRepository, times(3)).settle("Disbursed", 100);
+        verify(walletHoldRepository, times(1)).release("Failed", 100);
+    }
+
+    @Test
+    void sweep_SettledTransfers_ShouldPublishTheirCompletion() {
+        // Arrange
+        TransactionHistory transaction = transfer();
+        transaction.setTransactionStatusId(2);
+        when(walletHoldRepository.tryLockSettlement()).thenReturn(true);
+        when(walletHoldRepository.settle("Disbursed", 100)).thenReturn(List.of(11));
+        when(transactionHistoryRepository.findAllById(List.of(11))).thenReturn(List.of(transaction));
+
+        // Act
+        walletHoldService.sweep();
+
+        // Assert
+        verify(eventPublisher).publishEvent(any(TransferCompletedEvent.class));
+    }
+
+    private static List<Integer> ids(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    private static TransactionHistory transfer() {
+        TransactionHistory transaction = new TransactionHistory();
+        transaction.setId(11);
+        transaction.setSenderId(5);
+        transaction.setTransactedValue(new BigDecimal("100.00"));
+        transaction.setTotalAmount(new BigDecimal("102.00"));
+        return transaction;
+    }
+}
@@ -0,0 +1,134 @@
+package com.lul.service;
+
+import com.lul.exception.InsufficientFundsException;
+import com.lul.repository.UserWalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletPostingEngineTest {
+
+    @Mock
+    private UserWalletRepository userWalletRepository;
+
+    private WalletPostingEngine walletPostingEngine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // Disabled so no writer threads start; batches are posted directly
+        walletPostingEngine = new WalletPostingEngine(userWalletRepository, transactionTemplate,
+            new SimpleMeterRegistry(), false, 2, 16, 100, 0);
+        when(userWalletRepository.lockBalances(any())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{1, new BigDecimal("25.00")});
+            rows.add(new Object[]{2, new BigDecimal("0.00")});
+            rows.add(new Object[]{3, new BigDecimal("5.00")});
+            return rows;
+        });
+    }
+
+    @Test
+    void postBatch_ShouldLockOnceAndWriteNetBalancePerWallet() throws Exception {
+        // Arrange
+        WalletPostingEngine.Posting<BigDecimal> first = posting(1, "10.00", 2, balanceAfter -> balanceAfter);
+        WalletPostingEngine.Posting<BigDecimal> second = posting(1, "5.00", 3, balanceAfter -> balanceAfter);
+
+        // Act
+        walletPostingEngine.postBatch(List.of(first, second));
+
+        // Assert
+        verify(userWalletRepository, times(1)).lockBalances(List.of(1, 2, 3));
+        verify(userWalletRepository).addToBalance(1, new BigDecimal("-15.00"));
+        verify(userWalletRepository).addToBalance(2, new BigDecimal("10.00"));
+        verify(userWalletRepository).addToBalance(3, new BigDecimal("5.00"));
+        assertEquals(new BigDecimal("15.00"), first.getFuture().get());
+        assertEquals(new BigDecimal("10.00"), second.getFuture().get());
+    }
+
+    @Test
+    void postBatch_InsufficientFunds_ShouldOnlyFailThatPosting() throws Exception {
+        // Arrange: wallet 1 holds 25.00, enough for the first posting only
+        WalletPostingEngine.Posting<BigDecimal> first = posting(1, "20.00", 2, balanceAfter -> balanceAfter);
+        WalletPostingEngine.Posting<BigDecimal> second = posting(1, "10.00", 3, balanceAfter -> balanceAfter);
+
+        // Act
+        walletPostingEngine.postBatch(List.of(first, second));
+
+        // Assert
+        assertEquals(new BigDecimal("5.00"), first.getFuture().get());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.getFuture().get());
+        assertInstanceOf(InsufficientFundsException.class, failure.getCause());
+        verify(userWalletRepository).addToBalance(1, new BigDecimal("-20.00"));
+        verify(userWalletRepository, never()).addToBalance(3, new BigDecimal("10.00"));
+    }
+
+    @Test
+    void postBatch_RecorderFails_ShouldSplitBatchAndCommitTheRest() throws Exception {
+        // Arrange
+        WalletPostingEngine.Posting<String> good = posting(1, "10.00", 2, balanceAfter -> "recorded");
+        WalletPostingEngine.Posting<String> bad = posting(3, "1.00", 2, balanceAfter -> {
+            throw new IllegalStateException("duplicate idempotency key");
+        });
+
+        // Act
+        walletPostingEngine.postBatch(List.of(good, bad));
+
+        // Assert: the failed batch plus one transaction per half
+        verify(userWalletRepository, times(3)).lockBalances(any());
+        assertEquals("recorded", good.getFuture().get());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.getFuture().get());
+        assertEquals("duplicate idempotency key", failure.getCause().getMessage());
+    }
+
+    @Test
+    void postBatch_OneBadPostingInLargerBatch_ShouldIsolateItByBisection() throws Exception {
+        // Arrange
+        List<WalletPostingEngine.Posting<String>> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            batch.add(posting(1, "1.00", 2, balanceAfter -> "recorded"));
+        }
+        WalletPostingEngine.Posting<String> bad = posting(1, "1.00", 3, balanceAfter -> {
+            throw new IllegalStateException("constraint violation");
+        });
+        batch.add(bad);
+
+        // Act
+        walletPostingEngine.postBatch(new ArrayList<>(batch));
+
+        // Assert: 4 fails, [1, 2] commits, [3, 4] fails, [3] commits, [4] fails
+        verify(userWalletRepository, times(5)).lockBalances(any());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("recorded", batch.get(i).getFuture().get());
+        }
+        assertThrows(ExecutionException.class, () -> bad.getFuture().get());
+    }
+
+    private static <R> WalletPostingEngine.Posting<R> posting(Integer debitWalletId, String amount,
+                                                              Integer creditWalletId,
+                                                              Function<BigDecimal, R> recorder) {
+        BigDecimal value = new BigDecimal(amount);
+        return new WalletPostingEngine.Posting<>(debitWalletId, value, creditWalletId, value, recorder);
+    }
+}